@@ -0,0 +1,150 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A benchmark measuring reads of accounts' balances and numbers of transactions during concurrent postings:
+ * reads under accounts' locks (the same locks postings take) versus lock-free reads of Account.getState.
+ * Every thread mixes reads and postings of a few shared accounts: a read-heavy mix (90% reads)
+ * and a write-heavy one (10% reads). Every posting adds one cent, so a consistent read has a balance equal
+ * to a number of transactions; inconsistent reads are counted.
+ *
+ * Usage: java AccountStateBenchmark [threads] [accounts] [operationsPerThread]
+ * e.g.   java AccountStateBenchmark 2,4,8 8 2000000
+ */
+public class AccountStateBenchmark {
+
+    /**
+     * Percentages of reads of the measured mixes.
+     */
+    private static final int[] READ_PERCENTAGES = {90, 10};
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: threads' counts, a number of accounts and operations per thread.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int available = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = BenchmarkSupport.parseSizes(args, 0, new int[]{2, Math.max(4, available)});
+        int numberOfAccounts = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int operationsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        System.out.printf("%8s %8s %10s %14s %14s %14s %12s\n", "threads", "reads %", "reads",
+                "operations/s", "postings/s", "reads/s", "inconsistent");
+
+        for (int threads : threadCounts) {
+            for (int readPercentage : READ_PERCENTAGES) {
+                for (boolean isLockFree : new boolean[]{false, true}) {
+                    AccountStateBenchmark.run(threads, readPercentage, isLockFree, numberOfAccounts, operationsPerThread);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method runs a mix of reads and postings on a given number of threads and prints a result's line.
+     *
+     * @param threads             A number of threads.
+     * @param readPercentage      A percentage of reads.
+     * @param isLockFree          true - Account.getState, false - reads under accounts' locks.
+     * @param numberOfAccounts    A number of shared accounts.
+     * @param operationsPerThread A number of operations made by a thread.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static void run(int threads, int readPercentage, boolean isLockFree, int numberOfAccounts,
+                            int operationsPerThread) throws InterruptedException {
+
+        Bank bank = new Bank("Benchmark bank");
+        PostingEngine engine = bank.getPostingEngine();
+
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        Account[] accounts = new Account[numberOfAccounts];
+        for (int a = 0; a < numberOfAccounts; ++a) {
+            accounts[a] = new Account("Checking", user, bank);
+        }
+        long memoCode = bank.getMemoDictionary().encode("Deposit");
+
+        long[] reads = new long[threads];
+        long[] inconsistentReads = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ownReads = 0;
+                long ownInconsistentReads = 0;
+                for (int i = 0; i < operationsPerThread; ++i) {
+                    Account account = accounts[random.nextInt(accounts.length)];
+
+                    if (random.nextInt(100) >= readPercentage) {
+                        account.appendTransaction(1, memoCode);
+                        continue;
+                    }
+
+                    long balance;
+                    int numberOfTransactions;
+                    if (isLockFree) {
+                        AccountState state = account.getState();
+                        balance = state.getBalance();
+                        numberOfTransactions = state.getNumberOfTransactions();
+                    } else {
+                        ReentrantLock lock = engine.getLock(account);
+                        lock.lock();
+                        try {
+                            balance = account.getBalance();
+                            numberOfTransactions = account.getNumberOfTransactions();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+
+                    ++ownReads;
+                    if (balance != numberOfTransactions) {
+                        ++ownInconsistentReads;
+                    }
+                }
+                reads[worker] = ownReads;
+                inconsistentReads[worker] = ownInconsistentReads;
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        long totalReads = 0;
+        long totalInconsistentReads = 0;
+        for (int t = 0; t < threads; ++t) {
+            totalReads += reads[t];
+            totalInconsistentReads += inconsistentReads[t];
+        }
+        long operations = (long) threads * operationsPerThread;
+
+        System.out.printf("%8d %8d %10s %14.0f %14.0f %14.0f %12d\n", threads, readPercentage,
+                isLockFree ? "lock-free" : "locked", operations * 1e9 / elapsed,
+                (operations - totalReads) * 1e9 / elapsed, totalReads * 1e9 / elapsed, totalInconsistentReads);
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * A load-test client of AtmServer. It opens many idle connections, then runs active sessions
+ * (login, deposit, withdraw, transfer, summary) on a few threads and reports a throughput and latencies.
+ *
+ * Usage: java AtmLoadClient host port usersIdsFile [idleConnections] [activeSessions] [operationsPerSession]
+ * e.g.   java AtmServer 5000 1000 users.txt
+ *        java AtmLoadClient localhost 5000 users.txt 20000 32 10000
+ * (many idle connections need a high open files' limit, e.g. ulimit -n 65536)
+ */
+public class AtmLoadClient {
+
+    /**
+     * This method runs the load test.
+     *
+     * @param args Input arguments' list.
+     *
+     * @throws Exception if the load test fails.
+     */
+    public static void main(String[] args) throws Exception {
+
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        List<String> usersIds = Files.readAllLines(Paths.get(args[2]), StandardCharsets.UTF_8);
+        int idleConnections = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        int activeSessions = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        int operationsPerSession = args.length > 5 ? Integer.parseInt(args[5]) : 10_000;
+
+        List<Socket> idle = new ArrayList<Socket>();
+        long openStart = System.nanoTime();
+        for (int c = 0; c < idleConnections; ++c) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port));
+            idle.add(socket);
+        }
+        System.out.printf("%d idle connections opened in %.1f s\n",
+                idleConnections, (System.nanoTime() - openStart) / 1e9);
+
+        long[][] latencies = new long[activeSessions][];
+        CountDownLatch done = new CountDownLatch(activeSessions);
+
+        long start = System.nanoTime();
+        for (int s = 0; s < activeSessions; ++s) {
+            int session = s;
+            String userId = usersIds.get(s % usersIds.size());
+            Thread client = new Thread(() -> {
+                try {
+                    latencies[session] = AtmLoadClient.runSession(host, port, userId, operationsPerSession);
+                } catch (IOException ex) {
+                    System.err.println("error, session " + session + ": " + ex.getMessage());
+                    latencies[session] = new long[0];
+                } finally {
+                    done.countDown();
+                }
+            });
+            client.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+
+        System.out.printf("%d active sessions, %d operations in %.2f s: %.0f ops/s\n",
+                activeSessions, all.length, elapsed / 1e9, all.length * 1e9 / elapsed);
+        if (all.length > 0) {
+            System.out.printf("latency: p50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us\n",
+                    all[(int) (all.length * 0.50)] / 1e3, all[(int) (all.length * 0.99)] / 1e3,
+                    all[(int) (all.length * 0.999)] / 1e3, all[all.length - 1] / 1e3);
+        }
+
+        for (Socket socket : idle) {
+            socket.close();
+        }
+    }
+
+
+    /**
+     * This method runs a single active session.
+     *
+     * @param host       A server's host.
+     * @param port       A server's port.
+     * @param userId     A user's ID (pin 1234).
+     * @param operations A number of operations.
+     *
+     * @return Operations' latencies (in nanoseconds).
+     *
+     * @throws IOException if the session fails.
+     */
+    private static long[] runSession(String host, int port, String userId, int operations) throws IOException {
+
+        long[] latencies = new long[operations];
+
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+            AtmLoadClient.call(in, out, "LOGIN " + userId + " 1234");
+            AtmLoadClient.call(in, out, "DEPOSIT 1 1000.00 Load test");
+
+            for (int o = 0; o < operations; ++o) {
+                String command;
+                switch (o % 4) {
+                    case 0:
+                        command = "DEPOSIT 1 1.00 Load test";
+                        break;
+                    case 1:
+                        command = "WITHDRAW 1 1.00 Load test";
+                        break;
+                    case 2:
+                        command = "TRANSFER 1 2 0.01";
+                        break;
+                    default:
+                        command = "SUMMARY";
+                        break;
+                }
+
+                long begin = System.nanoTime();
+                AtmLoadClient.call(in, out, command);
+                latencies[o] = System.nanoTime() - begin;
+            }
+
+            AtmLoadClient.call(in, out, "QUIT");
+        }
+
+        return latencies;
+    }
+
+
+    /**
+     * This method sends a command and reads its whole response.
+     *
+     * @param in      A server's responses.
+     * @param out     A server's commands.
+     * @param command A command.
+     *
+     * @return The first line of a response.
+     *
+     * @throws IOException if a server's response is missing.
+     */
+    private static String call(BufferedReader in, Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+
+        String status = in.readLine();
+        if (status == null) {
+            throw new IOException("Connection closed by the server");
+        }
+
+        if (command.startsWith("SUMMARY") || command.startsWith("HISTORY")) {
+            int lines = Integer.parseInt(status.substring(3).trim().split(" ")[0]);
+            for (int l = 0; l < lines; ++l) {
+                in.readLine();
+            }
+        }
+
+        return status;
+    }
+}
@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A benchmark measuring how fast a settlement file is read (CSV and binary) and applied by Bank.postBatch
+ * on fork-join pools of different parallelism. Postings are random deposits and withdrawals
+ * (some of them rejected for insufficient funds) spread over accounts of a journaled bank.
+ *
+ * Usage: java BatchPostingBenchmark [accounts] [postings] [parallelism,...] [directory]
+ * e.g.   java BatchPostingBenchmark 100000 5000000 1,2,4,8 /var/tmp
+ */
+public class BatchPostingBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of accounts, postings, pools' parallelism and a directory.
+     *
+     * @throws IOException if a file or the journal fails.
+     */
+    public static void main(String[] args) throws IOException {
+
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int postings = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int[] parallelisms = BenchmarkSupport.parseSizes(args, 2,
+                new int[]{1, Runtime.getRuntime().availableProcessors()});
+        Path directory = args.length > 3 ? Path.of(args[3]) : Path.of(System.getProperty("java.io.tmpdir"));
+
+        Path csvFile = Files.createTempFile(directory, "batch-benchmark-", ".csv");
+        Path binaryFile = Files.createTempFile(directory, "batch-benchmark-", ".bin");
+        Path journalFile = Files.createTempFile(directory, "batch-benchmark-", ".journal");
+        try {
+            Bank template = BatchPostingBenchmark.createBank(accounts);
+            BatchPostingBenchmark.writeCsv(csvFile, template, accounts, postings);
+
+            long begin = System.nanoTime();
+            PostingBatch batch = PostingBatch.readCsv(csvFile);
+            double csvMillis = (System.nanoTime() - begin) / 1e6;
+
+            batch.writeBinary(binaryFile);
+            begin = System.nanoTime();
+            BenchmarkSupport.sink += PostingBatch.readBinary(binaryFile).size();
+            double binaryMillis = (System.nanoTime() - begin) / 1e6;
+
+            System.out.printf("%d postings over %d accounts\n", postings, accounts);
+            System.out.printf("read CSV    %8.0f ms (%.1f MiB)\n", csvMillis, Files.size(csvFile) / 1048576.0);
+            System.out.printf("read binary %8.0f ms (%.1f MiB)\n", binaryMillis, Files.size(binaryFile) / 1048576.0);
+            System.out.printf("%-12s %-8s %12s %14s %10s\n", "parallelism", "journal", "ms", "postings/s", "rejected");
+
+            for (int parallelism : parallelisms) {
+                for (boolean isJournaled : new boolean[]{false, true}) {
+                    Bank bank = BatchPostingBenchmark.copyAccounts(template);
+                    if (isJournaled) {
+                        Files.deleteIfExists(journalFile);
+                        bank.openJournal(journalFile, JournalDurability.GROUP);
+                    }
+
+                    ForkJoinPool pool = new ForkJoinPool(parallelism);
+                    begin = System.nanoTime();
+                    BatchReport report = bank.postBatch(batch, pool);
+                    double elapsed = (System.nanoTime() - begin) / 1e6;
+                    pool.shutdown();
+                    bank.closeJournal();
+
+                    System.out.printf("%-12d %-8s %12.0f %14.0f %10d\n", parallelism, isJournaled ? "GROUP" : "none",
+                            elapsed, report.getNumberOfApplied() * 1e3 / elapsed, report.getNumberOfRejected());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(csvFile);
+            Files.deleteIfExists(binaryFile);
+            Files.deleteIfExists(journalFile);
+        }
+    }
+
+
+    /**
+     * This method creates a bank whose every user has one "Savings" account.
+     *
+     * @param accounts A number of accounts.
+     *
+     * @return A bank.
+     */
+    private static Bank createBank(int accounts) {
+        Bank bank = new Bank("Benchmark bank");
+
+        BenchmarkSupport.muteOut();
+        for (int a = 0; a < accounts; ++a) {
+            bank.addUser("First", "Last", "1234");
+        }
+        BenchmarkSupport.restoreOut();
+
+        return bank;
+    }
+
+
+    /**
+     * This method creates a bank with the same (empty) accounts as a template bank, so every run starts equal.
+     *
+     * @param template A template bank.
+     *
+     * @return A new bank.
+     */
+    private static Bank copyAccounts(Bank template) {
+        Bank bank = new Bank("Benchmark bank");
+
+        for (User templateUser : template.getUsers()) {
+            User user = new User(templateUser.getUsersUUID(), templateUser.getFirstName(), templateUser.getLastName(),
+                    templateUser.getUsersPinHash(), bank);
+            bank.restoreUser(user);
+
+            Account account = new Account(templateUser.getAccountUUID(0), "Savings", user, 0, bank);
+            user.addAccount(account);
+            bank.restoreAccount(account);
+        }
+
+        return bank;
+    }
+
+
+    /**
+     * This method writes a CSV settlement file of random postings (70% deposits, 30% withdrawals).
+     *
+     * @param file     A CSV file.
+     * @param bank     A bank whose accounts are posted to.
+     * @param accounts A number of accounts.
+     * @param postings A number of postings.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeCsv(Path file, Bank bank, int accounts, int postings) throws IOException {
+        Random random = new Random(42);
+
+        String[] accountUUIDs = new String[accounts];
+        for (int a = 0; a < accounts; ++a) {
+            accountUUIDs[a] = bank.getUser(a).getAccountUUID(0);
+        }
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# accountUUID,amount,memo");
+            for (int p = 0; p < postings; ++p) {
+                long amount = 1 + random.nextInt(100_00);
+                boolean isWithdrawal = random.nextInt(10) < 3;
+                out.printf("%s,%s,%s\n", accountUUIDs[random.nextInt(accounts)],
+                        Money.format(isWithdrawal ? -amount : amount), isWithdrawal ? "Card payment" : "Salary");
+            }
+        }
+    }
+}
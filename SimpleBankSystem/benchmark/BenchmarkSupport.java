@@ -0,0 +1,90 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+
+/**
+ * A class gathering helpers shared by the bank system's benchmarks.
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * The standard output stream saved while benchmark's logs are muted.
+     */
+    private static PrintStream savedOut;
+
+    /**
+     * A value consumed by benchmarks so that the JIT cannot remove measured code.
+     */
+    public static volatile long sink;
+
+
+    /**
+     * A private constructor (the class is a static helper only).
+     */
+    private BenchmarkSupport() {
+    }
+
+
+    /**
+     * This method mutes the standard output (e.g. the log message of the User's constructor).
+     */
+    public static void muteOut() {
+        savedOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+
+    /**
+     * This method restores the standard output muted by muteOut().
+     */
+    public static void restoreOut() {
+        if (savedOut != null) {
+            System.setOut(savedOut);
+            savedOut = null;
+        }
+    }
+
+
+    /**
+     * This method parses a comma separated list of sizes (e.g. "10000,1000000").
+     *
+     * @param args         Benchmark's input arguments' list.
+     * @param argIdx       A position of the sizes' list on the arguments' list.
+     * @param defaultSizes Sizes used when the argument is missing.
+     *
+     * @return A list of sizes.
+     */
+    public static int[] parseSizes(String[] args, int argIdx, int[] defaultSizes) {
+        if (args.length <= argIdx) {
+            return defaultSizes;
+        }
+
+        String[] parts = args[argIdx].split(",");
+        int[] sizes = new int[parts.length];
+        for (int s = 0; s < parts.length; ++s) {
+            sizes[s] = Integer.parseInt(parts[s].trim());
+        }
+
+        return sizes;
+    }
+
+
+    /**
+     * This method returns a used heap's size (after an attempt to collect garbage).
+     *
+     * @return A used heap's size in bytes.
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int gc = 0; gc < 3; ++gc) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * A benchmark measuring a throughput of concurrent transfers posted by PostingEngine.
+ * Every thread transfers funds between its own accounts, so threads touch different accounts.
+ *
+ * Usage: java ConcurrentPostingBenchmark [threads] [accountsPerThread] [transfersPerThread]
+ * e.g.   java ConcurrentPostingBenchmark 1,2,4,8 64 1000000
+ */
+public class ConcurrentPostingBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: threads' counts, accounts per thread and transfers per thread.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int available = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = BenchmarkSupport.parseSizes(args, 0, new int[]{1, 2, available, 2 * available});
+        int accountsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int transfersPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        System.out.printf("%8s %16s\n", "threads", "transfers/s");
+
+        for (int threads : threadCounts) {
+            double throughput = ConcurrentPostingBenchmark.run(threads, accountsPerThread, transfersPerThread);
+            System.out.printf("%8d %16.0f\n", threads, throughput);
+        }
+    }
+
+
+    /**
+     * This method runs transfers on a given number of threads.
+     *
+     * @param threads            A number of threads.
+     * @param accountsPerThread  A number of accounts used by a thread.
+     * @param transfersPerThread A number of transfers made by a thread.
+     *
+     * @return A number of transfers per second.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static double run(int threads, int accountsPerThread, int transfersPerThread)
+            throws InterruptedException {
+
+        Bank bank = new Bank("Benchmark bank");
+        PostingEngine engine = bank.getPostingEngine();
+
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        Account[][] accounts = new Account[threads][accountsPerThread];
+        for (int t = 0; t < threads; ++t) {
+            for (int a = 0; a < accountsPerThread; ++a) {
+                accounts[t][a] = new Account("Checking", user, bank);
+                engine.deposit(accounts[t][a], 1_000_000_00L, "Opening balance");
+            }
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t) {
+            Account[] own = accounts[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long succeeded = 0;
+                for (int i = 0; i < transfersPerThread; ++i) {
+                    int source = random.nextInt(own.length);
+                    int target = (source + 1 + random.nextInt(own.length - 1)) % own.length;
+                    if (engine.transfer(own[source], own[target], 1 + random.nextInt(100), "Out", "In")) {
+                        ++succeeded;
+                    }
+                }
+                BenchmarkSupport.sink += succeeded;
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        return (double) threads * transfersPerThread * 1e9 / elapsed;
+    }
+}
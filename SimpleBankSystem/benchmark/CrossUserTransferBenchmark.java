@@ -0,0 +1,92 @@
+import java.util.Random;
+
+
+/**
+ * A benchmark measuring transfers for a growing number of bank's accounts: transfers between two accounts
+ * of the same user (User.transferBetweenAccounts, by accounts' positions) versus transfers between
+ * random accounts of different users (Bank.transfer, by accounts' UUIDs found in the accounts' directory).
+ *
+ * Usage: java CrossUserTransferBenchmark [users,...] [transfers]
+ * e.g.   java -Xmx4g CrossUserTransferBenchmark 1000,100000,1000000 2000000
+ */
+public class CrossUserTransferBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: numbers of users (each has 2 accounts) and a number of transfers.
+     */
+    public static void main(String[] args) {
+
+        int[] userCounts = BenchmarkSupport.parseSizes(args, 0, new int[]{1_000, 100_000, 1_000_000});
+        int transfers = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        System.out.printf("%-10s %10s %18s %18s\n", "users", "accounts", "internal ns/op", "cross-user ns/op");
+
+        for (int users : userCounts) {
+            Bank bank = new Bank("Benchmark bank");
+            bank.getMetrics().setEnabled(false);
+
+            BenchmarkSupport.muteOut();
+            User[] bankUsers = new User[users];
+            String[] uuids = new String[2 * users];
+            for (int u = 0; u < users; ++u) {
+                bankUsers[u] = bank.addUser("First", "Last", "1234");
+
+                Account checking = new Account("Checking", bankUsers[u], bank);
+                bankUsers[u].addAccount(checking);
+                bank.addAccount(checking);
+
+                bankUsers[u].depositToAccount(0, 1_000_000_00L, "Opening balance");
+                uuids[2 * u] = bankUsers[u].getAccountUUID(0);
+                uuids[2 * u + 1] = bankUsers[u].getAccountUUID(1);
+            }
+            BenchmarkSupport.restoreOut();
+
+            // warm up both kinds of transfers
+            CrossUserTransferBenchmark.measure(bank, bankUsers, uuids, transfers / 4, false);
+            CrossUserTransferBenchmark.measure(bank, bankUsers, uuids, transfers / 4, true);
+
+            double internal = CrossUserTransferBenchmark.measure(bank, bankUsers, uuids, transfers, false);
+            double crossUser = CrossUserTransferBenchmark.measure(bank, bankUsers, uuids, transfers, true);
+
+            System.out.printf("%-10d %10d %18.1f %18.1f\n", users, bank.getNumberOfAccounts(), internal, crossUser);
+        }
+    }
+
+
+    /**
+     * This method runs transfers of 1 cent between random accounts.
+     *
+     * @param bank        A bank.
+     * @param users       Bank's users.
+     * @param uuids       UUIDs of bank's accounts.
+     * @param transfers   A number of transfers.
+     * @param isCrossUser true - Bank.transfer between two random users' accounts,
+     *                    false - User.transferBetweenAccounts between a random user's two accounts.
+     *
+     * @return An average time of a transfer (in nanoseconds).
+     */
+    private static double measure(Bank bank, User[] users, String[] uuids, int transfers, boolean isCrossUser) {
+        Random random = new Random(42);
+        long succeeded = 0;
+
+        long begin = System.nanoTime();
+        for (int t = 0; t < transfers; ++t) {
+            if (isCrossUser) {
+                int source = random.nextInt(uuids.length);
+                int target = random.nextInt(uuids.length);
+                if (source != target) {
+                    succeeded += bank.transfer(uuids[source], uuids[target], 1) ? 1 : 0;
+                }
+            } else {
+                User user = users[random.nextInt(users.length)];
+                succeeded += user.transferBetweenAccounts(0, 1, 1) ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        BenchmarkSupport.sink += succeeded;
+        return (double) elapsed / transfers;
+    }
+}
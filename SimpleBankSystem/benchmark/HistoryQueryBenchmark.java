@@ -0,0 +1,103 @@
+import java.util.Random;
+
+
+/**
+ * A benchmark measuring time-range history queries on accounts with a growing history
+ * (one transaction per second): a page of one minute's transactions found by Account.getHistoryPage
+ * (a binary search) versus a scan from the newest transaction.
+ *
+ * Usage: java HistoryQueryBenchmark [historyLengths,...] [queries]
+ * e.g.   java HistoryQueryBenchmark 1000,100000,10000000 2000
+ */
+public class HistoryQueryBenchmark {
+
+    /**
+     * A number of transactions returned by a query.
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * A length of a queried time range (in milliseconds).
+     */
+    private static final long RANGE_MILLIS = 60_000;
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: history lengths and a number of queries.
+     */
+    public static void main(String[] args) {
+
+        int[] historyLengths = BenchmarkSupport.parseSizes(args, 0, new int[]{1_000, 100_000, 1_000_000});
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        System.out.printf("%-12s %20s %20s\n", "history", "binary search us/q", "scan us/q");
+
+        for (int historyLength : historyLengths) {
+            Bank bank = new Bank("Benchmark bank");
+            BenchmarkSupport.muteOut();
+            Account account = bank.addUser("First", "Last", "1234").getAccount(0);
+            BenchmarkSupport.restoreOut();
+
+            long first = System.currentTimeMillis() - historyLength * 1000L;
+            for (int t = 0; t < historyLength; ++t) {
+                account.replayTransaction(100, first + t * 1000L, "Benchmark deposit");
+            }
+            long last = first + (historyLength - 1) * 1000L;
+
+            // warm up both queries
+            HistoryQueryBenchmark.measure(account, first, last, queries, true);
+            HistoryQueryBenchmark.measure(account, first, last, queries / 10 + 1, false);
+
+            double searchMicros = HistoryQueryBenchmark.measure(account, first, last, queries, true);
+            double scanMicros = HistoryQueryBenchmark.measure(account, first, last, queries / 10 + 1, false);
+
+            System.out.printf("%-12d %20.2f %20.2f\n", historyLength, searchMicros, scanMicros);
+        }
+    }
+
+
+    /**
+     * This method runs time-range queries (each for a page of a random minute's transactions).
+     *
+     * @param account  An account.
+     * @param first    The oldest transaction's timestamp.
+     * @param last     The newest transaction's timestamp.
+     * @param queries  A number of queries.
+     * @param isSearch true - Account.getHistoryPage, false - a scan of all transactions.
+     *
+     * @return An average time of a query (in microseconds).
+     */
+    private static double measure(Account account, long first, long last, int queries, boolean isSearch) {
+        Random random = new Random(42);
+        long found = 0;
+
+        long begin = System.nanoTime();
+        for (int q = 0; q < queries; ++q) {
+            long from = first + (long) (random.nextDouble() * (last - first + 1));
+
+            long to = from + RANGE_MILLIS;
+
+            if (isSearch) {
+                found += account.getHistoryPage(from, to, TransactionPage.FROM_NEWEST, PAGE_SIZE).size();
+            } else {
+                int count = 0;
+                for (int t = account.getNumberOfTransactions() - 1; t >= 0 && count < PAGE_SIZE; --t) {
+                    long timestamp = account.getTransaction(t).getTransactionsTimestamp();
+                    if (timestamp < from) {
+                        break;
+                    }
+                    if (timestamp < to) {
+                        ++count;
+                    }
+                }
+                found += count;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        BenchmarkSupport.sink += found;
+        return elapsed / 1e3 / queries;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * A benchmark showing a time of an ID's allocation while an IDs' space fills up.
+ *
+ * Usage: java IdAllocationBenchmark [digits] [ids] [reportEvery]
+ * e.g.   java IdAllocationBenchmark 6 2000000 100000
+ */
+public class IdAllocationBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: IDs' width, a number of IDs and a report's period.
+     */
+    public static void main(String[] args) {
+
+        int digits = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int ids = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int reportEvery = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        IdAllocator allocator = new IdAllocator("benchmark IDs", digits);
+
+        System.out.printf("%12s %8s %12s\n", "issued IDs", "digits", "ns/ID");
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 1; i <= ids; ++i) {
+            checksum += allocator.nextId().hashCode();
+
+            if (i % reportEvery == 0) {
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%12d %8d %12.1f\n", i, allocator.getDigits(), (double) elapsed / reportEvery);
+                start = System.nanoTime();
+            }
+        }
+
+        BenchmarkSupport.sink += checksum;
+    }
+}
@@ -0,0 +1,65 @@
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A benchmark measuring the interest accrual's job (see InterestAccrualJob) on fork-join pools of different
+ * parallelism: a pass accruing a new day and a repeated pass of the same day (which only skips accounts).
+ * A half of accounts are "Savings" accounts accruing interest, the other half are "Checking" accounts.
+ *
+ * Usage: java InterestAccrualBenchmark [accounts] [parallelism,...]
+ * e.g.   java InterestAccrualBenchmark 4000000 1,2,4,8
+ */
+public class InterestAccrualBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of accounts and pools' parallelism.
+     */
+    public static void main(String[] args) {
+
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] parallelisms = BenchmarkSupport.parseSizes(args, 1,
+                new int[]{1, Runtime.getRuntime().availableProcessors()});
+
+        Bank bank = new Bank("Benchmark bank");
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        for (int a = 1; a < accounts; ++a) {
+            Account account = new Account(a % 2 == 0 ? "Savings" : "Checking", user, bank);
+            account.replayTransaction(1_000_00L + a % 1_000_000_00L, 0, "Opening balance");
+            bank.addAccount(account);
+        }
+
+        System.out.printf("%d accounts (a half of them Savings), 2.5%% a year\n", accounts);
+        System.out.printf("%-12s %-8s %12s %14s %12s\n", "parallelism", "pass", "ms", "accounts/s", "interest");
+
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int parallelism : parallelisms) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+            // a warm-up's day
+            new InterestAccrualJob(bank, "Savings", 250, day).run(pool);
+            day = day.plusDays(1);
+
+            InterestAccrualJob job = new InterestAccrualJob(bank, "Savings", 250, day);
+            InterestAccrualReport accrual = job.run(pool);
+            InterestAccrualReport repeat = job.run(pool);
+            day = day.plusDays(1);
+            pool.shutdown();
+
+            if (repeat.getNumberOfAccrued() != 0) {
+                throw new IllegalStateException("A repeated accrual posted interest to "
+                        + repeat.getNumberOfAccrued() + " accounts");
+            }
+
+            System.out.printf("%-12d %-8s %12.0f %14.0f %12s\n", parallelism, "accrue", accrual.getElapsedTime() / 1e6,
+                    accounts * 1e9 / accrual.getElapsedTime(), Money.format(accrual.getTotalInterest()));
+            System.out.printf("%-12d %-8s %12.0f %14.0f %12s\n", parallelism, "repeat", repeat.getElapsedTime() / 1e6,
+                    accounts * 1e9 / repeat.getElapsedTime(), Money.format(repeat.getTotalInterest()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * A benchmark measuring postings per second with a posting journal in each durability mode
+ * (and without a journal as a reference). Every thread deposits to its own account.
+ *
+ * Usage: java JournalBenchmark [threads] [postingsPerThread] [journalDirectory]
+ * e.g.   java JournalBenchmark 16 2000 /var/tmp
+ */
+public class JournalBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of threads, postings per thread and a journal's directory.
+     *
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int postingsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Path.of(System.getProperty("java.io.tmpdir"));
+
+        System.out.printf("%d threads x %d postings\n", threads, postingsPerThread);
+        System.out.printf("%-10s %14s\n", "mode", "postings/s");
+
+        System.out.printf("%-10s %14.0f\n", "none", JournalBenchmark.run(null, null, threads, postingsPerThread));
+
+        for (JournalDurability durability : JournalDurability.values()) {
+            Path file = Files.createTempFile(directory, "journal-benchmark-", ".wal");
+            try {
+                double throughput = JournalBenchmark.run(file, durability, threads, postingsPerThread);
+                System.out.printf("%-10s %14.0f\n", durability, throughput);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+
+    /**
+     * This method posts deposits on a given number of threads.
+     *
+     * @param file              A journal's file (null - no journal).
+     * @param durability        A journal's durability mode.
+     * @param threads           A number of threads.
+     * @param postingsPerThread A number of postings made by a thread.
+     *
+     * @return A number of postings per second.
+     *
+     * @throws IOException          if the journal fails.
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static double run(Path file, JournalDurability durability, int threads, int postingsPerThread)
+            throws IOException, InterruptedException {
+
+        Bank bank = new Bank("Benchmark bank");
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        Account[] accounts = new Account[threads];
+        for (int t = 0; t < threads; ++t) {
+            accounts[t] = new Account("Checking", user, bank);
+        }
+
+        if (file != null) {
+            Files.delete(file);
+            bank.openJournal(file, durability);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        PostingEngine engine = bank.getPostingEngine();
+
+        for (int t = 0; t < threads; ++t) {
+            Account account = accounts[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int p = 0; p < postingsPerThread; ++p) {
+                        engine.deposit(account, 100, "Benchmark deposit");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        bank.closeJournal();
+        long elapsed = System.nanoTime() - begin;
+
+        return (double) threads * postingsPerThread * 1e9 / elapsed;
+    }
+}
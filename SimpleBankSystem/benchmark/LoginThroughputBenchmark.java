@@ -0,0 +1,144 @@
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * A benchmark measuring authentications per second on a growing number of threads (a login storm):
+ * a pin's check with MessageDigest.getInstance on every call (as User.validatePIN used to do),
+ * Bank.userLogin with a per-thread digest and an operation authenticated by a session token.
+ *
+ * Usage: java LoginThroughputBenchmark [users] [threads,...] [authenticationsPerThread]
+ * e.g.   java LoginThroughputBenchmark 100000 1,2,4,8 500000
+ */
+public class LoginThroughputBenchmark {
+
+    /**
+     * An interface of a measured authentication.
+     */
+    private interface Authentication {
+
+        /**
+         * This method authenticates a user.
+         *
+         * @param u A user's position.
+         *
+         * @return true if a user is authenticated.
+         */
+        boolean authenticate(int u);
+    }
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of users, numbers of threads and authentications per thread.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int[] threadCounts = BenchmarkSupport.parseSizes(args, 1,
+                new int[]{1, Runtime.getRuntime().availableProcessors()});
+        int authenticationsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        Bank bank = new Bank("Benchmark bank");
+        String[] usersIds = new String[users];
+        byte[][] pinsHashes = new byte[users][];
+        String[] tokens = new String[users];
+
+        BenchmarkSupport.muteOut();
+        for (int u = 0; u < users; ++u) {
+            User user = bank.addUser("First", "Last", "1234");
+            usersIds[u] = user.getUsersUUID();
+            pinsHashes[u] = user.getUsersPinHash();
+            tokens[u] = bank.openSession(usersIds[u], "1234");
+        }
+        BenchmarkSupport.restoreOut();
+
+        System.out.printf("%d users, %d authentications per thread\n", users, authenticationsPerThread);
+        System.out.printf("%-24s %8s %16s\n", "authentication", "threads", "per second");
+
+        for (int threads : threadCounts) {
+            double legacy = LoginThroughputBenchmark.run(threads, authenticationsPerThread, users,
+                    u -> LoginThroughputBenchmark.legacyValidatePIN("1234", pinsHashes[u]));
+            System.out.printf("%-24s %8d %16.0f\n", "getInstance per call", threads, legacy);
+
+            double login = LoginThroughputBenchmark.run(threads, authenticationsPerThread, users,
+                    u -> bank.userLogin(usersIds[u], "1234") != null);
+            System.out.printf("%-24s %8d %16.0f\n", "Bank.userLogin", threads, login);
+
+            double session = LoginThroughputBenchmark.run(threads, authenticationsPerThread, users,
+                    u -> bank.getSessionUser(tokens[u]) != null);
+            System.out.printf("%-24s %8d %16.0f\n", "session token", threads, session);
+        }
+    }
+
+
+    /**
+     * This method checks a pin the way User.validatePIN used to (a new digest and a platform's charset per call).
+     *
+     * @param pin  An entered pin.
+     * @param hash A stored pin's hash.
+     *
+     * @return true if a pin is correct.
+     */
+    private static boolean legacyValidatePIN(String pin, byte[] hash) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            return MessageDigest.isEqual(md.digest(pin.getBytes()), hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * This method authenticates random users on a given number of threads.
+     *
+     * @param threads                  A number of threads.
+     * @param authenticationsPerThread A number of authentications made by a thread.
+     * @param users                    A number of users.
+     * @param authentication           A measured authentication.
+     *
+     * @return A number of authentications per second.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static double run(int threads, int authenticationsPerThread, int users, Authentication authentication)
+            throws InterruptedException {
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t) {
+            Random random = new Random(t);
+            Thread worker = new Thread(() -> {
+                long authenticated = 0;
+                try {
+                    start.await();
+                    for (int a = 0; a < authenticationsPerThread; ++a) {
+                        if (authentication.authenticate(random.nextInt(users))) {
+                            ++authenticated;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    BenchmarkSupport.sink += authenticated;
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        return (double) threads * authenticationsPerThread * 1e9 / elapsed;
+    }
+}
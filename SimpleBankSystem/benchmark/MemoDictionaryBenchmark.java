@@ -0,0 +1,104 @@
+import java.util.Random;
+
+
+/**
+ * A benchmark measuring memory saved by MemoDictionary on a realistic mix of postings' memos:
+ * transfers' legs ("Transfer to/from account UUID", 40%), card payments at a few hundred merchants (25%),
+ * ATM's withdrawals (15%), salaries (10%), memos typed at ATMs (a new String each time, 7%)
+ * and unique invoices' memos (3%).
+ * Postings' memos are kept as one String per posting (the former layout: every built or typed memo
+ * is its own object, constant memos are shared) and as MemoDictionary's codes in HeapTransactionStore.
+ *
+ * Usage: java -Xmx4g MemoDictionaryBenchmark [postings] [accounts]
+ */
+public class MemoDictionaryBenchmark {
+
+    /**
+     * Memos typed at ATMs.
+     */
+    private static final String[] TYPED_MEMOS = {"Rent", "Groceries", "Pocket money", "Gift", "Savings", "Bills"};
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of postings and accounts.
+     */
+    public static void main(String[] args) {
+
+        int postings = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        Bank bank = new Bank("Benchmark bank");
+        MemoDictionary dictionary = bank.getMemoDictionary();
+        long now = System.currentTimeMillis();
+
+        long before = BenchmarkSupport.usedHeap();
+        long[] amounts = new long[postings];
+        long[] timestamps = new long[postings];
+        String[] memos = new String[postings];
+        Random random = new Random(42);
+        for (int p = 0; p < postings; ++p) {
+            amounts[p] = p % 1000 - 500;
+            timestamps[p] = now + p;
+            memos[p] = MemoDictionaryBenchmark.nextMemo(random, accounts);
+        }
+        long stringsBytes = BenchmarkSupport.usedHeap() - before;
+        BenchmarkSupport.sink += memos.length;
+        amounts = null;
+        timestamps = null;
+        memos = null;
+
+        before = BenchmarkSupport.usedHeap();
+        HeapTransactionStore store = new HeapTransactionStore();
+        random = new Random(42);
+        for (int p = 0; p < postings; ++p) {
+            String memo = MemoDictionaryBenchmark.nextMemo(random, accounts);
+            // a memo over the dictionary's caps keeps its text in the store
+            store.add(p % 1000 - 500, now + p, dictionary.encode(memo), memo);
+        }
+        long codesBytes = BenchmarkSupport.usedHeap() - before;
+        BenchmarkSupport.sink += store.size();
+
+        System.out.printf("%d postings over %d accounts, %d distinct plain memos (%d characters), %d not interned\n",
+                postings, accounts, dictionary.getNumberOfMemos(), dictionary.getNumberOfCharacters(),
+                dictionary.getNumberOfUnsharedMemos());
+        System.out.printf("%-28s %12s %12s\n", "layout", "MiB", "B/posting");
+        System.out.printf("%-28s %12.1f %12.1f\n", "String per posting",
+                stringsBytes / 1048576.0, (double) stringsBytes / postings);
+        System.out.printf("%-28s %12.1f %12.1f\n", "MemoDictionary codes",
+                codesBytes / 1048576.0, (double) codesBytes / postings);
+        System.out.printf("saved %.1f MiB (%.0f%%)\n", (stringsBytes - codesBytes) / 1048576.0,
+                100.0 * (stringsBytes - codesBytes) / stringsBytes);
+    }
+
+
+    /**
+     * This method returns a random memo of the mix (a new String where the former code built or read one).
+     *
+     * @param random   A random numbers' generator.
+     * @param accounts A number of accounts.
+     *
+     * @return A memo.
+     */
+    private static String nextMemo(Random random, int accounts) {
+        int kind = random.nextInt(100);
+        String accountsUUID = String.valueOf(1_000_000_000L + random.nextInt(accounts));
+
+        if (kind < 20) {
+            return "Transfer to account " + accountsUUID;
+        } else if (kind < 40) {
+            return "Transfer from account " + accountsUUID;
+        } else if (kind < 65) {
+            return "Card payment at merchant " + random.nextInt(300);
+        } else if (kind < 80) {
+            return "ATM withdrawal";
+        } else if (kind < 90) {
+            return "Salary";
+        } else if (kind < 97) {
+            return new String(TYPED_MEMOS[random.nextInt(TYPED_MEMOS.length)]);
+        } else {
+            return "Invoice " + random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+}
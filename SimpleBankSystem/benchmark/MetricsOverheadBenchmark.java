@@ -0,0 +1,141 @@
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * A benchmark measuring an overhead of BankMetrics on the posting path: a throughput of deposits,
+ * withdrawals and transfers with metrics disabled, with every posting timed and with sampled latencies.
+ * Variants are run in alternating rounds (the best round of each is reported), so JIT's warm-up and noise
+ * affect all of them alike. An overhead is given in nanoseconds added to a posting.
+ *
+ * Usage: java MetricsOverheadBenchmark [threads,...] [postingsPerThread] [rounds] [sampleInterval]
+ * e.g.   java MetricsOverheadBenchmark 1,4,8 2000000 5 16
+ */
+public class MetricsOverheadBenchmark {
+
+    /**
+     * A number of accounts used by a thread.
+     */
+    private static final int ACCOUNTS_PER_THREAD = 16;
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: threads' counts, postings per thread, a number of rounds
+     *             and a sample's interval.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int[] threadCounts = BenchmarkSupport.parseSizes(args, 0,
+                new int[]{1, Runtime.getRuntime().availableProcessors()});
+        int postingsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int sampleInterval = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        System.out.printf("%8s %16s %16s %12s %16s %12s\n", "threads", "disabled ops/s",
+                "timed ops/s", "timed +ns", "1/" + sampleInterval + " ops/s", "sampled +ns");
+
+        for (int threads : threadCounts) {
+            double disabled = 0;
+            double timed = 0;
+            double sampled = 0;
+
+            for (int r = 0; r < rounds; ++r) {
+                disabled = Math.max(disabled, MetricsOverheadBenchmark.run(threads, postingsPerThread, 0));
+                timed = Math.max(timed, MetricsOverheadBenchmark.run(threads, postingsPerThread, 1));
+                sampled = Math.max(sampled, MetricsOverheadBenchmark.run(threads, postingsPerThread, sampleInterval));
+            }
+
+            System.out.printf("%8d %16.0f %16.0f %12.1f %16.0f %12.1f\n", threads, disabled,
+                    timed, (1e9 / timed - 1e9 / disabled) * threads,
+                    sampled, (1e9 / sampled - 1e9 / disabled) * threads);
+        }
+    }
+
+
+    /**
+     * This method runs postings (a deposit, a withdrawal and a transfer in turns) on a given number of threads.
+     *
+     * @param threads           A number of threads.
+     * @param postingsPerThread A number of postings made by a thread.
+     * @param sampleInterval    A sample's interval of latencies (0 - metrics are disabled).
+     *
+     * @return A number of postings per second.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static double run(int threads, int postingsPerThread, int sampleInterval) throws InterruptedException {
+
+        Bank bank = new Bank("Benchmark bank");
+        bank.getMetrics().setEnabled(sampleInterval > 0);
+        bank.getMetrics().setSampleInterval(Math.max(sampleInterval, 1));
+        PostingEngine engine = bank.getPostingEngine();
+
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        Account[][] accounts = new Account[threads][ACCOUNTS_PER_THREAD];
+        for (int t = 0; t < threads; ++t) {
+            for (int a = 0; a < ACCOUNTS_PER_THREAD; ++a) {
+                accounts[t][a] = new Account("Checking", user, bank);
+                engine.deposit(accounts[t][a], 1_000_000_00L, "Opening balance");
+            }
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t) {
+            Account[] own = accounts[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long succeeded = 0;
+                for (int p = 0; p < postingsPerThread; ++p) {
+                    Account account = own[p % ACCOUNTS_PER_THREAD];
+                    switch (p % 3) {
+                        case 0:
+                            engine.deposit(account, 100, "Benchmark deposit");
+                            ++succeeded;
+                            break;
+                        case 1:
+                            succeeded += engine.withdraw(account, 100, "Benchmark withdrawal") ? 1 : 0;
+                            break;
+                        default:
+                            Account target = own[(p + 1) % ACCOUNTS_PER_THREAD];
+                            succeeded += engine.transfer(account, target, 1, "Benchmark", "Benchmark") ? 1 : 0;
+                            break;
+                    }
+                }
+                BenchmarkSupport.sink += succeeded;
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (sampleInterval > 0) {
+            long counted = 0;
+            for (BankOperation operation : BankOperation.values()) {
+                counted += bank.getMetrics().getCount(operation);
+            }
+            if (counted < (long) threads * postingsPerThread) {
+                throw new IllegalStateException("Metrics counted " + counted + " postings");
+            }
+        }
+
+        return (double) threads * postingsPerThread * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.BufferedOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A benchmark measuring postings published to a PostingEventRing and read by three independent consumers:
+ * an audit (checking sequences and summing amounts), notifications (rendering a line per event, the slowest one)
+ * and a journal's export (writing records to a buffered stream, flushed per batch).
+ * Postings' throughput and bytes allocated per posting by posting threads are compared with postings
+ * without a ring; consumers' batches, publishers' back-pressure's stalls and consumers detached
+ * by publishers' bounded waits are reported.
+ *
+ * Usage: java PostingEventRingBenchmark [postingThreads] [postingsPerThread] [ringCapacity]
+ * e.g.   java PostingEventRingBenchmark 2 1000000 16384
+ */
+public class PostingEventRingBenchmark {
+
+    /**
+     * The maximal number of events of a consumer's batch.
+     */
+    private static final int MAX_BATCH = 1024;
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: posting threads, postings per thread and ring's capacity.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int postingThreads = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int postingsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : PostingEventRing.DEFAULT_CAPACITY;
+
+        System.out.printf("%d posting threads, %d postings per thread, %d slots\n",
+                postingThreads, postingsPerThread, capacity);
+        System.out.printf("%-12s %14s %12s %10s %10s\n", "ring", "postings/s", "B/posting", "stalls", "detached");
+
+        // the first run warms the posting path up
+        PostingEventRingBenchmark.run(postingThreads, postingsPerThread, 0, false);
+        PostingEventRingBenchmark.run(postingThreads, postingsPerThread, 0, true);
+        PostingEventRingBenchmark.run(postingThreads, postingsPerThread, capacity, true);
+    }
+
+
+    /**
+     * This method posts transactions on a given number of threads (publishing them to a ring, if any)
+     * and prints a result's line.
+     *
+     * @param postingThreads    A number of posting threads.
+     * @param postingsPerThread A number of postings made by a thread.
+     * @param capacity          A number of ring's slots (0 - postings are not published).
+     * @param isPrinted         true if a result is printed.
+     *
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static void run(int postingThreads, int postingsPerThread, int capacity, boolean isPrinted)
+            throws InterruptedException {
+
+        Bank bank = new Bank("Benchmark bank");
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        long[] memoCodes = {
+                bank.getMemoDictionary().encode("Deposit"),
+                bank.getMemoDictionary().encode(MemoDictionary.TRANSFER_TO, "1234567890"),
+                bank.getMemoDictionary().encode("Card payment")
+        };
+        long totalPostings = (long) postingThreads * postingsPerThread;
+
+        PostingEventRing ring = null;
+        Thread[] consumerThreads = new Thread[0];
+        PostingEventConsumer[] consumers = new PostingEventConsumer[0];
+        long[] auditedSum = new long[1];
+        if (capacity > 0) {
+            ring = new PostingEventRing(bank.getMemoDictionary(), capacity);
+            consumers = new PostingEventConsumer[]{
+                    ring.addConsumer("audit"), ring.addConsumer("notifications"), ring.addConsumer("journal")
+            };
+            PostingEventHandler[] handlers = {
+                    PostingEventRingBenchmark.newAudit(auditedSum),
+                    PostingEventRingBenchmark.newNotifications(),
+                    PostingEventRingBenchmark.newJournalExport()
+            };
+
+            consumerThreads = new Thread[consumers.length];
+            for (int c = 0; c < consumers.length; ++c) {
+                PostingEventConsumer consumer = consumers[c];
+                PostingEventHandler handler = handlers[c];
+                consumerThreads[c] = new Thread(() -> {
+                    try {
+                        while (consumer.getSequence() < totalPostings - 1) {
+                            consumer.poll(handler, MAX_BATCH, 1, TimeUnit.MILLISECONDS);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (IllegalStateException e) {
+                        // the consumer fell a whole ring behind and was detached (it is reported)
+                    }
+                });
+                consumerThreads[c].start();
+            }
+            bank.setPostingEventRing(ring);
+        }
+
+        Account[] accounts = new Account[postingThreads];
+        for (int t = 0; t < postingThreads; ++t) {
+            accounts[t] = new Account("Checking", user, bank);
+        }
+
+        long[] allocated = new long[postingThreads];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(postingThreads);
+        for (int t = 0; t < postingThreads; ++t) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                Account account = accounts[worker];
+                long before = PostingEventRingBenchmark.allocatedBytes();
+                for (int p = 0; p < postingsPerThread; ++p) {
+                    account.appendTransaction(1 + p % 100, memoCodes[p % memoCodes.length]);
+                }
+                allocated[worker] = PostingEventRingBenchmark.allocatedBytes() - before;
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        for (Thread consumerThread : consumerThreads) {
+            consumerThread.join();
+        }
+
+        long totalAllocated = 0;
+        for (long bytes : allocated) {
+            totalAllocated += bytes;
+        }
+
+        if (!isPrinted) {
+            return;
+        }
+
+        System.out.printf("%-12s %14.0f %12.1f %10s %10s\n", ring == null ? "none" : "3 consumers",
+                totalPostings * 1e9 / elapsed, (double) totalAllocated / totalPostings,
+                ring == null ? "-" : String.valueOf(ring.getNumberOfStalls()),
+                ring == null ? "-" : String.valueOf(ring.getNumberOfDetachedConsumers()));
+
+        long expectedSum = 0;
+        for (Account account : accounts) {
+            expectedSum += account.getBalance();
+        }
+        for (PostingEventConsumer consumer : consumers) {
+            System.out.printf("  %-14s %10d events %8d batches %8.1f events/batch\n", consumer.getName(),
+                    consumer.getNumberOfEvents(), consumer.getNumberOfBatches(),
+                    (double) consumer.getNumberOfEvents() / Math.max(1, consumer.getNumberOfBatches()));
+        }
+        if (ring != null && auditedSum[0] != expectedSum) {
+            System.err.println("error, audited sum " + auditedSum[0] + " differs from balances' sum " + expectedSum);
+        }
+    }
+
+
+    /**
+     * This method creates an audit's handler: it checks that sequences are contiguous and sums amounts.
+     *
+     * @param sum An array whose first element receives a sum of amounts.
+     *
+     * @return A handler.
+     */
+    private static PostingEventHandler newAudit(long[] sum) {
+        long[] expectedSequence = {0};
+
+        return (event, endOfBatch) -> {
+            if (event.getSequence() != expectedSequence[0]++) {
+                throw new IllegalStateException("Event " + event.getSequence() + " is out of order");
+            }
+            sum[0] += event.getAmount();
+        };
+    }
+
+
+    /**
+     * This method creates a notifications' handler: it renders a line per event into a reused builder.
+     *
+     * @return A handler.
+     */
+    private static PostingEventHandler newNotifications() {
+        StringBuilder line = new StringBuilder(128);
+
+        return (event, endOfBatch) -> {
+            line.setLength(0);
+            line.append(event.getAccountsUUID()).append(" : ");
+            Money.appendTo(line, event.getAmount()).append(" : ");
+            event.appendMemo(line).append(" : balance ");
+            Money.appendTo(line, event.getBalance());
+            BenchmarkSupport.sink += line.length();
+        };
+    }
+
+
+    /**
+     * This method creates a journal export's handler: it writes records to a buffered stream
+     * (discarding them) and flushes it at every batch's end.
+     *
+     * @return A handler.
+     */
+    private static PostingEventHandler newJournalExport() {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(OutputStream.nullOutputStream(), 1 << 16));
+
+        return (event, endOfBatch) -> {
+            try {
+                out.writeLong(event.getSequence());
+                out.writeUTF(event.getAccountsUUID());
+                out.writeLong(event.getAmount());
+                out.writeLong(event.getTimestamp());
+                out.writeLong(event.getMemoCode());
+                if (endOfBatch) {
+                    out.flush();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+
+    /**
+     * This method returns bytes allocated so far by the current thread.
+     *
+     * @return Allocated bytes (0 if the JVM does not expose them).
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
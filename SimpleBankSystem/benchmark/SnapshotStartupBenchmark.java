@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * A benchmark measuring a bank's startup time for a growing history: restoring from a snapshot
+ * plus the journal's tail versus replaying the whole journal. Every user has one "Savings" account;
+ * after the snapshot a fixed tail of postings is journaled.
+ *
+ * Usage: java SnapshotStartupBenchmark [accounts] [postingsPerAccount,...] [tailPostings] [directory]
+ * e.g.   java -Xmx8g SnapshotStartupBenchmark 1000000 1,10,50 100000 /var/tmp
+ */
+public class SnapshotStartupBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of accounts, history lengths, a tail's length and a directory.
+     *
+     * @throws IOException if the snapshot or the journal fails.
+     */
+    public static void main(String[] args) throws IOException {
+
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int[] historyLengths = BenchmarkSupport.parseSizes(args, 1, new int[]{1, 10, 50});
+        int tailPostings = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        Path directory = args.length > 3 ? Path.of(args[3]) : Path.of(System.getProperty("java.io.tmpdir"));
+
+        System.out.printf("%d accounts, %d postings after the snapshot\n", accounts, tailPostings);
+        System.out.printf("%-10s %14s %14s %14s %16s\n",
+                "history", "journal MiB", "snapshot MiB", "snapshot ms", "full replay ms");
+
+        for (int historyLength : historyLengths) {
+            Path snapshotFile = Files.createTempFile(directory, "snapshot-benchmark-", ".snapshot");
+            Path journalFile = Files.createTempFile(directory, "snapshot-benchmark-", ".journal");
+            Path noSnapshotFile = directory.resolve(snapshotFile.getFileName() + ".none");
+            try {
+                SnapshotStartupBenchmark.prepare(snapshotFile, journalFile, accounts, historyLength, tailPostings);
+
+                double snapshotMillis = SnapshotStartupBenchmark.recover(snapshotFile, journalFile, accounts);
+                double fullReplayMillis = SnapshotStartupBenchmark.recover(noSnapshotFile, journalFile, accounts);
+
+                System.out.printf("%-10d %14.1f %14.1f %14.0f %16.0f\n", historyLength,
+                        Files.size(journalFile) / 1048576.0, Files.size(snapshotFile) / 1048576.0,
+                        snapshotMillis, fullReplayMillis);
+            } finally {
+                Files.deleteIfExists(snapshotFile);
+                Files.deleteIfExists(journalFile);
+            }
+        }
+    }
+
+
+    /**
+     * This method builds a journaled bank, writes its snapshot and journals a tail of postings after it.
+     *
+     * @param snapshotFile  A snapshot's file.
+     * @param journalFile   A journal's file.
+     * @param accounts      A number of accounts.
+     * @param historyLength A number of postings per account before the snapshot.
+     * @param tailPostings  A number of postings after the snapshot.
+     *
+     * @throws IOException if the snapshot or the journal fails.
+     */
+    private static void prepare(Path snapshotFile, Path journalFile, int accounts, int historyLength,
+                                int tailPostings) throws IOException {
+
+        Files.delete(journalFile);
+
+        Bank bank = new Bank("Benchmark bank");
+        bank.openJournal(journalFile, JournalDurability.ASYNC);
+
+        BenchmarkSupport.muteOut();
+        for (int a = 0; a < accounts; ++a) {
+            bank.addUser("First", "Last", "1234");
+        }
+        BenchmarkSupport.restoreOut();
+
+        for (int p = 0; p < historyLength; ++p) {
+            for (int u = 0; u < accounts; ++u) {
+                bank.getUser(u).getAccount(0).addTransaction(100, "Benchmark deposit");
+            }
+        }
+
+        BankSnapshot.write(bank, snapshotFile);
+
+        for (int p = 0; p < tailPostings; ++p) {
+            bank.getUser(p % accounts).getAccount(0).addTransaction(100, "Benchmark deposit");
+        }
+
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method restores a bank and measures its startup time.
+     *
+     * @param snapshotFile A snapshot's file (a missing file - the whole journal is replayed).
+     * @param journalFile  A journal's file.
+     * @param accounts     An expected number of accounts.
+     *
+     * @return A startup's time in milliseconds.
+     *
+     * @throws IOException if the snapshot or the journal fails.
+     */
+    private static double recover(Path snapshotFile, Path journalFile, int accounts) throws IOException {
+        BenchmarkSupport.usedHeap();
+
+        long begin = System.nanoTime();
+        Bank bank = BankSnapshot.recover("Benchmark bank", snapshotFile, journalFile, JournalDurability.ASYNC);
+        long elapsed = System.nanoTime() - begin;
+
+        if (bank.getNumberOfAccounts() != accounts) {
+            throw new IllegalStateException("A restored bank has " + bank.getNumberOfAccounts() + " accounts");
+        }
+        BenchmarkSupport.sink += bank.getUser(0).getAccountBalance(0);
+
+        bank.closeJournal();
+
+        return elapsed / 1e6;
+    }
+}
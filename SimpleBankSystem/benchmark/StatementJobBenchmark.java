@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A benchmark measuring the end-of-day statements' job (see StatementJob) on fork-join pools of different
+ * parallelism: its wall time and accounts rendered per second. Every account has transactions spread over
+ * the day before and the day of statements, so only a half of them is rendered.
+ *
+ * Usage: java StatementJobBenchmark [accounts] [transactionsPerAccount] [parallelism,...] [directory]
+ * e.g.   java StatementJobBenchmark 200000 20 1,2,4,8 /var/tmp
+ */
+public class StatementJobBenchmark {
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of accounts, transactions per account, pools' parallelism
+     *             and a directory.
+     *
+     * @throws IOException if statements cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int transactionsPerAccount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int[] parallelisms = BenchmarkSupport.parseSizes(args, 2,
+                new int[]{1, Runtime.getRuntime().availableProcessors()});
+        Path directory = Files.createTempDirectory(
+                args.length > 3 ? Path.of(args[3]) : Path.of(System.getProperty("java.io.tmpdir")), "statements-");
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = LocalDate.now(zone);
+        long dayBefore = day.minusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long step = 2 * 24 * 60 * 60 * 1000L / (transactionsPerAccount + 1);
+
+        Bank bank = new Bank("Benchmark bank");
+        BenchmarkSupport.muteOut();
+        for (int a = 0; a < accounts; ++a) {
+            Account account = bank.addUser("First", "Last", "1234").getAccount(0);
+            for (int t = 0; t < transactionsPerAccount; ++t) {
+                account.replayTransaction(100 + t, dayBefore + (t + 1) * step, "Benchmark deposit");
+            }
+        }
+        BenchmarkSupport.restoreOut();
+
+        System.out.printf("%d accounts, %d transactions per account\n", accounts, transactionsPerAccount);
+        System.out.printf("%-12s %8s %12s %14s %10s\n", "parallelism", "shards", "ms", "accounts/s", "MiB");
+
+        try {
+            for (int parallelism : parallelisms) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                StatementJob job = new StatementJob(bank, directory, day, zone);
+
+                // the first run warms up the renderer's code
+                job.run(pool);
+                StatementReport report = job.run(pool);
+                pool.shutdown();
+
+                System.out.printf("%-12d %8d %12.0f %14.0f %10.1f\n", parallelism, report.getNumberOfShards(),
+                        report.getElapsedTime() / 1e6, report.getAccountsPerSecond(),
+                        report.getNumberOfBytes() / 1048576.0);
+            }
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+
+
+/**
+ * A benchmark measuring statement rendering: an account's history printed line by line with
+ * String.format and Date.toString (the former Account.printTransactionsHistory) versus StatementRenderer.
+ * Both write to a discarding stream; lines of both paths are compared before the measurement.
+ *
+ * Allocated bytes per line are reported where the JVM exposes them (com.sun.management.ThreadMXBean).
+ *
+ * Usage: java StatementRenderingBenchmark [historyLengths,...] [statements]
+ * e.g.   java StatementRenderingBenchmark 100,10000,1000000 20
+ */
+public class StatementRenderingBenchmark {
+
+    /**
+     * A number of transactions read from an account at once.
+     */
+    private static final int PAGE_SIZE = 256;
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: history lengths and a number of rendered statements.
+     */
+    public static void main(String[] args) {
+
+        int[] historyLengths = BenchmarkSupport.parseSizes(args, 0, new int[]{100, 10_000, 1_000_000});
+        int statements = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+
+        System.out.printf("%-12s %16s %16s %18s %18s\n",
+                "history", "format ns/line", "renderer ns/line", "format B/line", "renderer B/line");
+
+        for (int historyLength : historyLengths) {
+            Bank bank = new Bank("Benchmark bank");
+            BenchmarkSupport.muteOut();
+            Account account = bank.addUser("First", "Last", "1234").getAccount(0);
+            BenchmarkSupport.restoreOut();
+
+            // one transaction every 7 minutes, every third one a withdrawal
+            long first = System.currentTimeMillis() - historyLength * 420_000L;
+            for (int t = 0; t < historyLength; ++t) {
+                long amount = t % 3 == 0 ? -(t % 10_000) - 1 : t % 100_000;
+                account.replayTransaction(amount, first + t * 420_000L, "Benchmark posting");
+            }
+
+            StatementRenderingBenchmark.verify(account);
+
+            int repetitions = Math.max(1, statements * 10_000 / Math.max(historyLength, 10_000));
+            long lines = (long) repetitions * historyLength;
+
+            // warm up both paths
+            StatementRenderingBenchmark.measure(account, out, repetitions, false);
+            StatementRenderingBenchmark.measure(account, out, repetitions, true);
+
+            long[] formatCost = StatementRenderingBenchmark.measure(account, out, repetitions, false);
+            long[] rendererCost = StatementRenderingBenchmark.measure(account, out, repetitions, true);
+
+            System.out.printf("%-12d %16.1f %16.1f %18s %18s\n", historyLength,
+                    (double) formatCost[0] / lines, (double) rendererCost[0] / lines,
+                    StatementRenderingBenchmark.perLine(formatCost[1], lines),
+                    StatementRenderingBenchmark.perLine(rendererCost[1], lines));
+        }
+    }
+
+
+    /**
+     * This method renders an account's statement several times.
+     *
+     * @param account     An account.
+     * @param out         An output.
+     * @param repetitions A number of statements.
+     * @param isRenderer  true - StatementRenderer, false - String.format.
+     *
+     * @return An elapsed time (in nanoseconds) and allocated bytes (-1 if unknown).
+     */
+    private static long[] measure(Account account, PrintStream out, int repetitions, boolean isRenderer) {
+        long allocatedBefore = StatementRenderingBenchmark.allocatedBytes();
+
+        long begin = System.nanoTime();
+        for (int r = 0; r < repetitions; ++r) {
+            if (isRenderer) {
+                new StatementRenderer(out).renderHistory(account);
+            } else {
+                StatementRenderingBenchmark.printWithFormat(account, out);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long allocatedAfter = StatementRenderingBenchmark.allocatedBytes();
+        return new long[]{elapsed, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore};
+    }
+
+
+    /**
+     * This method prints an account's history like the former Account.printTransactionsHistory did.
+     *
+     * @param account An account.
+     * @param out     An output.
+     */
+    private static void printWithFormat(Account account, PrintStream out) {
+        out.printf("\nTransaction history for account %s\n", account.getAccountsUUID());
+
+        int cursor = TransactionPage.FROM_NEWEST;
+        while (cursor != TransactionPage.END) {
+            TransactionPage page = account.getHistoryPage(cursor, PAGE_SIZE);
+            for (int t = 0; t < page.size(); ++t) {
+                out.println(StatementRenderingBenchmark.formatLine(
+                        page.getAmount(t), page.getTimestamp(t), page.getMemo(t)));
+            }
+            cursor = page.getNextCursor();
+        }
+
+        out.println();
+    }
+
+
+    /**
+     * This method formats a transaction's line like the former Transaction.getSummaryLine did.
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memo      A transaction's description.
+     *
+     * @return A transaction's summary line.
+     */
+    private static String formatLine(long amount, long timestamp, String memo) {
+        if (amount >= 0) {
+            return String.format("%s : $%s : %s", new Date(timestamp).toString(), Money.format(amount), memo);
+        } else {
+            return String.format("%s : $(%s) : %s", new Date(timestamp).toString(), Money.format(amount), memo);
+        }
+    }
+
+
+    /**
+     * This method checks that both paths render identical lines.
+     *
+     * @param account An account.
+     */
+    private static void verify(Account account) {
+        StatementRenderer renderer = new StatementRenderer(null);
+
+        int cursor = TransactionPage.FROM_NEWEST;
+        while (cursor != TransactionPage.END) {
+            TransactionPage page = account.getHistoryPage(cursor, PAGE_SIZE);
+            for (int t = 0; t < page.size(); ++t) {
+                String expected = StatementRenderingBenchmark.formatLine(
+                        page.getAmount(t), page.getTimestamp(t), page.getMemo(t));
+                String actual = renderer.renderTransactionLine(page.getAmount(t), page.getTimestamp(t), page.getMemo(t));
+                if (!expected.equals(actual)) {
+                    throw new IllegalStateException("Rendered \"" + actual + "\" instead of \"" + expected + "\"");
+                }
+            }
+            cursor = page.getNextCursor();
+        }
+    }
+
+
+    /**
+     * This method returns bytes allocated so far by the current thread.
+     *
+     * @return Allocated bytes (-1 if the JVM does not expose them).
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+
+    /**
+     * This method formats allocated bytes per line.
+     *
+     * @param allocated Allocated bytes (-1 if unknown).
+     * @param lines     A number of lines.
+     *
+     * @return Bytes per line (in a text format).
+     */
+    private static String perLine(long allocated, long lines) {
+        return allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / lines);
+    }
+}
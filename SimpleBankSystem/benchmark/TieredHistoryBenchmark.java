@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+
+/**
+ * A benchmark comparing accounts' histories kept wholly in memory with tiered histories (see HistoryArchive):
+ * a time of postings (segments' files are written by the archive's sealer thread), a time of waiting for
+ * the remaining segments after the postings, heap kept by histories, archive's size on disk,
+ * and times of reading a balance, the newest page (in memory) and the oldest page (streamed from a segment).
+ *
+ * Usage: java -Xmx4g TieredHistoryBenchmark [accounts] [postings per account]
+ */
+public class TieredHistoryBenchmark {
+
+    /**
+     * Memos used by postings.
+     */
+    private static final String[] MEMOS = {"Salary", "Coffee", "Rent", "Groceries", "Card payment"};
+
+    /**
+     * A number of transactions per history's page.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * A number of reads of every kind.
+     */
+    private static final int READS = 20_000;
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of accounts and a number of postings per account.
+     *
+     * @throws Exception if the archive's directory cannot be created or cleaned.
+     */
+    public static void main(String[] args) throws Exception {
+
+        int numberOfAccounts = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int postingsPerAccount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        Path directory = Files.createTempDirectory("history-archive");
+        try {
+            System.out.printf("%d accounts, %d postings per account\n", numberOfAccounts, postingsPerAccount);
+            System.out.printf("%-10s %12s %10s %10s %10s %12s %12s %12s\n", "history", "ns/posting", "sealing ms",
+                    "heap MiB", "disk MiB", "balance ns", "newest us", "oldest us");
+
+            TieredHistoryBenchmark.run("memory", null, numberOfAccounts, postingsPerAccount);
+            TieredHistoryBenchmark.run("tiered", new HistoryArchive(directory), numberOfAccounts, postingsPerAccount);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+
+    /**
+     * This method measures one kind of histories and prints a result's line.
+     *
+     * @param name               A name of histories' kind.
+     * @param archive            An archive of sealed history (null - histories are kept in memory).
+     * @param numberOfAccounts   A number of accounts.
+     * @param postingsPerAccount A number of postings per account.
+     *
+     * @throws Exception if the archive's size cannot be read.
+     */
+    private static void run(String name, HistoryArchive archive, int numberOfAccounts, int postingsPerAccount)
+            throws Exception {
+
+        Bank bank = new Bank("Benchmark bank");
+        bank.setHistoryArchive(archive);
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        long before = BenchmarkSupport.usedHeap();
+
+        Account[] accounts = new Account[numberOfAccounts];
+        for (int a = 0; a < numberOfAccounts; ++a) {
+            accounts[a] = new Account("Account " + a, user, bank);
+        }
+
+        long begin = System.nanoTime();
+        for (int p = 0; p < postingsPerAccount; ++p) {
+            for (int a = 0; a < numberOfAccounts; ++a) {
+                accounts[a].addTransaction(p % 1000 - 500, MEMOS[(p + a) % MEMOS.length]);
+            }
+        }
+        long postingNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        if (archive != null) {
+            archive.awaitSealing();
+        }
+        long sealingNanos = System.nanoTime() - begin;
+        long heapBytes = BenchmarkSupport.usedHeap() - before;
+
+        long diskBytes = 0;
+        if (archive != null) {
+            try (Stream<Path> files = Files.list(archive.getDirectory())) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    diskBytes += Files.size(file);
+                }
+            }
+        }
+
+        begin = System.nanoTime();
+        for (int r = 0; r < READS; ++r) {
+            BenchmarkSupport.sink += accounts[r % numberOfAccounts].getBalance();
+        }
+        long balanceNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int r = 0; r < READS; ++r) {
+            BenchmarkSupport.sink += accounts[r % numberOfAccounts].getHistoryPage(TransactionPage.FROM_NEWEST, PAGE_SIZE)
+                    .getAmount(0);
+        }
+        long newestNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int r = 0; r < READS; ++r) {
+            BenchmarkSupport.sink += accounts[r % numberOfAccounts].getHistoryPage(PAGE_SIZE, PAGE_SIZE).getAmount(0);
+        }
+        long oldestNanos = System.nanoTime() - begin;
+
+        System.out.printf("%-10s %12.1f %10.1f %10.1f %10.1f %12.1f %12.1f %12.1f\n", name,
+                (double) postingNanos / ((long) numberOfAccounts * postingsPerAccount), sealingNanos / 1e6,
+                heapBytes / 1048576.0, diskBytes / 1048576.0, (double) balanceNanos / READS, newestNanos / 1e3 / READS,
+                oldestNanos / 1e3 / READS);
+        BenchmarkSupport.sink += accounts.length;
+    }
+}
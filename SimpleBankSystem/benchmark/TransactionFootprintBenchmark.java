@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+
+
+/**
+ * A benchmark comparing a footprint of an account's postings kept as a list of Transaction objects
+ * (the former layout), in HeapTransactionStore's primitive columns and in OffHeapTransactionStore's
+ * direct chunks: heap and off-heap bytes per posting and a time of a full GC while the postings are live
+ * (GC has to trace and move heap's layouts, but not off-heap records).
+ *
+ * Usage: java -Xmx4g -XX:MaxDirectMemorySize=4g TransactionFootprintBenchmark [postings]
+ */
+public class TransactionFootprintBenchmark {
+
+    /**
+     * Memos used by postings (shared by both layouts, so that only a per-posting overhead is compared).
+     */
+    private static final String[] MEMOS = {"Salary", "Coffee", "Rent", "Groceries", ""};
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: a number of postings.
+     */
+    public static void main(String[] args) {
+
+        int postings = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Bank bank = new Bank("Benchmark bank");
+        BenchmarkSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        BenchmarkSupport.restoreOut();
+
+        long now = System.currentTimeMillis();
+        long[] memoCodes = new long[MEMOS.length];
+        for (int m = 0; m < MEMOS.length; ++m) {
+            memoCodes[m] = bank.getMemoDictionary().encode(MEMOS[m]);
+        }
+
+        long before = BenchmarkSupport.usedHeap();
+        ArrayList<Transaction> objects = new ArrayList<Transaction>();
+        Account objectsAccount = new Account("Objects", user, bank);
+        for (int p = 0; p < postings; ++p) {
+            objects.add(new Transaction(p % 1000 - 500, now + p, MEMOS[p % MEMOS.length], objectsAccount));
+        }
+        long objectsBytes = BenchmarkSupport.usedHeap() - before;
+        long objectsGcNanos = TransactionFootprintBenchmark.timeFullGc();
+        BenchmarkSupport.sink += objects.size();
+        objects = null;
+
+        before = BenchmarkSupport.usedHeap();
+        HeapTransactionStore columns = new HeapTransactionStore();
+        for (int p = 0; p < postings; ++p) {
+            columns.add(p % 1000 - 500, now + p, memoCodes[p % MEMOS.length]);
+        }
+        long columnsBytes = BenchmarkSupport.usedHeap() - before;
+        long columnsGcNanos = TransactionFootprintBenchmark.timeFullGc();
+        BenchmarkSupport.sink += columns.size();
+        columns = null;
+
+        before = BenchmarkSupport.usedHeap();
+        OffHeapTransactionStore records = new OffHeapTransactionStore();
+        for (int p = 0; p < postings; ++p) {
+            records.add(p % 1000 - 500, now + p, memoCodes[p % MEMOS.length]);
+        }
+        long recordsBytes = BenchmarkSupport.usedHeap() - before;
+        long recordsGcNanos = TransactionFootprintBenchmark.timeFullGc();
+        BenchmarkSupport.sink += records.sumOfAmounts();
+
+        System.out.printf("%d postings\n", postings);
+        System.out.printf("%-28s %14s %12s %14s %12s\n", "layout", "heap MiB", "heap B/p", "off-heap B/p", "full GC ms");
+        System.out.printf("%-28s %14.1f %12.1f %14.1f %12.1f\n", "ArrayList<Transaction>",
+                objectsBytes / 1048576.0, (double) objectsBytes / postings, 0.0, objectsGcNanos / 1e6);
+        System.out.printf("%-28s %14.1f %12.1f %14.1f %12.1f\n", "HeapTransactionStore",
+                columnsBytes / 1048576.0, (double) columnsBytes / postings, 0.0, columnsGcNanos / 1e6);
+        System.out.printf("%-28s %14.1f %12.1f %14.1f %12.1f\n", "OffHeapTransactionStore",
+                recordsBytes / 1048576.0, (double) recordsBytes / postings,
+                (double) records.getOffHeapBytes() / postings, recordsGcNanos / 1e6);
+    }
+
+
+    /**
+     * This method measures a time of a full GC (the best of a few).
+     *
+     * @return A time of a full GC (in nanoseconds).
+     */
+    private static long timeFullGc() {
+        long best = Long.MAX_VALUE;
+
+        for (int gc = 0; gc < 3; ++gc) {
+            long begin = System.nanoTime();
+            System.gc();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+
+        return best;
+    }
+}
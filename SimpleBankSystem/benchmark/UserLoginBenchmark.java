@@ -0,0 +1,130 @@
+import java.util.Random;
+
+
+/**
+ * A benchmark comparing Bank.userLogin (users' directory) with a scan of a bank's users' list.
+ *
+ * Usage: java UserLoginBenchmark [sizes] [logins]
+ * e.g.   java -Xmx16g UserLoginBenchmark 10000,1000000,10000000 20000
+ */
+public class UserLoginBenchmark {
+
+    /**
+     * A pin shared by all benchmark's users.
+     */
+    private static final String PIN = "1234";
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args Input arguments' list: users' counts and a number of measured logins.
+     */
+    public static void main(String[] args) {
+
+        int[] sizes = BenchmarkSupport.parseSizes(args, 0, new int[]{10_000, 1_000_000, 10_000_000});
+        int logins = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        System.out.printf("%12s %18s %18s\n", "users", "directory ns/op", "list scan ns/op");
+
+        for (int size : sizes) {
+
+            Bank bank = UserLoginBenchmark.createBank(size);
+
+            String[] userIDs = new String[logins];
+            Random random = new Random(42);
+            for (int l = 0; l < logins; ++l) {
+                userIDs[l] = bank.getUser(random.nextInt(size)).getUsersUUID();
+            }
+
+            // warm up both paths
+            UserLoginBenchmark.measureDirectory(bank, userIDs, Math.min(logins, 2_000));
+            UserLoginBenchmark.measureScan(bank, userIDs, Math.min(logins, 200));
+
+            double directoryNs = UserLoginBenchmark.measureDirectory(bank, userIDs, logins);
+
+            // the scan is linear - limit a number of its logins for big banks
+            int scanLogins = (int) Math.max(10, Math.min(logins, 2_000_000_000L / size));
+            double scanNs = UserLoginBenchmark.measureScan(bank, userIDs, scanLogins);
+
+            System.out.printf("%12d %18.1f %18.1f\n", size, directoryNs, scanNs);
+        }
+    }
+
+
+    /**
+     * This method creates a bank with a given number of users.
+     *
+     * @param size A number of users.
+     *
+     * @return A new bank.
+     */
+    private static Bank createBank(int size) {
+        Bank bank = new Bank("Benchmark bank");
+
+        BenchmarkSupport.muteOut();
+        try {
+            for (int u = 0; u < size; ++u) {
+                bank.addUser("First", "Last", PIN);
+            }
+        } finally {
+            BenchmarkSupport.restoreOut();
+        }
+
+        return bank;
+    }
+
+
+    /**
+     * This method measures an average time of Bank.userLogin.
+     *
+     * @param bank    A bank to log in to.
+     * @param userIDs Users' IDs to be used.
+     * @param logins  A number of logins.
+     *
+     * @return An average login's time in nanoseconds.
+     */
+    private static double measureDirectory(Bank bank, String[] userIDs, int logins) {
+        long found = 0;
+        long start = System.nanoTime();
+        for (int l = 0; l < logins; ++l) {
+            if (bank.userLogin(userIDs[l], PIN) != null) {
+                ++found;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        BenchmarkSupport.sink += found;
+
+        return (double) elapsed / logins;
+    }
+
+
+    /**
+     * This method measures an average time of a login scanning a bank's users' list
+     * (the former implementation of Bank.userLogin).
+     *
+     * @param bank    A bank to log in to.
+     * @param userIDs Users' IDs to be used.
+     * @param logins  A number of logins.
+     *
+     * @return An average login's time in nanoseconds.
+     */
+    private static double measureScan(Bank bank, String[] userIDs, int logins) {
+        long found = 0;
+        int numberOfUsers = bank.getNumberOfUsers();
+        long start = System.nanoTime();
+        for (int l = 0; l < logins; ++l) {
+            for (int u = 0; u < numberOfUsers; ++u) {
+                User user = bank.getUser(u);
+                if (user.getUsersUUID().compareTo(userIDs[l]) == 0 && user.validatePIN(PIN) == true) {
+                    ++found;
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        BenchmarkSupport.sink += found;
+
+        return (double) elapsed / logins;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+
+/**
+ * A class gathering helpers shared by the bank system's runnable checks.
+ *
+ * A check is a plain main class (like a benchmark): it prints a line per checked condition
+ * and exits with status 1 if any condition does not hold, e.g.
+ *     java -cp out:check-out JournalRecoveryCheck
+ */
+public final class CheckSupport {
+
+    /**
+     * A number of conditions which have not held.
+     */
+    private static int failures;
+
+    /**
+     * The standard output stream saved while checks' logs are muted.
+     */
+    private static PrintStream savedOut;
+
+
+    /**
+     * A private constructor (the class is a static helper only).
+     */
+    private CheckSupport() {
+    }
+
+
+    /**
+     * This method prints whether a condition holds (and counts it if it does not).
+     *
+     * @param condition   A checked condition.
+     * @param description A condition's description.
+     */
+    public static void check(boolean condition, String description) {
+        System.out.printf("%-6s %s\n", condition ? "ok" : "FAILED", description);
+        if (!condition) {
+            failures++;
+        }
+    }
+
+
+    /**
+     * This method checks that a code throws an exception of a given type.
+     *
+     * @param expected    An expected exception's type.
+     * @param code        A checked code.
+     * @param description A condition's description.
+     */
+    public static void checkThrows(Class<? extends Throwable> expected, ThrowingCode code, String description) {
+        Throwable thrown = null;
+        try {
+            code.run();
+        } catch (Throwable ex) {
+            thrown = ex;
+        }
+
+        CheckSupport.check(expected.isInstance(thrown), description
+                + (expected.isInstance(thrown) ? "" : " (thrown: " + thrown + ")"));
+    }
+
+
+    /**
+     * This method mutes the standard output (e.g. the log message of the User's constructor).
+     */
+    public static void muteOut() {
+        savedOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+
+    /**
+     * This method restores the standard output muted by muteOut().
+     */
+    public static void restoreOut() {
+        if (savedOut != null) {
+            System.setOut(savedOut);
+            savedOut = null;
+        }
+    }
+
+
+    /**
+     * This method creates a new temporary directory of a check.
+     *
+     * @param prefix A directory's name's prefix.
+     *
+     * @return A new empty directory.
+     *
+     * @throws IOException if the directory cannot be created.
+     */
+    public static Path newDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+
+    /**
+     * This method deletes a check's temporary directory with its files.
+     *
+     * @param directory A directory.
+     *
+     * @throws IOException if a file cannot be deleted.
+     */
+    public static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+
+    /**
+     * This method ends a check: it prints a summary and exits with status 1 if any condition has not held.
+     */
+    public static void exit() {
+        System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+
+    /**
+     * An interface of a checked code which may throw any exception.
+     */
+    public interface ThrowingCode {
+
+        /**
+         * This method runs the code.
+         *
+         * @throws Exception if the code fails.
+         */
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * A class defining a file channel which delegates to a real one, but simulates a disk's failures on demand:
+ * a write which fails after some of its bytes (a torn record) or a failed force.
+ */
+public class FailingFileChannel extends FileChannel {
+
+    /**
+     * A real file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * A number of bytes written before writes fail (-1 - writes do not fail).
+     */
+    private volatile long bytesBeforeFailure;
+
+    /**
+     * true if forces fail.
+     */
+    private volatile boolean isForceFailing;
+
+
+    /**
+     * A public constructor creating a channel which does not fail until it is told to.
+     *
+     * @param channel A real file channel.
+     */
+    public FailingFileChannel(FileChannel channel) {
+        this.channel = channel;
+        this.bytesBeforeFailure = -1;
+        this.isForceFailing = false;
+    }
+
+
+    /**
+     * This method makes writes fail after a given number of bytes (-1 - writes do not fail).
+     *
+     * @param bytesBeforeFailure A number of bytes written before writes fail.
+     */
+    public void failWritesAfter(long bytesBeforeFailure) {
+        this.bytesBeforeFailure = bytesBeforeFailure;
+    }
+
+
+    /**
+     * This method makes forces fail (or succeed again).
+     *
+     * @param isForceFailing true if forces fail.
+     */
+    public void failForces(boolean isForceFailing) {
+        this.isForceFailing = isForceFailing;
+    }
+
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        long allowed = this.bytesBeforeFailure;
+        if (allowed < 0) {
+            return this.channel.write(src);
+        }
+        if (allowed == 0) {
+            throw new IOException("Simulated write's failure");
+        }
+
+        ByteBuffer part = src.duplicate();
+        part.limit((int) Math.min(src.limit(), src.position() + allowed));
+        int written = this.channel.write(part);
+        src.position(src.position() + written);
+        this.bytesBeforeFailure = allowed - written;
+
+        return written;
+    }
+
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        if (this.isForceFailing) {
+            throw new IOException("Simulated force's failure");
+        }
+        this.channel.force(metaData);
+    }
+
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return this.channel.read(dst);
+    }
+
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        return this.channel.read(dsts, offset, length);
+    }
+
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        throw new UnsupportedOperationException("Gathering writes are not simulated");
+    }
+
+
+    @Override
+    public long position() throws IOException {
+        return this.channel.position();
+    }
+
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        this.channel.position(newPosition);
+        return this;
+    }
+
+
+    @Override
+    public long size() throws IOException {
+        return this.channel.size();
+    }
+
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        this.channel.truncate(size);
+        return this;
+    }
+
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return this.channel.transferTo(position, count, target);
+    }
+
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+        throw new UnsupportedOperationException("Transfers to the file are not simulated");
+    }
+
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return this.channel.read(dst, position);
+    }
+
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        throw new UnsupportedOperationException("Positional writes are not simulated");
+    }
+
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return this.channel.map(mode, position, size);
+    }
+
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return this.channel.lock(position, size, shared);
+    }
+
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return this.channel.tryLock(position, size, shared);
+    }
+
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+
+/**
+ * A check of history segments: a segment's file round-trips its transactions (amounts, timestamps and all kinds
+ * of memos), a corrupted file is detected, and a bank restored with its history archive reopens its sealed
+ * segments (its history stays queryable, and files sealed before a snapshot are not written again).
+ * Postings do not wait for segments' files to be written, and failed writes are retried with a delay.
+ *
+ * Usage: java HistorySegmentCheck
+ */
+public class HistorySegmentCheck {
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     *
+     * @throws Exception if the check cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = CheckSupport.newDirectory("segment-check");
+        try {
+            HistorySegmentCheck.checkRoundTrip(directory.resolve("account-000000.seg"));
+            HistorySegmentCheck.checkArchiveRecovery(directory);
+            HistorySegmentCheck.checkBackgroundSealing(directory.resolve("background"));
+            HistorySegmentCheck.checkFailedSealing(directory.resolve("failing"));
+        } finally {
+            CheckSupport.deleteDirectory(directory);
+        }
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks a segment's write and read round trip and the detection of a corrupted file.
+     *
+     * @param file A segment's file.
+     *
+     * @throws IOException if the file cannot be used.
+     */
+    private static void checkRoundTrip(Path file) throws IOException {
+        MemoDictionary dictionary = new MemoDictionary();
+        HeapTransactionStore store = new HeapTransactionStore();
+        String longMemo = "y".repeat(MemoDictionary.DEFAULT_MAX_MEMO_LENGTH + 1);
+
+        long timestamp = 1_760_000_000_000L;
+        for (int t = 0; t < 100; ++t) {
+            long amount = t % 2 == 0 ? 10_000L * t : -7L * t;
+            timestamp += t * 1_000L;
+            if (t % 4 == 0) {
+                store.add(amount, timestamp, dictionary.encode(t % 8 == 0 ? "Salary" : "Rent"));
+            } else if (t % 4 == 1) {
+                store.add(amount, timestamp, dictionary.encode(MemoDictionary.TRANSFER_TO, "00000" + t));
+            } else if (t % 4 == 2) {
+                store.add(amount, timestamp, MemoDictionary.NO_MEMO);
+            } else {
+                store.add(amount, timestamp, MemoDictionary.UNSHARED_MEMO, longMemo + t);
+            }
+        }
+
+        HistorySegment written = HistorySegment.write(file, store, 90, 40, 123_456, dictionary);
+        HistorySegment opened = HistorySegment.open(file);
+        CheckSupport.check(opened.getNumberOfTransactions() == 90 && opened.getFirstPosition() == 40
+                        && opened.getFirstTimestamp() == store.getTimestamp(0)
+                        && opened.getLastTimestamp() == store.getTimestamp(89)
+                        && opened.getOpeningBalance() == 123_456
+                        && opened.getClosingBalance() == written.getClosingBalance(),
+                "a segment's footer is reopened as it was written");
+        CheckSupport.check(!Files.exists(file.resolveSibling(file.getFileName() + ".tmp")),
+                "a segment's temporary file is moved in place");
+
+        HeapTransactionStore read = opened.read(dictionary);
+        boolean isSame = read.size() == 90;
+        long sum = 0;
+        for (int t = 0; isSame && t < read.size(); ++t) {
+            sum += read.getAmount(t);
+            isSame = read.getAmount(t) == store.getAmount(t) && read.getTimestamp(t) == store.getTimestamp(t)
+                    && Objects.equals(dictionary.decode(read.getMemoCode(t), read.getUnsharedMemo(t)),
+                    dictionary.decode(store.getMemoCode(t), store.getUnsharedMemo(t)));
+        }
+        CheckSupport.check(isSame, "a segment's transactions and memos round-trip");
+        CheckSupport.check(opened.getClosingBalance() == 123_456 + sum,
+                "a segment's closing balance is its opening balance and its transactions' sum");
+
+        // a flipped byte of the deflated records
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, 20);
+            one.put(0, (byte) ~one.get(0));
+            one.rewind();
+            channel.write(one, 20);
+        }
+        CheckSupport.checkThrows(IOException.class, () -> opened.read(dictionary),
+                "a corrupted segment's file is detected");
+    }
+
+
+    /**
+     * This method checks a bank restored from a snapshot, its history archive and the journal's tail.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws Exception if the files cannot be used.
+     */
+    private static void checkArchiveRecovery(Path directory) throws Exception {
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+        Path archiveDirectory = directory.resolve("archive");
+
+        HistoryArchive archive = new HistoryArchive(archiveDirectory, 4, 8);
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP, archive);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        for (int t = 0; t < 50; ++t) {
+            account.addTransaction(1_000 + t, "Deposit " + t % 3);
+        }
+        archive.awaitSealing();
+        BankSnapshot.write(bank, snapshotFile);
+        ArrayList<byte[]> sealedBefore = HistorySegmentCheck.readSegments(archiveDirectory);
+
+        for (int t = 50; t < 80; ++t) {
+            account.addTransaction(-10 - t, "Withdrawal");
+        }
+        archive.awaitSealing();
+        ArrayList<String> before = HistorySegmentCheck.describe(account);
+        bank.closeJournal();
+
+        archive = new HistoryArchive(archiveDirectory, 4, 8);
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP, archive);
+        archive.awaitSealing();
+        account = bank.getUser(user.getUsersUUID()).getAccount(0);
+        CheckSupport.check(account.getSegments().length > 0, "a restored account's sealed segments are reopened");
+        CheckSupport.check(before.equals(HistorySegmentCheck.describe(account)),
+                "a restored account's history (" + before.size() + " lines) is the same across its segments");
+
+        ArrayList<byte[]> sealedAfter = HistorySegmentCheck.readSegments(archiveDirectory);
+        boolean isKept = sealedAfter.size() >= sealedBefore.size();
+        for (int s = 0; isKept && s < sealedBefore.size(); ++s) {
+            isKept = Arrays.equals(sealedBefore.get(s), sealedAfter.get(s));
+        }
+        CheckSupport.check(isKept, "segments sealed before a snapshot are not written again");
+
+        // a snapshot with sealed history cannot be restored without its archive
+        BankSnapshot.write(bank, snapshotFile);
+        bank.closeJournal();
+        CheckSupport.checkThrows(IOException.class, () -> BankSnapshot.load(snapshotFile),
+                "a snapshot with sealed history is not loaded without its archive");
+    }
+
+
+    /**
+     * This method checks that postings go on while the archive's sealer is busy, and that their transactions
+     * are sealed when it is free again.
+     *
+     * @param directory A directory of the archive's segments.
+     *
+     * @throws Exception if the archive cannot be used.
+     */
+    private static void checkBackgroundSealing(Path directory) throws Exception {
+        HistoryArchive archive = new HistoryArchive(directory, 4, 8);
+        Bank bank = new Bank("Check bank");
+        bank.setHistoryArchive(archive);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        // the sealer is held up, as by a slow disk
+        CountDownLatch release = new CountDownLatch(1);
+        archive.seal(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int t = 0; t < 40; ++t) {
+            account.addTransaction(100, "Deposit");
+        }
+        CheckSupport.check(account.getSegments().length == 0 && account.getNumberOfTransactions() == 40
+                        && account.getTransaction(0).getTransactionsAmount() == 100,
+                "postings are not held up by a busy sealer");
+
+        release.countDown();
+        archive.awaitSealing();
+        CheckSupport.check(account.getSegments().length == 4 && account.getSealedBalance() == 3_200
+                        && account.getBalance() == 4_000 && account.getNumberOfTransactions() == 40,
+                "transactions posted while the sealer is busy are sealed later");
+    }
+
+
+    /**
+     * This method checks that a failed segment's write is not retried by every posting, and that sealing resumes
+     * after the retry's delay.
+     *
+     * @param directory A directory of the archive's segments.
+     *
+     * @throws Exception if the archive cannot be used.
+     */
+    private static void checkFailedSealing(Path directory) throws Exception {
+        HistoryArchive archive = new HistoryArchive(directory, 4, 8);
+        Bank bank = new Bank("Check bank");
+        bank.setHistoryArchive(archive);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        // a directory in place of the first segment's temporary file, as a broken disk (also for root)
+        Path segmentFile = archive.getSegmentFile(account.getAccountsUUID(), 0);
+        Path blocker = Files.createDirectory(segmentFile.resolveSibling(segmentFile.getFileName() + ".tmp"));
+
+        for (int t = 0; t < 100; ++t) {
+            account.addTransaction(100, "Deposit");
+            archive.awaitSealing();
+        }
+        CheckSupport.check(archive.isFailing() && archive.getNumberOfFailedSeals() == 1
+                        && account.getSegments().length == 0 && account.getNumberOfTransactions() == 100,
+                "a failed segment's write is tried once per retry's delay, and transactions stay in memory");
+
+        Files.delete(blocker);
+        Thread.sleep(HistoryArchive.RETRY_MILLIS + 100);
+        account.addTransaction(100, "Deposit");
+        archive.awaitSealing();
+        CheckSupport.check(!archive.isFailing() && account.getSegments().length == 12
+                        && account.getBalance() == 10_100 && account.getNumberOfTransactions() == 101,
+                "sealing resumes after the retry's delay");
+    }
+
+
+    /**
+     * This method reads all segments' files of an archive (in their names' order).
+     *
+     * @param directory An archive's directory.
+     *
+     * @return Files' contents.
+     *
+     * @throws IOException if a file cannot be read.
+     */
+    private static ArrayList<byte[]> readSegments(Path directory) throws IOException {
+        ArrayList<byte[]> contents = new ArrayList<byte[]>();
+        Path[] files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.toString().endsWith(".seg")).sorted().toArray(Path[]::new);
+        }
+        for (Path file : files) {
+            contents.add(Files.readAllBytes(file));
+        }
+
+        return contents;
+    }
+
+
+    /**
+     * This method describes an account's balance and history (through transactions and history's pages).
+     *
+     * @param account An account.
+     *
+     * @return Lines of a description.
+     */
+    private static ArrayList<String> describe(Account account) {
+        ArrayList<String> lines = new ArrayList<String>();
+
+        lines.add(account.getBalance() + " " + account.getNumberOfTransactions());
+        for (int t = 0; t < account.getNumberOfTransactions(); ++t) {
+            Transaction transaction = account.getTransaction(t);
+            lines.add(transaction.getTransactionsAmount() + " " + transaction.getTransactionsTimestamp() + " "
+                    + transaction.getTransactionsMemo());
+        }
+
+        int cursor = TransactionPage.FROM_NEWEST;
+        do {
+            TransactionPage page = account.getHistoryPage(Long.MIN_VALUE, Long.MAX_VALUE, cursor, 5);
+            for (int idx = 0; idx < page.size(); ++idx) {
+                lines.add("page " + page.getAmount(idx) + " " + page.getTimestamp(idx) + " " + page.getMemo(idx));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != TransactionPage.END);
+
+        return lines;
+    }
+}
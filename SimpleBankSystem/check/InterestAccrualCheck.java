@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+
+/**
+ * A check of interest accrual's idempotency across a bank's restarts: accrual's days are restored from
+ * the journal's accrual records only (a client's memo looking like an interest's one marks nothing),
+ * and a day accrued before a restart is not accrued again, also for accounts whose interest was below a cent.
+ * Days are tracked exactly, so a missed day run after later ones is accrued, also after a snapshot.
+ *
+ * Usage: java InterestAccrualCheck
+ */
+public class InterestAccrualCheck {
+
+    /**
+     * An annual rate (in basis points) giving a cent of daily interest per 10000 cents of a 365 days' year.
+     */
+    private static final int RATE = 365;
+
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     *
+     * @throws Exception if the check cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = CheckSupport.newDirectory("accrual-check");
+        try {
+            InterestAccrualCheck.checkRestart(directory);
+            InterestAccrualCheck.checkOutOfOrderDays(directory.resolve("out-of-order"));
+        } finally {
+            CheckSupport.deleteDirectory(directory);
+        }
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks accruals' days restored from the journal.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkRestart(Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+        LocalDate day = LocalDate.of(2026, 10, 18);
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User spoofer = bank.addUser("First", "Last", "1234");
+        User saver = bank.addUser("Second", "Last", "1234");
+        User small = bank.addUser("Third", "Last", "1234");
+        CheckSupport.restoreOut();
+        spoofer.getAccount(0).addTransaction(1_000_000, InterestAccrualJob.MEMO_PREFIX + "2099-01-01");
+        saver.getAccount(0).addTransaction(1_000_000, "Deposit");
+        small.getAccount(0).addTransaction(1, "Deposit");
+
+        InterestAccrualReport report = new InterestAccrualJob(bank, "Savings", RATE, day).run();
+        CheckSupport.check(report.getNumberOfAccrued() == 2 && report.getNumberOfBelowCent() == 1,
+                "a day is accrued once per account");
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        report = new InterestAccrualJob(bank, "Savings", RATE, day).run();
+        CheckSupport.check(report.getNumberOfAlreadyAccrued() == 3 && report.getTotalInterest() == 0,
+                "a day accrued before a restart is not accrued again (also below a cent)");
+
+        report = new InterestAccrualJob(bank, "Savings", RATE, day.plusDays(1)).run();
+        Account spoofersAccount = bank.getUser(spoofer.getUsersUUID()).getAccount(0);
+        CheckSupport.check(report.getNumberOfAccrued() == 2 && spoofersAccount.getBalance() == 1_000_200,
+                "a client's memo looking like an interest's one does not mark a day");
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method checks days accrued out of order, before and after a bank's snapshot.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkOutOfOrderDays(Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+        Files.createDirectories(directory);
+        LocalDate day = LocalDate.of(2026, 10, 18);
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        user.getAccount(0).addTransaction(1_000_000, "Deposit");
+
+        new InterestAccrualJob(bank, "Savings", RATE, day.plusDays(3)).run();
+        InterestAccrualReport report = new InterestAccrualJob(bank, "Savings", RATE, day.plusDays(2)).run();
+        CheckSupport.check(report.getNumberOfAccrued() == 1, "a missed day is accrued after a later one");
+        report = new InterestAccrualJob(bank, "Savings", RATE, day.minusDays(200)).run();
+        CheckSupport.check(report.getNumberOfAccrued() == 1, "a day months before the first accrued one is accrued");
+
+        BankSnapshot.write(bank, snapshotFile);
+        new InterestAccrualJob(bank, "Savings", RATE, day.plusDays(1)).run();
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        boolean isRestored = true;
+        for (int d : new int[]{-200, 1, 2, 3}) {
+            report = new InterestAccrualJob(bank, "Savings", RATE, day.plusDays(d)).run();
+            isRestored &= report.getNumberOfAlreadyAccrued() == 1;
+        }
+        CheckSupport.check(isRestored, "accrued days are restored from a snapshot and the journal's tail");
+        report = new InterestAccrualJob(bank, "Savings", RATE, day).run();
+        CheckSupport.check(report.getNumberOfAccrued() == 1, "a day never accrued is still accrued after a restart");
+        bank.closeJournal();
+    }
+}
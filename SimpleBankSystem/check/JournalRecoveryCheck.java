@@ -0,0 +1,282 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A check of a posting journal's behaviour after failed writes and of a bank's recovery from a torn journal:
+ * a failed batch is never acknowledged, the journal rejects further records, a torn record is cut off,
+ * a transfer torn by a crash is replayed with neither of its legs, and no record appended before the journal
+ * is closed is lost.
+ *
+ * Usage: java JournalRecoveryCheck
+ */
+public class JournalRecoveryCheck {
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     *
+     * @throws Exception if the check cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = CheckSupport.newDirectory("journal-check");
+        try {
+            JournalRecoveryCheck.checkTornWrite(directory.resolve("torn.journal"));
+            JournalRecoveryCheck.checkFailedForce(directory.resolve("force.journal"));
+            JournalRecoveryCheck.checkTornTailRecovery(directory);
+            JournalRecoveryCheck.checkTornTransfer(directory.resolve("transfer"));
+            JournalRecoveryCheck.checkCloseRace(directory.resolve("close.journal"));
+        } finally {
+            CheckSupport.deleteDirectory(directory);
+        }
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks a group commit's batch torn by a failed write.
+     *
+     * @param file A journal's file.
+     *
+     * @throws IOException if the file cannot be used.
+     */
+    private static void checkTornWrite(Path file) throws IOException {
+        FailingFileChannel channel = JournalRecoveryCheck.open(file);
+        PostingJournal journal = new PostingJournal(channel, JournalDurability.GROUP);
+
+        for (int p = 0; p < 3; ++p) {
+            journal.append("1000000001", 100, 1_000 + p, "Deposit");
+        }
+        journal.awaitDurable(3);
+        long durableSize = Files.size(file);
+
+        channel.failWritesAfter(10);
+        long torn = journal.append("1000000001", 200, 2_000, "Torn");
+        CheckSupport.checkThrows(UncheckedIOException.class, () -> journal.awaitDurable(torn),
+                "a posting of a torn batch is not acknowledged");
+        channel.failWritesAfter(-1);
+
+        CheckSupport.check(journal.isFailed(), "a torn write fails the journal");
+        CheckSupport.checkThrows(UncheckedIOException.class, () -> journal.awaitDurable(torn),
+                "a posting of a torn batch is not acknowledged by a later wait");
+        CheckSupport.checkThrows(UncheckedIOException.class, () -> journal.append("1000000001", 1, 3_000, "Later"),
+                "a failed journal rejects new postings");
+        journal.awaitDurable(3);
+        CheckSupport.check(Files.size(file) == durableSize, "a torn batch is cut off the file");
+        CheckSupport.checkThrows(IOException.class, journal::close, "closing a failed journal reports its failure");
+
+        long[] sum = new long[1];
+        long end = PostingJournal.replay(file, PostingJournal.HEADER_SIZE, JournalRecoveryCheck.summing(sum));
+        CheckSupport.check(end == durableSize && sum[0] == 300, "a replay finds exactly the durable postings");
+    }
+
+
+    /**
+     * This method checks a SYNC journal whose force fails.
+     *
+     * @param file A journal's file.
+     *
+     * @throws IOException if the file cannot be used.
+     */
+    private static void checkFailedForce(Path file) throws IOException {
+        FailingFileChannel channel = JournalRecoveryCheck.open(file);
+        PostingJournal journal = new PostingJournal(channel, JournalDurability.SYNC);
+
+        journal.append("1000000001", 100, 1_000, "Deposit");
+        long durableSize = Files.size(file);
+
+        channel.failForces(true);
+        CheckSupport.checkThrows(UncheckedIOException.class, () -> journal.append("1000000001", 200, 2_000, "Lost"),
+                "a posting whose force fails is rejected");
+        channel.failForces(false);
+
+        CheckSupport.checkThrows(UncheckedIOException.class, () -> journal.append("1000000001", 300, 3_000, "Later"),
+                "a journal stays failed after a failed force");
+        CheckSupport.check(Files.size(file) == durableSize, "an unforced record is cut off the file");
+        channel.close();
+    }
+
+
+    /**
+     * This method checks a bank's recovery from a journal ending with a torn record and postings appended after it.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkTornTailRecovery(Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        user.getAccount(0).addTransaction(10_000, "Deposit");
+        bank.closeJournal();
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            // a record's length and a part of its body, as left by a crash
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, PostingJournal.RECORD_POSTING, 10, '1'}));
+        }
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        Account account = bank.getUser(user.getUsersUUID()).getAccount(0);
+        CheckSupport.check(account.getBalance() == 10_000, "postings before a torn record are recovered");
+        account.addTransaction(-2_500, "Withdrawal");
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        account = bank.getUser(user.getUsersUUID()).getAccount(0);
+        CheckSupport.check(account.getBalance() == 7_500 && account.getNumberOfTransactions() == 2,
+                "postings after a recovered torn record are not lost");
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method checks a bank's recovery from a journal whose last transfer's record is torn.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkTornTransfer(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User first = bank.addUser("First", "Last", "1234");
+        User second = bank.addUser("Second", "Last", "1234");
+        CheckSupport.restoreOut();
+        String sourceUUID = first.getAccount(0).getAccountsUUID();
+        String targetUUID = second.getAccount(0).getAccountsUUID();
+        first.getAccount(0).addTransaction(10_000, "Deposit");
+        bank.transfer(sourceUUID, targetUUID, 2_500);
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.check(bank.getAccount(sourceUUID).getBalance() == 7_500
+                        && bank.getAccount(targetUUID).getBalance() == 2_500
+                        && bank.getAccount(targetUUID).getNumberOfTransactions() == 1,
+                "both legs of a journaled transfer are recovered");
+        bank.closeJournal();
+
+        // the transfer's record cut short, as by a crash
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.check(bank.getAccount(sourceUUID).getBalance() == 10_000
+                        && bank.getAccount(targetUUID).getBalance() == 0
+                        && bank.getAccount(sourceUUID).getNumberOfTransactions() == 1,
+                "neither leg of a torn transfer is recovered");
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method checks that every record appended while the journal is being closed is either rejected
+     * or written.
+     *
+     * @param file A journal's file.
+     *
+     * @throws Exception if the file cannot be used.
+     */
+    private static void checkCloseRace(Path file) throws Exception {
+        PostingJournal journal = new PostingJournal(file, JournalDurability.ASYNC);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+
+        Thread[] appenders = new Thread[4];
+        for (int t = 0; t < appenders.length; ++t) {
+            appenders[t] = new Thread(() -> {
+                started.countDown();
+                try {
+                    while (true) {
+                        journal.append("1000000001", 1, 1_000, "Deposit");
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException ex) {
+                    // the journal is closed
+                }
+            });
+            appenders[t].start();
+        }
+
+        started.await();
+        Thread.sleep(20);
+        journal.close();
+        for (Thread appender : appenders) {
+            appender.join();
+        }
+
+        long[] sum = new long[1];
+        PostingJournal.replay(file, PostingJournal.HEADER_SIZE, JournalRecoveryCheck.summing(sum));
+        CheckSupport.check(sum[0] == accepted.get(),
+                "all " + accepted.get() + " records appended before closing are written");
+    }
+
+
+    /**
+     * This method opens a journal's file through a channel simulating failures.
+     *
+     * @param file A journal's file.
+     *
+     * @return A channel.
+     *
+     * @throws IOException if the file cannot be opened.
+     */
+    private static FailingFileChannel open(Path file) throws IOException {
+        return new FailingFileChannel(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+
+    /**
+     * This method creates a visitor summing postings' amounts.
+     *
+     * @param sum An array whose first element receives a sum of amounts.
+     *
+     * @return A visitor.
+     */
+    private static JournalVisitor summing(long[] sum) {
+        return new JournalVisitor() {
+
+            @Override
+            public void onUser(String usersUUID, String firstName, String lastName, byte[] pinHash) {
+            }
+
+            @Override
+            public void onAccount(String accountsUUID, String accountsName, String holdersUUID) {
+            }
+
+            @Override
+            public void onPosting(String accountUUID, long amount, long timestamp, String memo) {
+                sum[0] += amount;
+            }
+
+            @Override
+            public void onAccrual(String accountUUID, int accrualDay, long amount, long timestamp, String memo) {
+                sum[0] += amount;
+            }
+
+            @Override
+            public void onTransfer(String sourceUUID, String targetUUID, long amount, long sourceTimestamp,
+                                   long targetTimestamp, String sourceMemo, String targetMemo) {
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+import java.nio.file.Path;
+
+
+/**
+ * A check of a memo dictionary: templated memos survive a round trip (also with leading zeros' UUIDs),
+ * the dictionary stops interning clients' memos at its caps, and memos which are not interned keep their texts
+ * in accounts' histories, pages and sealed segments.
+ *
+ * Usage: java MemoDictionaryCheck
+ */
+public class MemoDictionaryCheck {
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     *
+     * @throws Exception if the check cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        MemoDictionaryCheck.checkTemplates();
+        MemoDictionaryCheck.checkCaps();
+
+        Path directory = CheckSupport.newDirectory("memo-check");
+        try {
+            MemoDictionaryCheck.checkUnsharedHistory(directory);
+        } finally {
+            CheckSupport.deleteDirectory(directory);
+        }
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks templated memos' round trips.
+     */
+    private static void checkTemplates() {
+        MemoDictionary dictionary = new MemoDictionary();
+
+        for (String uuid : new String[]{"1234567890", "0000012345", "0000000000", "000000000000"}) {
+            long code = dictionary.encode(MemoDictionary.TRANSFER_TO, uuid);
+            CheckSupport.check(!MemoDictionary.isPlain(code)
+                            && dictionary.decode(code).equals("Transfer to account " + uuid),
+                    "a templated memo of UUID " + uuid + " round-trips");
+            CheckSupport.check(dictionary.encode("Transfer to account " + uuid) == code,
+                    "a replayed text of UUID " + uuid + " gets the same templated code");
+            CheckSupport.check(dictionary.appendTo(new StringBuilder(), code).toString()
+                            .equals("Transfer to account " + uuid),
+                    "a templated memo of UUID " + uuid + " is appended as its text");
+        }
+
+        String longUUID = "0000000000000012345";
+        long code = dictionary.encode(MemoDictionary.TRANSFER_FROM, longUUID);
+        CheckSupport.check(MemoDictionary.isPlain(code)
+                        && dictionary.decode(code).equals("Transfer from account " + longUUID),
+                "a memo of a UUID too long to be packed round-trips as a plain one");
+        CheckSupport.check(dictionary.getNumberOfMemos() == 1, "templated memos are not interned");
+    }
+
+
+    /**
+     * This method checks a dictionary's caps.
+     */
+    private static void checkCaps() {
+        MemoDictionary dictionary = new MemoDictionary(2, 10);
+
+        long first = dictionary.encode("Rent");
+        long second = dictionary.encode("Salary");
+        long third = dictionary.encode("Groceries");
+        CheckSupport.check(MemoDictionary.isPlain(first) && MemoDictionary.isPlain(second),
+                "memos below the caps are interned");
+        CheckSupport.check(third == MemoDictionary.UNSHARED_MEMO, "a new memo of a full dictionary is not interned");
+        CheckSupport.check(dictionary.encode("Rent") == first,
+                "an interned memo keeps its code when the dictionary is full");
+        CheckSupport.check(dictionary.encode("Hello there!") == MemoDictionary.UNSHARED_MEMO,
+                "a memo longer than the cap is not interned");
+        CheckSupport.check(dictionary.getNumberOfMemos() == 2 && dictionary.getNumberOfUnsharedMemos() == 2,
+                "not interned memos are counted, but they do not grow the dictionary");
+
+        String longUUID = "0000000000000012345";
+        long code = dictionary.encode(MemoDictionary.TRANSFER_TO, longUUID);
+        CheckSupport.check(code != MemoDictionary.UNSHARED_MEMO
+                        && dictionary.decode(code).equals("Transfer to account " + longUUID),
+                "a bank's templated memo is interned beyond the caps");
+
+        CheckSupport.check(dictionary.decode(MemoDictionary.UNSHARED_MEMO, "Groceries").equals("Groceries"),
+                "a not interned memo is decoded as its text");
+        CheckSupport.checkThrows(IllegalArgumentException.class, () -> dictionary.decode(MemoDictionary.UNSHARED_MEMO),
+                "a not interned memo cannot be decoded without its text");
+    }
+
+
+    /**
+     * This method checks that memos which are not interned stay in an account's history,
+     * also after they are sealed into segments.
+     *
+     * @param directory A directory of the archive's segments.
+     *
+     * @throws Exception if the archive cannot be used.
+     */
+    private static void checkUnsharedHistory(Path directory) throws Exception {
+        Bank bank = new Bank("Check bank");
+        HistoryArchive archive = new HistoryArchive(directory, 4, 8);
+        bank.setHistoryArchive(archive);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        String longMemo = "x".repeat(MemoDictionary.DEFAULT_MAX_MEMO_LENGTH) + " ";
+        int numberOfTransactions = 30;
+        for (int t = 0; t < numberOfTransactions; ++t) {
+            account.addTransaction(100, t % 3 == 0 ? longMemo + t : "Deposit");
+        }
+
+        archive.awaitSealing();
+        CheckSupport.check(account.getSegments().length > 0, "an account's oldest transactions are sealed");
+        CheckSupport.check(bank.getMemoDictionary().getNumberOfMemos() == 1,
+                "long memos are not interned by the bank");
+
+        boolean isKept = true;
+        for (int t = 0; t < numberOfTransactions; ++t) {
+            String expected = t % 3 == 0 ? longMemo + t : "Deposit";
+            isKept &= expected.equals(account.getTransaction(t).getTransactionsMemo());
+        }
+        CheckSupport.check(isKept, "not interned memos are kept in hot and sealed history");
+
+        TransactionPage page = account.getHistoryPage(Long.MIN_VALUE, Long.MAX_VALUE, TransactionPage.FROM_NEWEST,
+                numberOfTransactions);
+        boolean isPaged = page.size() == numberOfTransactions;
+        for (int idx = 0; isPaged && idx < page.size(); ++idx) {
+            int t = numberOfTransactions - 1 - idx;
+            String expected = t % 3 == 0 ? longMemo + t : "Deposit";
+            isPaged = expected.equals(page.getMemo(idx))
+                    && expected.equals(page.appendMemo(idx, new StringBuilder()).toString());
+        }
+        CheckSupport.check(isPaged, "a history page across segments keeps not interned memos");
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A check of a posting events' ring's back-pressure: a publisher waits for a consumer a whole ring behind
+ * only up to the ring's maximal wait and then detaches it (other consumers still get every event),
+ * and a consumer which posts back to the bank is rejected before its posting is applied.
+ *
+ * Usage: java PostingEventRingCheck
+ */
+public class PostingEventRingCheck {
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     */
+    public static void main(String[] args) {
+        PostingEventRingCheck.checkBoundedWait();
+        PostingEventRingCheck.checkPostingBack();
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks that a consumer which is not polled is detached after the ring's maximal wait.
+     */
+    private static void checkBoundedWait() {
+        Bank bank = new Bank("Check bank");
+        PostingEventRing ring = new PostingEventRing(bank.getMemoDictionary(), 4, 20, TimeUnit.MILLISECONDS);
+        PostingEventConsumer stalled = ring.addConsumer("stalled");
+        PostingEventConsumer polled = ring.addConsumer("polled");
+        bank.setPostingEventRing(ring);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        long[] expectedSequence = {0};
+        boolean[] isInOrder = {true};
+        PostingEventHandler handler = (event, endOfBatch) -> {
+            isInOrder[0] &= event.getSequence() == expectedSequence[0]++ && event.getAmount() == 100;
+        };
+
+        long begin = System.nanoTime();
+        for (int p = 0; p < 10; ++p) {
+            account.addTransaction(100, "Deposit");
+            polled.poll(handler, 16);
+        }
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+        CheckSupport.check(elapsedMillis < 1_000, "a publisher waits for a stalled consumer for a bounded time ("
+                + elapsedMillis + " ms)");
+        CheckSupport.check(stalled.isDetached() && ring.getNumberOfDetachedConsumers() == 1,
+                "a consumer a whole ring behind is detached and counted");
+        CheckSupport.checkThrows(IllegalStateException.class, () -> stalled.poll(handler, 16),
+                "a detached consumer cannot be polled");
+        CheckSupport.check(!polled.isDetached() && isInOrder[0] && expectedSequence[0] == 10
+                        && account.getBalance() == 1_000,
+                "a polled consumer gets every event in order");
+    }
+
+
+    /**
+     * This method checks that a consumer's handler cannot post to the bank.
+     */
+    private static void checkPostingBack() {
+        Bank bank = new Bank("Check bank");
+        PostingEventRing ring = new PostingEventRing(bank.getMemoDictionary(), 4);
+        PostingEventConsumer consumer = ring.addConsumer("cashback");
+        bank.setPostingEventRing(ring);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        User other = bank.addUser("Second", "Last", "1234");
+        CheckSupport.restoreOut();
+        Account account = user.getAccount(0);
+
+        account.addTransaction(10_000, "Deposit");
+        PostingEventHandler cashback = (event, endOfBatch) -> account.addTransaction(event.getAmount() / 100,
+                "Cashback");
+        CheckSupport.checkThrows(IllegalStateException.class, () -> consumer.poll(cashback, 16),
+                "a consumer posting back to the bank is rejected");
+        PostingEventHandler transfer = (event, endOfBatch) -> bank.transfer(account.getAccountsUUID(),
+                other.getAccount(0).getAccountsUUID(), 100);
+        CheckSupport.checkThrows(IllegalStateException.class, () -> consumer.poll(transfer, 16),
+                "a consumer's transfer is rejected");
+        CheckSupport.check(account.getBalance() == 10_000 && account.getNumberOfTransactions() == 1
+                        && other.getAccount(0).getBalance() == 0 && ring.getLastSequence() == 0,
+                "a rejected posting is not applied");
+
+        long[] sum = new long[1];
+        CheckSupport.check(consumer.poll((event, endOfBatch) -> sum[0] += event.getAmount(), 16) == 1
+                        && sum[0] == 10_000,
+                "an event whose handler failed is delivered again");
+        account.addTransaction(500, "Deposit");
+        CheckSupport.check(ring.getLastSequence() == 1, "the consumer's thread posts again once it is not polling");
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A check of a bank's recovery from a snapshot and the journal's tail after it: balances, accounts' histories
+ * (transactions, their memos and history's pages) and interest accruals' days are the same as before a restart.
+ * A memo too long for a snapshot's field is restored as the journal restores it, and snapshots taken while
+ * postings go on restore every posting exactly once.
+ *
+ * Usage: java SnapshotRecoveryCheck
+ */
+public class SnapshotRecoveryCheck {
+
+    /**
+     * This method runs the check.
+     *
+     * @param args Input arguments' list (unused).
+     *
+     * @throws Exception if the check cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = CheckSupport.newDirectory("snapshot-check");
+        try {
+            SnapshotRecoveryCheck.checkRecovery(directory);
+            SnapshotRecoveryCheck.checkLongMemo(directory.resolve("long-memo"));
+            SnapshotRecoveryCheck.checkConcurrentSnapshots(directory.resolve("concurrent"));
+        } finally {
+            CheckSupport.deleteDirectory(directory);
+        }
+
+        CheckSupport.exit();
+    }
+
+
+    /**
+     * This method checks a bank restored from a snapshot and a journal's tail.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkRecovery(Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+        LocalDate day = LocalDate.of(2026, 10, 18);
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User first = bank.addUser("First", "Last", "1234");
+        User second = bank.addUser("Second", "Last", "1234");
+        CheckSupport.restoreOut();
+
+        SnapshotRecoveryCheck.post(bank, first, second, 0);
+        new InterestAccrualJob(bank, "Savings", 365, day).run();
+        BankSnapshot.write(bank, snapshotFile);
+
+        SnapshotRecoveryCheck.post(bank, first, second, 1);
+        new InterestAccrualJob(bank, "Savings", 365, day.plusDays(1)).run();
+
+        ArrayList<String> before = SnapshotRecoveryCheck.describe(bank);
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        ArrayList<String> after = SnapshotRecoveryCheck.describe(bank);
+        CheckSupport.check(before.equals(after), "balances and histories (" + before.size()
+                + " lines) are restored from a snapshot and the journal's tail");
+
+        InterestAccrualReport report = new InterestAccrualJob(bank, "Savings", 365, day).run();
+        CheckSupport.check(report.getNumberOfAlreadyAccrued() == 2, "a day accrued before the snapshot is restored");
+        report = new InterestAccrualJob(bank, "Savings", 365, day.plusDays(1)).run();
+        CheckSupport.check(report.getNumberOfAlreadyAccrued() == 2, "a day accrued after the snapshot is restored");
+
+        // a snapshot taken right before a restart restores everything without a journal's tail
+        before = SnapshotRecoveryCheck.describe(bank);
+        BankSnapshot.write(bank, snapshotFile);
+        bank.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.check(before.equals(SnapshotRecoveryCheck.describe(bank)),
+                "a restored history survives the next snapshot");
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method checks a snapshot of a memo longer than 65535 UTF-8 bytes (but not characters).
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws IOException if the files cannot be used.
+     */
+    private static void checkLongMemo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.muteOut();
+        User user = bank.addUser("First", "Last", "1234");
+        CheckSupport.restoreOut();
+        user.getAccount(0).addTransaction(100, "\u017c".repeat(40_000));
+        user.getAccount(0).addTransaction(200, "Deposit");
+
+        BankSnapshot.write(bank, snapshotFile);
+        bank.closeJournal();
+
+        // a restart without the snapshot replays the journal only
+        Path journalOnlyFile = directory.resolve("journal-only.journal");
+        Files.copy(journalFile, journalOnlyFile);
+        Bank replayed = BankSnapshot.recover("Check bank", directory.resolve("none.snapshot"), journalOnlyFile,
+                JournalDurability.GROUP);
+        String replayedMemo = replayed.getUser(user.getUsersUUID()).getAccount(0).getTransaction(0)
+                .getTransactionsMemo();
+        replayed.closeJournal();
+
+        bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        Account account = bank.getUser(user.getUsersUUID()).getAccount(0);
+        CheckSupport.check(account.getBalance() == 300 && account.getNumberOfTransactions() == 2
+                        && account.getTransaction(1).getTransactionsMemo().equals("Deposit"),
+                "a snapshot with a memo of 80000 UTF-8 bytes is restored");
+        CheckSupport.check(account.getTransaction(0).getTransactionsMemo().equals(replayedMemo)
+                        && replayedMemo.length() < 40_000,
+                "a too long memo is truncated by a snapshot as by the journal");
+        bank.closeJournal();
+    }
+
+
+    /**
+     * This method checks snapshots written while other threads post deposits and transfers, and a snapshot
+     * held up by one account's stripe while another account (not copied yet) is posted to.
+     *
+     * @param directory A directory of the bank's files.
+     *
+     * @throws Exception if the files cannot be used.
+     */
+    private static void checkConcurrentSnapshots(Path directory) throws Exception {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve("bank.snapshot");
+        Path journalFile = directory.resolve("bank.journal");
+
+        Bank bank = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        User[] users = new User[8];
+        CheckSupport.muteOut();
+        for (int u = 0; u < users.length; ++u) {
+            users[u] = bank.addUser("User" + u, "Last", "1234");
+        }
+        CheckSupport.restoreOut();
+
+        Thread[] posters = new Thread[4];
+        CountDownLatch finished = new CountDownLatch(posters.length);
+        for (int p = 0; p < posters.length; ++p) {
+            int poster = p;
+            posters[p] = new Thread(() -> {
+                for (int t = 0; t < 2_000; ++t) {
+                    int source = (poster + t) % users.length;
+                    int target = (source + 1 + t % (users.length - 1)) % users.length;
+                    Account account = users[source].getAccount(0);
+                    account.addTransaction(1_000 + t, "Deposit " + poster);
+                    bank.transfer(account.getAccountsUUID(), users[target].getAccount(0).getAccountsUUID(), 100);
+                }
+                finished.countDown();
+            });
+            posters[p].start();
+        }
+
+        // the last snapshot is started while all posters are still posting
+        int numberOfSnapshots = 0;
+        do {
+            BankSnapshot.write(bank, snapshotFile);
+            numberOfSnapshots++;
+        } while (finished.getCount() == posters.length);
+        for (Thread poster : posters) {
+            poster.join();
+        }
+
+        // a snapshot held up by the first account's stripe copies a later account after its postings
+        User[] bankUsers = bank.getUsers();
+        Account first = bankUsers[0].getAccount(0);
+        Account later = bankUsers[bankUsers.length - 1].getAccount(0);
+        for (int u = bankUsers.length - 2; later.getLockStripe() == first.getLockStripe(); --u) {
+            later = bankUsers[u].getAccount(0);
+        }
+        ReentrantLock firstLock = bank.getPostingEngine().getLock(first);
+        firstLock.lock();
+        Thread writer = new Thread(() -> {
+            try {
+                BankSnapshot.write(bank, snapshotFile);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.start();
+        while (!firstLock.hasQueuedThreads()) {
+            Thread.sleep(1);
+        }
+        for (int t = 0; t < 10; ++t) {
+            later.addTransaction(500, "Deposit during a snapshot");
+        }
+        firstLock.unlock();
+        writer.join();
+
+        long numberOfTransactions = 0;
+        for (Account account : bank.getAccounts()) {
+            numberOfTransactions += account.getNumberOfTransactions();
+        }
+        CheckSupport.check(numberOfTransactions == posters.length * 2_000 * 3 + 10,
+                "every deposit and transfer is posted while snapshots are written");
+
+        ArrayList<String> before = SnapshotRecoveryCheck.describe(bank);
+        bank.closeJournal();
+
+        Bank restored = BankSnapshot.recover("Check bank", snapshotFile, journalFile, JournalDurability.GROUP);
+        CheckSupport.check(before.equals(SnapshotRecoveryCheck.describe(restored)), "balances and histories ("
+                + before.size() + " lines) are restored from a snapshot written during postings (after "
+                + numberOfSnapshots + " others)");
+        restored.closeJournal();
+    }
+
+
+    /**
+     * This method posts a round of deposits, withdrawals and transfers (with plain, templated
+     * and too long to be interned memos).
+     *
+     * @param bank   A bank.
+     * @param first  The first user.
+     * @param second The second user.
+     * @param round  A round's number.
+     */
+    private static void post(Bank bank, User first, User second, int round) {
+        String longMemo = "A long memo ".repeat(8) + round;
+
+        for (int p = 0; p < 20; ++p) {
+            first.getAccount(0).addTransaction(100_000 + p, "Deposit " + round);
+            second.getAccount(0).addTransaction(50_000, p % 4 == 0 ? longMemo : "Salary");
+            bank.getPostingEngine().withdraw(first.getAccount(0), 1_000, "ATM withdrawal");
+            bank.transfer(first.getAccount(0).getAccountsUUID(), second.getAccount(0).getAccountsUUID(), 2_500);
+        }
+    }
+
+
+    /**
+     * This method describes all accounts' balances and histories (through transactions and history's pages).
+     *
+     * @param bank A bank.
+     *
+     * @return Lines of a description.
+     */
+    private static ArrayList<String> describe(Bank bank) {
+        ArrayList<String> lines = new ArrayList<String>();
+
+        for (Account account : bank.getAccounts()) {
+            lines.add(account.getAccountsUUID() + " " + account.getBalance() + " "
+                    + account.getNumberOfTransactions());
+            for (int t = 0; t < account.getNumberOfTransactions(); ++t) {
+                Transaction transaction = account.getTransaction(t);
+                lines.add(transaction.getTransactionsAmount() + " " + transaction.getTransactionsTimestamp() + " "
+                        + transaction.getTransactionsMemo());
+            }
+
+            int cursor = TransactionPage.FROM_NEWEST;
+            do {
+                TransactionPage page = account.getHistoryPage(Long.MIN_VALUE, Long.MAX_VALUE, cursor, 7);
+                for (int idx = 0; idx < page.size(); ++idx) {
+                    lines.add("page " + page.getAmount(idx) + " " + page.getTimestamp(idx) + " " + page.getMemo(idx));
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != TransactionPage.END);
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+
+/**
+ * A class defining a benchmarked bank: a given number of users (pin 1234), each with one "Savings" account
+ * with a given length of history, and a random order in which operations pick users.
+ */
+public class BankFixture {
+
+    /**
+     * A pin of all the fixture's users.
+     */
+    public static final String PIN = "1234";
+
+    /**
+     * A number of random users' positions (a power of 2).
+     */
+    private static final int ORDER_SIZE = 1 << 16;
+
+    /**
+     * A number of sample transactions (a power of 2).
+     */
+    private static final int SAMPLE_SIZE = 1 << 10;
+
+    /**
+     * A benchmarked bank.
+     */
+    private Bank bank;
+
+    /**
+     * A number of users.
+     */
+    private int numberOfUsers;
+
+    /**
+     * A number of transactions of every account.
+     */
+    private int historyLength;
+
+    /**
+     * Users' IDs.
+     */
+    private String[] usersIds;
+
+    /**
+     * Users.
+     */
+    private User[] users;
+
+    /**
+     * Users' accounts.
+     */
+    private Account[] accounts;
+
+    /**
+     * Sample transactions (views of accounts' transactions).
+     */
+    private Transaction[] transactions;
+
+    /**
+     * Random users' positions.
+     */
+    private int[] order;
+
+
+    /**
+     * A public constructor building a benchmarked bank.
+     *
+     * @param numberOfUsers A number of users.
+     * @param historyLength A number of transactions of every account.
+     */
+    public BankFixture(int numberOfUsers, int historyLength) {
+        this.bank = new Bank("Microbenchmark bank");
+        this.numberOfUsers = numberOfUsers;
+        this.historyLength = historyLength;
+        this.usersIds = new String[numberOfUsers];
+        this.users = new User[numberOfUsers];
+        this.accounts = new Account[numberOfUsers];
+
+        // users' constructors print a line each
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int u = 0; u < numberOfUsers; ++u) {
+                this.users[u] = this.bank.addUser("First", "Last", PIN);
+                this.usersIds[u] = this.users[u].getUsersUUID();
+                this.accounts[u] = this.users[u].getAccount(0);
+            }
+        } finally {
+            System.setOut(out);
+        }
+
+        Random random = new Random(42);
+
+        for (int t = 0; t < historyLength; ++t) {
+            for (int u = 0; u < numberOfUsers; ++u) {
+                long amount = 1 + random.nextInt(100_00);
+                this.accounts[u].addTransaction(t % 3 == 2 ? -amount : amount, "Microbenchmark posting");
+            }
+        }
+
+        this.transactions = new Transaction[historyLength > 0 ? SAMPLE_SIZE : 0];
+        for (int s = 0; s < this.transactions.length; ++s) {
+            Account account = this.accounts[random.nextInt(numberOfUsers)];
+            this.transactions[s] = account.getTransaction(random.nextInt(historyLength));
+        }
+
+        this.order = new int[ORDER_SIZE];
+        for (int o = 0; o < ORDER_SIZE; ++o) {
+            this.order[o] = random.nextInt(numberOfUsers);
+        }
+    }
+
+
+    /**
+     * This method returns a benchmarked bank.
+     *
+     * @return A benchmarked bank.
+     */
+    public Bank getBank() {
+        return this.bank;
+    }
+
+
+    /**
+     * This method returns a number of users.
+     *
+     * @return A number of users.
+     */
+    public int getNumberOfUsers() {
+        return this.numberOfUsers;
+    }
+
+
+    /**
+     * This method returns a number of transactions every account had when the fixture was built.
+     *
+     * @return A history's length.
+     */
+    public int getHistoryLength() {
+        return this.historyLength;
+    }
+
+
+    /**
+     * This method returns a position of a user picked by an operation.
+     *
+     * @param op An operation's number.
+     *
+     * @return A (random) user's position.
+     */
+    public int userIdx(int op) {
+        return this.order[op & (ORDER_SIZE - 1)];
+    }
+
+
+    /**
+     * This method returns an ID of a user picked by an operation.
+     *
+     * @param op An operation's number.
+     *
+     * @return A user's ID.
+     */
+    public String getUsersId(int op) {
+        return this.usersIds[this.userIdx(op)];
+    }
+
+
+    /**
+     * This method returns a user picked by an operation.
+     *
+     * @param op An operation's number.
+     *
+     * @return A user.
+     */
+    public User getUser(int op) {
+        return this.users[this.userIdx(op)];
+    }
+
+
+    /**
+     * This method returns an account picked by an operation.
+     *
+     * @param op An operation's number.
+     *
+     * @return An account.
+     */
+    public Account getAccount(int op) {
+        return this.accounts[this.userIdx(op)];
+    }
+
+
+    /**
+     * This method returns a sample transaction picked by an operation.
+     *
+     * @param op An operation's number.
+     *
+     * @return A transaction.
+     */
+    public Transaction getTransaction(int op) {
+        return this.transactions[op & (SAMPLE_SIZE - 1)];
+    }
+}
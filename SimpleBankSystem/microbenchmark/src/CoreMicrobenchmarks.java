@@ -0,0 +1,101 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A suite of microbenchmarks of the core domain classes' methods, run for every combination
+ * of a number of users and a length of accounts' history (a baseline to measure speed-ups against).
+ *
+ * Usage: java CoreMicrobenchmarks [users,...] [historyLengths,...] [nameFilter] [iterationMillis]
+ * e.g.   java -cp out/production/SimpleBankSystem:out/production/microbenchmark CoreMicrobenchmarks 1000,100000 1,100 Bank
+ *
+ * Account.addTransaction appends to the fixture's accounts, so their history grows during its iterations.
+ */
+public class CoreMicrobenchmarks {
+
+    /**
+     * This method returns all benchmarks of the suite.
+     *
+     * @return Benchmarks (a name -> a benchmarked operation) in their running order.
+     */
+    public static Map<String, MicrobenchmarkOperation> benchmarks() {
+        Map<String, MicrobenchmarkOperation> benchmarks = new LinkedHashMap<String, MicrobenchmarkOperation>();
+
+        benchmarks.put("Bank.userLogin",
+                (fixture, op) -> fixture.getBank().userLogin(fixture.getUsersId(op), BankFixture.PIN) != null ? 1 : 0);
+        benchmarks.put("Bank.createNewUserUUID",
+                (fixture, op) -> fixture.getBank().createNewUserUUID().length());
+        benchmarks.put("Bank.getNewAccountUUID",
+                (fixture, op) -> fixture.getBank().getNewAccountUUID().length());
+        benchmarks.put("Account.getBalance",
+                (fixture, op) -> fixture.getAccount(op).getBalance());
+        benchmarks.put("Account.getSummaryLine",
+                (fixture, op) -> fixture.getAccount(op).getSummaryLine().length());
+        benchmarks.put("Account.addTransaction",
+                (fixture, op) -> {
+                    fixture.getAccount(op).addTransaction(1, "Microbenchmark deposit");
+                    return op;
+                });
+        benchmarks.put("User.validatePIN",
+                (fixture, op) -> fixture.getUser(op).validatePIN(BankFixture.PIN) ? 1 : 0);
+        benchmarks.put("Transaction.getSummaryLine",
+                (fixture, op) -> fixture.getTransaction(op).getSummaryLine().length());
+
+        return benchmarks;
+    }
+
+
+    /**
+     * This method runs the suite.
+     *
+     * @param args Input arguments' list: numbers of users, history lengths, a benchmarks' names' filter
+     *             (a substring) and an iteration's duration.
+     */
+    public static void main(String[] args) {
+
+        int[] usersCounts = CoreMicrobenchmarks.parseSizes(args, 0, new int[]{1_000, 100_000});
+        int[] historyLengths = CoreMicrobenchmarks.parseSizes(args, 1, new int[]{1, 100});
+        String filter = args.length > 2 ? args[2] : "";
+        int iterationMillis = args.length > 3 ? Integer.parseInt(args[3]) : MicrobenchmarkRunner.DEFAULT_ITERATION_MILLIS;
+
+        MicrobenchmarkRunner runner = new MicrobenchmarkRunner(MicrobenchmarkRunner.DEFAULT_WARMUP_ITERATIONS,
+                MicrobenchmarkRunner.DEFAULT_MEASUREMENT_ITERATIONS, iterationMillis);
+        runner.printHeader();
+
+        for (int users : usersCounts) {
+            for (int historyLength : historyLengths) {
+                BankFixture fixture = new BankFixture(users, historyLength);
+
+                for (Map.Entry<String, MicrobenchmarkOperation> benchmark : CoreMicrobenchmarks.benchmarks().entrySet()) {
+                    if (benchmark.getKey().contains(filter)) {
+                        runner.run(benchmark.getKey(), benchmark.getValue(), fixture);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method parses a comma separated list of sizes (e.g. "1000,100000").
+     *
+     * @param args         Input arguments' list.
+     * @param argIdx       A position of the sizes' list on the arguments' list.
+     * @param defaultSizes Sizes used when the argument is missing.
+     *
+     * @return A list of sizes.
+     */
+    private static int[] parseSizes(String[] args, int argIdx, int[] defaultSizes) {
+        if (args.length <= argIdx) {
+            return defaultSizes;
+        }
+
+        String[] parts = args[argIdx].split(",");
+        int[] sizes = new int[parts.length];
+        for (int s = 0; s < parts.length; ++s) {
+            sizes[s] = Integer.parseInt(parts[s].trim());
+        }
+
+        return sizes;
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * An interface of a benchmarked operation (one call of a measured method).
+ */
+public interface MicrobenchmarkOperation {
+
+    /**
+     * This method invokes a measured method once.
+     *
+     * @param fixture A bank's fixture the operation works on.
+     * @param op      An operation's number (e.g. used to pick a user).
+     *
+     * @return A result depending on the measured method's result (it is consumed, so the call is not eliminated).
+     */
+    long invoke(BankFixture fixture, int op);
+}
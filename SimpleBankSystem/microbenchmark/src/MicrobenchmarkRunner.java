@@ -0,0 +1,158 @@
+/**
+ * A class running microbenchmarks the way JMH does in its average time mode: warmup iterations
+ * (to let the JIT compile the measured code) followed by measurement iterations of a fixed duration,
+ * with every operation's result consumed by a sink, and a score reported in nanoseconds per operation.
+ *
+ * Unlike JMH, all benchmarks share one JVM (no forks), so a benchmark's order may affect its score;
+ * run a single benchmark (a name's filter) for a baseline to compare with.
+ */
+public class MicrobenchmarkRunner {
+
+    /**
+     * A default number of warmup iterations.
+     */
+    public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+
+    /**
+     * A default number of measurement iterations.
+     */
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+
+    /**
+     * A default duration of an iteration (in milliseconds).
+     */
+    public static final int DEFAULT_ITERATION_MILLIS = 500;
+
+    /**
+     * A number of operations between two reads of a clock.
+     */
+    private static final int OPERATIONS_PER_CLOCK_READ = 256;
+
+    /**
+     * A sink consuming operations' results (a volatile write keeps them from being eliminated).
+     */
+    public static volatile long sink;
+
+    /**
+     * A number of warmup iterations.
+     */
+    private int warmupIterations;
+
+    /**
+     * A number of measurement iterations.
+     */
+    private int measurementIterations;
+
+    /**
+     * A duration of an iteration (in milliseconds).
+     */
+    private int iterationMillis;
+
+    /**
+     * A number of the next operation (operations' numbers continue across iterations).
+     */
+    private int nextOp;
+
+
+    /**
+     * A public constructor creating a runner with default iterations.
+     */
+    public MicrobenchmarkRunner() {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASUREMENT_ITERATIONS, DEFAULT_ITERATION_MILLIS);
+    }
+
+
+    /**
+     * A public constructor creating a runner.
+     *
+     * @param warmupIterations      A number of warmup iterations.
+     * @param measurementIterations A number of measurement iterations (at least 1).
+     * @param iterationMillis       A duration of an iteration (in milliseconds).
+     */
+    public MicrobenchmarkRunner(int warmupIterations, int measurementIterations, int iterationMillis) {
+        if (measurementIterations < 1) {
+            throw new IllegalArgumentException("At least one measurement iteration is needed");
+        }
+
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+        this.nextOp = 0;
+    }
+
+
+    /**
+     * This method prints a results' table's header.
+     */
+    public void printHeader() {
+        System.out.printf("%-28s %10s %8s %5s %12s %10s  %s\n",
+                "Benchmark", "users", "history", "Cnt", "Score", "Error", "Units");
+    }
+
+
+    /**
+     * This method runs a benchmark and prints its results' row.
+     *
+     * @param name      A benchmark's name.
+     * @param operation A benchmarked operation.
+     * @param fixture   A bank's fixture the operation works on.
+     *
+     * @return An average time of an operation (in nanoseconds).
+     */
+    public double run(String name, MicrobenchmarkOperation operation, BankFixture fixture) {
+
+        for (int i = 0; i < this.warmupIterations; ++i) {
+            this.iteration(operation, fixture);
+        }
+
+        double[] scores = new double[this.measurementIterations];
+        double sum = 0;
+        for (int i = 0; i < this.measurementIterations; ++i) {
+            scores[i] = this.iteration(operation, fixture);
+            sum += scores[i];
+        }
+
+        double mean = sum / scores.length;
+        double squares = 0;
+        for (double score : scores) {
+            squares += (score - mean) * (score - mean);
+        }
+        double deviation = scores.length > 1 ? Math.sqrt(squares / (scores.length - 1)) : 0;
+
+        System.out.printf("%-28s %10d %8d %5d %12.1f %10s  ns/op\n", name, fixture.getNumberOfUsers(),
+                fixture.getHistoryLength(), scores.length, mean, String.format("+- %.1f", deviation));
+
+        return mean;
+    }
+
+
+    /**
+     * This method runs a single iteration.
+     *
+     * @param operation A benchmarked operation.
+     * @param fixture   A bank's fixture the operation works on.
+     *
+     * @return An average time of an operation in the iteration (in nanoseconds).
+     */
+    private double iteration(MicrobenchmarkOperation operation, BankFixture fixture) {
+        long result = 0;
+        long operations = 0;
+        int op = this.nextOp;
+
+        long begin = System.nanoTime();
+        long deadline = begin + this.iterationMillis * 1_000_000L;
+        long now;
+        do {
+            for (int o = 0; o < OPERATIONS_PER_CLOCK_READ; ++o) {
+                result += operation.invoke(fixture, op++);
+            }
+            operations += OPERATIONS_PER_CLOCK_READ;
+            now = System.nanoTime();
+        } while (now < deadline);
+
+        this.nextOp = op;
+        sink += result;
+
+        return (double) (now - begin) / operations;
+    }
+}
@@ -1,10 +1,71 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A class defining an account and methods connected with it.
+ *
+ * An account's balance and number of transactions are written under the account's lock and read without it:
+ * they are published by a sequence lock (a version which is odd while they are written), so readers never block
+ * postings, and a reader of both values (see getState) retries until it reads them from the same posting.
  */
 public class Account {
 
+    /**
+     * An accrual's day of a transaction which is not an interest's accrual (and of an account which has never
+     * accrued interest).
+     */
+    public static final int NO_ACCRUAL = Integer.MIN_VALUE;
+
+    /**
+     * Sealed segments of an account without sealed history.
+     */
+    private static final HistorySegment[] NO_SEGMENTS = new HistorySegment[0];
+
+    /**
+     * A bitmap of an account which has never accrued interest.
+     */
+    private static final long[] NO_ACCRUED_DAYS = new long[0];
+
+    /**
+     * A position in an account's history which cannot be found without reading its sealed segments.
+     */
+    private static final int UNKNOWN_POSITION = -1;
+
+    /**
+     * A number of a state's reader's retries after which it yields (a writer may be preempted while writing).
+     */
+    private static final int STATE_SPINS = 64;
+
+    /**
+     * A handle of the stateVersion field.
+     */
+    private static final VarHandle STATE_VERSION;
+
+    /**
+     * A handle of the balance field.
+     */
+    private static final VarHandle BALANCE;
+
+    /**
+     * A handle of the numberOfTransactions field.
+     */
+    private static final VarHandle NUMBER_OF_TRANSACTIONS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE_VERSION = lookup.findVarHandle(Account.class, "stateVersion", long.class);
+            BALANCE = lookup.findVarHandle(Account.class, "balance", long.class);
+            NUMBER_OF_TRANSACTIONS = lookup.findVarHandle(Account.class, "numberOfTransactions", int.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
     /**
      * Account's name.
      */
@@ -21,9 +82,84 @@ public class Account {
     private User holder;
 
     /**
-     * An account's list of transactions.
+     * An account's transactions kept in memory (stored in primitive columns on the heap or in off-heap records):
+     * all of them or, if the bank has a history archive, the newest ones after the sealed segments.
+     */
+    private TransactionStore transactions;
+
+    /**
+     * Sealed segments of an account's oldest transactions (the oldest first; see HistoryArchive).
+     * The array is written under the account's lock and replaced, never modified, when a segment is sealed,
+     * so segments taken under the lock can be read after it is released.
+     */
+    private HistorySegment[] segments;
+
+    /**
+     * A number of transactions in sealed segments (the position of the first transaction kept in memory).
+     */
+    private int sealedTransactions;
+
+    /**
+     * true if an account's oldest transactions kept in memory are being sealed by the archive's sealer
+     * (guarded by the account's lock).
+     */
+    private boolean isSealing;
+
+    /**
+     * A bank the account belongs to.
+     */
+    private Bank bank;
+
+    /**
+     * A number of a posting engine's lock stripe guarding the account.
+     */
+    private int lockStripe;
+
+    /**
+     * An account's balance (in cents) before its first stored transaction (e.g. restored from a bank's snapshot).
+     */
+    private long openingBalance;
+
+    /**
+     * A version of an account's published state (balance and numberOfTransactions): it is odd while the state
+     * is being written. It is written under the account's lock (by publishState) and read without any lock.
+     */
+    private long stateVersion;
+
+    /**
+     * An account's current balance in cents (a running sum of its transactions' amounts).
+     * It is written under the account's lock (by publishState) and read without any lock.
+     */
+    private long balance;
+
+    /**
+     * An account's number of transactions (in memory and sealed).
+     * It is written under the account's lock (by publishState) and read without any lock.
+     */
+    private int numberOfTransactions;
+
+    /**
+     * A number of transactions after which the running balance is checked against a full sum
+     * of transactions' amounts (0 - checkpoints are disabled).
+     */
+    private int balanceCheckpointInterval;
+
+    /**
+     * A number of transactions added since the last balance's checkpoint.
+     */
+    private int transactionsSinceCheckpoint;
+
+    /**
+     * The first day (days since the epoch, a multiple of 64) of the bitmap of accrued days (NO_ACCRUAL - none).
+     * It is written and read under the account's lock.
+     */
+    private int firstAccrualDay;
+
+    /**
+     * A bitmap of days interest was accrued for (see InterestAccrualJob): bit d is day firstAccrualDay + d
+     * (about 46 bytes per year of accruals). It is written and read under the account's lock.
      */
-    private ArrayList<Transaction> transactions;
+    private long[] accruedDays;
 
 
     /**
@@ -39,7 +175,83 @@ public class Account {
 
         this.accountsUUID = theBank.getNewAccountUUID();
 
-        this.transactions = new ArrayList<Transaction>();
+        this.bank = theBank;
+        this.lockStripe = theBank.getPostingEngine().assignStripe();
+
+        this.transactions = new HeapTransactionStore();
+        this.segments = NO_SEGMENTS;
+        this.sealedTransactions = 0;
+        this.isSealing = false;
+        this.openingBalance = 0;
+        this.stateVersion = 0;
+        this.balance = 0;
+        this.numberOfTransactions = 0;
+        this.balanceCheckpointInterval = 0;
+        this.transactionsSinceCheckpoint = 0;
+        this.firstAccrualDay = NO_ACCRUAL;
+        this.accruedDays = NO_ACCRUED_DAYS;
+    }
+
+
+    /**
+     * A public constructor restoring an account (e.g. from a bank's snapshot or journal).
+     *
+     * @param accountsUUID   Account's UUID (Universal and Unique Identifier).
+     * @param accountsName   Account's name.
+     * @param holder         An account's holder (owner).
+     * @param openingBalance An account's balance (in cents) before its first stored transaction.
+     * @param theBank        The bank the account belongs to.
+     */
+    public Account(String accountsUUID, String accountsName, User holder, long openingBalance, Bank theBank) {
+        this.accountsUUID = accountsUUID;
+        this.accountsName = accountsName;
+        this.holder = holder;
+
+        this.bank = theBank;
+        this.lockStripe = theBank.getPostingEngine().assignStripe();
+
+        this.transactions = new HeapTransactionStore();
+        this.segments = NO_SEGMENTS;
+        this.sealedTransactions = 0;
+        this.isSealing = false;
+        this.openingBalance = openingBalance;
+        this.stateVersion = 0;
+        this.balance = openingBalance;
+        this.numberOfTransactions = 0;
+        this.balanceCheckpointInterval = 0;
+        this.transactionsSinceCheckpoint = 0;
+        this.firstAccrualDay = NO_ACCRUAL;
+        this.accruedDays = NO_ACCRUED_DAYS;
+    }
+
+
+    /**
+     * This method returns an account's name.
+     *
+     * @return An account's name.
+     */
+    public String getAccountsName() {
+        return this.accountsName;
+    }
+
+
+    /**
+     * This method returns a bank of an account.
+     *
+     * @return A bank.
+     */
+    public Bank getBank() {
+        return this.bank;
+    }
+
+
+    /**
+     * This method returns an account's holder (owner).
+     *
+     * @return An account's holder.
+     */
+    public User getHolder() {
+        return this.holder;
     }
 
 
@@ -54,35 +266,306 @@ public class Account {
 
 
     /**
-     * This method returns an account's state summary.
+     * This method returns a number of a posting engine's lock stripe guarding the account.
+     *
+     * @return A lock stripe's number.
+     */
+    public int getLockStripe() {
+        return this.lockStripe;
+    }
+
+
+    /**
+     * This method returns an account's state summary (without any lock).
      *
      * @return An account's state summary.
      */
     public String getSummaryLine() {
+        long balance = this.getBalance();
 
-        double balance = this.getBalance();
+        return StatementRenderer.forThread().renderAccountLine(this.accountsUUID, balance, this.accountsName);
+    }
 
-        if (balance >= 0) {
-            return String.format("%s : $%.02f : %s", this.accountsUUID, balance, this.accountsName);
-        } else {
-            return String.format("%s : $(-%.02f) : %s", this.accountsUUID, balance, this.accountsName);
+
+    /**
+     * This method returns an account's current balance (in a constant time, without any lock).
+     *
+     * @return An account's current balance (in cents).
+     */
+    public long getBalance() {
+        return (long) BALANCE.getAcquire(this);
+    }
+
+
+    /**
+     * This method returns a consistent snapshot of an account's balance and number of transactions
+     * (in a constant time, without any lock; it retries only while a posting publishes its state).
+     *
+     * @return An account's current state.
+     */
+    public AccountState getState() {
+        for (int spins = 1; ; ++spins) {
+            long version = (long) STATE_VERSION.getAcquire(this);
+            long currentBalance = (long) BALANCE.getOpaque(this);
+            int currentNumberOfTransactions = (int) NUMBER_OF_TRANSACTIONS.getOpaque(this);
+
+            // the state is read before the version is read again
+            VarHandle.loadLoadFence();
+            if ((version & 1) == 0 && (long) STATE_VERSION.getOpaque(this) == version) {
+                return new AccountState(currentBalance, currentNumberOfTransactions);
+            }
+
+            if (spins % STATE_SPINS == 0) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+
+    /**
+     * This method computes an account's balance as an opening balance plus a full sum of its transactions' amounts
+     * (sealed transactions are summed up by the last segment's closing balance, so no segment is read).
+     *
+     * @return An account's balance computed from its transactions (in cents).
+     */
+    public long computeBalance() {
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            return this.getSealedBalance() + this.transactions.sumOfAmounts();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method sets a number of transactions after which the running balance is checked
+     * against a full sum of transactions' amounts.
+     *
+     * @param balanceCheckpointInterval A number of transactions between checkpoints (0 - no checkpoints).
+     */
+    public void setBalanceCheckpointInterval(int balanceCheckpointInterval) {
+        if (balanceCheckpointInterval < 0) {
+            throw new IllegalArgumentException("Checkpoint's interval must not be negative");
+        }
+
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            this.balanceCheckpointInterval = balanceCheckpointInterval;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method checks whether interest has been accrued for a given day (the caller holds the account's lock).
+     *
+     * @param accrualDay An accrual's day (days since the epoch).
+     *
+     * @return true if the day has been accrued, false otherwise.
+     */
+    public boolean hasAccrued(int accrualDay) {
+        if (this.firstAccrualDay == NO_ACCRUAL || accrualDay < this.firstAccrualDay) {
+            return false;
+        }
+
+        long bit = (long) accrualDay - this.firstAccrualDay;
+        return bit < 64L * this.accruedDays.length && (this.accruedDays[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+
+    /**
+     * This method records a day interest was accrued for (the caller holds the account's lock
+     * or restores the account). Days are recorded exactly, so an earlier day may still be accrued
+     * after a later one.
+     *
+     * @param accrualDay An accrual's day (days since the epoch).
+     */
+    public void markAccrued(int accrualDay) {
+        // the bitmap starts at a multiple of 64 days, so it is shifted by whole words
+        int firstDay = accrualDay & -64;
+
+        if (this.firstAccrualDay == NO_ACCRUAL) {
+            this.firstAccrualDay = firstDay;
+            this.accruedDays = new long[1];
+        } else if (firstDay < this.firstAccrualDay) {
+            int shift = (int) (((long) this.firstAccrualDay - firstDay) >>> 6);
+            long[] days = new long[shift + this.accruedDays.length];
+            System.arraycopy(this.accruedDays, 0, days, shift, this.accruedDays.length);
+            this.firstAccrualDay = firstDay;
+            this.accruedDays = days;
+        }
+
+        int word = (int) (((long) accrualDay - this.firstAccrualDay) >>> 6);
+        if (word >= this.accruedDays.length) {
+            this.accruedDays = Arrays.copyOf(this.accruedDays, Math.max(word + 1, this.accruedDays.length * 2));
+        }
+        this.accruedDays[word] |= 1L << accrualDay;
+    }
+
+
+    /**
+     * This method returns the first day of the bitmap of accrued days (the caller holds the account's lock).
+     *
+     * @return The bitmap's first day (days since the epoch) or NO_ACCRUAL if no day has been accrued.
+     */
+    public int getFirstAccrualDay() {
+        return this.firstAccrualDay;
+    }
+
+
+    /**
+     * This method returns a copy of the bitmap of accrued days (the caller holds the account's lock).
+     *
+     * @return A bitmap: bit d is day getFirstAccrualDay() + d.
+     */
+    public long[] getAccruedDays() {
+        return this.accruedDays.clone();
+    }
+
+
+    /**
+     * This method restores the bitmap of accrued days (e.g. from a bank's snapshot).
+     *
+     * @param firstAccrualDay The bitmap's first day (a multiple of 64 days since the epoch; NO_ACCRUAL - none).
+     * @param accruedDays     A bitmap: bit d is day firstAccrualDay + d.
+     */
+    public void restoreAccruedDays(int firstAccrualDay, long[] accruedDays) {
+        if (firstAccrualDay != NO_ACCRUAL && (firstAccrualDay & 63) != 0) {
+            throw new IllegalArgumentException("An accrued days' bitmap must start at a multiple of 64 days");
         }
 
+        this.firstAccrualDay = firstAccrualDay;
+        this.accruedDays = firstAccrualDay == NO_ACCRUAL ? NO_ACCRUED_DAYS : accruedDays.clone();
+    }
+
+
+    /**
+     * This method checks the running balance against a full sum of transactions' amounts.
+     * A mismatch is reported and the running balance is replaced by the full sum.
+     *
+     * @return true if the running balance is correct, false otherwise.
+     */
+    public boolean checkpointBalance() {
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            long computedBalance = this.getSealedBalance() + this.transactions.sumOfAmounts();
+
+            this.transactionsSinceCheckpoint = 0;
+
+            if (computedBalance != this.balance) {
+                System.err.printf("error, account %s: running balance %s differs from transactions' sum %s\n",
+                        this.accountsUUID, Money.format(this.balance), Money.format(computedBalance));
+                this.publishState(computedBalance, this.numberOfTransactions);
+                return false;
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
 
     /**
-     * This method returns an account's current balance.
+     * This method returns a number of an account's transactions sealed into segments (see HistoryArchive).
      *
-     * @return An account's current balance.
+     * @return A number of sealed transactions.
      */
-    public double getBalance() {
-        double balance = 0.0;
-        for (Transaction t : this.transactions) {
-            balance += t.getTransactionsAmount();
+    public int getNumberOfSealedTransactions() {
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            return this.sealedTransactions;
+        } finally {
+            lock.unlock();
         }
+    }
+
 
-        return balance;
+    /**
+     * This method returns an account's sealed segments (the caller holds the account's lock,
+     * e.g. BankSnapshot.write under the account's stripe).
+     *
+     * @return Sealed segments (the oldest first; the array is never modified).
+     */
+    public HistorySegment[] getSegments() {
+        return this.segments;
+    }
+
+
+    /**
+     * This method restores an account's sealed segments (e.g. from a bank's snapshot), before any of its
+     * transactions kept in memory is restored. The last segment's closing balance must be the account's
+     * balance before the transactions kept in memory.
+     *
+     * @param sealedSegments Sealed segments (the oldest first).
+     */
+    public void restoreSegments(HistorySegment[] sealedSegments) {
+        if (this.numberOfTransactions != 0) {
+            throw new IllegalStateException("Segments must be restored before an account's transactions");
+        }
+
+        int position = 0;
+        long balanceBefore = sealedSegments.length > 0 ? sealedSegments[0].getOpeningBalance() : this.openingBalance;
+        for (HistorySegment segment : sealedSegments) {
+            if (segment.getFirstPosition() != position || segment.getOpeningBalance() != balanceBefore) {
+                throw new IllegalArgumentException("Segment " + segment.getFile()
+                        + " does not continue its account's history");
+            }
+            position += segment.getNumberOfTransactions();
+            balanceBefore = segment.getClosingBalance();
+        }
+        if (balanceBefore != this.openingBalance) {
+            throw new IllegalArgumentException("Account " + this.accountsUUID
+                    + "'s segments do not end at its balance");
+        }
+
+        this.segments = sealedSegments.length > 0 ? sealedSegments.clone() : NO_SEGMENTS;
+        this.sealedTransactions = position;
+        if (sealedSegments.length > 0) {
+            this.openingBalance = sealedSegments[0].getOpeningBalance();
+        }
+        this.publishState(this.balance, position);
+    }
+
+
+    /**
+     * This method moves an account's history (kept in memory) off the heap (see OffHeapTransactionStore),
+     * unless it is stored there already.
+     */
+    public void moveTransactionsOffHeap() {
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            if (!this.transactions.isOffHeap()) {
+                this.transactions = OffHeapTransactionStore.copyOf(this.transactions);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method checks whether an account's history is stored off the heap.
+     *
+     * @return true if an account's history is stored off the heap, false otherwise.
+     */
+    public boolean isTransactionsOffHeap() {
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            return this.transactions.isOffHeap();
+        } finally {
+            lock.unlock();
+        }
     }
 
 
@@ -90,40 +573,717 @@ public class Account {
      * This method prints an account's transactions history.
      */
     public void printTransactionsHistory() {
-        System.out.printf("\nTransaction history for account %s\n",
-                this.accountsUUID);
+        new StatementRenderer(System.out).renderHistory(this);
+    }
+
 
-        for (int t = this.transactions.size() - 1; t >= 0; --t) {
-            System.out.println(this.transactions.get(t).getSummaryLine());
+    /**
+     * This method returns a page of an account's history (the newest transactions first).
+     *
+     * @param cursor          A cursor of a page (TransactionPage.FROM_NEWEST - the first page,
+     *                        otherwise a previous page's next cursor).
+     * @param maxTransactions The maximal number of page's transactions.
+     *
+     * @return A page of an account's history.
+     */
+    public TransactionPage getHistoryPage(int cursor, int maxTransactions) {
+        return this.getHistoryPage(Long.MIN_VALUE, Long.MAX_VALUE, cursor, maxTransactions);
+    }
+
+
+    /**
+     * This method returns a page of an account's transactions from a given time range (the newest first).
+     * The range is found by a binary search (transactions are stored in time order), not by a scan.
+     *
+     * Transactions kept in memory are copied under the account's lock. Older ones are streamed from
+     * sealed segments after the lock is released (segments are immutable), and only if the page reaches them,
+     * so the newest pages never read a segment.
+     *
+     * @param fromTimestamp   The range's start (inclusive; milliseconds since the epoch).
+     * @param toTimestamp     The range's end (exclusive; Long.MAX_VALUE - no end).
+     * @param cursor          A cursor of a page (TransactionPage.FROM_NEWEST - the first page,
+     *                        otherwise a previous page's next cursor).
+     * @param maxTransactions The maximal number of page's transactions.
+     *
+     * @return A page of an account's transactions from a given time range.
+     *
+     * @throws UncheckedIOException if a sealed segment cannot be read.
+     */
+    public TransactionPage getHistoryPage(long fromTimestamp, long toTimestamp, int cursor, int maxTransactions) {
+        if (maxTransactions < 1) {
+            throw new IllegalArgumentException("A page must have at least one transaction");
+        }
+
+        HistorySegment[] sealedSegments;
+        int low;
+        int high;
+        int count = 0;
+        long[] amounts = null;
+        long[] timestamps = null;
+        long[] memoCodes = null;
+        String[] unsharedMemos = null;
+
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            // a cursor is a position right after the next page's newest transaction
+            // (positions never change, also when transactions are sealed)
+            sealedSegments = this.segments;
+            low = this.findPosition(fromTimestamp);
+            high = toTimestamp == Long.MAX_VALUE
+                    ? this.sealedTransactions + this.transactions.size() : this.findPosition(toTimestamp);
+
+            if (high != UNKNOWN_POSITION) {
+                high = Math.min(high, cursor);
+
+                int capacity = Math.max(0, Math.min(maxTransactions, high - Math.max(low, 0)));
+                amounts = new long[capacity];
+                timestamps = new long[capacity];
+                memoCodes = new long[capacity];
+
+                int bottom = Math.max(this.sealedTransactions, low);
+                for (int idx = high - 1; idx >= bottom && count < capacity; --idx) {
+                    int t = idx - this.sealedTransactions;
+                    amounts[count] = this.transactions.getAmount(t);
+                    timestamps[count] = this.transactions.getTimestamp(t);
+                    memoCodes[count] = this.transactions.getMemoCode(t);
+                    if (memoCodes[count] == MemoDictionary.UNSHARED_MEMO) {
+                        if (unsharedMemos == null) {
+                            unsharedMemos = new String[capacity];
+                        }
+                        unsharedMemos[count] = this.transactions.getUnsharedMemo(t);
+                    }
+                    ++count;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (high == UNKNOWN_POSITION || (count < amounts.length && high - count > Math.max(low, 0))) {
+            MemoDictionary dictionary = this.bank.getMemoDictionary();
+            HistorySegment segment = null;
+            HeapTransactionStore segmentsTransactions = null;
+
+            try {
+                if (high == UNKNOWN_POSITION) {
+                    segment = sealedSegments[Account.findSegmentByTime(sealedSegments, toTimestamp)];
+                    segmentsTransactions = segment.read(dictionary);
+                    high = Math.min(cursor, segment.getFirstPosition() + segmentsTransactions.lowerBound(toTimestamp));
+
+                    int capacity = Math.max(0, Math.min(maxTransactions, high - Math.max(low, 0)));
+                    amounts = new long[capacity];
+                    timestamps = new long[capacity];
+                    memoCodes = new long[capacity];
+                }
+
+                // segments are streamed from the newest one needed, until the page is full or the range starts
+                int top = high - count;
+                while (count < amounts.length && top > Math.max(low, 0)) {
+                    HistorySegment next = sealedSegments[Account.findSegmentByPosition(sealedSegments, top - 1)];
+                    if (next != segment) {
+                        segment = next;
+                        segmentsTransactions = segment.read(dictionary);
+                    }
+                    if (low == UNKNOWN_POSITION && fromTimestamp > segment.getFirstTimestamp()) {
+                        low = segment.getFirstPosition() + segmentsTransactions.lowerBound(fromTimestamp);
+                    }
+
+                    int bottom = Math.max(segment.getFirstPosition(), low);
+                    for (; top > bottom && count < amounts.length; --top) {
+                        int t = top - 1 - segment.getFirstPosition();
+                        amounts[count] = segmentsTransactions.getAmount(t);
+                        timestamps[count] = segmentsTransactions.getTimestamp(t);
+                        memoCodes[count] = segmentsTransactions.getMemoCode(t);
+                        if (memoCodes[count] == MemoDictionary.UNSHARED_MEMO) {
+                            if (unsharedMemos == null) {
+                                unsharedMemos = new String[amounts.length];
+                            }
+                            unsharedMemos[count] = segmentsTransactions.getUnsharedMemo(t);
+                        }
+                        ++count;
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            if (count < amounts.length) {
+                amounts = Arrays.copyOf(amounts, count);
+                timestamps = Arrays.copyOf(timestamps, count);
+                memoCodes = Arrays.copyOf(memoCodes, count);
+                if (unsharedMemos != null) {
+                    unsharedMemos = Arrays.copyOf(unsharedMemos, count);
+                }
+            }
         }
 
-        System.out.println();
+        // an unknown range's start is inside a segment the page has not reached, so there are more pages
+        return new TransactionPage(this, amounts, timestamps, memoCodes, unsharedMemos,
+                high - count > Math.max(low, 0) ? high - count : TransactionPage.END);
     }
 
 
     /**
      * This method creates a new transaction to a target (this) account.
      *
-     * @param amount A transaction's amount.
+     * @param amount A transaction's amount (in cents).
      * @param memo   An optional transaction's description.
      *
      * @return A new transaction to a target account.
      */
-    public Transaction createTransaction(double amount, String memo) {
+    public Transaction createTransaction(long amount, String memo) {
         return new Transaction(amount, memo, this);
     }
 
 
+    /**
+     * This method returns a number of an account's transactions (in a constant time, without any lock).
+     *
+     * @return A number of an account's transactions.
+     */
+    public int getNumberOfTransactions() {
+        return (int) NUMBER_OF_TRANSACTIONS.getAcquire(this);
+    }
+
+
+    /**
+     * This method returns a given transaction (a new view of a stored transaction;
+     * a sealed transaction is streamed from its segment).
+     *
+     * @param idx A position of a transaction (0 - the oldest one).
+     *
+     * @return A given transaction.
+     *
+     * @throws UncheckedIOException if a sealed segment cannot be read.
+     */
+    public Transaction getTransaction(int idx) {
+        if (idx < 0) {
+            throw new IndexOutOfBoundsException("Transaction " + idx);
+        }
+
+        HistorySegment segment;
+
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            if (idx >= this.sealedTransactions) {
+                int t = idx - this.sealedTransactions;
+                return new Transaction(
+                        this.transactions.getAmount(t),
+                        this.transactions.getTimestamp(t),
+                        this.bank.getMemoDictionary().decode(this.transactions.getMemoCode(t),
+                                this.transactions.getUnsharedMemo(t)),
+                        this
+                );
+            }
+
+            segment = this.segments[Account.findSegmentByPosition(this.segments, idx)];
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            HeapTransactionStore segmentsTransactions = segment.read(this.bank.getMemoDictionary());
+            int t = idx - segment.getFirstPosition();
+            return new Transaction(
+                    segmentsTransactions.getAmount(t),
+                    segmentsTransactions.getTimestamp(t),
+                    this.bank.getMemoDictionary().decode(segmentsTransactions.getMemoCode(t),
+                            segmentsTransactions.getUnsharedMemo(t)),
+                    this
+            );
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+
     /**
      * This method adds a new transaction to an account's transactions list.
      *
      * @param transaction A transaction to be considered.
      */
     public void addTransaction(Transaction transaction) {
-
-        this.transactions.add(
-                transaction
+        long sequence = this.appendTransaction(
+                transaction.getTransactionsAmount(),
+                transaction.getTransactionsTimestamp(),
+                this.bank.getMemoDictionary().encode(transaction.getTransactionsMemo()),
+                transaction.getTransactionsMemo(),
+                NO_ACCRUAL
         );
 
+        this.bank.awaitDurable(sequence);
+    }
+
+
+    /**
+     * This method adds a new transaction (dated now) to an account's transactions list
+     * without creating a Transaction object. It returns after the transaction is journaled
+     * (if the bank has a posting journal).
+     *
+     * @param amount A transaction's amount (in cents).
+     * @param memo   An optional transaction's description.
+     */
+    public void addTransaction(long amount, String memo) {
+        this.bank.awaitDurable(this.appendTransaction(amount, memo));
+    }
+
+
+    /**
+     * This method adds a new transaction (dated now) to an account's transactions list, but it does not
+     * wait until the transaction's journal record is durable - the caller acknowledges the transaction
+     * after Bank.awaitDurable(sequence) (e.g. after releasing its locks).
+     *
+     * @param amount A transaction's amount (in cents).
+     * @param memo   An optional transaction's description.
+     *
+     * @return A sequence number of the transaction's journal record (0 - the bank has no journal).
+     */
+    public long appendTransaction(long amount, String memo) {
+        long memoCode = this.bank.getMemoDictionary().encode(memo);
+
+        return this.appendTransaction(amount, System.currentTimeMillis(), memoCode, memo, NO_ACCRUAL);
+    }
+
+
+    /**
+     * This method adds a new transaction (dated now) with an encoded description (see MemoDictionary)
+     * to an account's transactions list, but it does not wait until the transaction's journal record is durable
+     * (see appendTransaction(long, String)).
+     *
+     * @param amount   A transaction's amount (in cents).
+     * @param memoCode A code of a transaction's description in the bank's memo dictionary (not UNSHARED_MEMO).
+     *
+     * @return A sequence number of the transaction's journal record (0 - the bank has no journal).
+     */
+    public long appendTransaction(long amount, long memoCode) {
+        if (memoCode == MemoDictionary.UNSHARED_MEMO) {
+            throw new IllegalArgumentException("An unshared memo's code needs the memo's text");
+        }
+
+        return this.appendTransaction(amount, System.currentTimeMillis(), memoCode, null, NO_ACCRUAL);
+    }
+
+
+    /**
+     * This method adds a new transaction (dated now) with an encoded description and its text to an account's
+     * transactions list, but it does not wait until the transaction's journal record is durable
+     * (see appendTransaction(long, String)).
+     *
+     * @param amount   A transaction's amount (in cents).
+     * @param memoCode A code of a transaction's description in the bank's memo dictionary.
+     * @param memo     A transaction's description (it may be null unless a code is UNSHARED_MEMO).
+     *
+     * @return A sequence number of the transaction's journal record (0 - the bank has no journal).
+     */
+    public long appendTransaction(long amount, long memoCode, String memo) {
+        if (memoCode == MemoDictionary.UNSHARED_MEMO && memo == null) {
+            throw new IllegalArgumentException("An unshared memo's code needs the memo's text");
+        }
+
+        return this.appendTransaction(amount, System.currentTimeMillis(), memoCode, memo, NO_ACCRUAL);
+    }
+
+
+    /**
+     * This method accrues a day's interest: it posts the interest (if it is at least a cent) and records the day,
+     * both in one journal's record (the caller holds the account's lock, see InterestAccrualTask).
+     *
+     * @param interest   Interest's amount (in cents; 0 - only the day is recorded).
+     * @param memoCode   A code of the interest's description in the bank's memo dictionary.
+     * @param memo       The interest's description.
+     * @param accrualDay An accrual's day (days since the epoch).
+     *
+     * @return A sequence number of the accrual's journal record (0 - the bank has no journal).
+     */
+    public long accrueInterest(long interest, long memoCode, String memo, int accrualDay) {
+        long sequence = 0;
+
+        if (interest != 0) {
+            sequence = this.appendTransaction(interest, System.currentTimeMillis(), memoCode, memo, accrualDay);
+        } else {
+            PostingJournal journal = this.bank.getJournal();
+            if (journal != null) {
+                sequence = journal.appendAccrual(this.accountsUUID, accrualDay, 0, System.currentTimeMillis(), "");
+            }
+        }
+
+        this.markAccrued(accrualDay);
+        return sequence;
+    }
+
+
+    /**
+     * This method adds a transaction replayed from a posting journal (it is not journaled again,
+     * so it must be called before the bank's journal is opened).
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memo      A transaction's description.
+     */
+    public void replayTransaction(long amount, long timestamp, String memo) {
+        this.appendTransaction(amount, timestamp, this.bank.getMemoDictionary().encode(memo), memo, NO_ACCRUAL);
+    }
+
+
+    /**
+     * This method adds a transaction restored with an encoded description (e.g. from a bank's snapshot;
+     * it is not journaled, so it must be called before the bank's journal is opened).
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode  A code of a transaction's description in the bank's memo dictionary.
+     * @param memo      A transaction's description if a code is UNSHARED_MEMO (null otherwise).
+     */
+    public void replayTransaction(long amount, long timestamp, long memoCode, String memo) {
+        this.appendTransaction(amount, timestamp, memoCode, memo, NO_ACCRUAL);
+    }
+
+
+    /**
+     * This method copies an account's transactions kept in memory, i.e. after its sealed ones
+     * (the caller holds the account's lock, e.g. BankSnapshot.write under the account's stripe).
+     *
+     * @return A new heap store with copies of the transactions.
+     */
+    public HeapTransactionStore copyHotTransactions() {
+        HeapTransactionStore copy = new HeapTransactionStore();
+        for (int t = 0; t < this.transactions.size(); ++t) {
+            copy.add(this.transactions.getAmount(t), this.transactions.getTimestamp(t),
+                    this.transactions.getMemoCode(t), this.transactions.getUnsharedMemo(t));
+        }
+
+        return copy;
+    }
+
+
+    /**
+     * This method adds a new transaction to an account's transactions list (under the account's lock).
+     * The transaction is written to the bank's posting journal (if any) before it is applied,
+     * and published to the bank's posting events' ring (if any) after it is applied.
+     *
+     * @param amount     A transaction's amount (in cents).
+     * @param timestamp  A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode   A code of a transaction's description in the bank's memo dictionary.
+     * @param memo       A transaction's description (null - it is decoded if the bank has a journal;
+     *                   it is required for UNSHARED_MEMO).
+     * @param accrualDay An accrual's day of an interest's transaction (NO_ACCRUAL - any other transaction).
+     *
+     * @return A sequence number of the transaction's journal record (0 - the bank has no journal).
+     *
+     * @throws IllegalStateException if the current thread is polling a consumer of the bank's posting events.
+     */
+    private long appendTransaction(long amount, long timestamp, long memoCode, String memo, int accrualDay) {
+
+        long sequence = 0;
+
+        // a consumer posting back could wait for itself
+        PostingEventRing events = this.bank.getPostingEventRing();
+        if (events != null) {
+            events.checkPublisher();
+        }
+
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            // keep the history in time order (e.g. after a system's clock is set back), so it can be searched by time
+            timestamp = Math.max(timestamp, this.transactions.getLastTimestamp());
+
+            PostingJournal journal = this.bank.getJournal();
+            if (journal != null) {
+                // the journal keeps memos' texts
+                String journaledMemo = memo != null ? memo : this.bank.getMemoDictionary().decode(memoCode);
+                sequence = accrualDay == NO_ACCRUAL
+                        ? journal.append(this.accountsUUID, amount, timestamp, journaledMemo)
+                        : journal.appendAccrual(this.accountsUUID, accrualDay, amount, timestamp, journaledMemo);
+            }
+
+            this.applyTransaction(amount, timestamp, memoCode, memo);
+        } finally {
+            lock.unlock();
+        }
+
+        return sequence;
+    }
+
+
+    /**
+     * This method transfers funds from an account to another one (both legs dated now). Both legs are written
+     * to the bank's posting journal (if any) as one record before either is applied, so a restored bank has
+     * both legs or neither (the caller holds both accounts' locks and has checked the source's balance,
+     * see PostingEngine.transfer).
+     *
+     * @param target         A target account.
+     * @param amount         A positive amount (in cents).
+     * @param sourceMemoCode A code of a description of the source leg in the bank's memo dictionary.
+     * @param sourceMemo     A description of the source leg (null - it is decoded if the bank has a journal;
+     *                       it is required for UNSHARED_MEMO).
+     * @param targetMemoCode A code of a description of the target leg in the bank's memo dictionary.
+     * @param targetMemo     A description of the target leg (as the source leg's one).
+     *
+     * @return A sequence number of the transfer's journal record (0 - the bank has no journal).
+     *
+     * @throws IllegalStateException if the current thread is polling a consumer of the bank's posting events.
+     */
+    public long appendTransfer(Account target, long amount, long sourceMemoCode, String sourceMemo,
+                               long targetMemoCode, String targetMemo) {
+        if ((sourceMemoCode == MemoDictionary.UNSHARED_MEMO && sourceMemo == null)
+                || (targetMemoCode == MemoDictionary.UNSHARED_MEMO && targetMemo == null)) {
+            throw new IllegalArgumentException("An unshared memo's code needs the memo's text");
+        }
+
+        PostingEventRing events = this.bank.getPostingEventRing();
+        if (events != null) {
+            events.checkPublisher();
+        }
+
+        long now = System.currentTimeMillis();
+        long sourceTimestamp = Math.max(now, this.transactions.getLastTimestamp());
+        long targetTimestamp = Math.max(now, target.transactions.getLastTimestamp());
+
+        long sequence = 0;
+        PostingJournal journal = this.bank.getJournal();
+        if (journal != null) {
+            MemoDictionary dictionary = this.bank.getMemoDictionary();
+            sequence = journal.appendTransfer(this.accountsUUID, target.accountsUUID, amount, sourceTimestamp,
+                    targetTimestamp, sourceMemo != null ? sourceMemo : dictionary.decode(sourceMemoCode),
+                    targetMemo != null ? targetMemo : dictionary.decode(targetMemoCode));
+        }
+
+        this.applyTransaction(-amount, sourceTimestamp, sourceMemoCode, sourceMemo);
+        target.applyTransaction(amount, targetTimestamp, targetMemoCode, targetMemo);
+
+        return sequence;
+    }
+
+
+    /**
+     * This method applies a journaled transaction to an account's transactions list and publishes it
+     * to the bank's posting events' ring (if any); the caller holds the account's lock.
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (not before the account's last one).
+     * @param memoCode  A code of a transaction's description in the bank's memo dictionary.
+     * @param memo      A transaction's description (it is kept only for UNSHARED_MEMO).
+     */
+    private void applyTransaction(long amount, long timestamp, long memoCode, String memo) {
+        PostingEventRing events = this.bank.getPostingEventRing();
+
+        String unsharedMemo = memoCode == MemoDictionary.UNSHARED_MEMO ? memo : null;
+        this.transactions.add(amount, timestamp, memoCode, unsharedMemo);
+
+        this.publishState(this.balance + amount, this.numberOfTransactions + 1);
+
+        // under the lock, so an account's events are in posting order
+        if (events != null) {
+            events.publish(this.accountsUUID, amount, timestamp, memoCode, unsharedMemo, this.balance);
+        }
+
+        HistoryArchive archive = this.bank.getHistoryArchive();
+        if (archive != null
+                && this.transactions.size() >= archive.getHotTransactions() + archive.getSegmentTransactions()) {
+            this.sealSegments(archive);
+        }
+
+        int offHeapThreshold = this.bank.getOffHeapHistoryThreshold();
+        if (offHeapThreshold > 0 && this.transactions.size() >= offHeapThreshold && !this.transactions.isOffHeap()) {
+            this.transactions = OffHeapTransactionStore.copyOf(this.transactions);
+        }
+
+        if (this.balanceCheckpointInterval > 0
+                && ++this.transactionsSinceCheckpoint >= this.balanceCheckpointInterval) {
+            this.checkpointBalance();
+        }
+    }
+
+
+    /**
+     * This method publishes an account's new state to readers without any lock (the caller holds the account's lock,
+     * so it is the only writer). The version is odd while the state is written, so a reader who reads
+     * the same even version before and after reading the state has read a consistent state.
+     *
+     * @param newBalance              An account's new balance (in cents).
+     * @param newNumberOfTransactions An account's new number of transactions.
+     */
+    private void publishState(long newBalance, int newNumberOfTransactions) {
+        long version = this.stateVersion;
+
+        STATE_VERSION.setOpaque(this, version + 1);
+        // the odd version is visible before the new state
+        VarHandle.storeStoreFence();
+        BALANCE.setOpaque(this, newBalance);
+        NUMBER_OF_TRANSACTIONS.setOpaque(this, newNumberOfTransactions);
+        // the new state is visible before the even version
+        STATE_VERSION.setRelease(this, version + 2);
+    }
+
+
+    /**
+     * This method starts sealing an account's oldest transactions kept in memory into a new segment, if more than
+     * an archive's hot transactions and a full segment are kept in memory and no segment is being sealed
+     * (the caller holds the account's lock). Only a copy of the segment's transactions is made under the lock;
+     * the file is written by the archive's sealer (see writeSegment). While the archive is failing, nothing
+     * is copied until its retry is due (see HistoryArchive.claimSeal).
+     *
+     * @param archive An archive of the bank's sealed history.
+     */
+    private void sealSegments(HistoryArchive archive) {
+        int segmentTransactions = archive.getSegmentTransactions();
+        if (this.isSealing || this.transactions.size() < archive.getHotTransactions() + segmentTransactions
+                || !archive.claimSeal()) {
+            return;
+        }
+
+        HeapTransactionStore frozen = new HeapTransactionStore();
+        for (int t = 0; t < segmentTransactions; ++t) {
+            frozen.add(this.transactions.getAmount(t), this.transactions.getTimestamp(t),
+                    this.transactions.getMemoCode(t), this.transactions.getUnsharedMemo(t));
+        }
+
+        int segmentNumber = this.segments.length;
+        int firstPosition = this.sealedTransactions;
+        long openingBalance = this.getSealedBalance();
+        this.isSealing = true;
+        archive.seal(() -> this.writeSegment(archive, frozen, segmentNumber, firstPosition, openingBalance));
+    }
+
+
+    /**
+     * This method writes a segment of an account's copied transactions (outside the account's lock),
+     * and then replaces the transactions kept in memory with the segment, and starts sealing the next one
+     * if it is full. If the segment cannot be written, the transactions stay in memory, the archive is failing,
+     * and sealing is retried by a posting after the archive's retry's delay.
+     *
+     * @param archive        An archive of the bank's sealed history.
+     * @param frozen         A copy of the account's oldest transactions kept in memory.
+     * @param segmentNumber  A number of the new segment.
+     * @param firstPosition  A position of the copy's first transaction in the account's history.
+     * @param openingBalance An account's balance before the copy's first transaction (in cents).
+     */
+    private void writeSegment(HistoryArchive archive, HeapTransactionStore frozen, int segmentNumber,
+                              int firstPosition, long openingBalance) {
+
+        HistorySegment segment = null;
+        try {
+            segment = HistorySegment.write(archive.getSegmentFile(this.accountsUUID, segmentNumber), frozen,
+                    frozen.size(), firstPosition, openingBalance, this.bank.getMemoDictionary());
+        } catch (IOException ex) {
+            archive.sealFailed(ex);
+        }
+        if (segment != null) {
+            archive.sealSucceeded();
+        }
+
+        ReentrantLock lock = this.bank.getPostingEngine().getLock(this);
+        lock.lock();
+        try {
+            this.isSealing = false;
+            if (segment == null) {
+                return;
+            }
+
+            // the sealed transactions are still the oldest ones kept in memory (only one segment is sealed at a time)
+            int segmentTransactions = frozen.size();
+            TransactionStore hotTransactions = this.transactions.isOffHeap()
+                    ? new OffHeapTransactionStore() : new HeapTransactionStore();
+            for (int t = segmentTransactions; t < this.transactions.size(); ++t) {
+                hotTransactions.add(this.transactions.getAmount(t), this.transactions.getTimestamp(t),
+                        this.transactions.getMemoCode(t), this.transactions.getUnsharedMemo(t));
+            }
+
+            HistorySegment[] sealedSegments = Arrays.copyOf(this.segments, this.segments.length + 1);
+            sealedSegments[this.segments.length] = segment;
+            this.segments = sealedSegments;
+            this.sealedTransactions += segmentTransactions;
+            this.transactions = hotTransactions;
+
+            this.sealSegments(archive);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method returns an account's balance after its sealed transactions, i.e. before the ones
+     * kept in memory (the caller holds the account's lock).
+     *
+     * @return The last segment's closing balance or an opening balance if no transaction is sealed (in cents).
+     */
+    public long getSealedBalance() {
+        return this.segments.length == 0
+                ? this.openingBalance : this.segments[this.segments.length - 1].getClosingBalance();
+    }
+
+
+    /**
+     * This method finds (by binary searches of transactions kept in memory and of segments' time ranges)
+     * a position of the first transaction not older than a given timestamp (the caller holds the account's lock).
+     *
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     *
+     * @return A position of the first transaction with a timestamp &gt;= a given one
+     * or UNKNOWN_POSITION if it is inside a sealed segment.
+     */
+    private int findPosition(long timestamp) {
+        if (this.segments.length == 0 || timestamp > this.segments[this.segments.length - 1].getLastTimestamp()) {
+            return this.sealedTransactions + this.transactions.lowerBound(timestamp);
+        }
+
+        HistorySegment segment = this.segments[Account.findSegmentByTime(this.segments, timestamp)];
+
+        return timestamp <= segment.getFirstTimestamp() ? segment.getFirstPosition() : UNKNOWN_POSITION;
+    }
+
+
+    /**
+     * This method finds (by a binary search) the first segment whose last transaction
+     * is not older than a given timestamp.
+     *
+     * @param segments  Sealed segments (the oldest first).
+     * @param timestamp A timestamp (not newer than the last segment's last timestamp).
+     *
+     * @return A position of a segment.
+     */
+    private static int findSegmentByTime(HistorySegment[] segments, long timestamp) {
+        int low = 0;
+        int high = segments.length - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segments[middle].getLastTimestamp() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+
+    /**
+     * This method finds (by a binary search) a segment holding a given sealed transaction.
+     *
+     * @param segments Sealed segments (the oldest first).
+     * @param idx      A position of a sealed transaction in an account's history.
+     *
+     * @return A position of a segment.
+     */
+    private static int findSegmentByPosition(HistorySegment[] segments, int idx) {
+        int low = 0;
+        int high = segments.length - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segments[middle].getFirstPosition() <= idx) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
     }
 }
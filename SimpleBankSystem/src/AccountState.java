@@ -0,0 +1,49 @@
+/**
+ * A class defining a consistent, immutable snapshot of an account's state: its balance and its number
+ * of transactions after the same posting (see Account.getState).
+ */
+public class AccountState {
+
+    /**
+     * An account's balance (in cents).
+     */
+    private final long balance;
+
+    /**
+     * An account's number of transactions.
+     */
+    private final int numberOfTransactions;
+
+
+    /**
+     * A public constructor creating an account's state.
+     *
+     * @param balance              An account's balance (in cents).
+     * @param numberOfTransactions An account's number of transactions.
+     */
+    public AccountState(long balance, int numberOfTransactions) {
+        this.balance = balance;
+        this.numberOfTransactions = numberOfTransactions;
+    }
+
+
+    /**
+     * This method returns an account's balance.
+     *
+     * @return An account's balance (in cents).
+     */
+    public long getBalance() {
+        return this.balance;
+    }
+
+
+    /**
+     * This method returns an account's number of transactions. It is also a cursor of an account's history's
+     * page (see Account.getHistoryPage) whose transactions are exactly the ones summed up in the balance.
+     *
+     * @return An account's number of transactions.
+     */
+    public int getNumberOfTransactions() {
+        return this.numberOfTransactions;
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * A class defining a single network connection of AtmServer (a socket, its buffers and an ATM protocol's session).
+ *
+ * An idle connection holds only a small input buffer, so a server can keep many thousands of them.
+ */
+public class AtmConnection {
+
+    /**
+     * The maximal length of a command line (in bytes).
+     */
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    /**
+     * A connection's socket.
+     */
+    private SocketChannel channel;
+
+    /**
+     * A connection's registration in a server's selector.
+     */
+    private SelectionKey key;
+
+    /**
+     * A connection's ATM protocol's session.
+     */
+    private AtmProtocolSession session;
+
+    /**
+     * Received bytes not yet consumed as command lines.
+     */
+    private ByteBuffer input;
+
+    /**
+     * A response being sent (null if there is nothing to send).
+     */
+    private ByteBuffer output;
+
+    /**
+     * true if a command of the connection is being executed.
+     */
+    private boolean isBusy;
+
+    /**
+     * true if the connection should be closed after a response is sent.
+     */
+    private boolean isClosing;
+
+
+    /**
+     * A public constructor creating a connection.
+     *
+     * @param channel A connection's socket.
+     */
+    public AtmConnection(SocketChannel channel) {
+        this.channel = channel;
+        this.session = new AtmProtocolSession();
+        this.input = ByteBuffer.allocate(MAX_LINE_LENGTH);
+        this.output = null;
+        this.isBusy = false;
+        this.isClosing = false;
+    }
+
+
+    /**
+     * This method returns a connection's socket.
+     *
+     * @return A connection's socket.
+     */
+    public SocketChannel getChannel() {
+        return this.channel;
+    }
+
+
+    /**
+     * This method returns a connection's registration in a server's selector.
+     *
+     * @return A connection's selection key.
+     */
+    public SelectionKey getKey() {
+        return this.key;
+    }
+
+
+    /**
+     * This method sets a connection's registration in a server's selector.
+     *
+     * @param key A connection's selection key.
+     */
+    public void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+
+    /**
+     * This method returns a connection's ATM protocol's session.
+     *
+     * @return A connection's session.
+     */
+    public AtmProtocolSession getSession() {
+        return this.session;
+    }
+
+
+    /**
+     * This method checks whether a command of the connection is being executed.
+     *
+     * @return true if a command is being executed, false otherwise.
+     */
+    public boolean isBusy() {
+        return this.isBusy;
+    }
+
+
+    /**
+     * This method marks whether a command of the connection is being executed.
+     *
+     * @param isBusy true if a command is being executed, false otherwise.
+     */
+    public void setBusy(boolean isBusy) {
+        this.isBusy = isBusy;
+    }
+
+
+    /**
+     * This method checks whether the connection should be closed after a response is sent.
+     *
+     * @return true if the connection is closing, false otherwise.
+     */
+    public boolean isClosing() {
+        return this.isClosing;
+    }
+
+
+    /**
+     * This method reads available bytes from a socket.
+     *
+     * @return A number of read bytes or -1 if a peer has closed the connection.
+     *
+     * @throws IOException if reading fails or a command line is too long.
+     */
+    public int read() throws IOException {
+        if (!this.input.hasRemaining()) {
+            throw new IOException("Command line too long");
+        }
+
+        return this.channel.read(this.input);
+    }
+
+
+    /**
+     * This method removes the first complete command line from received bytes.
+     *
+     * @return A command line (without a line's end) or null if no complete line has been received.
+     */
+    public String nextLine() {
+        byte[] bytes = this.input.array();
+        int filled = this.input.position();
+
+        for (int b = 0; b < filled; ++b) {
+            if (bytes[b] == '\n') {
+                int end = (b > 0 && bytes[b - 1] == '\r') ? b - 1 : b;
+                String line = new String(bytes, 0, end, StandardCharsets.UTF_8);
+
+                System.arraycopy(bytes, b + 1, bytes, 0, filled - b - 1);
+                this.input.position(filled - b - 1);
+
+                return line;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * This method sets a response to be sent.
+     *
+     * @param response  A response's bytes.
+     * @param isClosing true if the connection should be closed after the response is sent.
+     */
+    public void setOutput(byte[] response, boolean isClosing) {
+        this.output = ByteBuffer.wrap(response);
+        this.isClosing = isClosing;
+    }
+
+
+    /**
+     * This method writes as much of a response as a socket accepts.
+     *
+     * @return true if the whole response has been sent, false otherwise.
+     *
+     * @throws IOException if writing fails.
+     */
+    public boolean write() throws IOException {
+        if (this.output != null) {
+            this.channel.write(this.output);
+            if (this.output.hasRemaining()) {
+                return false;
+            }
+            this.output = null;
+        }
+
+        return true;
+    }
+}
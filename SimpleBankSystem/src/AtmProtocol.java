@@ -0,0 +1,412 @@
+/**
+ * A class executing commands of the ATM's text line protocol (the operations of ATM's user menu).
+ *
+ * Commands (accounts are numbered 1-n like in the ATM's menu):
+ * <pre>
+ * LOGIN userID pin
+ * RESUME sessionToken
+ * SUMMARY
+ * HISTORY account [maxTransactions] [cursor]
+ * WITHDRAW account amount [memo]
+ * DEPOSIT account amount [memo]
+ * TRANSFER sourceAccount targetAccount amount
+ * QUIT
+ * </pre>
+ * A response is a line starting with "OK" or "ERR". SUMMARY and HISTORY respond with "OK n"
+ * followed by n lines; HISTORY's status line is "OK n nextCursor" (pass nextCursor to get older
+ * transactions, -1 - there are no more). LOGIN responds with "OK sessionToken Welcome firstName"; the token lets
+ * another connection RESUME the session without a pin until it expires (see SessionTokenCache).
+ * TRANSFER's targetAccount may also be a UUID of any bank's account (e.g. another user's one).
+ */
+public class AtmProtocol {
+
+    /**
+     * A default number of transactions returned by the HISTORY command.
+     */
+    public static final int DEFAULT_HISTORY_LENGTH = 20;
+
+    /**
+     * A bank the commands are executed in.
+     */
+    private Bank bank;
+
+
+    /**
+     * A public constructor creating a protocol's executor for a given bank.
+     *
+     * @param bank A bank the commands are executed in.
+     */
+    public AtmProtocol(Bank bank) {
+        this.bank = bank;
+    }
+
+
+    /**
+     * This method executes a single command line and appends its response (with a line's end) to a builder.
+     *
+     * @param session  A session the command belongs to.
+     * @param line     A command line (without a line's end).
+     * @param response A builder the response is appended to.
+     *
+     * @return true if the session should be closed, false otherwise.
+     */
+    public boolean execute(AtmProtocolSession session, String line, StringBuilder response) {
+
+        String[] tokens = AtmProtocol.split(line, 4);
+        String command = tokens[0].toUpperCase();
+
+        if (command.equals("QUIT")) {
+            this.bank.closeSession(session.getToken());
+            session.setToken(null);
+            response.append("OK Bye\n");
+            return true;
+        }
+
+        if (command.equals("LOGIN")) {
+            this.login(session, tokens, response);
+            return false;
+        }
+
+        if (command.equals("RESUME")) {
+            this.resume(session, tokens, response);
+            return false;
+        }
+
+        if (session.getToken() == null) {
+            response.append("ERR Not logged in\n");
+            return false;
+        }
+
+        // a session's token is checked instead of the pin
+        User user = this.bank.getSessionUser(session.getToken());
+        if (user == null) {
+            session.setToken(null);
+            response.append("ERR Session expired\n");
+            return false;
+        }
+
+        try {
+            switch (command) {
+
+                case "SUMMARY":
+                    AtmProtocol.summary(user, response);
+                    break;
+
+                case "HISTORY":
+                    AtmProtocol.history(user, tokens, response);
+                    break;
+
+                case "WITHDRAW":
+                    AtmProtocol.withdraw(user, tokens, response);
+                    break;
+
+                case "DEPOSIT":
+                    AtmProtocol.deposit(user, tokens, response);
+                    break;
+
+                case "TRANSFER":
+                    AtmProtocol.transfer(user, tokens, response);
+                    break;
+
+                default:
+                    response.append("ERR Unknown command\n");
+                    break;
+            }
+        } catch (NumberFormatException ex) {
+            response.append("ERR Invalid number\n");
+        } catch (IllegalArgumentException ex) {
+            response.append("ERR ").append(ex.getMessage()).append('\n');
+        }
+
+        return false;
+    }
+
+
+    /**
+     * This method executes the LOGIN command.
+     *
+     * @param session  A session the command belongs to.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private void login(AtmProtocolSession session, String[] tokens, StringBuilder response) {
+        if (tokens[1] == null || tokens[2] == null) {
+            response.append("ERR Usage: LOGIN userID pin\n");
+            return;
+        }
+
+        this.bank.closeSession(session.getToken());
+
+        String token = this.bank.openSession(tokens[1], tokens[2]);
+        session.setToken(token);
+
+        if (token == null) {
+            response.append("ERR Incorrect user ID/pin combination\n");
+        } else {
+            User user = this.bank.getSessionUser(token);
+            response.append("OK ").append(token).append(" Welcome ").append(user.getFirstName()).append('\n');
+        }
+    }
+
+
+    /**
+     * This method executes the RESUME command (it joins a session opened by LOGIN).
+     *
+     * @param session  A session the command belongs to.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private void resume(AtmProtocolSession session, String[] tokens, StringBuilder response) {
+        if (tokens[1] == null) {
+            response.append("ERR Usage: RESUME sessionToken\n");
+            return;
+        }
+
+        User user = this.bank.getSessionUser(tokens[1]);
+        if (user == null) {
+            session.setToken(null);
+            response.append("ERR Session expired\n");
+        } else {
+            session.setToken(tokens[1]);
+            response.append("OK Welcome back ").append(user.getFirstName()).append('\n');
+        }
+    }
+
+
+    /**
+     * This method executes the SUMMARY command.
+     *
+     * @param user     A logged in user.
+     * @param response A builder the response is appended to.
+     */
+    private static void summary(User user, StringBuilder response) {
+        int numberOfAccounts = user.getNumberOfAccounts();
+
+        response.append("OK ").append(numberOfAccounts).append('\n');
+        for (int a = 0; a < numberOfAccounts; ++a) {
+            response.append(a + 1).append(") ").append(user.getAccountSummaryLine(a)).append('\n');
+        }
+    }
+
+
+    /**
+     * This method executes the HISTORY command (the newest transactions first).
+     *
+     * @param user     A logged in user.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private static void history(User user, String[] tokens, StringBuilder response) {
+        int accountIdx = AtmProtocol.accountIdx(user, tokens[1]);
+        int maxTransactions = tokens[2] == null ? DEFAULT_HISTORY_LENGTH : Integer.parseInt(tokens[2]);
+        int cursor = tokens[3] == null ? TransactionPage.FROM_NEWEST : Integer.parseInt(tokens[3].trim());
+        if (maxTransactions < 1) {
+            throw new IllegalArgumentException("Invalid number of transactions");
+        }
+
+        TransactionPage page = user.getAccount(accountIdx).getHistoryPage(cursor, maxTransactions);
+
+        response.append("OK ").append(page.size()).append(' ').append(page.getNextCursor()).append('\n');
+        StatementRenderer.forThread().appendHistoryPage(page, response);
+    }
+
+
+    /**
+     * This method executes the WITHDRAW command.
+     *
+     * @param user     A logged in user.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private static void withdraw(User user, String[] tokens, StringBuilder response) {
+        int accountIdx = AtmProtocol.accountIdx(user, tokens[1]);
+        long amount = AtmProtocol.amount(tokens[2]);
+
+        if (user.withdrawFromAccount(accountIdx, amount, AtmProtocol.memo(tokens[3]))) {
+            AtmProtocol.appendBalance(user, accountIdx, response);
+        } else {
+            response.append("ERR Insufficient funds\n");
+        }
+    }
+
+
+    /**
+     * This method executes the DEPOSIT command.
+     *
+     * @param user     A logged in user.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private static void deposit(User user, String[] tokens, StringBuilder response) {
+        int accountIdx = AtmProtocol.accountIdx(user, tokens[1]);
+        long amount = AtmProtocol.amount(tokens[2]);
+
+        user.depositToAccount(accountIdx, amount, AtmProtocol.memo(tokens[3]));
+        AtmProtocol.appendBalance(user, accountIdx, response);
+    }
+
+
+    /**
+     * This method executes the TRANSFER command.
+     *
+     * @param user     A logged in user.
+     * @param tokens   Command's tokens.
+     * @param response A builder the response is appended to.
+     */
+    private static void transfer(User user, String[] tokens, StringBuilder response) {
+        int sourceIdx = AtmProtocol.accountIdx(user, tokens[1]);
+        String targetUUID = AtmProtocol.targetUUID(user, tokens[2]);
+        long amount = AtmProtocol.amount(tokens[3]);
+
+        if (targetUUID.equals(user.getAccountUUID(sourceIdx))) {
+            throw new IllegalArgumentException("Source account and target account have to be different");
+        }
+
+        if (user.transferToAccount(sourceIdx, targetUUID, amount)) {
+            AtmProtocol.appendBalance(user, sourceIdx, response);
+        } else {
+            response.append("ERR Insufficient funds\n");
+        }
+    }
+
+
+    /**
+     * This method appends "OK balance" response for a given user's account.
+     *
+     * @param user       A logged in user.
+     * @param accountIdx A position on a user's accounts list.
+     * @param response   A builder the response is appended to.
+     */
+    private static void appendBalance(User user, int accountIdx, StringBuilder response) {
+        response.append("OK ");
+        Money.appendTo(response, user.getAccountBalance(accountIdx));
+        response.append('\n');
+    }
+
+
+    /**
+     * This method parses an account's number (1-n) to a position on a user's accounts list.
+     *
+     * @param user  A logged in user.
+     * @param token An account's number.
+     *
+     * @return A position on a user's accounts list.
+     */
+    private static int accountIdx(User user, String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Missing account");
+        }
+
+        int accountIdx = Integer.parseInt(token) - 1;
+        if (accountIdx < 0 || accountIdx >= user.getNumberOfAccounts()) {
+            throw new IllegalArgumentException("Invalid account");
+        }
+
+        return accountIdx;
+    }
+
+
+    /**
+     * This method resolves a transfer's target account: a number of a user's account or a UUID of any bank's account.
+     *
+     * @param user  A logged in user.
+     * @param token A number (counted from 1) or a UUID of an account.
+     *
+     * @return A target account's UUID (an unknown UUID is rejected by Bank.transfer).
+     */
+    private static String targetUUID(User user, String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Missing account");
+        }
+
+        try {
+            int accountIdx = Integer.parseInt(token) - 1;
+            if (accountIdx >= 0 && accountIdx < user.getNumberOfAccounts()) {
+                return user.getAccountUUID(accountIdx);
+            }
+        } catch (NumberFormatException ex) {
+            // not a number of a user's account: a UUID
+        }
+
+        return token;
+    }
+
+
+    /**
+     * This method parses a positive amount.
+     *
+     * @param token A text amount.
+     *
+     * @return An amount (in cents).
+     */
+    private static long amount(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+
+        long amount = Money.parse(token);
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+
+        return amount;
+    }
+
+
+    /**
+     * This method returns a memo (an empty one if it is missing).
+     *
+     * @param token A memo's token.
+     *
+     * @return A memo.
+     */
+    private static String memo(String token) {
+        return token == null ? "" : token;
+    }
+
+
+    /**
+     * This method splits a line into max. a given number of space separated tokens
+     * (the last token holds the rest of the line).
+     *
+     * @param line      A line to be split.
+     * @param maxTokens The maximal number of tokens.
+     *
+     * @return Tokens (missing tokens are null).
+     */
+    private static String[] split(String line, int maxTokens) {
+        String[] tokens = new String[maxTokens];
+        int length = line.length();
+        int c = 0;
+
+        for (int t = 0; t < maxTokens; ++t) {
+            while (c < length && line.charAt(c) == ' ') {
+                ++c;
+            }
+            if (c == length) {
+                break;
+            }
+
+            int end = c;
+            if (t == maxTokens - 1) {
+                end = length;
+                while (end > c && line.charAt(end - 1) == ' ') {
+                    --end;
+                }
+            } else {
+                while (end < length && line.charAt(end) != ' ') {
+                    ++end;
+                }
+            }
+
+            tokens[t] = line.substring(c, end);
+            c = end;
+        }
+
+        if (tokens[0] == null) {
+            tokens[0] = "";
+        }
+
+        return tokens;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * A class defining a state of a single ATM protocol's session (e.g. of one network connection).
+ */
+public class AtmProtocolSession {
+
+    /**
+     * A session token of a user logged in during the session (null before a successful login).
+     */
+    private String token;
+
+
+    /**
+     * A public constructor creating a new (not logged in) session.
+     */
+    public AtmProtocolSession() {
+        this.token = null;
+    }
+
+
+    /**
+     * This method returns a session token of a user logged in during the session.
+     *
+     * @return A session token or null if nobody is logged in.
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+
+    /**
+     * This method sets a session token of a user logged in during the session.
+     *
+     * @param token A session token (null - a user logs out).
+     */
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+
+/**
+ * A class defining a recorded ATM session script: the answers a user types at ATM's prompts, one per line,
+ * e.g. a user's ID, a pin, menu choices, accounts' numbers, amounts, memos and days.
+ * A script may hold many sessions one after another (a session ends with the menu's choice 6 - Quit).
+ *
+ * A user's ID may be given as @n (the n-th user of a bank, counted from 1) or @* (users in turns,
+ * one per session), so recorded scripts do not depend on generated IDs.
+ * Lines starting with # are comments; any other line (also a blank one, e.g. an empty memo) is an answer.
+ */
+public class AtmScript {
+
+    /**
+     * An initial number of answers.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Script's answers (in order).
+     */
+    private String[] answers;
+
+    /**
+     * A number of answers.
+     */
+    private int size;
+
+
+    /**
+     * A public constructor creating an empty script.
+     */
+    public AtmScript() {
+        this.answers = new String[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+
+    /**
+     * This method appends an answer to a script.
+     *
+     * @param answer An answer (a line without its end).
+     */
+    public void add(String answer) {
+        if (this.size == this.answers.length) {
+            this.answers = Arrays.copyOf(this.answers, this.answers.length * 2);
+        }
+
+        this.answers[this.size++] = answer;
+    }
+
+
+    /**
+     * This method returns a number of answers.
+     *
+     * @return A number of answers.
+     */
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * This method returns an answer.
+     *
+     * @param idx An answer's position.
+     *
+     * @return An answer.
+     */
+    public String getAnswer(int idx) {
+        return this.answers[idx];
+    }
+
+
+    /**
+     * This method parses a script from a text (lines are split by hand, without a Scanner or regular expressions).
+     *
+     * @param text A script's text.
+     *
+     * @return A script.
+     */
+    public static AtmScript parse(String text) {
+        AtmScript script = new AtmScript();
+
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+
+            int end = lineEnd;
+            if (end > lineStart && text.charAt(end - 1) == '\r') {
+                --end;
+            }
+
+            if (end == lineStart || text.charAt(lineStart) != '#') {
+                script.add(text.substring(lineStart, end).trim());
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return script;
+    }
+
+
+    /**
+     * This method reads a script from a file.
+     *
+     * @param file A script's file (UTF-8).
+     *
+     * @return A script.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static AtmScript read(Path file) throws IOException {
+        return AtmScript.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+
+/**
+ * A class replaying recorded ATM session scripts (see AtmScript) against a bank without a keyboard:
+ * answers are taken from a parsed script and fed to AtmSession's state machine (the same one ATM runs
+ * on the console) and all output (sessions' transcripts) goes through a buffered stream. It is meant for load
+ * and regression runs: thousands of sessions are run back to back and operations per second
+ * and operations' latencies are reported.
+ *
+ * A session follows ATM's menu: a user's ID and a pin (asked again after a failed login), then menu choices
+ * 1) summary, 2) history (an account, a first day or *, a last day, then n for every older page),
+ * 3) withdraw and 4) deposit (an account, an amount, a memo), 5) transfer (two accounts, an amount), 6) quit.
+ *
+ * Usage: java AtmScriptDriver scriptFile [repetitions] [users] [transcriptFile]
+ * e.g.   java AtmScriptDriver sessions.txt 10000 100 transcript.txt
+ * (the bank has the given number of users with pin 1234, each with a "Savings" and a "Checking" account)
+ */
+public class AtmScriptDriver {
+
+    /**
+     * Names of measured operations (indexed by a menu's choice; 0 - a login).
+     */
+    private static final String[] OPERATIONS_NAMES = {"login", "summary", "history", "withdraw", "deposit", "transfer"};
+
+    /**
+     * A bank sessions are run against.
+     */
+    private Bank bank;
+
+    /**
+     * A replayed script.
+     */
+    private AtmScript script;
+
+    /**
+     * A position of the next answer in the script.
+     */
+    private int position;
+
+    /**
+     * A number of sessions run so far.
+     */
+    private int sessions;
+
+    /**
+     * Sessions' transcripts' output.
+     */
+    private PrintStream out;
+
+    /**
+     * Operations' latencies (in nanoseconds) per operation.
+     */
+    private long[][] latencies;
+
+    /**
+     * Numbers of operations per operation.
+     */
+    private int[] counts;
+
+
+    /**
+     * A public constructor creating a script's driver.
+     *
+     * @param bank   A bank sessions are run against.
+     * @param script A replayed script.
+     * @param out    Sessions' transcripts' output (e.g. a buffered file's stream).
+     */
+    public AtmScriptDriver(Bank bank, AtmScript script, PrintStream out) {
+        this.bank = bank;
+        this.script = script;
+        this.out = out;
+        this.position = 0;
+        this.sessions = 0;
+
+        this.latencies = new long[OPERATIONS_NAMES.length][1024];
+        this.counts = new int[OPERATIONS_NAMES.length];
+    }
+
+
+    /**
+     * This method runs the driver.
+     *
+     * @param args Input arguments' list: a script's file, a number of repetitions, a number of users
+     *             and a transcript's file (none - transcripts are discarded).
+     *
+     * @throws IOException if the script or the transcript cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        AtmScript script = AtmScript.read(Path.of(args[0]));
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        OutputStream transcript = args.length > 3
+                ? Files.newOutputStream(Path.of(args[3]))
+                : OutputStream.nullOutputStream();
+
+        PrintStream console = System.out;
+        Bank bank = new Bank("Bank of Drousin");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int u = 0; u < users; ++u) {
+            User user = bank.addUser("John", "Doe", "1234");
+
+            Account checking = new Account("Checking", user, bank);
+            user.addAccount(checking);
+            bank.addAccount(checking);
+        }
+        System.setOut(console);
+
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(transcript, 1 << 16), false)) {
+            AtmScriptDriver driver = new AtmScriptDriver(bank, script, out);
+
+            long begin = System.nanoTime();
+            for (int r = 0; r < repetitions; ++r) {
+                driver.runScript();
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            out.flush();
+            driver.printReport(console, elapsed);
+            console.print(bank.getMetrics().getReport());
+        } catch (IllegalArgumentException ex) {
+            System.err.println("error, caught IllegalArgumentException: " + ex.getMessage());
+        }
+    }
+
+
+    /**
+     * This method runs all sessions of the script once.
+     *
+     * @return A number of run sessions.
+     */
+    public int runScript() {
+        this.position = 0;
+
+        int runSessions = 0;
+        while (this.position < this.script.size()) {
+            this.runSession();
+            ++runSessions;
+        }
+
+        return runSessions;
+    }
+
+
+    /**
+     * This method runs one session: a login and menu's operations until the user quits.
+     *
+     * @throws IllegalArgumentException if the script ends in the middle of a session.
+     */
+    public void runSession() {
+        int session = this.sessions++;
+
+        AtmSession atmSession = new AtmSession(this.bank, this.out);
+        atmSession.start();
+
+        long begin = System.nanoTime();
+        while (!atmSession.isClosed()) {
+            if (this.position == this.script.size()) {
+                throw new IllegalArgumentException("a script ends in the middle of session " + session);
+            }
+            String answer = this.script.getAnswer(this.position++);
+
+            AtmSession.State before = atmSession.getState();
+            if (before == AtmSession.State.USER_ID || before == AtmSession.State.MENU) {
+                // a login or an operation starts with this answer
+                begin = System.nanoTime();
+            }
+            if (before == AtmSession.State.USER_ID) {
+                answer = this.resolveUserID(answer, session);
+            }
+            long completedOperations = atmSession.getCompletedOperations();
+
+            atmSession.accept(answer);
+
+            if (atmSession.getState() == AtmSession.State.MENU) {
+                if (before == AtmSession.State.PIN) {
+                    this.record(0, System.nanoTime() - begin);
+                } else if (atmSession.getCompletedOperations() != completedOperations) {
+                    this.record(atmSession.getLastOperation(), System.nanoTime() - begin);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method prints operations per second and operations' latencies.
+     *
+     * @param to          An output of the report.
+     * @param elapsedTime A time of all sessions (in nanoseconds).
+     */
+    public void printReport(PrintStream to, long elapsedTime) {
+        long operations = 0;
+        for (int count : this.counts) {
+            operations += count;
+        }
+
+        to.printf("%d sessions, %d operations in %.2f s: %.0f ops/s\n",
+                this.sessions, operations, elapsedTime / 1e9, operations * 1e9 / elapsedTime);
+        to.printf("%-10s %10s %12s %12s %12s %12s\n", "operation", "count", "mean us", "p50 us", "p99 us", "max us");
+
+        for (int o = 0; o < OPERATIONS_NAMES.length; ++o) {
+            int count = this.counts[o];
+            if (count == 0) {
+                continue;
+            }
+
+            long[] sorted = Arrays.copyOf(this.latencies[o], count);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long latency : sorted) {
+                sum += latency;
+            }
+
+            to.printf("%-10s %10d %12.2f %12.2f %12.2f %12.2f\n", OPERATIONS_NAMES[o], count, sum / 1e3 / count,
+                    sorted[(int) (count * 0.50)] / 1e3, sorted[(int) (count * 0.99)] / 1e3, sorted[count - 1] / 1e3);
+        }
+    }
+
+
+    /**
+     * This method records an operation's latency.
+     *
+     * @param operation An operation (a menu's choice; 0 - a login).
+     * @param latency   An operation's latency (in nanoseconds).
+     */
+    private void record(int operation, long latency) {
+        if (this.counts[operation] == this.latencies[operation].length) {
+            this.latencies[operation] = Arrays.copyOf(this.latencies[operation], this.counts[operation] * 2);
+        }
+
+        this.latencies[operation][this.counts[operation]++] = latency;
+    }
+
+
+    /**
+     * This method resolves a user's ID of a script (@n - the n-th user, @* - users in turns, one per session).
+     *
+     * @param userID  A user's ID of a script.
+     * @param session A session's number.
+     *
+     * @return A user's ID.
+     */
+    private String resolveUserID(String userID, int session) {
+        if (!userID.startsWith("@")) {
+            return userID;
+        }
+
+        int numberOfUsers = this.bank.getNumberOfUsers();
+        if (userID.equals("@*")) {
+            return this.bank.getUser(session % numberOfUsers).getUsersUUID();
+        }
+
+        try {
+            int userIdx = Integer.parseInt(userID.substring(1)) - 1;
+            if (userIdx >= 0 && userIdx < numberOfUsers) {
+                return this.bank.getUser(userIdx).getUsersUUID();
+            }
+        } catch (NumberFormatException ex) {
+            // an unknown user's ID: the login fails
+        }
+
+        return userID;
+    }
+}
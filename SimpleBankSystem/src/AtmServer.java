@@ -0,0 +1,487 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A class defining a networked ATM front end speaking AtmProtocol's text line protocol over TCP.
+ *
+ * All connections are multiplexed by one selector's thread (an idle connection costs only its buffers,
+ * not a thread) and their commands are executed by a small pool of worker threads against a shared bank.
+ * A connection has at most one command in progress, so its commands are executed in order.
+ */
+public class AtmServer {
+
+    /**
+     * A default server's port.
+     */
+    public static final int DEFAULT_PORT = 5000;
+
+    /**
+     * A period between a bank's snapshots (in seconds) when the bank is persisted.
+     */
+    public static final long SNAPSHOT_PERIOD_SECONDS = 60;
+
+    /**
+     * A period between dumps of a bank's metrics (in seconds).
+     */
+    public static final long METRICS_PERIOD_SECONDS = 60;
+
+    /**
+     * A time the server stops accepting connections for after an accept fails (in milliseconds).
+     */
+    public static final long ACCEPT_RETRY_MILLIS = 100;
+
+    /**
+     * A bank served by the server.
+     */
+    private Bank bank;
+
+    /**
+     * An executor of protocol's commands.
+     */
+    private AtmProtocol protocol;
+
+    /**
+     * A port the server listens on (0 - any free port).
+     */
+    private int port;
+
+    /**
+     * A selector multiplexing the server's sockets.
+     */
+    private Selector selector;
+
+    /**
+     * A server's listening socket.
+     */
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * A number of threads executing commands.
+     */
+    private int workerThreads;
+
+    /**
+     * Worker threads executing commands.
+     */
+    private ExecutorService workers;
+
+    /**
+     * Tasks to be run by the selector's thread (e.g. sending a worker's response).
+     */
+    private ConcurrentLinkedQueue<Runnable> selectorTasks;
+
+    /**
+     * A number of open connections.
+     */
+    private AtomicInteger numberOfConnections;
+
+    /**
+     * true while the server is running.
+     */
+    private volatile boolean isRunning;
+
+    /**
+     * true while accepting connections is paused after a failed accept (used by the selector's thread only).
+     */
+    private boolean isAcceptPaused;
+
+    /**
+     * A time accepting connections is resumed at (System.nanoTime(); used by the selector's thread only).
+     */
+    private long acceptResumeNanos;
+
+
+    /**
+     * A public constructor creating an ATM server.
+     *
+     * @param bank          A bank served by the server.
+     * @param port          A port the server listens on (0 - any free port).
+     * @param workerThreads A number of threads executing commands.
+     */
+    public AtmServer(Bank bank, int port, int workerThreads) {
+        this.bank = bank;
+        this.protocol = new AtmProtocol(bank);
+        this.port = port;
+        this.workerThreads = workerThreads;
+        this.selectorTasks = new ConcurrentLinkedQueue<Runnable>();
+        this.numberOfConnections = new AtomicInteger();
+        this.isRunning = false;
+        this.isAcceptPaused = false;
+        this.acceptResumeNanos = 0;
+    }
+
+
+    /**
+     * This method starts the server (it listens and serves connections on a new thread).
+     *
+     * @throws IOException if the server's socket cannot be opened.
+     */
+    public synchronized void start() throws IOException {
+        if (this.isRunning) {
+            return;
+        }
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(this.port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerThreads, runnable -> {
+            Thread worker = new Thread(runnable, "atm-worker-" + workerNumber.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+        this.isRunning = true;
+
+        Thread selectorThread = new Thread(this::serve, "atm-selector");
+        selectorThread.start();
+    }
+
+
+    /**
+     * This method stops the server and closes all its connections.
+     */
+    public void stop() {
+        this.isRunning = false;
+        if (this.selector != null) {
+            this.selector.wakeup();
+        }
+    }
+
+
+    /**
+     * This method returns a port the server listens on.
+     *
+     * @return A port the server listens on.
+     *
+     * @throws IOException if the port cannot be read.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) this.serverChannel.getLocalAddress()).getPort();
+    }
+
+
+    /**
+     * This method returns a number of open connections.
+     *
+     * @return A number of open connections.
+     */
+    public int getNumberOfConnections() {
+        return this.numberOfConnections.get();
+    }
+
+
+    /**
+     * This method runs the selector's loop (until the server is stopped).
+     */
+    private void serve() {
+        try {
+            while (this.isRunning) {
+                if (this.isAcceptPaused) {
+                    long remainingNanos = this.acceptResumeNanos - System.nanoTime();
+                    if (remainingNanos > 0) {
+                        this.selector.select(Math.max(1, remainingNanos / 1_000_000));
+                    }
+                    if (System.nanoTime() - this.acceptResumeNanos >= 0) {
+                        this.isAcceptPaused = false;
+                        this.serverChannel.keyFor(this.selector).interestOps(SelectionKey.OP_ACCEPT);
+                    }
+                } else {
+                    this.selector.select();
+                }
+
+                Runnable task;
+                while ((task = this.selectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                for (SelectionKey key : this.selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        this.accept();
+                        continue;
+                    }
+
+                    AtmConnection connection = (AtmConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            this.read(connection);
+                        } else if (key.isWritable()) {
+                            this.write(connection);
+                        }
+                    } catch (IOException ex) {
+                        this.close(connection);
+                    }
+                }
+                this.selector.selectedKeys().clear();
+            }
+        } catch (IOException ex) {
+            System.err.println("error, caught IOException in the ATM server's loop: " + ex.getMessage());
+        } finally {
+            this.shutdown();
+        }
+    }
+
+
+    /**
+     * This method accepts pending connections. A failed accept (e.g. too many open files) pauses accepting
+     * for ACCEPT_RETRY_MILLIS, and a connection which cannot be set up is closed; the server keeps serving.
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = this.serverChannel.accept();
+            } catch (IOException ex) {
+                System.err.println("error, caught IOException while accepting an ATM connection: " + ex.getMessage());
+                // the listening socket stays ready, so it is not selected until a retry is due
+                this.serverChannel.keyFor(this.selector).interestOps(0);
+                this.isAcceptPaused = true;
+                this.acceptResumeNanos = System.nanoTime() + ACCEPT_RETRY_MILLIS * 1_000_000;
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.configureBlocking(false);
+
+                AtmConnection connection = new AtmConnection(channel);
+                connection.setKey(channel.register(this.selector, SelectionKey.OP_READ, connection));
+                this.numberOfConnections.incrementAndGet();
+            } catch (IOException ex) {
+                System.err.println("error, caught IOException while setting up an ATM connection: "
+                        + ex.getMessage());
+                try {
+                    channel.close();
+                } catch (IOException closeEx) {
+                    // the connection is dropped anyway
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method reads from a connection and dispatches a received command line.
+     *
+     * @param connection A readable connection.
+     *
+     * @throws IOException if reading fails.
+     */
+    private void read(AtmConnection connection) throws IOException {
+        if (connection.read() < 0) {
+            this.close(connection);
+            return;
+        }
+
+        this.dispatch(connection);
+    }
+
+
+    /**
+     * This method passes the next received command line of an idle connection to a worker.
+     * The connection is not read until the command's response is sent.
+     *
+     * @param connection A connection.
+     */
+    private void dispatch(AtmConnection connection) {
+        if (connection.isBusy()) {
+            return;
+        }
+
+        String line = connection.nextLine();
+        if (line == null) {
+            return;
+        }
+
+        connection.setBusy(true);
+        connection.getKey().interestOps(0);
+
+        this.workers.execute(() -> this.execute(connection, line));
+    }
+
+
+    /**
+     * This method executes a command line (on a worker's thread) and hands its response to the selector's thread.
+     *
+     * @param connection A connection the command belongs to.
+     * @param line       A command line.
+     */
+    private void execute(AtmConnection connection, String line) {
+        StringBuilder response = new StringBuilder(64);
+        boolean isClosing;
+
+        try {
+            isClosing = this.protocol.execute(connection.getSession(), line, response);
+        } catch (RuntimeException ex) {
+            response.setLength(0);
+            response.append("ERR Internal error\n");
+            isClosing = true;
+        }
+
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        boolean isClosingConnection = isClosing;
+
+        this.selectorTasks.add(() -> {
+            connection.setOutput(bytes, isClosingConnection);
+            try {
+                this.write(connection);
+            } catch (IOException ex) {
+                this.close(connection);
+            }
+        });
+        this.selector.wakeup();
+    }
+
+
+    /**
+     * This method sends a connection's response and resumes reading when the response is sent.
+     *
+     * @param connection A connection.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void write(AtmConnection connection) throws IOException {
+        if (!connection.getKey().isValid()) {
+            return;
+        }
+
+        if (!connection.write()) {
+            connection.getKey().interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+
+        connection.setBusy(false);
+
+        if (connection.isClosing()) {
+            this.close(connection);
+            return;
+        }
+
+        connection.getKey().interestOps(SelectionKey.OP_READ);
+        this.dispatch(connection);
+    }
+
+
+    /**
+     * This method closes a connection.
+     *
+     * @param connection A connection to be closed.
+     */
+    private void close(AtmConnection connection) {
+        if (connection.getKey().isValid()) {
+            this.numberOfConnections.decrementAndGet();
+        }
+
+        connection.getKey().cancel();
+        try {
+            connection.getChannel().close();
+        } catch (IOException ex) {
+            // the connection is dropped anyway
+        }
+    }
+
+
+    /**
+     * This method closes all the server's sockets and stops its workers.
+     */
+    private void shutdown() {
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof AtmConnection) {
+                this.close((AtmConnection) key.attachment());
+            }
+        }
+
+        try {
+            this.serverChannel.close();
+            this.selector.close();
+        } catch (IOException ex) {
+            System.err.println("error, caught IOException while closing the ATM server");
+        }
+
+        this.workers.shutdown();
+    }
+
+
+    /**
+     * This method starts an ATM server with a demo bank.
+     *
+     * Usage: java AtmServer [port] [numberOfDemoUsers] [usersIdsFile] [dataDirectory]
+     * Demo users have pin 1234, a "Savings" and a "Checking" account; their IDs are written to usersIdsFile.
+     * With a dataDirectory the bank is restored from its snapshot and journal there (demo users are created
+     * only in a new bank) and its snapshot is written every SNAPSHOT_PERIOD_SECONDS.
+     * Bank's metrics are registered in JMX and dumped every METRICS_PERIOD_SECONDS.
+     *
+     * @param args Input arguments' list.
+     *
+     * @throws IOException if the server cannot be started, the bank cannot be restored or users' IDs cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int numberOfDemoUsers = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        Bank newBank;
+        if (args.length > 3) {
+            Path dataDirectory = Path.of(args[3]);
+            Files.createDirectories(dataDirectory);
+            Path snapshotFile = dataDirectory.resolve("bank.snapshot");
+
+            newBank = BankSnapshot.recover("Bank of Drousin", snapshotFile, dataDirectory.resolve("bank.journal"),
+                    JournalDurability.GROUP);
+            BankSnapshot.schedule(newBank, snapshotFile, SNAPSHOT_PERIOD_SECONDS);
+
+            System.out.printf("%s restored with %d users and %d accounts\n",
+                    newBank.getBankName(), newBank.getNumberOfUsers(), newBank.getNumberOfAccounts());
+        } else {
+            newBank = new Bank("Bank of Drousin");
+        }
+
+        if (newBank.getNumberOfUsers() == 0) {
+            for (int u = 0; u < numberOfDemoUsers; ++u) {
+                User newUser = newBank.addUser("John", "Doe", "1234");
+
+                Account newAccount = new Account("Checking", newUser, newBank);
+                newUser.addAccount(newAccount);
+                newBank.addAccount(newAccount);
+            }
+        }
+
+        if (args.length > 2) {
+            PrintWriter usersIds = new PrintWriter(args[2], StandardCharsets.UTF_8);
+            for (int u = 0; u < Math.min(numberOfDemoUsers, newBank.getNumberOfUsers()); ++u) {
+                usersIds.println(newBank.getUser(u).getUsersUUID());
+            }
+            usersIds.close();
+        }
+
+        newBank.getMetrics().registerMBean();
+        newBank.getMetrics().scheduleDump(System.out, METRICS_PERIOD_SECONDS);
+
+        AtmServer server = new AtmServer(newBank, port, Runtime.getRuntime().availableProcessors());
+        server.start();
+
+        System.out.printf("%s ATM server listening on port %d\n", newBank.getBankName(), server.getPort());
+    }
+}
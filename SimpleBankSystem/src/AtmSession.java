@@ -0,0 +1,606 @@
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+
+/**
+ * A class defining an ATM's session as an explicit state machine: a login, then menu's operations
+ * until the user quits. A session is fed one answer (a line typed by a user) at a time by accept,
+ * which handles it, prints responses and the next prompt and returns, so a session's stack depth is constant
+ * however long it runs. A session keeps only its small state (a state, a user and an operation's answers
+ * so far), so one process can host many sessions; quitting only closes a session.
+ *
+ * A session does not flush its output (a console's owner flushes it after every answer).
+ * A session is not thread-safe (its answers are expected in order, e.g. from one console or one script).
+ */
+public class AtmSession {
+
+    /**
+     * States of a session (what the next answer is).
+     */
+    public enum State {
+        USER_ID,
+        PIN,
+        MENU,
+        HISTORY_ACCOUNT,
+        HISTORY_FIRST_DAY,
+        HISTORY_LAST_DAY,
+        HISTORY_NEXT_PAGE,
+        WITHDRAW_ACCOUNT,
+        WITHDRAW_AMOUNT,
+        WITHDRAW_MEMO,
+        DEPOSIT_ACCOUNT,
+        DEPOSIT_AMOUNT,
+        DEPOSIT_MEMO,
+        TRANSFER_SOURCE,
+        TRANSFER_TARGET,
+        TRANSFER_AMOUNT,
+        CLOSED
+    }
+
+    /**
+     * A menu's choice of quitting.
+     */
+    public static final int QUIT = 6;
+
+    /**
+     * A number of transactions shown on one page of an account's history.
+     */
+    private static final int HISTORY_PAGE_SIZE = 10;
+
+    /**
+     * A bank the session is connected to.
+     */
+    private Bank bank;
+
+    /**
+     * An output of responses and prompts.
+     */
+    private PrintStream out;
+
+    /**
+     * A renderer of summaries and histories (it writes to the session's output).
+     */
+    private StatementRenderer renderer;
+
+    /**
+     * A session's state.
+     */
+    private State state;
+
+    /**
+     * A user's ID entered at a login.
+     */
+    private String userID;
+
+    /**
+     * A logged in user (null before a login).
+     */
+    private User user;
+
+    /**
+     * A menu's choice of the current operation (0 - none).
+     */
+    private int operation;
+
+    /**
+     * A menu's choice of the last completed operation (0 - none).
+     */
+    private int lastOperation;
+
+    /**
+     * A number of completed operations.
+     */
+    private long completedOperations;
+
+    /**
+     * The current operation's account (a position on a user's accounts list).
+     */
+    private int accountIdx;
+
+    /**
+     * The current transfer's target account's UUID (of a user's or another user's account).
+     */
+    private String targetUUID;
+
+    /**
+     * The current operation's amount (in cents).
+     */
+    private long amount;
+
+    /**
+     * The beginning of a shown history's range (milliseconds since the epoch, inclusive).
+     */
+    private long fromTimestamp;
+
+    /**
+     * The end of a shown history's range (milliseconds since the epoch, exclusive).
+     */
+    private long toTimestamp;
+
+    /**
+     * A cursor of the next page of a shown history.
+     */
+    private int cursor;
+
+
+    /**
+     * A public constructor creating a session (it starts at the login).
+     *
+     * @param bank A bank the session is connected to.
+     * @param out  An output of responses and prompts.
+     */
+    public AtmSession(Bank bank, PrintStream out) {
+        this.bank = bank;
+        this.out = out;
+        this.renderer = new StatementRenderer(out);
+        this.state = State.USER_ID;
+        this.operation = 0;
+        this.lastOperation = 0;
+        this.completedOperations = 0;
+    }
+
+
+    /**
+     * This method prints the login's welcome and the first prompt.
+     */
+    public void start() {
+        this.out.printf("\n\nWelcome to %s\n\n", this.bank.getBankName());
+        this.out.print("Enter user ID: ");
+    }
+
+
+    /**
+     * This method returns a session's state.
+     *
+     * @return A session's state.
+     */
+    public State getState() {
+        return this.state;
+    }
+
+
+    /**
+     * This method checks whether a session is closed (a user has quit).
+     *
+     * @return true if a session is closed, false otherwise.
+     */
+    public boolean isClosed() {
+        return this.state == State.CLOSED;
+    }
+
+
+    /**
+     * This method returns a logged in user.
+     *
+     * @return A logged in user (null before a login).
+     */
+    public User getUser() {
+        return this.user;
+    }
+
+
+    /**
+     * This method returns a menu's choice of the last completed operation.
+     *
+     * @return A menu's choice (0 - none).
+     */
+    public int getLastOperation() {
+        return this.lastOperation;
+    }
+
+
+    /**
+     * This method returns a number of operations completed in a session (a session's return to the menu).
+     *
+     * @return A number of completed operations.
+     */
+    public long getCompletedOperations() {
+        return this.completedOperations;
+    }
+
+
+    /**
+     * This method handles a user's answer: it moves a session to its next state
+     * and prints responses and the next prompt.
+     *
+     * @param answer A user's answer (a line without its end).
+     *
+     * @return true if a session is still open, false if it is closed.
+     */
+    public boolean accept(String answer) {
+        answer = answer.trim();
+
+        switch (this.state) {
+            case USER_ID:
+                this.userID = answer;
+                this.prompt(State.PIN);
+                break;
+
+            case PIN:
+                this.user = this.bank.userLogin(this.userID, answer);
+                this.userID = null;
+                if (this.user == null) {
+                    this.out.println("\nIncorrect user ID/pin combination. Please try again.");
+                    this.start();
+                    this.state = State.USER_ID;
+                } else {
+                    this.prompt(State.MENU);
+                }
+                break;
+
+            case MENU:
+                this.chooseOperation(AtmSession.parseNumber(answer));
+                break;
+
+            case HISTORY_ACCOUNT:
+                if (this.acceptAccount(answer)) {
+                    this.prompt(State.HISTORY_FIRST_DAY);
+                }
+                break;
+
+            case HISTORY_FIRST_DAY:
+                if (answer.equals("*")) {
+                    this.fromTimestamp = Long.MIN_VALUE;
+                    this.toTimestamp = Long.MAX_VALUE;
+                    this.startHistory();
+                } else if (this.acceptDay(answer, 0)) {
+                    this.fromTimestamp = this.toTimestamp;
+                    this.prompt(State.HISTORY_LAST_DAY);
+                }
+                break;
+
+            case HISTORY_LAST_DAY:
+                // the range ends where the next local day starts (a day may not last 24 hours, e.g. at a DST change)
+                if (this.acceptDay(answer, 1)) {
+                    this.startHistory();
+                }
+                break;
+
+            case HISTORY_NEXT_PAGE:
+                if (answer.equalsIgnoreCase("n")) {
+                    this.showHistoryPage();
+                } else {
+                    this.out.println();
+                    this.prompt(State.MENU);
+                }
+                break;
+
+            case WITHDRAW_ACCOUNT:
+                if (this.acceptAccount(answer)) {
+                    this.prompt(State.WITHDRAW_AMOUNT);
+                }
+                break;
+
+            case WITHDRAW_AMOUNT:
+                if (this.acceptAmount(answer, this.user.getAccountBalance(this.accountIdx))) {
+                    this.prompt(State.WITHDRAW_MEMO);
+                }
+                break;
+
+            case WITHDRAW_MEMO:
+                if (this.amount > 0 && !this.user.withdrawFromAccount(this.accountIdx, this.amount, answer)) {
+                    this.out.println("\nInsufficient funds. The withdrawal has been cancelled.\n");
+                }
+                this.prompt(State.MENU);
+                break;
+
+            case DEPOSIT_ACCOUNT:
+                if (this.acceptAccount(answer)) {
+                    this.prompt(State.DEPOSIT_AMOUNT);
+                }
+                break;
+
+            case DEPOSIT_AMOUNT:
+                if (this.acceptAmount(answer, Long.MAX_VALUE)) {
+                    this.prompt(State.DEPOSIT_MEMO);
+                }
+                break;
+
+            case DEPOSIT_MEMO:
+                if (this.amount > 0) {
+                    this.user.depositToAccount(this.accountIdx, this.amount, answer);
+                }
+                this.prompt(State.MENU);
+                break;
+
+            case TRANSFER_SOURCE:
+                if (this.acceptAccount(answer)) {
+                    this.prompt(State.TRANSFER_TARGET);
+                }
+                break;
+
+            case TRANSFER_TARGET:
+                this.acceptTarget(answer);
+                break;
+
+            case TRANSFER_AMOUNT:
+                if (this.acceptAmount(answer, this.user.getAccountBalance(this.accountIdx))) {
+                    if (this.amount > 0
+                            && !this.user.transferToAccount(this.accountIdx, this.targetUUID, this.amount)) {
+                        this.out.println("\nInsufficient funds. The transfer has been cancelled.\n");
+                    }
+                    this.prompt(State.MENU);
+                }
+                break;
+
+            case CLOSED:
+                break;
+        }
+
+        return this.state != State.CLOSED;
+    }
+
+
+    /**
+     * This method starts a menu's operation (or closes a session if a user quits).
+     *
+     * @param choice A menu's choice (-1 if it is not a number).
+     */
+    private void chooseOperation(int choice) {
+        if (choice < 1 || choice > QUIT) {
+            this.out.println("Invalid number. Please number 1-6.\n");
+            this.prompt(State.MENU);
+            return;
+        }
+
+        this.operation = choice;
+
+        switch (choice) {
+            case 1:
+                this.renderer.renderAccountsSummary(this.user);
+                this.prompt(State.MENU);
+                break;
+            case 2:
+                this.prompt(State.HISTORY_ACCOUNT);
+                break;
+            case 3:
+                this.prompt(State.WITHDRAW_ACCOUNT);
+                break;
+            case 4:
+                this.prompt(State.DEPOSIT_ACCOUNT);
+                break;
+            case 5:
+                this.prompt(State.TRANSFER_SOURCE);
+                break;
+            default:
+                this.out.println("I exit from the system.");
+                this.user = null;
+                this.operation = 0;
+                this.state = State.CLOSED;
+                break;
+        }
+    }
+
+
+    /**
+     * This method moves a session to a state and prints the state's prompt.
+     *
+     * @param next The next state.
+     */
+    private void prompt(State next) {
+        this.state = next;
+
+        switch (next) {
+            case PIN:
+                this.out.print("Enter pin: ");
+                break;
+            case MENU:
+                if (this.operation != 0) {
+                    this.lastOperation = this.operation;
+                    this.operation = 0;
+                    ++this.completedOperations;
+                }
+                this.out.printf("Welcome %s, what would you like to do?\n", this.user.getFirstName());
+                this.out.println(" 1) Show accounts' summary");
+                this.out.println(" 2) Show account transaction history");
+                this.out.println(" 3) Withdraw");
+                this.out.println(" 4) Deposit");
+                this.out.println(" 5) Transfer");
+                this.out.println(" 6) Quit");
+                this.out.print("Enter number: ");
+                break;
+            case HISTORY_ACCOUNT:
+                this.promptAccount("whose transactions you want to see");
+                break;
+            case HISTORY_FIRST_DAY:
+                this.out.print("Enter the first day (yyyy-mm-dd) of transactions to be shown or * for all: ");
+                break;
+            case HISTORY_LAST_DAY:
+                this.out.print("Enter the last day (yyyy-mm-dd) of transactions to be shown: ");
+                break;
+            case HISTORY_NEXT_PAGE:
+                this.out.print("Enter n to see older transactions or q to go back to the menu: ");
+                break;
+            case WITHDRAW_ACCOUNT:
+                this.promptAccount("to withdraw from");
+                break;
+            case WITHDRAW_AMOUNT:
+                this.out.printf("Enter the amount to withdraw (max $%s): $",
+                        Money.format(this.user.getAccountBalance(this.accountIdx)));
+                break;
+            case DEPOSIT_ACCOUNT:
+                this.promptAccount("to deposit in");
+                break;
+            case DEPOSIT_AMOUNT:
+                this.out.print("Enter the amount to deposit: $");
+                break;
+            case WITHDRAW_MEMO:
+            case DEPOSIT_MEMO:
+                this.out.println("Enter a memo: ");
+                break;
+            case TRANSFER_SOURCE:
+                this.promptAccount("to transfer from");
+                break;
+            case TRANSFER_TARGET:
+                this.promptAccount("(or another account's UUID) to transfer to");
+                break;
+            case TRANSFER_AMOUNT:
+                this.out.printf("Enter the amount to transfer (max $%s): $",
+                        Money.format(this.user.getAccountBalance(this.accountIdx)));
+                break;
+            default:
+                break;
+        }
+    }
+
+
+    /**
+     * This method prints a prompt for an account's number.
+     *
+     * @param purpose A purpose of an account (e.g. "to withdraw from").
+     */
+    private void promptAccount(String purpose) {
+        this.out.printf("Enter the number (1-%d) of the account\n%s: ", this.user.getNumberOfAccounts(), purpose);
+    }
+
+
+    /**
+     * This method accepts an account's number as the current operation's account.
+     * An invalid number is reported and asked for again.
+     *
+     * @param answer A user's answer.
+     *
+     * @return true if an account's number is valid, false otherwise.
+     */
+    private boolean acceptAccount(String answer) {
+        int idx = AtmSession.parseNumber(answer) - 1;
+
+        if (idx < 0 || idx >= this.user.getNumberOfAccounts()) {
+            this.out.println("Invalid account. Please try again.\n");
+            this.prompt(this.state);
+            return false;
+        }
+
+        this.accountIdx = idx;
+        return true;
+    }
+
+
+    /**
+     * This method accepts a transfer's target: a number of a user's account or a UUID of any bank's account
+     * (e.g. another customer's one). An unknown account is reported and asked for again.
+     *
+     * @param answer A user's answer.
+     */
+    private void acceptTarget(String answer) {
+        int idx = AtmSession.parseNumber(answer) - 1;
+
+        if (idx >= 0 && idx < this.user.getNumberOfAccounts()) {
+            this.targetUUID = this.user.getAccountUUID(idx);
+        } else if (this.bank.getAccount(answer) != null) {
+            this.targetUUID = answer;
+        } else {
+            this.out.println("Invalid account. Please try again.\n");
+            this.prompt(State.TRANSFER_TARGET);
+            return;
+        }
+
+        if (this.targetUUID.equals(this.user.getAccountUUID(this.accountIdx))) {
+            this.out.println("\nSource account and target account have to be different.\n");
+            this.prompt(State.MENU);
+        } else {
+            this.prompt(State.TRANSFER_AMOUNT);
+        }
+    }
+
+
+    /**
+     * This method accepts an amount as the current operation's amount.
+     * An invalid amount is reported and asked for again.
+     *
+     * @param answer    A user's answer.
+     * @param maxAmount The greatest allowed amount (in cents).
+     *
+     * @return true if an amount is valid, false otherwise.
+     */
+    private boolean acceptAmount(String answer, long maxAmount) {
+        long parsed;
+        try {
+            parsed = Money.parse(answer);
+        } catch (NumberFormatException ex) {
+            parsed = -1;
+        }
+
+        if (parsed < 0) {
+            this.out.println("Amount must be greater than zero. Please try again.\n");
+            this.prompt(this.state);
+            return false;
+        }
+        if (parsed > maxAmount) {
+            this.out.printf("Amount must not be greater than\nbalance of $%s.\n", Money.format(maxAmount));
+            this.prompt(this.state);
+            return false;
+        }
+
+        this.amount = parsed;
+        return true;
+    }
+
+
+    /**
+     * This method accepts a day as a timestamp of a local day's beginning (stored in toTimestamp): the day's own
+     * or a later one's. An invalid day is reported and asked for again.
+     *
+     * @param answer    A user's answer (yyyy-mm-dd).
+     * @param daysAfter A number of days after the answered one whose beginning is stored.
+     *
+     * @return true if a day is valid, false otherwise.
+     */
+    private boolean acceptDay(String answer, int daysAfter) {
+        try {
+            this.toTimestamp = LocalDate.parse(answer).plusDays(daysAfter).atStartOfDay(ZoneId.systemDefault())
+                    .toInstant().toEpochMilli();
+            return true;
+        } catch (DateTimeParseException ex) {
+            this.out.print("Invalid day. Please enter it again (yyyy-mm-dd): ");
+            return false;
+        }
+    }
+
+
+    /**
+     * This method starts showing an account's history (from its newest transaction in a range).
+     */
+    private void startHistory() {
+        this.renderer.renderLine("\nTransaction history for account " + this.user.getAccountUUID(this.accountIdx));
+        this.cursor = TransactionPage.FROM_NEWEST;
+        this.showHistoryPage();
+    }
+
+
+    /**
+     * This method shows the next page of an account's history.
+     */
+    private void showHistoryPage() {
+        TransactionPage page = this.user.getAccount(this.accountIdx)
+                .getHistoryPage(this.fromTimestamp, this.toTimestamp, this.cursor, HISTORY_PAGE_SIZE);
+        this.renderer.renderHistoryPage(page);
+        this.renderer.flush();
+
+        if (page.hasNextPage()) {
+            this.cursor = page.getNextCursor();
+            this.prompt(State.HISTORY_NEXT_PAGE);
+        } else {
+            this.out.println("(end of the history)\n");
+            this.prompt(State.MENU);
+        }
+    }
+
+
+    /**
+     * This method parses a number entered by a user.
+     *
+     * @param answer A user's answer.
+     *
+     * @return A number (-1 if an answer is not a number).
+     */
+    private static int parseNumber(String answer) {
+        try {
+            return Integer.parseInt(answer);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -13,16 +16,83 @@ public class Bank {
     private String bankName;
 
     /**
-     * Bank's users' list.
+     * Bank's users' list (guarded by the bank's monitor).
      * Definition: the user is the person having min. 1 account in the bank.
      */
     private ArrayList<User> bankUsers;
 
     /**
-     * Bank's users' accounts' list.
+     * Bank's users' directory (a user's ID -> a user).
+     * It mirrors the bankUsers' list and allows to find a user in a constant time (without locking).
+     */
+    private ConcurrentHashMap<String, User> usersDirectory;
+
+    /**
+     * Bank's users' accounts' list (guarded by the bank's monitor).
      */
     private ArrayList<Account> bankAccounts;
 
+    /**
+     * Bank's accounts' directory (an account's UUID -> an account).
+     * It mirrors the bankAccounts' list and allows to find an account in a constant time (without locking).
+     */
+    private ConcurrentHashMap<String, Account> accountsDirectory;
+
+    /**
+     * An allocator of users' IDs (initially 6-digit).
+     */
+    private IdAllocator usersIdAllocator;
+
+    /**
+     * An allocator of accounts' UUIDs (initially 10-digit).
+     */
+    private IdAllocator accountsIdAllocator;
+
+    /**
+     * An engine posting transactions to bank's accounts.
+     */
+    private PostingEngine postingEngine;
+
+    /**
+     * A write-ahead journal of postings (null - postings are kept in memory only).
+     */
+    private volatile PostingJournal journal;
+
+    /**
+     * A hasher of users' pins.
+     */
+    private volatile PinHasher pinHasher;
+
+    /**
+     * Session tokens of users who logged in.
+     */
+    private SessionTokenCache sessionTokens;
+
+    /**
+     * Metrics of bank's operations.
+     */
+    private BankMetrics metrics;
+
+    /**
+     * A number of transactions after which an account's history is moved off the heap (0 - never).
+     */
+    private volatile int offHeapHistoryThreshold;
+
+    /**
+     * A dictionary of memos of all bank's transactions.
+     */
+    private MemoDictionary memoDictionary;
+
+    /**
+     * An archive of accounts' sealed history (null - whole histories are kept in memory).
+     */
+    private volatile HistoryArchive historyArchive;
+
+    /**
+     * A ring postings are published to (null - postings are not published).
+     */
+    private volatile PostingEventRing postingEventRing;
+
 
     /**
      * A public constructor creating a bank instance.
@@ -30,9 +100,34 @@ public class Bank {
      * @param bankName A bank's name.
      */
     public Bank(String bankName) {
+        this(bankName, new IdAllocator("users' IDs", 6), new IdAllocator("accounts' UUIDs", 10));
+    }
+
+
+    /**
+     * A public constructor creating a bank instance with given IDs' allocators (e.g. restored from a bank's snapshot).
+     *
+     * @param bankName            A bank's name.
+     * @param usersIdAllocator    An allocator of users' IDs.
+     * @param accountsIdAllocator An allocator of accounts' UUIDs.
+     */
+    public Bank(String bankName, IdAllocator usersIdAllocator, IdAllocator accountsIdAllocator) {
         this.bankName = bankName;
         this.bankUsers = new ArrayList<User>();
+        this.usersDirectory = new ConcurrentHashMap<String, User>();
         this.bankAccounts = new ArrayList<Account>();
+        this.accountsDirectory = new ConcurrentHashMap<String, Account>();
+        this.usersIdAllocator = usersIdAllocator;
+        this.accountsIdAllocator = accountsIdAllocator;
+        this.postingEngine = new PostingEngine(this);
+        this.journal = null;
+        this.pinHasher = new DigestPinHasher();
+        this.sessionTokens = new SessionTokenCache();
+        this.metrics = new BankMetrics(bankName);
+        this.offHeapHistoryThreshold = 0;
+        this.memoDictionary = new MemoDictionary();
+        this.historyArchive = null;
+        this.postingEventRing = null;
     }
 
 
@@ -45,38 +140,201 @@ public class Bank {
     }
 
 
-    /** This method creates a new unique user's ID.
+    /** This method returns an allocator of users' IDs.
      *
-     * @return A new unique user's ID.
+     * @return An allocator of users' IDs.
      * */
-    public String createNewUserUUID() {
+    public IdAllocator getUsersIdAllocator() {
+        return this.usersIdAllocator;
+    }
+
+
+    /** This method returns an allocator of accounts' UUIDs.
+     *
+     * @return An allocator of accounts' UUIDs.
+     * */
+    public IdAllocator getAccountsIdAllocator() {
+        return this.accountsIdAllocator;
+    }
 
-        String UUID;
 
-        Random random = new Random();
-        int UUIDLength = 6; // UUID's length
-        boolean isCurrentUUIDNonUnique;
+    /** This method returns a hasher of users' pins.
+     *
+     * @return A hasher of users' pins.
+     * */
+    public PinHasher getPinHasher() {
+        return this.pinHasher;
+    }
 
-        do {
 
-            UUID = "";
+    /** This method sets a hasher of users' pins. It has to be set before any user is added,
+     * because pins' hashes of existing users are not rehashed.
+     *
+     * @param pinHasher A hasher of users' pins.
+     * */
+    public synchronized void setPinHasher(PinHasher pinHasher) {
+        if (!this.bankUsers.isEmpty()) {
+            throw new IllegalStateException("A pins' hasher cannot be changed after users are added");
+        }
 
-            for (int c = 0; c < UUIDLength; ++c) {
-                UUID += ((Integer) random.nextInt(10)).toString();
-            }
+        this.pinHasher = pinHasher;
+    }
+
+
+    /** This method returns session tokens of users who logged in.
+     *
+     * @return A cache of session tokens.
+     * */
+    public SessionTokenCache getSessionTokens() {
+        return this.sessionTokens;
+    }
 
-            isCurrentUUIDNonUnique = false;
-            for (User u : this.bankUsers) {
-                if (UUID.compareTo(u.getUsersUUID()) == 0) {
-                    isCurrentUUIDNonUnique = true;
-                    break;
-                }
-            }
 
-        } while (isCurrentUUIDNonUnique);
+    /** This method returns metrics of bank's operations (latencies and failures).
+     *
+     * @return Bank's metrics.
+     * */
+    public BankMetrics getMetrics() {
+        return this.metrics;
+    }
+
+
+    /** This method returns a dictionary of memos of all bank's transactions.
+     *
+     * @return A bank's memo dictionary.
+     * */
+    public MemoDictionary getMemoDictionary() {
+        return this.memoDictionary;
+    }
+
+
+    /** This method returns a number of transactions after which an account's history is moved off the heap.
+     *
+     * @return A number of transactions (0 - histories stay on the heap).
+     * */
+    public int getOffHeapHistoryThreshold() {
+        return this.offHeapHistoryThreshold;
+    }
+
+
+    /** This method sets a number of transactions after which an account's history is moved off the heap
+     * (see OffHeapTransactionStore), e.g. for merchants' or settlement accounts with very long histories.
+     * An account is moved on its next posting.
+     *
+     * @param offHeapHistoryThreshold A number of transactions (0 - histories stay on the heap).
+     * */
+    public void setOffHeapHistoryThreshold(int offHeapHistoryThreshold) {
+        if (offHeapHistoryThreshold < 0) {
+            throw new IllegalArgumentException("Off-heap history's threshold must not be negative");
+        }
+
+        this.offHeapHistoryThreshold = offHeapHistoryThreshold;
+    }
+
+
+    /** This method returns an archive of accounts' sealed history.
+     *
+     * @return An archive of accounts' sealed history (null - whole histories are kept in memory).
+     * */
+    public HistoryArchive getHistoryArchive() {
+        return this.historyArchive;
+    }
+
+
+    /** This method sets an archive of accounts' sealed history (see HistoryArchive): accounts' oldest
+     * transactions are sealed into its segments, and only their newest transactions stay in memory.
+     * An account's full segments are sealed on its next posting.
+     *
+     * @param historyArchive An archive of accounts' sealed history (null - new postings are kept in memory).
+     * */
+    public void setHistoryArchive(HistoryArchive historyArchive) {
+        this.historyArchive = historyArchive;
+    }
+
+
+    /** This method returns a ring postings are published to.
+     *
+     * @return A ring of posting events (null - postings are not published).
+     * */
+    public PostingEventRing getPostingEventRing() {
+        return this.postingEventRing;
+    }
+
+
+    /** This method sets a ring every posting applied to bank's accounts is published to (see PostingEventRing),
+     * e.g. after the bank is restored, so replayed postings are not published again.
+     *
+     * @param postingEventRing A ring of posting events (null - postings are not published).
+     * */
+    public void setPostingEventRing(PostingEventRing postingEventRing) {
+        this.postingEventRing = postingEventRing;
+    }
+
+
+    /** This method returns an engine posting transactions to bank's accounts.
+     *
+     * @return A bank's posting engine.
+     * */
+    public PostingEngine getPostingEngine() {
+        return this.postingEngine;
+    }
+
+
+    /** This method opens a write-ahead journal all further postings are written to.
+     *
+     * @param file       A journal's file (records are appended to an existing journal).
+     * @param durability A journal's durability mode.
+     *
+     * @throws IOException if the journal cannot be opened.
+     * */
+    public synchronized void openJournal(Path file, JournalDurability durability) throws IOException {
+        if (this.journal != null) {
+            throw new IllegalStateException("The bank's journal is already open");
+        }
+
+        this.journal = new PostingJournal(file, durability);
+    }
 
 
-        return UUID;
+    /** This method flushes and closes the bank's journal (if any).
+     *
+     * @throws IOException if the journal cannot be written.
+     * */
+    public synchronized void closeJournal() throws IOException {
+        if (this.journal != null) {
+            this.journal.close();
+            this.journal = null;
+        }
+    }
+
+
+    /** This method returns a bank's write-ahead journal of postings.
+     *
+     * @return A bank's journal or null if postings are kept in memory only.
+     * */
+    public PostingJournal getJournal() {
+        return this.journal;
+    }
+
+
+    /** This method waits until a journal's record is durable (it is needed to acknowledge a posting).
+     *
+     * @param sequence A journal record's sequence number (0 - no record, nothing to wait for).
+     * */
+    public void awaitDurable(long sequence) {
+        PostingJournal journal = this.journal;
+        if (journal != null && sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+
+    /** This method creates a new unique user's ID.
+     *
+     * @return A new unique user's ID.
+     * */
+    public String createNewUserUUID() {
+        return this.usersIdAllocator.nextId();
     }
 
 
@@ -86,42 +344,54 @@ public class Bank {
      * @return A new account's UUID (Universal and Unique Identifier).
      * */
     public String getNewAccountUUID() {
-        String UUID;
-
-        Random random = new Random();
-        int UUIDLength = 10;
-        boolean isCurrentUUIDNonUnique;
-
-        do {
+        return this.accountsIdAllocator.nextId();
+    }
 
-            UUID = "";
 
-            for (int c = 0; c < UUIDLength; ++c) {
-                UUID += ((Integer) random.nextInt(10)).toString();
-            }
+    /**
+     * This method adds a new account to a bank's accounts' list (and journals it if the bank has a journal).
+     *
+     * @param account A new account to be added a bank's accounts' list.
+     * */
+    public void addAccount(Account account) {
+        long sequence = 0;
 
-            isCurrentUUIDNonUnique = false;
-            for (Account a : this.bankAccounts) {
-                if (UUID.compareTo(a.getAccountsUUID()) == 0) {
-                    isCurrentUUIDNonUnique = true;
-                    break;
-                }
+        synchronized (this) {
+            if (this.journal != null) {
+                sequence = this.journal.appendAccount(account.getAccountsUUID(), account.getAccountsName(),
+                        account.getHolder().getUsersUUID());
             }
+            this.bankAccounts.add(account);
+            this.accountsDirectory.put(account.getAccountsUUID(), account);
+        }
 
-        } while (isCurrentUUIDNonUnique);
+        this.awaitDurable(sequence);
+    }
 
 
-        return UUID;
+    /**
+     * This method adds a restored user (e.g. from a bank's snapshot or journal) to a bank's users' list.
+     * The user is not journaled again.
+     *
+     * @param user A restored user.
+     * */
+    public synchronized void restoreUser(User user) {
+        this.usersIdAllocator.markIssued(user.getUsersUUID());
+        this.bankUsers.add(user);
+        this.usersDirectory.put(user.getUsersUUID(), user);
     }
 
 
     /**
-     * This method adds a new account to a bank's accounts' list.
+     * This method adds a restored account (e.g. from a bank's snapshot or journal) to a bank's accounts' list.
+     * The account is not journaled again.
      *
-     * @param account A new account to be added a bank's accounts' list.
+     * @param account A restored account (already added to its holder).
      * */
-    public void addAccount(Account account) {
+    public synchronized void restoreAccount(Account account) {
+        this.accountsIdAllocator.markIssued(account.getAccountsUUID());
         this.bankAccounts.add(account);
+        this.accountsDirectory.put(account.getAccountsUUID(), account);
     }
 
 
@@ -156,17 +426,114 @@ public class Bank {
      */
     public User addUser(String firstName, String lastName, String pin) {
         User newUser = new User(firstName, lastName, pin, this);
-        this.bankUsers.add(newUser);
-
         Account newAccount = new Account("Savings", newUser, this);
-
         newUser.addAccount(newAccount);
-        this.addAccount(newAccount);
+
+        long sequence = 0;
+
+        synchronized (this) {
+            if (this.journal != null) {
+                this.journal.appendUser(newUser.getUsersUUID(), firstName, lastName, newUser.getUsersPinHash());
+                sequence = this.journal.appendAccount(newAccount.getAccountsUUID(), newAccount.getAccountsName(),
+                        newUser.getUsersUUID());
+            }
+            this.bankUsers.add(newUser);
+            this.bankAccounts.add(newAccount);
+            this.accountsDirectory.put(newAccount.getAccountsUUID(), newAccount);
+        }
+        this.usersDirectory.put(newUser.getUsersUUID(), newUser);
+
+        this.awaitDurable(sequence);
 
         return newUser;
     }
 
 
+    /**
+     * This method applies a batch of postings (e.g. a nightly settlement file) in parallel on the common fork-join pool.
+     *
+     * @param batch A batch of postings.
+     *
+     * @return A report of applied and rejected postings.
+     */
+    public BatchReport postBatch(PostingBatch batch) {
+        return this.postBatch(batch, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * This method applies a batch of postings in parallel on a given fork-join pool.
+     * Postings are partitioned by their accounts; postings of an account are applied in a batch's order.
+     * A withdrawal exceeding an account's balance, a posting to an unknown account and a zero amount
+     * are rejected (and reported) without stopping the batch.
+     *
+     * @param batch A batch of postings.
+     * @param pool  A fork-join pool applying partitions.
+     *
+     * @return A report of applied and rejected postings (rejections in a batch's order).
+     */
+    public BatchReport postBatch(PostingBatch batch, ForkJoinPool pool) {
+        int numberOfPartitions = Integer.highestOneBit(Math.max(1, 4 * pool.getParallelism()) * 2 - 1);
+        int mask = numberOfPartitions - 1;
+
+        int[] partitionOf = new int[batch.size()];
+        int[] partitionSizes = new int[numberOfPartitions];
+        for (int p = 0; p < batch.size(); ++p) {
+            int hash = batch.getAccountUUID(p).hashCode();
+            partitionOf[p] = (hash ^ (hash >>> 16)) & mask;
+            partitionSizes[partitionOf[p]]++;
+        }
+
+        int[][] partitions = new int[numberOfPartitions][];
+        for (int q = 0; q < numberOfPartitions; ++q) {
+            partitions[q] = new int[partitionSizes[q]];
+            partitionSizes[q] = 0;
+        }
+        for (int p = 0; p < batch.size(); ++p) {
+            partitions[partitionOf[p]][partitionSizes[partitionOf[p]]++] = p;
+        }
+
+        BatchReport report = pool.invoke(new PostingBatchTask(this, batch, partitions, 0, numberOfPartitions));
+
+        for (BatchRejection rejection : batch.getRejections()) {
+            report.addRejection(rejection);
+        }
+        report.sortRejections();
+
+        return report;
+    }
+
+
+    /**
+     * This method transfers funds between any two bank's accounts (e.g. to another customer's account)
+     * if a source account's balance covers them. Accounts are found by their UUIDs in the accounts' directory
+     * (in a constant time), so a transfer costs the same whatever the number of bank's accounts.
+     *
+     * @param sourceUUID A source account's UUID.
+     * @param targetUUID A target account's UUID.
+     * @param amount     A positive amount (in cents).
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     *
+     * @throws IllegalArgumentException if an account does not exist, accounts are the same or an amount is not positive.
+     */
+    public boolean transfer(String sourceUUID, String targetUUID, long amount) {
+        Account source = this.accountsDirectory.get(sourceUUID);
+        Account target = this.accountsDirectory.get(targetUUID);
+
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown account " + sourceUUID);
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown account " + targetUUID);
+        }
+
+        return this.postingEngine.transfer(source, target, amount,
+                this.memoDictionary.encode(MemoDictionary.TRANSFER_TO, targetUUID),
+                this.memoDictionary.encode(MemoDictionary.TRANSFER_FROM, sourceUUID));
+    }
+
+
     /**
      * This method returns a user corresponding to a entered pair (userID, pin) or null if such user does not exist.
      *
@@ -176,13 +543,130 @@ public class Bank {
      * @return A user corresponding to a entered pair (userID, pin) or null if such user does not exist.
      * */
     public User userLogin(String userID, String pin) {
+        long start = this.metrics.start();
 
-        for (User u : this.bankUsers) {
-            if (u.getUsersUUID().compareTo(userID) == 0 && u.validatePIN(pin) == true) {
-                return u;
-            }
+        User u = this.usersDirectory.get(userID);
+
+        if (u != null && u.validatePIN(pin) == true) {
+            this.metrics.stop(BankOperation.LOGIN, start, true);
+            return u;
         }
 
+        this.metrics.stop(BankOperation.LOGIN, start, false);
         return null;
     }
+
+
+    /**
+     * This method logs a user in (with a pin) and opens a session, whose further operations are authenticated
+     * by a session token (see getSessionUser) without checking the pin again.
+     *
+     * @param userID An entered user's ID.
+     * @param pin    An entered user's pin.
+     *
+     * @return A session token or null if such user does not exist or a pin is incorrect.
+     */
+    public String openSession(String userID, String pin) {
+        User u = this.userLogin(userID, pin);
+
+        return u != null ? this.sessionTokens.issue(u) : null;
+    }
+
+
+    /**
+     * This method returns a user of a session (and extends the session's time-to-live).
+     *
+     * @param token A session token.
+     *
+     * @return A session's user or null if a token is unknown or has expired.
+     */
+    public User getSessionUser(String token) {
+        return this.sessionTokens.authenticate(token);
+    }
+
+
+    /**
+     * This method closes a session (its token is no longer valid).
+     *
+     * @param token A session token.
+     */
+    public void closeSession(String token) {
+        this.sessionTokens.revoke(token);
+    }
+
+
+    /**
+     * This method returns a bank's number of users.
+     *
+     * @return A bank's number of users.
+     */
+    public synchronized int getNumberOfUsers() {
+        return this.bankUsers.size();
+    }
+
+
+    /**
+     * This method returns a bank's number of accounts.
+     *
+     * @return A bank's number of accounts.
+     */
+    public synchronized int getNumberOfAccounts() {
+        return this.bankAccounts.size();
+    }
+
+
+    /**
+     * This method returns an account with a given UUID.
+     *
+     * @param accountsUUID An account's UUID.
+     *
+     * @return An account with a given UUID or null if such account does not exist.
+     */
+    public Account getAccount(String accountsUUID) {
+        return this.accountsDirectory.get(accountsUUID);
+    }
+
+
+    /**
+     * This method returns a user with a given ID.
+     *
+     * @param usersUUID A user's ID.
+     *
+     * @return A user with a given ID or null if such user does not exist.
+     */
+    public User getUser(String usersUUID) {
+        return this.usersDirectory.get(usersUUID);
+    }
+
+
+    /**
+     * This method returns a copy of a bank's users' list.
+     *
+     * @return All bank's users.
+     */
+    public synchronized User[] getUsers() {
+        return this.bankUsers.toArray(new User[0]);
+    }
+
+
+    /**
+     * This method returns a copy of a bank's accounts' list.
+     *
+     * @return All bank's accounts.
+     */
+    public synchronized Account[] getAccounts() {
+        return this.bankAccounts.toArray(new Account[0]);
+    }
+
+
+    /**
+     * This method returns a user on a given position of a bank's users' list.
+     *
+     * @param userIdx A position on a bank's users' list.
+     *
+     * @return A user on a given position of a bank's users' list.
+     */
+    public synchronized User getUser(int userIdx) {
+        return this.bankUsers.get(userIdx);
+    }
 }
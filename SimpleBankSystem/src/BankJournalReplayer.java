@@ -0,0 +1,248 @@
+import java.util.HashMap;
+
+
+/**
+ * A class applying a posting journal's records to a bank (e.g. the journal's tail after a bank's snapshot).
+ *
+ * Replaying is idempotent for users and accounts: a user or an account already known to the bank
+ * (e.g. taken by a snapshot) is skipped. It must be done before the bank's journal is opened,
+ * so replayed records are not journaled again.
+ * A snapshot copies each account at its own journal's position, so an account's postings and accruals
+ * before that position (already in its copy) are skipped too.
+ */
+public class BankJournalReplayer implements JournalVisitor {
+
+    /**
+     * A bank the records are applied to.
+     */
+    private Bank bank;
+
+    /**
+     * Journal's positions accounts are copied at by a snapshot (by accounts' UUIDs).
+     */
+    private HashMap<String, Long> accountsPositions;
+
+    /**
+     * A position of the record being replayed.
+     */
+    private long recordPosition;
+
+    /**
+     * A number of applied records.
+     */
+    private long numberOfRecords;
+
+    /**
+     * A number of skipped records (e.g. postings to unknown accounts).
+     */
+    private long numberOfSkippedRecords;
+
+
+    /**
+     * A public constructor creating a journal's replayer.
+     *
+     * @param bank A bank the records are applied to.
+     */
+    public BankJournalReplayer(Bank bank) {
+        this(bank, new HashMap<String, Long>());
+    }
+
+
+    /**
+     * A public constructor creating a journal's replayer of a snapshot's tail.
+     *
+     * @param bank              A bank the records are applied to.
+     * @param accountsPositions Journal's positions accounts are copied at by the snapshot (by accounts' UUIDs).
+     */
+    public BankJournalReplayer(Bank bank, HashMap<String, Long> accountsPositions) {
+        this.bank = bank;
+        this.accountsPositions = accountsPositions;
+        this.recordPosition = 0;
+        this.numberOfRecords = 0;
+        this.numberOfSkippedRecords = 0;
+    }
+
+
+    /**
+     * This method returns a number of applied records.
+     *
+     * @return A number of applied records.
+     */
+    public long getNumberOfRecords() {
+        return this.numberOfRecords;
+    }
+
+
+    /**
+     * This method returns a number of skipped records.
+     *
+     * @return A number of skipped records.
+     */
+    public long getNumberOfSkippedRecords() {
+        return this.numberOfSkippedRecords;
+    }
+
+
+    /**
+     * This method notes a position of the record being replayed.
+     *
+     * @param position A record's position in the journal's file.
+     */
+    @Override
+    public void onRecord(long position) {
+        this.recordPosition = position;
+    }
+
+
+    /**
+     * This method restores a journaled user.
+     *
+     * @param usersUUID A user's ID.
+     * @param firstName A user's first name.
+     * @param lastName  A user's last name.
+     * @param pinHash   A user's pin's hash.
+     */
+    @Override
+    public void onUser(String usersUUID, String firstName, String lastName, byte[] pinHash) {
+        if (this.bank.getUser(usersUUID) != null) {
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        this.bank.restoreUser(new User(usersUUID, firstName, lastName, pinHash, this.bank));
+        this.numberOfRecords++;
+    }
+
+
+    /**
+     * This method restores a journaled account.
+     *
+     * @param accountsUUID An account's UUID.
+     * @param accountsName An account's name.
+     * @param holdersUUID  An account's holder's ID.
+     */
+    @Override
+    public void onAccount(String accountsUUID, String accountsName, String holdersUUID) {
+        if (this.bank.getAccount(accountsUUID) != null) {
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        User holder = this.bank.getUser(holdersUUID);
+        if (holder == null) {
+            System.err.printf("error, journaled account %s of unknown user %s skipped\n", accountsUUID, holdersUUID);
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        Account account = new Account(accountsUUID, accountsName, holder, 0, this.bank);
+        holder.addAccount(account);
+        this.bank.restoreAccount(account);
+        this.numberOfRecords++;
+    }
+
+
+    /**
+     * This method applies a journaled posting to its account.
+     *
+     * @param accountUUID An account's UUID.
+     * @param amount      A posting's amount (in cents).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     */
+    @Override
+    public void onPosting(String accountUUID, long amount, long timestamp, String memo) {
+        Account account = this.bank.getAccount(accountUUID);
+        if (account == null) {
+            System.err.printf("error, journaled posting to unknown account %s skipped\n", accountUUID);
+            this.numberOfSkippedRecords++;
+            return;
+        }
+        if (this.isInSnapshot(accountUUID)) {
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        account.replayTransaction(amount, timestamp, memo);
+        this.numberOfRecords++;
+    }
+
+
+    /**
+     * This method applies a journaled interest accrual to its account: its posting (if any)
+     * and its day, so the accrual is not repeated after a restart.
+     *
+     * @param accountUUID An account's UUID.
+     * @param accrualDay  An accrual's day (days since the epoch).
+     * @param amount      Interest's amount (in cents; 0 - there is no posting).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     */
+    @Override
+    public void onAccrual(String accountUUID, int accrualDay, long amount, long timestamp, String memo) {
+        Account account = this.bank.getAccount(accountUUID);
+        if (account == null) {
+            System.err.printf("error, journaled accrual of unknown account %s skipped\n", accountUUID);
+            this.numberOfSkippedRecords++;
+            return;
+        }
+        if (this.isInSnapshot(accountUUID)) {
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        if (amount != 0) {
+            account.replayTransaction(amount, timestamp, memo);
+        }
+        account.markAccrued(accrualDay);
+        this.numberOfRecords++;
+    }
+
+
+    /**
+     * This method applies both legs of a journaled transfer, or neither if an account is unknown
+     * (a leg already in its account's snapshot's copy is not applied again).
+     *
+     * @param sourceUUID      A source account's UUID.
+     * @param targetUUID      A target account's UUID.
+     * @param amount          A transferred amount (in cents; the source leg is its negation).
+     * @param sourceTimestamp A source leg's timestamp (milliseconds since the epoch).
+     * @param targetTimestamp A target leg's timestamp (milliseconds since the epoch).
+     * @param sourceMemo      A source leg's description.
+     * @param targetMemo      A target leg's description.
+     */
+    @Override
+    public void onTransfer(String sourceUUID, String targetUUID, long amount, long sourceTimestamp,
+                           long targetTimestamp, String sourceMemo, String targetMemo) {
+        Account source = this.bank.getAccount(sourceUUID);
+        Account target = this.bank.getAccount(targetUUID);
+        if (source == null || target == null) {
+            System.err.printf("error, journaled transfer from %s to %s of an unknown account skipped\n",
+                    sourceUUID, targetUUID);
+            this.numberOfSkippedRecords++;
+            return;
+        }
+
+        if (!this.isInSnapshot(sourceUUID)) {
+            source.replayTransaction(-amount, sourceTimestamp, sourceMemo);
+        }
+        if (!this.isInSnapshot(targetUUID)) {
+            target.replayTransaction(amount, targetTimestamp, targetMemo);
+        }
+        this.numberOfRecords++;
+    }
+
+
+    /**
+     * This method checks whether the record being replayed is already in an account's snapshot's copy.
+     *
+     * @param accountUUID An account's UUID.
+     *
+     * @return true if the record is before the account's position in the snapshot, false otherwise.
+     */
+    private boolean isInSnapshot(String accountUUID) {
+        Long position = this.accountsPositions.get(accountUUID);
+
+        return position != null && this.recordPosition < position;
+    }
+}
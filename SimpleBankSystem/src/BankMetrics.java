@@ -0,0 +1,329 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * A class defining a bank's operations' metrics: for every BankOperation lock-free counters of operations
+ * and failures and a latency histogram (see LatencyHistogram).
+ *
+ * A measured operation calls start before and stop after its work:
+ *     long start = metrics.start();
+ *     ...
+ *     metrics.stop(BankOperation.DEPOSIT, start);
+ * Reading a clock twice costs more than the counters, so latencies may be sampled: with a sample's interval n
+ * a random 1 of n operations is timed (start returns 0 for the others), while all operations are counted.
+ * When metrics are disabled, start returns 0 and stop does nothing, so only a volatile read is left.
+ *
+ * Metrics are exposed through JMX (see registerMBean) and a periodic text dump (see scheduleDump).
+ */
+public class BankMetrics implements BankMetricsMXBean {
+
+    /**
+     * A JMX domain of banks' metrics.
+     */
+    public static final String JMX_DOMAIN = "SimpleBankSystem";
+
+    /**
+     * A bank's name.
+     */
+    private String bankName;
+
+    /**
+     * Latencies' histograms per operation (indexed by BankOperation.ordinal).
+     */
+    private LatencyHistogram[] latencies;
+
+    /**
+     * Numbers of operations per operation (indexed by BankOperation.ordinal).
+     */
+    private LongAdder[] counts;
+
+    /**
+     * Numbers of failed operations per operation (indexed by BankOperation.ordinal).
+     */
+    private LongAdder[] failures;
+
+    /**
+     * A sample's interval (1 of sampleInterval operations is timed on average; 1 - all of them).
+     */
+    private volatile int sampleInterval;
+
+    /**
+     * Whether operations are measured.
+     */
+    private volatile boolean enabled;
+
+
+    /**
+     * A public constructor creating (enabled) metrics of a bank.
+     *
+     * @param bankName A bank's name.
+     */
+    public BankMetrics(String bankName) {
+        this.bankName = bankName;
+
+        BankOperation[] operations = BankOperation.values();
+        this.latencies = new LatencyHistogram[operations.length];
+        this.counts = new LongAdder[operations.length];
+        this.failures = new LongAdder[operations.length];
+        for (int o = 0; o < operations.length; ++o) {
+            this.latencies[o] = new LatencyHistogram();
+            this.counts[o] = new LongAdder();
+            this.failures[o] = new LongAdder();
+        }
+
+        this.sampleInterval = 1;
+        this.enabled = true;
+    }
+
+
+    /**
+     * This method starts measuring an operation.
+     *
+     * @return An operation's start (System.nanoTime; 0 if metrics are disabled or an operation is not timed).
+     */
+    public long start() {
+        if (!this.enabled) {
+            return 0;
+        }
+
+        int interval = this.sampleInterval;
+        if (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0) {
+            return 0;
+        }
+
+        return System.nanoTime();
+    }
+
+
+    /**
+     * This method stops measuring an operation: it counts it and records its latency (if it is timed).
+     *
+     * @param operation An operation.
+     * @param start     An operation's start returned by start.
+     */
+    public void stop(BankOperation operation, long start) {
+        this.stop(operation, start, true);
+    }
+
+
+    /**
+     * This method stops measuring an operation: it counts it (as failed if it has failed)
+     * and records its latency (if it is timed).
+     *
+     * @param operation An operation.
+     * @param start     An operation's start returned by start.
+     * @param isSuccess true if an operation has succeeded, false if it has failed.
+     */
+    public void stop(BankOperation operation, long start, boolean isSuccess) {
+        if (start != 0) {
+            this.latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+        if (!this.enabled) {
+            return;
+        }
+
+        this.counts[operation.ordinal()].increment();
+        if (!isSuccess) {
+            this.failures[operation.ordinal()].increment();
+        }
+    }
+
+
+    /**
+     * This method returns latencies of an operation (of timed operations only, see setSampleInterval).
+     *
+     * @param operation An operation.
+     *
+     * @return A histogram of operation's latencies.
+     */
+    public LatencyHistogram getLatencies(BankOperation operation) {
+        return this.latencies[operation.ordinal()];
+    }
+
+
+    /**
+     * This method returns a number of operations.
+     *
+     * @param operation An operation.
+     *
+     * @return A number of operations (timed or not).
+     */
+    public long getCount(BankOperation operation) {
+        return this.counts[operation.ordinal()].sum();
+    }
+
+
+    /**
+     * This method returns statistics of an operation.
+     *
+     * @param operation An operation.
+     *
+     * @return Operation's statistics.
+     */
+    public OperationStats getStats(BankOperation operation) {
+        LatencyHistogram histogram = this.latencies[operation.ordinal()];
+
+        return new OperationStats(operation.name().toLowerCase(), this.counts[operation.ordinal()].sum(),
+                this.failures[operation.ordinal()].sum(), histogram.getMean() / 1e3,
+                histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+    }
+
+
+    /**
+     * This method returns a bank's name.
+     *
+     * @return A bank's name.
+     */
+    @Override
+    public String getBankName() {
+        return this.bankName;
+    }
+
+
+    /**
+     * This method checks whether operations are measured.
+     *
+     * @return true if operations are measured, false otherwise.
+     */
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+
+    /**
+     * This method turns measuring of operations on or off.
+     *
+     * @param enabled true - operations are measured, false - they are not.
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    /**
+     * This method returns a sample's interval of latencies.
+     *
+     * @return A sample's interval (1 - all operations are timed).
+     */
+    @Override
+    public int getSampleInterval() {
+        return this.sampleInterval;
+    }
+
+
+    /**
+     * This method sets a sample's interval of latencies (1 of sampleInterval operations is timed on average).
+     *
+     * @param sampleInterval A sample's interval (1 - all operations are timed).
+     */
+    @Override
+    public void setSampleInterval(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample's interval must be positive");
+        }
+
+        this.sampleInterval = sampleInterval;
+    }
+
+
+    /**
+     * This method returns statistics of all operations.
+     *
+     * @return Operations' statistics (one per BankOperation).
+     */
+    @Override
+    public OperationStats[] getOperations() {
+        BankOperation[] operations = BankOperation.values();
+
+        OperationStats[] stats = new OperationStats[operations.length];
+        for (int o = 0; o < operations.length; ++o) {
+            stats[o] = this.getStats(operations[o]);
+        }
+
+        return stats;
+    }
+
+
+    /**
+     * This method returns a text report of all operations (latencies in microseconds).
+     *
+     * @return A text report.
+     */
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format("%s metrics at %s\n", this.bankName, new Date()));
+        report.append(String.format("%-10s %12s %10s %12s %12s %12s %12s %12s\n",
+                "operation", "count", "failures", "mean us", "p50 us", "p99 us", "p999 us", "max us"));
+        for (OperationStats stats : this.getOperations()) {
+            report.append(stats.getSummaryLine()).append('\n');
+        }
+
+        return report.toString();
+    }
+
+
+    /**
+     * This method clears all counters and histograms.
+     */
+    @Override
+    public void reset() {
+        for (int o = 0; o < this.latencies.length; ++o) {
+            this.latencies[o].reset();
+            this.counts[o].reset();
+            this.failures[o].reset();
+        }
+    }
+
+
+    /**
+     * This method registers metrics in the platform's MBean server
+     * (as SimpleBankSystem:type=BankMetrics,name="bank's name").
+     *
+     * @return true if metrics are registered, false otherwise.
+     */
+    public boolean registerMBean() {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=BankMetrics,name=" + ObjectName.quote(this.bankName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return true;
+        } catch (JMException ex) {
+            System.err.println("error, caught " + ex.getClass().getSimpleName() + " while registering bank's metrics");
+            return false;
+        }
+    }
+
+
+    /**
+     * This method schedules a periodic dump of a text report.
+     *
+     * @param out           An output of reports.
+     * @param periodSeconds A period between reports (in seconds).
+     *
+     * @return A scheduler of reports (shut it down to stop the dump).
+     */
+    public ScheduledExecutorService scheduleDump(PrintStream out, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(() -> out.print(this.getReport()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+
+        return scheduler;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * A management interface of BankMetrics exposed through JMX (e.g. in jconsole under SimpleBankSystem).
+ */
+public interface BankMetricsMXBean {
+
+    /**
+     * This method returns a bank's name.
+     *
+     * @return A bank's name.
+     */
+    String getBankName();
+
+
+    /**
+     * This method checks whether operations are measured.
+     *
+     * @return true if operations are measured, false otherwise.
+     */
+    boolean isEnabled();
+
+
+    /**
+     * This method turns measuring of operations on or off.
+     *
+     * @param enabled true - operations are measured, false - they are not.
+     */
+    void setEnabled(boolean enabled);
+
+
+    /**
+     * This method returns a sample's interval of latencies.
+     *
+     * @return A sample's interval (1 - all operations are timed).
+     */
+    int getSampleInterval();
+
+
+    /**
+     * This method sets a sample's interval of latencies (1 of sampleInterval operations is timed on average).
+     *
+     * @param sampleInterval A sample's interval (1 - all operations are timed).
+     */
+    void setSampleInterval(int sampleInterval);
+
+
+    /**
+     * This method returns statistics of all operations.
+     *
+     * @return Operations' statistics (one per BankOperation).
+     */
+    OperationStats[] getOperations();
+
+
+    /**
+     * This method returns a text report of all operations (like the periodic dump).
+     *
+     * @return A text report.
+     */
+    String getReport();
+
+
+    /**
+     * This method clears all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,30 @@
+/**
+ * Operations of a bank measured by BankMetrics.
+ */
+public enum BankOperation {
+
+    /**
+     * A user's login (Bank.userLogin; a failure - an unknown user's ID or an incorrect pin).
+     */
+    LOGIN,
+
+    /**
+     * A deposit of funds (PostingEngine.deposit).
+     */
+    DEPOSIT,
+
+    /**
+     * A withdrawal of funds (PostingEngine.withdraw; a failure - an insufficient balance).
+     */
+    WITHDRAW,
+
+    /**
+     * A transfer of funds between two accounts (PostingEngine.transfer; a failure - an insufficient balance).
+     */
+    TRANSFER,
+
+    /**
+     * A rendering of a page of an account's history (StatementRenderer).
+     */
+    HISTORY
+}
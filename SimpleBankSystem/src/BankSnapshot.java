@@ -0,0 +1,730 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+
+/**
+ * A class defining a bank's snapshot: its users, accounts, balances, accounts' histories kept in memory
+ * and IDs' allocators' state in a compact binary file, together with a position in the bank's posting journal
+ * the snapshot is taken at.
+ *
+ * A bank is restored by loading its latest snapshot (through a memory-mapped read) and replaying
+ * only the journal's records after the snapshot's position, so a startup's time depends on a number
+ * of accounts, their histories kept in memory and a journal's tail, not on a length of the whole journal.
+ * Accounts are restored with their transactions, so statements and history's pages from before
+ * the snapshot stay available. With a HistoryArchive only the hot transactions are in memory, so only they
+ * are copied; older ones stay in sealed segments, whose files' names are listed, and which are reopened
+ * from the archive when the bank is restored. Without an archive a snapshot's size (and a restore's time)
+ * grows with accounts' whole histories.
+ *
+ * Postings are not stopped for a whole snapshot: each account is copied under its own lock's stripe
+ * together with a journal's position of its copy, and only the account's later postings and accruals
+ * are replayed to it.
+ *
+ * A file's layout (big-endian):
+ * <pre>
+ * int   magic ("SBSS"), int version
+ * long  journal's position (users and accounts are copied at it)
+ * 2x    IDs' allocator: byte digits, long key, byte n, n x long issued IDs per width
+ * short bank name's length, bank name's UTF-8 bytes
+ * int   number of plain memos' texts (since version 4), each: short length, UTF-8 bytes
+ * int   number of users, each:
+ *       byte ID's length, ID's ASCII digits
+ *       short first name's length, UTF-8 bytes; short last name's length, UTF-8 bytes
+ *       short pin's hash's length, hash's bytes
+ *       int   number of user's accounts, each:
+ *             byte UUID's length, UUID's ASCII digits
+ *             short name's length, UTF-8 bytes
+ *             long  journal's position the account's state is copied at (since version 6)
+ *             long  balance (in cents)
+ *             int   the first day of accrued days' bitmap (days since the epoch; since version 2;
+ *                   in version 2 the only, last accrual's day)
+ *             int   number of bitmap's words, long words (since version 3; see Account.getAccruedDays)
+ *             int   number of sealed segments (since version 5), each: short file's name's length, UTF-8 bytes
+ *             long  balance before the transactions kept in memory (since version 4)
+ *             int   number of transactions kept in memory (since version 4), each:
+ *                   long amount, long timestamp
+ *                   long memo: a plain memo's number in the texts' table, a templated memo's code,
+ *                        MemoDictionary.NO_MEMO or MemoDictionary.UNSHARED_MEMO followed by its text
+ * int   CRC32 of all preceding bytes
+ * </pre>
+ */
+public class BankSnapshot {
+
+    /**
+     * A snapshot file's magic number ("SBSS").
+     */
+    public static final int MAGIC = 0x53425353;
+
+    /**
+     * A snapshot file's format version (files of versions 1 to 5, without some of the accounts' state,
+     * are still loaded).
+     */
+    public static final int VERSION = 6;
+
+    /**
+     * A restored bank.
+     */
+    private Bank bank;
+
+    /**
+     * A position in the bank's journal the snapshot is taken at (records after it are not in the snapshot).
+     */
+    private long journalPosition;
+
+    /**
+     * Positions in the bank's journal accounts are copied at (by accounts' UUIDs; empty before version 6).
+     */
+    private HashMap<String, Long> accountsPositions;
+
+
+    /**
+     * A private constructor creating a loaded snapshot.
+     *
+     * @param bank              A restored bank.
+     * @param journalPosition   A position in the bank's journal the snapshot is taken at.
+     * @param accountsPositions Positions in the bank's journal accounts are copied at.
+     */
+    private BankSnapshot(Bank bank, long journalPosition, HashMap<String, Long> accountsPositions) {
+        this.bank = bank;
+        this.journalPosition = journalPosition;
+        this.accountsPositions = accountsPositions;
+    }
+
+
+    /**
+     * This method returns a restored bank.
+     *
+     * @return A restored bank.
+     */
+    public Bank getBank() {
+        return this.bank;
+    }
+
+
+    /**
+     * This method returns a position in the bank's journal the snapshot is taken at.
+     *
+     * @return A journal's position (0 - the bank had no journal).
+     */
+    public long getJournalPosition() {
+        return this.journalPosition;
+    }
+
+
+    /**
+     * This method returns positions in the bank's journal accounts are copied at (an account's records
+     * before its position are in the snapshot).
+     *
+     * @return Journal's positions by accounts' UUIDs (empty - all records after the snapshot's position
+     *         are replayed).
+     */
+    public HashMap<String, Long> getAccountsPositions() {
+        return this.accountsPositions;
+    }
+
+
+    /**
+     * This method writes a snapshot of a bank. A posting waits only while its own account is copied
+     * (under the account's lock's stripe); the file is written afterwards, outside any lock, to a temporary
+     * file, forced to disk and atomically moved over a previous snapshot.
+     *
+     * @param bank A bank.
+     * @param file A snapshot's file.
+     *
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Bank bank, Path file) throws IOException {
+
+        User[] users;
+        long journalPosition;
+        long[] usersIdsIssued;
+        long[] accountsIdsIssued;
+        int usersIdsDigits;
+        int accountsIdsDigits;
+        int[] numbersOfAccounts;
+        long[] balances;
+        int[] firstAccrualDays;
+        long[][] accruedDays;
+        HistorySegment[][] segments;
+        long[] hotOpeningBalances;
+        HeapTransactionStore[] hotTransactions;
+        long[] accountsPositions;
+
+        // users, accounts and allocators change under the bank's monitor
+        PostingJournal journal = bank.getJournal();
+        synchronized (bank) {
+            users = bank.getUsers();
+            journalPosition = journal != null ? journal.appendedPosition() : 0;
+
+            usersIdsDigits = bank.getUsersIdAllocator().getDigits();
+            usersIdsIssued = bank.getUsersIdAllocator().getIssuedPerWidth();
+            accountsIdsDigits = bank.getAccountsIdAllocator().getDigits();
+            accountsIdsIssued = bank.getAccountsIdAllocator().getIssuedPerWidth();
+        }
+
+        numbersOfAccounts = new int[users.length];
+        int numberOfAccounts = 0;
+        for (int u = 0; u < users.length; ++u) {
+            numbersOfAccounts[u] = users[u].getNumberOfAccounts();
+            numberOfAccounts += numbersOfAccounts[u];
+        }
+
+        // each account is copied under its own stripe, together with the journal's position of its copy
+        PostingEngine engine = bank.getPostingEngine();
+        balances = new long[numberOfAccounts];
+        firstAccrualDays = new int[numberOfAccounts];
+        accruedDays = new long[numberOfAccounts][];
+        segments = new HistorySegment[numberOfAccounts][];
+        hotOpeningBalances = new long[numberOfAccounts];
+        hotTransactions = new HeapTransactionStore[numberOfAccounts];
+        accountsPositions = new long[numberOfAccounts];
+        int a = 0;
+        for (int u = 0; u < users.length; ++u) {
+            for (int ua = 0; ua < numbersOfAccounts[u]; ++ua) {
+                Account account = users[u].getAccount(ua);
+                ReentrantLock lock = engine.getLock(account);
+                lock.lock();
+                try {
+                    balances[a] = account.getBalance();
+                    firstAccrualDays[a] = account.getFirstAccrualDay();
+                    accruedDays[a] = account.getAccruedDays();
+                    segments[a] = account.getSegments();
+                    hotOpeningBalances[a] = account.getSealedBalance();
+                    hotTransactions[a] = account.copyHotTransactions();
+                    accountsPositions[a++] = journal != null ? journal.appendedPosition() : 0;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        // records of everything copied are durable before the snapshot is
+        if (journal != null) {
+            journal.flush();
+        }
+
+        // plain memos are written as texts once (codes are valid in this bank's dictionary only)
+        MemoDictionary dictionary = bank.getMemoDictionary();
+        HashMap<Long, Integer> memoNumbers = new HashMap<Long, Integer>();
+        String[] memoTexts = new String[16];
+        for (HeapTransactionStore transactions : hotTransactions) {
+            for (int t = 0; t < transactions.size(); ++t) {
+                long memoCode = transactions.getMemoCode(t);
+                if (MemoDictionary.isPlain(memoCode) && !memoNumbers.containsKey(memoCode)) {
+                    if (memoNumbers.size() == memoTexts.length) {
+                        memoTexts = Arrays.copyOf(memoTexts, memoTexts.length * 2);
+                    }
+                    memoTexts[memoNumbers.size()] = dictionary.decode(memoCode);
+                    memoNumbers.put(memoCode, memoNumbers.size());
+                }
+            }
+        }
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalPosition);
+            BankSnapshot.writeAllocator(out, usersIdsDigits, bank.getUsersIdAllocator().getKey(), usersIdsIssued);
+            BankSnapshot.writeAllocator(out, accountsIdsDigits, bank.getAccountsIdAllocator().getKey(), accountsIdsIssued);
+            BankSnapshot.writeString(out, bank.getBankName());
+
+            out.writeInt(memoNumbers.size());
+            for (int m = 0; m < memoNumbers.size(); ++m) {
+                BankSnapshot.writeString(out, memoTexts[m]);
+            }
+
+            out.writeInt(users.length);
+            a = 0;
+            for (int u = 0; u < users.length; ++u) {
+                User user = users[u];
+                BankSnapshot.writeAscii(out, user.getUsersUUID());
+                BankSnapshot.writeString(out, user.getFirstName());
+                BankSnapshot.writeString(out, user.getLastName());
+                BankSnapshot.writeBytes(out, user.getUsersPinHash());
+
+                out.writeInt(numbersOfAccounts[u]);
+                for (int ua = 0; ua < numbersOfAccounts[u]; ++ua) {
+                    Account account = user.getAccount(ua);
+                    BankSnapshot.writeAscii(out, account.getAccountsUUID());
+                    BankSnapshot.writeString(out, account.getAccountsName());
+                    out.writeLong(accountsPositions[a]);
+                    out.writeLong(balances[a]);
+                    out.writeInt(firstAccrualDays[a]);
+                    out.writeInt(accruedDays[a].length);
+                    for (long word : accruedDays[a]) {
+                        out.writeLong(word);
+                    }
+                    out.writeInt(segments[a].length);
+                    for (HistorySegment segment : segments[a]) {
+                        BankSnapshot.writeString(out, segment.getFile().getFileName().toString());
+                    }
+                    out.writeLong(hotOpeningBalances[a]);
+                    BankSnapshot.writeTransactions(out, hotTransactions[a++], memoNumbers);
+                }
+            }
+
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+
+            channel.force(true);
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * This method loads a bank's snapshot (without sealed history) through a memory-mapped read.
+     *
+     * @param file A snapshot's file.
+     *
+     * @return A loaded snapshot.
+     *
+     * @throws IOException if the file cannot be read or is not a correct snapshot.
+     */
+    public static BankSnapshot load(Path file) throws IOException {
+        return BankSnapshot.load(file, null);
+    }
+
+
+    /**
+     * This method loads a bank's snapshot through a memory-mapped read; accounts' sealed segments are reopened
+     * from a given history archive, which is attached to the restored bank.
+     *
+     * @param file    A snapshot's file.
+     * @param archive A bank's history archive (null - the bank has none).
+     *
+     * @return A loaded snapshot.
+     *
+     * @throws IOException if the file cannot be read or is not a correct snapshot, or a segment cannot be opened.
+     */
+    public static BankSnapshot load(Path file, HistoryArchive archive) throws IOException {
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("A bank's snapshot is too large to be mapped: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = buffer.limit();
+        int version = size < 12 ? 0 : buffer.getInt(4);
+        if (size < 12 || buffer.getInt(0) != MAGIC || version < 1 || version > VERSION) {
+            throw new IOException("Not a bank's snapshot's file: " + file);
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(size - 4);
+        crc.update(content);
+        if ((int) crc.getValue() != buffer.getInt(size - 4)) {
+            throw new IOException("A bank's snapshot is corrupted: " + file);
+        }
+
+        buffer.position(8);
+        long journalPosition = buffer.getLong();
+        HashMap<String, Long> accountsPositions = new HashMap<String, Long>();
+        IdAllocator usersIdAllocator = BankSnapshot.readAllocator(buffer, "users' IDs");
+        IdAllocator accountsIdAllocator = BankSnapshot.readAllocator(buffer, "accounts' UUIDs");
+
+        Bank bank = new Bank(BankSnapshot.readString(buffer), usersIdAllocator, accountsIdAllocator);
+        if (archive != null) {
+            bank.setHistoryArchive(archive);
+        }
+
+        long[] memoCodes = new long[version >= 4 ? buffer.getInt() : 0];
+        String[] memoTexts = new String[memoCodes.length];
+        for (int m = 0; m < memoCodes.length; ++m) {
+            memoTexts[m] = BankSnapshot.readString(buffer);
+            memoCodes[m] = bank.getMemoDictionary().encode(memoTexts[m]);
+        }
+
+        int numberOfUsers = buffer.getInt();
+        for (int u = 0; u < numberOfUsers; ++u) {
+            String usersUUID = BankSnapshot.readAscii(buffer);
+            String firstName = BankSnapshot.readString(buffer);
+            String lastName = BankSnapshot.readString(buffer);
+            User user = new User(usersUUID, firstName, lastName, BankSnapshot.readBytes(buffer), bank);
+            bank.restoreUser(user);
+
+            int numberOfAccounts = buffer.getInt();
+            for (int a = 0; a < numberOfAccounts; ++a) {
+                String accountsUUID = BankSnapshot.readAscii(buffer);
+                String accountsName = BankSnapshot.readString(buffer);
+                if (version >= 6) {
+                    accountsPositions.put(accountsUUID, buffer.getLong());
+                }
+                long balance = buffer.getLong();
+
+                int firstAccrualDay = Account.NO_ACCRUAL;
+                long[] accruedDays = new long[0];
+                int lastAccrualDay = Account.NO_ACCRUAL;
+                if (version >= 3) {
+                    firstAccrualDay = buffer.getInt();
+                    accruedDays = new long[buffer.getInt()];
+                    for (int w = 0; w < accruedDays.length; ++w) {
+                        accruedDays[w] = buffer.getLong();
+                    }
+                } else if (version == 2) {
+                    lastAccrualDay = buffer.getInt();
+                }
+
+                HistorySegment[] segments = new HistorySegment[version >= 5 ? buffer.getInt() : 0];
+                if (segments.length > 0 && archive == null) {
+                    throw new IOException("A bank's snapshot has sealed history, but no history archive: " + file);
+                }
+                for (int s = 0; s < segments.length; ++s) {
+                    segments[s] = HistorySegment.open(archive.getDirectory().resolve(BankSnapshot.readString(buffer)));
+                }
+
+                // an account's transactions kept in memory are replayed after its balance before them
+                long openingBalance = version >= 4 ? buffer.getLong() : balance;
+                Account account = new Account(accountsUUID, accountsName, user, openingBalance, bank);
+                try {
+                    account.restoreSegments(segments);
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException("A bank's snapshot does not match its history archive: " + file, ex);
+                }
+                if (version >= 4) {
+                    BankSnapshot.readTransactions(buffer, account, memoCodes, memoTexts);
+                    if (account.getBalance() != balance) {
+                        throw new IOException("A bank's snapshot is corrupted: " + file);
+                    }
+                }
+
+                account.restoreAccruedDays(firstAccrualDay, accruedDays);
+                if (lastAccrualDay != Account.NO_ACCRUAL) {
+                    account.markAccrued(lastAccrualDay);
+                }
+                user.addAccount(account);
+                bank.restoreAccount(account);
+            }
+        }
+
+        return new BankSnapshot(bank, journalPosition, accountsPositions);
+    }
+
+
+    /**
+     * This method restores a bank (without a history archive) from its latest snapshot (if any)
+     * and its journal's tail, and opens the journal for further postings (see recover with an archive).
+     *
+     * @param bankName     A bank's name (used if there is no snapshot yet).
+     * @param snapshotFile A bank's snapshot's file (it may not exist).
+     * @param journalFile  A bank's journal's file (it may not exist).
+     * @param durability   A journal's durability mode.
+     *
+     * @return A restored bank with an open journal.
+     *
+     * @throws IOException if the snapshot or the journal cannot be read.
+     */
+    public static Bank recover(String bankName, Path snapshotFile, Path journalFile, JournalDurability durability)
+            throws IOException {
+        return BankSnapshot.recover(bankName, snapshotFile, journalFile, durability, null);
+    }
+
+
+    /**
+     * This method restores a bank from its latest snapshot (if any) and its journal's tail,
+     * and opens the journal for further postings. A torn record at the journal's end (e.g. after a crash)
+     * is cut off. A given history archive is attached before the journal's tail is replayed, so sealed
+     * segments listed by the snapshot are reopened and the tail is sealed as it grows.
+     *
+     * @param bankName     A bank's name (used if there is no snapshot yet).
+     * @param snapshotFile A bank's snapshot's file (it may not exist).
+     * @param journalFile  A bank's journal's file (it may not exist).
+     * @param durability   A journal's durability mode.
+     * @param archive      A bank's history archive (null - the bank has none).
+     *
+     * @return A restored bank with an open journal.
+     *
+     * @throws IOException if the snapshot, its segments or the journal cannot be read.
+     */
+    public static Bank recover(String bankName, Path snapshotFile, Path journalFile, JournalDurability durability,
+                               HistoryArchive archive) throws IOException {
+
+        Bank bank;
+        long journalPosition;
+        HashMap<String, Long> accountsPositions;
+
+        if (Files.exists(snapshotFile)) {
+            BankSnapshot snapshot = BankSnapshot.load(snapshotFile, archive);
+            bank = snapshot.getBank();
+            journalPosition = Math.max(snapshot.getJournalPosition(), PostingJournal.HEADER_SIZE);
+            accountsPositions = snapshot.getAccountsPositions();
+        } else {
+            bank = new Bank(bankName);
+            if (archive != null) {
+                bank.setHistoryArchive(archive);
+            }
+            journalPosition = PostingJournal.HEADER_SIZE;
+            accountsPositions = new HashMap<String, Long>();
+        }
+
+        if (Files.exists(journalFile) && Files.size(journalFile) > 0) {
+            long copiedPosition = journalPosition;
+            for (long accountsPosition : accountsPositions.values()) {
+                copiedPosition = Math.max(copiedPosition, accountsPosition);
+            }
+            if (Files.size(journalFile) < copiedPosition) {
+                throw new IOException("A bank's journal is older than its snapshot: " + journalFile);
+            }
+
+            long end = PostingJournal.replay(journalFile, journalPosition,
+                    new BankJournalReplayer(bank, accountsPositions));
+
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                if (channel.size() > end) {
+                    System.err.printf("warning, %d bytes of a torn journal's tail cut off\n", channel.size() - end);
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+        }
+
+        bank.openJournal(journalFile, durability);
+
+        return bank;
+    }
+
+
+    /**
+     * This method starts writing a bank's snapshots periodically on a background thread.
+     *
+     * @param bank          A bank.
+     * @param file          A snapshot's file.
+     * @param periodSeconds A period between snapshots (in seconds).
+     *
+     * @return A scheduler of snapshots (shut it down to stop taking snapshots).
+     */
+    public static ScheduledExecutorService schedule(Bank bank, Path file, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                BankSnapshot.write(bank, file);
+            } catch (IOException ex) {
+                System.err.println("error, caught IOException while writing a bank's snapshot: " + ex.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+
+        return scheduler;
+    }
+
+
+    /**
+     * This method writes an account's transactions kept in memory.
+     *
+     * @param out          An output.
+     * @param transactions A copy of an account's transactions kept in memory.
+     * @param memoNumbers  Numbers of plain memos' codes in the snapshot's texts' table.
+     *
+     * @throws IOException if the output fails.
+     */
+    private static void writeTransactions(DataOutputStream out, HeapTransactionStore transactions,
+                                          HashMap<Long, Integer> memoNumbers) throws IOException {
+        out.writeInt(transactions.size());
+        for (int t = 0; t < transactions.size(); ++t) {
+            out.writeLong(transactions.getAmount(t));
+            out.writeLong(transactions.getTimestamp(t));
+
+            long memoCode = transactions.getMemoCode(t);
+            if (MemoDictionary.isPlain(memoCode)) {
+                out.writeLong(memoNumbers.get(memoCode));
+            } else {
+                // a templated code does not depend on a dictionary
+                out.writeLong(memoCode);
+                if (memoCode == MemoDictionary.UNSHARED_MEMO) {
+                    BankSnapshot.writeString(out, transactions.getUnsharedMemo(t));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method restores an account's transactions written by writeTransactions.
+     *
+     * @param buffer    A snapshot's buffer.
+     * @param account   A restored account (with its balance before the transactions).
+     * @param memoCodes Codes of the texts' table's memos in the restored bank's dictionary.
+     * @param memoTexts The texts' table's memos.
+     */
+    private static void readTransactions(ByteBuffer buffer, Account account, long[] memoCodes, String[] memoTexts) {
+        int numberOfTransactions = buffer.getInt();
+        for (int t = 0; t < numberOfTransactions; ++t) {
+            long amount = buffer.getLong();
+            long timestamp = buffer.getLong();
+            long memo = buffer.getLong();
+
+            if (MemoDictionary.isPlain(memo)) {
+                account.replayTransaction(amount, timestamp, memoCodes[(int) memo], memoTexts[(int) memo]);
+            } else if (memo == MemoDictionary.UNSHARED_MEMO) {
+                String text = BankSnapshot.readString(buffer);
+                account.replayTransaction(amount, timestamp, account.getBank().getMemoDictionary().encode(text), text);
+            } else {
+                account.replayTransaction(amount, timestamp, memo, null);
+            }
+        }
+    }
+
+
+    /**
+     * This method writes an IDs' allocator's state.
+     *
+     * @param out    An output.
+     * @param digits A current width of IDs.
+     * @param key    A permutation's key.
+     * @param issued Numbers of issued IDs per width.
+     *
+     * @throws IOException if the output fails.
+     */
+    private static void writeAllocator(DataOutputStream out, int digits, long key, long[] issued) throws IOException {
+        out.writeByte(digits);
+        out.writeLong(key);
+        out.writeByte(issued.length);
+        for (long i : issued) {
+            out.writeLong(i);
+        }
+    }
+
+
+    /**
+     * This method reads an IDs' allocator's state written by writeAllocator.
+     *
+     * @param buffer  A snapshot's buffer.
+     * @param idsName A name of allocated IDs.
+     *
+     * @return A restored IDs' allocator.
+     */
+    private static IdAllocator readAllocator(ByteBuffer buffer, String idsName) {
+        int digits = buffer.get();
+        long key = buffer.getLong();
+        long[] issued = new long[buffer.get()];
+        for (int d = 0; d < issued.length; ++d) {
+            issued[d] = buffer.getLong();
+        }
+
+        return new IdAllocator(idsName, digits, key, issued);
+    }
+
+
+    /**
+     * This method writes an ASCII text (e.g. an ID) with its one-byte length.
+     *
+     * @param out  An output.
+     * @param text An ASCII text (max. 127 characters).
+     *
+     * @throws IOException if the output fails.
+     */
+    private static void writeAscii(DataOutputStream out, String text) throws IOException {
+        out.writeByte(text.length());
+        out.writeBytes(text);
+    }
+
+
+    /**
+     * This method writes a text as UTF-8 bytes with their two-byte length. A longer text than a journal's
+     * record holds is truncated as the journal truncates it (see PostingJournal.encode), so a bank restored
+     * from a snapshot has the same texts as one replayed from its journal.
+     *
+     * @param out  An output.
+     * @param text A text.
+     *
+     * @throws IOException if the output fails.
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        BankSnapshot.writeBytes(out, PostingJournal.encode(text));
+    }
+
+
+    /**
+     * This method writes bytes with their two-byte length.
+     *
+     * @param out   An output.
+     * @param bytes Bytes (max. 65535).
+     *
+     * @throws IOException if the output fails or there are too many bytes.
+     */
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("A snapshot's field of " + bytes.length + " bytes is longer than 65535 bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * This method reads an ASCII text written by writeAscii.
+     *
+     * @param buffer A snapshot's buffer.
+     *
+     * @return A text.
+     */
+    private static String readAscii(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.get()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+
+    /**
+     * This method reads a UTF-8 text written by writeString.
+     *
+     * @param buffer A snapshot's buffer.
+     *
+     * @return A text.
+     */
+    private static String readString(ByteBuffer buffer) {
+        return new String(BankSnapshot.readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * This method reads bytes written by writeBytes.
+     *
+     * @param buffer A snapshot's buffer.
+     *
+     * @return Bytes.
+     */
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}
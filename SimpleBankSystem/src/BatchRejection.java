@@ -0,0 +1,105 @@
+/**
+ * A class describing a batch's posting which has not been applied (see Bank.postBatch).
+ */
+public class BatchRejection implements Comparable<BatchRejection> {
+
+    /**
+     * A rejected record's number (a line of a CSV file, a record of a binary file; counted from 1).
+     */
+    private int recordNumber;
+
+    /**
+     * A posting's account's UUID.
+     */
+    private String accountUUID;
+
+    /**
+     * A posting's signed amount (in cents).
+     */
+    private long amount;
+
+    /**
+     * A reason of a rejection (e.g. "Insufficient funds").
+     */
+    private String reason;
+
+
+    /**
+     * A public constructor creating a rejection.
+     *
+     * @param recordNumber A rejected record's number.
+     * @param accountUUID  A posting's account's UUID.
+     * @param amount       A posting's signed amount (in cents).
+     * @param reason       A reason of a rejection.
+     */
+    public BatchRejection(int recordNumber, String accountUUID, long amount, String reason) {
+        this.recordNumber = recordNumber;
+        this.accountUUID = accountUUID;
+        this.amount = amount;
+        this.reason = reason;
+    }
+
+
+    /**
+     * This method returns a rejected record's number.
+     *
+     * @return A record's number (counted from 1).
+     */
+    public int getRecordNumber() {
+        return this.recordNumber;
+    }
+
+
+    /**
+     * This method returns a posting's account's UUID.
+     *
+     * @return An account's UUID.
+     */
+    public String getAccountUUID() {
+        return this.accountUUID;
+    }
+
+
+    /**
+     * This method returns a posting's amount.
+     *
+     * @return A signed amount (in cents).
+     */
+    public long getAmount() {
+        return this.amount;
+    }
+
+
+    /**
+     * This method returns a reason of a rejection.
+     *
+     * @return A reason of a rejection.
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+
+    /**
+     * This method returns a rejection's summary line.
+     *
+     * @return A summary line, e.g. "#12 : 4721934581 : $-12.50 : Insufficient funds".
+     */
+    public String getSummaryLine() {
+        return String.format("#%d : %s : $%s : %s", this.recordNumber, this.accountUUID,
+                Money.format(this.amount), this.reason);
+    }
+
+
+    /**
+     * This method orders rejections by their records' numbers.
+     *
+     * @param other Another rejection.
+     *
+     * @return A negative number, zero or a positive number if this rejection's record is before, the same or after.
+     */
+    @Override
+    public int compareTo(BatchRejection other) {
+        return Integer.compare(this.recordNumber, other.recordNumber);
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A class reporting an outcome of a batch of postings (see Bank.postBatch):
+ * a number of applied postings and all rejected records in a batch's order.
+ */
+public class BatchReport {
+
+    /**
+     * A number of applied postings.
+     */
+    private long numberOfApplied;
+
+    /**
+     * Rejected records.
+     */
+    private List<BatchRejection> rejections;
+
+
+    /**
+     * A public constructor creating an empty report.
+     */
+    public BatchReport() {
+        this.numberOfApplied = 0;
+        this.rejections = new ArrayList<BatchRejection>();
+    }
+
+
+    /**
+     * This method counts an applied posting.
+     */
+    public void addApplied() {
+        this.numberOfApplied++;
+    }
+
+
+    /**
+     * This method adds a rejected record.
+     *
+     * @param rejection A rejected record.
+     */
+    public void addRejection(BatchRejection rejection) {
+        this.rejections.add(rejection);
+    }
+
+
+    /**
+     * This method adds another (e.g. a partition's) report to this report.
+     *
+     * @param other Another report.
+     *
+     * @return This report.
+     */
+    public BatchReport merge(BatchReport other) {
+        this.numberOfApplied += other.numberOfApplied;
+        this.rejections.addAll(other.rejections);
+
+        return this;
+    }
+
+
+    /**
+     * This method orders rejections by their records' numbers.
+     */
+    public void sortRejections() {
+        Collections.sort(this.rejections);
+    }
+
+
+    /**
+     * This method returns a number of applied postings.
+     *
+     * @return A number of applied postings.
+     */
+    public long getNumberOfApplied() {
+        return this.numberOfApplied;
+    }
+
+
+    /**
+     * This method returns a number of rejected records.
+     *
+     * @return A number of rejected records.
+     */
+    public int getNumberOfRejected() {
+        return this.rejections.size();
+    }
+
+
+    /**
+     * This method returns rejected records.
+     *
+     * @return Rejected records.
+     */
+    public List<BatchRejection> getRejections() {
+        return this.rejections;
+    }
+
+
+    /**
+     * This method prints a report's summary and its rejected records.
+     */
+    public void printReport() {
+        System.out.printf("%d postings applied, %d rejected\n", this.numberOfApplied, this.rejections.size());
+
+        for (BatchRejection rejection : this.rejections) {
+            System.out.println(rejection.getSummaryLine());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+/**
+ * A class hashing pins with a MessageDigest algorithm (MD5 by default, as users' pins' hashes have always been).
+ *
+ * A digest is created once per thread and reused (MessageDigest.getInstance looks providers up on every call
+ * and a digest itself is not thread-safe), and a pin is always encoded as UTF-8, not in a platform's charset.
+ */
+public class DigestPinHasher implements PinHasher {
+
+    /**
+     * A default digest's algorithm.
+     */
+    public static final String DEFAULT_ALGORITHM = "MD5";
+
+    /**
+     * A digest's algorithm.
+     */
+    private String algorithm;
+
+    /**
+     * Digests of threads.
+     */
+    private ThreadLocal<MessageDigest> digests;
+
+
+    /**
+     * A public constructor creating a hasher with the default algorithm.
+     */
+    public DigestPinHasher() {
+        this(DEFAULT_ALGORITHM);
+    }
+
+
+    /**
+     * A public constructor creating a hasher.
+     *
+     * @param algorithm A digest's algorithm (e.g. "SHA-256").
+     */
+    public DigestPinHasher(String algorithm) {
+        // fail at once for an unknown algorithm, not on the first login
+        DigestPinHasher.newDigest(algorithm);
+
+        this.algorithm = algorithm;
+        this.digests = ThreadLocal.withInitial(() -> DigestPinHasher.newDigest(this.algorithm));
+    }
+
+
+    /**
+     * This method returns a digest's algorithm.
+     *
+     * @return A digest's algorithm.
+     */
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+
+    /**
+     * This method hashes a pin's UTF-8 bytes.
+     *
+     * @param pin A pin.
+     *
+     * @return A pin's hash.
+     */
+    @Override
+    public byte[] hash(String pin) {
+        MessageDigest digest = this.digests.get();
+
+        // digest() resets a digest, but an earlier failed call might have left some input in it
+        digest.reset();
+        return digest.digest(pin.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * This method checks whether a pin matches a hash (in a constant time).
+     *
+     * @param pin  An entered pin.
+     * @param hash A stored pin's hash.
+     *
+     * @return true if a pin's hash equals a given hash, false otherwise.
+     */
+    @Override
+    public boolean matches(String pin, byte[] hash) {
+        return MessageDigest.isEqual(this.hash(pin), hash);
+    }
+
+
+    /**
+     * This method creates a digest.
+     *
+     * @param algorithm A digest's algorithm.
+     *
+     * @return A new digest.
+     */
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unknown pin's digest's algorithm: " + algorithm, ex);
+        }
+    }
+}
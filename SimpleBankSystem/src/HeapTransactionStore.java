@@ -0,0 +1,254 @@
+import java.util.Arrays;
+
+
+/**
+ * A class storing an account's transactions on the heap in growable primitive columns
+ * (amounts, epoch-millis timestamps and memos' codes), one row per transaction.
+ *
+ * A row takes 8 + 8 + 8 bytes instead of a Transaction object with a Date object and a memo's String.
+ * Transaction objects are created only on demand (as views of rows).
+ * Texts of memos which are not interned are kept in a column allocated with the first of them.
+ */
+public class HeapTransactionStore implements TransactionStore {
+
+    /**
+     * An initial number of rows.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Transactions' amounts (in cents).
+     */
+    private long[] amounts;
+
+    /**
+     * Transactions' timestamps (milliseconds since the epoch).
+     */
+    private long[] timestamps;
+
+    /**
+     * Codes of transactions' descriptions (see MemoDictionary).
+     */
+    private long[] memoCodes;
+
+    /**
+     * Descriptions of transactions whose memos are not interned (null until the first of them).
+     */
+    private String[] unsharedMemos;
+
+    /**
+     * A number of stored transactions.
+     */
+    private int size;
+
+
+    /**
+     * A public constructor creating an empty transactions' store.
+     */
+    public HeapTransactionStore() {
+        this.amounts = new long[INITIAL_CAPACITY];
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.memoCodes = new long[INITIAL_CAPACITY];
+        this.unsharedMemos = null;
+        this.size = 0;
+    }
+
+
+    /**
+     * This method appends a transaction to a store.
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode  A code of a transaction's description (see MemoDictionary; not UNSHARED_MEMO).
+     */
+    @Override
+    public void add(long amount, long timestamp, long memoCode) {
+        this.add(amount, timestamp, memoCode, null);
+    }
+
+
+    /**
+     * This method appends a transaction to a store (with its memo's text if the memo is not interned).
+     *
+     * @param amount       A transaction's amount (in cents).
+     * @param timestamp    A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode     A code of a transaction's description (see MemoDictionary).
+     * @param unsharedMemo A transaction's description if a code is UNSHARED_MEMO (ignored otherwise).
+     */
+    @Override
+    public void add(long amount, long timestamp, long memoCode, String unsharedMemo) {
+
+        if (this.size == this.amounts.length) {
+            this.grow();
+        }
+
+        this.amounts[this.size] = amount;
+        this.timestamps[this.size] = timestamp;
+        this.memoCodes[this.size] = memoCode;
+        if (memoCode == MemoDictionary.UNSHARED_MEMO) {
+            if (this.unsharedMemos == null) {
+                this.unsharedMemos = new String[this.amounts.length];
+            }
+            this.unsharedMemos[this.size] = unsharedMemo;
+        }
+        ++this.size;
+    }
+
+
+    /**
+     * This method returns a number of stored transactions.
+     *
+     * @return A number of stored transactions.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * This method returns an amount of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's amount (in cents).
+     */
+    @Override
+    public long getAmount(int idx) {
+        this.checkIndex(idx);
+        return this.amounts[idx];
+    }
+
+
+    /**
+     * This method returns a timestamp of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     */
+    @Override
+    public long getTimestamp(int idx) {
+        this.checkIndex(idx);
+        return this.timestamps[idx];
+    }
+
+
+    /**
+     * This method returns a code of a description of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A code of a transaction's description (see MemoDictionary).
+     */
+    @Override
+    public long getMemoCode(int idx) {
+        this.checkIndex(idx);
+        return this.memoCodes[idx];
+    }
+
+
+    /**
+     * This method returns a description of a given transaction whose memo is not interned.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's description if its code is UNSHARED_MEMO, null otherwise.
+     */
+    @Override
+    public String getUnsharedMemo(int idx) {
+        this.checkIndex(idx);
+        return this.unsharedMemos != null ? this.unsharedMemos[idx] : null;
+    }
+
+
+    /**
+     * This method returns a timestamp of the latest transaction.
+     *
+     * @return The latest transaction's timestamp or Long.MIN_VALUE if a store is empty.
+     */
+    @Override
+    public long getLastTimestamp() {
+        return this.size > 0 ? this.timestamps[this.size - 1] : Long.MIN_VALUE;
+    }
+
+
+    /**
+     * This method finds (by a binary search; transactions are stored in time order) a position of the first
+     * transaction not older than a given timestamp.
+     *
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     *
+     * @return A position of the first transaction with a timestamp &gt;= a given one (size() if there is none).
+     */
+    @Override
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = this.size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+
+    /**
+     * This method returns a sum of all stored transactions' amounts.
+     *
+     * @return A sum of transactions' amounts (in cents).
+     */
+    @Override
+    public long sumOfAmounts() {
+        long sum = 0;
+        for (int t = 0; t < this.size; ++t) {
+            sum += this.amounts[t];
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * This method checks whether transactions are stored off the heap.
+     *
+     * @return false (columns are on the heap).
+     */
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+
+    /**
+     * This method enlarges the columns (by half of their current capacity).
+     */
+    private void grow() {
+        int newCapacity = this.amounts.length + (this.amounts.length >> 1);
+
+        this.amounts = Arrays.copyOf(this.amounts, newCapacity);
+        this.timestamps = Arrays.copyOf(this.timestamps, newCapacity);
+        this.memoCodes = Arrays.copyOf(this.memoCodes, newCapacity);
+        if (this.unsharedMemos != null) {
+            this.unsharedMemos = Arrays.copyOf(this.unsharedMemos, newCapacity);
+        }
+    }
+
+
+    /**
+     * This method checks whether a given position of a transaction is correct.
+     *
+     * @param idx A position of a transaction.
+     */
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= this.size) {
+            throw new IndexOutOfBoundsException("Transaction " + idx + " out of " + this.size);
+        }
+    }
+}
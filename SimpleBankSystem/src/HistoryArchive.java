@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * A class defining a bank's archive of accounts' sealed history (see HistorySegment): a directory
+ * of segments' files and sizes of accounts' history's tiers.
+ *
+ * An account keeps its hotTransactions newest transactions in memory. When hotTransactions +
+ * segmentTransactions transactions are in memory, the oldest segmentTransactions ones are sealed
+ * into a new segment's file, so an account's memory does not grow with its history. The posting which fills
+ * the segment only copies its transactions; the file is written by the archive's sealer thread (outside
+ * accounts' locks), and the segment replaces the copied transactions when it is written.
+ * If a segment cannot be written (e.g. the disk is full), the archive is failing: the failure is reported once,
+ * transactions stay in memory, and only one segment is tried again per retry's delay (which doubles up to
+ * MAX_RETRY_MILLIS), until a segment is written again.
+ * A segment's files are named "&lt;account's UUID&gt;-&lt;segment's number&gt;.seg".
+ *
+ * Segments' files are forced to disk before they are moved in place. A bank's snapshot lists every account's
+ * segments, and a bank restored with its archive (see BankSnapshot.recover) reopens them, so sealed history
+ * stays queryable after a restart. Segments sealed after the snapshot are sealed again while the journal's
+ * tail is replayed (replacing their files).
+ */
+public class HistoryArchive {
+
+    /**
+     * A default number of an account's newest transactions kept in memory.
+     */
+    public static final int DEFAULT_HOT_TRANSACTIONS = 1024;
+
+    /**
+     * A default number of transactions per segment.
+     */
+    public static final int DEFAULT_SEGMENT_TRANSACTIONS = 4096;
+
+    /**
+     * A delay before the first retry of a failed segment's write (in milliseconds).
+     */
+    public static final long RETRY_MILLIS = 1_000;
+
+    /**
+     * The longest delay between retries of failed segments' writes (in milliseconds).
+     */
+    public static final long MAX_RETRY_MILLIS = 60_000;
+
+    /**
+     * A directory of segments' files.
+     */
+    private Path directory;
+
+    /**
+     * A number of an account's newest transactions kept in memory.
+     */
+    private int hotTransactions;
+
+    /**
+     * A number of transactions per segment.
+     */
+    private int segmentTransactions;
+
+    /**
+     * A single thread writing segments' files.
+     */
+    private ExecutorService sealer;
+
+    /**
+     * A number of sealing tasks which have not finished yet (guarded by the archive's monitor).
+     */
+    private int pendingSeals;
+
+    /**
+     * true while segments cannot be written (since the last failed write).
+     */
+    private volatile boolean isFailing;
+
+    /**
+     * A time the next segment's write may be tried at while the archive is failing (System.nanoTime();
+     * guarded by the archive's monitor).
+     */
+    private long retryNanos;
+
+    /**
+     * A current delay between retries while the archive is failing (in milliseconds; guarded by the archive's monitor).
+     */
+    private long retryDelayMillis;
+
+    /**
+     * A number of failed segments' writes (guarded by the archive's monitor).
+     */
+    private long numberOfFailedSeals;
+
+
+    /**
+     * A public constructor creating an archive with default tiers' sizes.
+     *
+     * @param directory A directory of segments' files (it is created if it does not exist).
+     *
+     * @throws IOException if the directory cannot be created.
+     */
+    public HistoryArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_HOT_TRANSACTIONS, DEFAULT_SEGMENT_TRANSACTIONS);
+    }
+
+
+    /**
+     * A public constructor creating an archive.
+     *
+     * @param directory           A directory of segments' files (it is created if it does not exist).
+     * @param hotTransactions     A number of an account's newest transactions kept in memory.
+     * @param segmentTransactions A number of transactions per segment (at least one).
+     *
+     * @throws IOException if the directory cannot be created.
+     */
+    public HistoryArchive(Path directory, int hotTransactions, int segmentTransactions) throws IOException {
+        if (hotTransactions < 0) {
+            throw new IllegalArgumentException("A number of hot transactions must not be negative");
+        }
+        if (segmentTransactions < 1 || segmentTransactions > Integer.MAX_VALUE - hotTransactions) {
+            throw new IllegalArgumentException("A segment must have at least one transaction");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.hotTransactions = hotTransactions;
+        this.segmentTransactions = segmentTransactions;
+        this.sealer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-sealer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingSeals = 0;
+        this.isFailing = false;
+        this.retryNanos = 0;
+        this.retryDelayMillis = RETRY_MILLIS;
+        this.numberOfFailedSeals = 0;
+    }
+
+
+    /**
+     * This method returns a directory of segments' files.
+     *
+     * @return A directory of segments' files.
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+
+    /**
+     * This method returns a number of an account's newest transactions kept in memory.
+     *
+     * @return A number of hot transactions.
+     */
+    public int getHotTransactions() {
+        return this.hotTransactions;
+    }
+
+
+    /**
+     * This method returns a number of transactions per segment.
+     *
+     * @return A number of transactions per segment.
+     */
+    public int getSegmentTransactions() {
+        return this.segmentTransactions;
+    }
+
+
+    /**
+     * This method returns a file of an account's segment.
+     *
+     * @param accountsUUID  Account's UUID.
+     * @param segmentNumber A number of an account's segment (0 - the oldest one).
+     *
+     * @return A segment's file.
+     */
+    public Path getSegmentFile(String accountsUUID, int segmentNumber) {
+        return this.directory.resolve(String.format("%s-%06d.seg", accountsUUID, segmentNumber));
+    }
+
+
+    /**
+     * This method runs a sealing task on the archive's sealer thread (tasks run one at a time, in order).
+     *
+     * @param task A task writing a segment and installing it in its account.
+     */
+    public void seal(Runnable task) {
+        synchronized (this) {
+            ++this.pendingSeals;
+        }
+
+        this.sealer.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                synchronized (this) {
+                    if (--this.pendingSeals == 0) {
+                        this.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+
+    /**
+     * This method checks whether a segment may be sealed now, i.e. the archive is not failing, or its retry
+     * is due (then the retry is claimed, so other accounts wait for the next one).
+     *
+     * @return true if a segment may be sealed, false otherwise.
+     */
+    public boolean claimSeal() {
+        if (!this.isFailing) {
+            return true;
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (!this.isFailing) {
+                return true;
+            }
+            if (now - this.retryNanos < 0) {
+                return false;
+            }
+
+            this.retryNanos = now + this.retryDelayMillis * 1_000_000;
+            return true;
+        }
+    }
+
+
+    /**
+     * This method records a failed segment's write: the first failure is reported, and retries are delayed
+     * (the delay doubles with every failure, up to MAX_RETRY_MILLIS).
+     *
+     * @param ex A write's exception.
+     */
+    public synchronized void sealFailed(IOException ex) {
+        ++this.numberOfFailedSeals;
+
+        if (!this.isFailing) {
+            System.err.println("error, caught IOException while sealing accounts' history (it stays in memory, "
+                    + "and sealing is retried): " + ex.getMessage());
+            this.isFailing = true;
+            this.retryDelayMillis = RETRY_MILLIS;
+        } else {
+            this.retryDelayMillis = Math.min(2 * this.retryDelayMillis, MAX_RETRY_MILLIS);
+        }
+        this.retryNanos = System.nanoTime() + this.retryDelayMillis * 1_000_000;
+    }
+
+
+    /**
+     * This method records a written segment (a failing archive works again).
+     */
+    public void sealSucceeded() {
+        if (this.isFailing) {
+            synchronized (this) {
+                this.isFailing = false;
+                this.retryDelayMillis = RETRY_MILLIS;
+            }
+        }
+    }
+
+
+    /**
+     * This method checks whether segments cannot be written (since the last failed write).
+     *
+     * @return true if the archive is failing, false otherwise.
+     */
+    public boolean isFailing() {
+        return this.isFailing;
+    }
+
+
+    /**
+     * This method returns a number of failed segments' writes.
+     *
+     * @return A number of failed writes.
+     */
+    public synchronized long getNumberOfFailedSeals() {
+        return this.numberOfFailedSeals;
+    }
+
+
+    /**
+     * This method waits until all sealing tasks (also the ones they schedule) are finished,
+     * e.g. before an archive's size is measured.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized void awaitSealing() throws InterruptedException {
+        while (this.pendingSeals > 0) {
+            this.wait();
+        }
+    }
+}
@@ -0,0 +1,550 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+
+/**
+ * A class defining a sealed segment of an account's history: an immutable, compressed file with
+ * a contiguous run of the account's oldest transactions (see HistoryArchive).
+ *
+ * A segment's descriptor (positions, a time range and balances before and after its transactions) is kept
+ * in memory, so an account's balance and its recent history never need the file; the file is read
+ * (and inflated at once - a segment is small) only when older history is read. The descriptor is repeated
+ * in the file's footer, so a segment can be opened (see open) and checked without decompressing its transactions.
+ *
+ * A file's layout:
+ * <pre>
+ * deflated records, each:
+ *       var-long  amount (zigzag-coded, in cents)
+ *       var-long  timestamp's difference from the previous one (the first one's from the first timestamp)
+ *       byte      memo's kind: 0 - none, 1 - templated (var-long MemoDictionary's code),
+ *                 2 - a new plain memo (var-int length, UTF-8 bytes), 3 - a repeated one (var-int its number;
+ *                 memos not interned by the dictionary are always written as new ones)
+ * footer (big-endian, FOOTER_SIZE bytes):
+ *       int   magic ("SBHS"), int version
+ *       int   number of transactions, int position of the first transaction in the account's history
+ *       int   inflated records' length
+ *       long  first timestamp, long last timestamp
+ *       long  opening balance, long closing balance (in cents)
+ *       long  deflated records' length, long CRC32 of the inflated records
+ * </pre>
+ * Plain memos are written as texts (once per segment), so a segment does not depend on a bank's MemoDictionary.
+ */
+public class HistorySegment {
+
+    /**
+     * A segment file's magic number ("SBHS").
+     */
+    public static final int MAGIC = 0x53424853;
+
+    /**
+     * A segment file's format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * A size of a segment file's footer (in bytes).
+     */
+    public static final int FOOTER_SIZE = 5 * 4 + 6 * 8;
+
+    /**
+     * A size of a segment file's deflating buffer (in bytes).
+     */
+    private static final int BUFFER_SIZE = 1 << 15;
+
+    /**
+     * The greatest size of a record without a memo's text (three var-longs and a memo's kind; in bytes).
+     */
+    private static final int MAX_RECORD_SIZE = 3 * 10 + 1;
+
+    /**
+     * A memo's kind: no memo.
+     */
+    private static final int NO_MEMO = 0;
+
+    /**
+     * A memo's kind: a templated memo (its code describes it fully).
+     */
+    private static final int TEMPLATED_MEMO = 1;
+
+    /**
+     * A memo's kind: a plain memo's first occurrence in a segment.
+     */
+    private static final int NEW_MEMO = 2;
+
+    /**
+     * A memo's kind: a plain memo which occurred earlier in a segment.
+     */
+    private static final int REPEATED_MEMO = 3;
+
+    /**
+     * A segment's file.
+     */
+    private Path file;
+
+    /**
+     * A number of segment's transactions.
+     */
+    private int numberOfTransactions;
+
+    /**
+     * A position of segment's first transaction in an account's history.
+     */
+    private int firstPosition;
+
+    /**
+     * A timestamp of segment's first transaction (milliseconds since the epoch).
+     */
+    private long firstTimestamp;
+
+    /**
+     * A timestamp of segment's last transaction (milliseconds since the epoch).
+     */
+    private long lastTimestamp;
+
+    /**
+     * An account's balance before segment's first transaction (in cents).
+     */
+    private long openingBalance;
+
+    /**
+     * An account's balance after segment's last transaction (in cents) - a checkpoint of the sealed history.
+     */
+    private long closingBalance;
+
+
+    /**
+     * A private constructor creating a segment's descriptor.
+     *
+     * @param file                 A segment's file.
+     * @param numberOfTransactions A number of segment's transactions.
+     * @param firstPosition        A position of segment's first transaction in an account's history.
+     * @param firstTimestamp       A timestamp of segment's first transaction.
+     * @param lastTimestamp        A timestamp of segment's last transaction.
+     * @param openingBalance       An account's balance before segment's first transaction (in cents).
+     * @param closingBalance       An account's balance after segment's last transaction (in cents).
+     */
+    private HistorySegment(Path file, int numberOfTransactions, int firstPosition, long firstTimestamp,
+                           long lastTimestamp, long openingBalance, long closingBalance) {
+        this.file = file;
+        this.numberOfTransactions = numberOfTransactions;
+        this.firstPosition = firstPosition;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+        this.openingBalance = openingBalance;
+        this.closingBalance = closingBalance;
+    }
+
+
+    /**
+     * This method seals a store's oldest transactions into a new segment's file. The file is written
+     * to a temporary file first and moved in place, so a segment's file is never seen half-written.
+     *
+     * @param file                 A segment's file.
+     * @param store                A store whose transactions are sealed.
+     * @param numberOfTransactions A number of sealed transactions (store's first ones; at least one).
+     * @param firstPosition        A position of store's first transaction in an account's history.
+     * @param openingBalance       An account's balance before store's first transaction (in cents).
+     * @param dictionary           A dictionary of store's memos.
+     *
+     * @return A new segment's descriptor.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static HistorySegment write(Path file, TransactionStore store, int numberOfTransactions, int firstPosition,
+                                       long openingBalance, MemoDictionary dictionary) throws IOException {
+
+        if (numberOfTransactions < 1 || numberOfTransactions > store.size()) {
+            throw new IllegalArgumentException("A segment must have 1 to " + store.size() + " transactions");
+        }
+
+        long firstTimestamp = store.getTimestamp(0);
+        long lastTimestamp = store.getTimestamp(numberOfTransactions - 1);
+        long closingBalance = openingBalance;
+
+        // records are encoded in memory and deflated at once (a segment is small, and byte-wise streams are slow)
+        ByteBuffer records = ByteBuffer.allocate(numberOfTransactions * 8);
+        HashMap<Long, Integer> plainMemos = new HashMap<Long, Integer>();
+        int numberOfMemos = 0;
+        long previousTimestamp = firstTimestamp;
+        for (int t = 0; t < numberOfTransactions; ++t) {
+            long amount = store.getAmount(t);
+            long timestamp = store.getTimestamp(t);
+            long memoCode = store.getMemoCode(t);
+
+            records = HistorySegment.ensureRemaining(records, MAX_RECORD_SIZE);
+            HistorySegment.putVarLong(records, (amount << 1) ^ (amount >> 63));
+            HistorySegment.putVarLong(records, timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+            closingBalance += amount;
+
+            if (memoCode == MemoDictionary.NO_MEMO) {
+                records.put((byte) NO_MEMO);
+            } else if (memoCode != MemoDictionary.UNSHARED_MEMO && !MemoDictionary.isPlain(memoCode)) {
+                records.put((byte) TEMPLATED_MEMO);
+                HistorySegment.putVarLong(records, memoCode);
+            } else {
+                // a memo which is not interned is written as a new one every time (it is not shared anyway)
+                Integer number = memoCode == MemoDictionary.UNSHARED_MEMO ? null : plainMemos.get(memoCode);
+                if (number == null) {
+                    String memo = dictionary.decode(memoCode, store.getUnsharedMemo(t));
+                    byte[] text = memo.getBytes(StandardCharsets.UTF_8);
+                    if (memoCode != MemoDictionary.UNSHARED_MEMO) {
+                        plainMemos.put(memoCode, numberOfMemos);
+                    }
+                    ++numberOfMemos;
+                    records = HistorySegment.ensureRemaining(records, MAX_RECORD_SIZE + text.length);
+                    records.put((byte) NEW_MEMO);
+                    HistorySegment.putVarLong(records, text.length);
+                    records.put(text);
+                } else {
+                    records.put((byte) REPEATED_MEMO);
+                    HistorySegment.putVarLong(records, number);
+                }
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(records.array(), 0, records.position());
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            DeflaterOutputStream out = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater,
+                    BUFFER_SIZE);
+            out.write(records.array(), 0, records.position());
+            out.finish();
+
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            footer.putInt(MAGIC);
+            footer.putInt(VERSION);
+            footer.putInt(numberOfTransactions);
+            footer.putInt(firstPosition);
+            footer.putInt(records.position());
+            footer.putLong(firstTimestamp);
+            footer.putLong(lastTimestamp);
+            footer.putLong(openingBalance);
+            footer.putLong(closingBalance);
+            footer.putLong(deflater.getBytesWritten());
+            footer.putLong(crc.getValue());
+            footer.flip();
+            while (footer.hasRemaining()) {
+                channel.write(footer);
+            }
+            // a bank's snapshot refers to the segment, so it is durable before it is moved in place
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new HistorySegment(file, numberOfTransactions, firstPosition, firstTimestamp, lastTimestamp,
+                openingBalance, closingBalance);
+    }
+
+
+    /**
+     * This method opens a segment's file by reading its footer only.
+     *
+     * @param file A segment's file.
+     *
+     * @return A segment's descriptor.
+     *
+     * @throws IOException if the file cannot be read or is not a correct segment.
+     */
+    public static HistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer footer = HistorySegment.readFooter(channel, file);
+
+            return new HistorySegment(file, footer.getInt(8), footer.getInt(12), footer.getLong(20),
+                    footer.getLong(28), footer.getLong(36), footer.getLong(44));
+        }
+    }
+
+
+    /**
+     * This method streams segment's transactions from its file into a new heap store
+     * (plain memos are encoded by a given dictionary).
+     *
+     * @param dictionary A dictionary encoding memos.
+     *
+     * @return A store with segment's transactions (in time order).
+     *
+     * @throws IOException if the file cannot be read or does not match the segment.
+     */
+    public HeapTransactionStore read(MemoDictionary dictionary) throws IOException {
+
+        ByteBuffer footer;
+        ByteBuffer body;
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            footer = HistorySegment.readFooter(channel, this.file);
+            if (footer.getInt(8) != this.numberOfTransactions || footer.getInt(12) != this.firstPosition
+                    || footer.getLong(20) != this.firstTimestamp || footer.getLong(44) != this.closingBalance) {
+                throw new IOException("A history segment's file does not match its segment: " + this.file);
+            }
+
+            body = ByteBuffer.allocate((int) footer.getLong(52));
+            while (body.hasRemaining() && channel.read(body, body.position()) >= 0) {
+                // a positional read may return fewer bytes than requested
+            }
+        }
+
+        byte[] records = new byte[footer.getInt(16)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body.array());
+            int length = 0;
+            while (length < records.length && !inflater.finished()) {
+                int inflated = inflater.inflate(records, length, records.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != records.length || !inflater.finished()) {
+                throw new IOException("A history segment is corrupted: " + this.file);
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("A history segment is corrupted: " + this.file, ex);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(records, 0, records.length);
+        if (crc.getValue() != footer.getLong(60)) {
+            throw new IOException("A history segment is corrupted: " + this.file);
+        }
+
+        HeapTransactionStore store = new HeapTransactionStore();
+        ByteBuffer in = ByteBuffer.wrap(records);
+        long[] memoCodes = new long[16];
+        String[] memoTexts = new String[16];
+        int numberOfMemos = 0;
+        long timestamp = this.firstTimestamp;
+
+        try {
+            for (int t = 0; t < this.numberOfTransactions; ++t) {
+                long zigzag = HistorySegment.getVarLong(in);
+                long amount = (zigzag >>> 1) ^ -(zigzag & 1);
+                timestamp += HistorySegment.getVarLong(in);
+
+                long memoCode;
+                String unsharedMemo = null;
+                int kind = in.get();
+                if (kind == NO_MEMO) {
+                    memoCode = MemoDictionary.NO_MEMO;
+                } else if (kind == TEMPLATED_MEMO) {
+                    memoCode = HistorySegment.getVarLong(in);
+                } else if (kind == NEW_MEMO) {
+                    int textLength = (int) HistorySegment.getVarLong(in);
+                    String text = new String(records, in.position(), textLength, StandardCharsets.UTF_8);
+                    memoCode = dictionary.encode(text);
+                    in.position(in.position() + textLength);
+                    if (numberOfMemos == memoCodes.length) {
+                        memoCodes = Arrays.copyOf(memoCodes, numberOfMemos * 2);
+                        memoTexts = Arrays.copyOf(memoTexts, numberOfMemos * 2);
+                    }
+                    memoCodes[numberOfMemos] = memoCode;
+                    memoTexts[numberOfMemos++] = text;
+                    unsharedMemo = text;
+                } else if (kind == REPEATED_MEMO) {
+                    int number = (int) HistorySegment.getVarLong(in);
+                    memoCode = memoCodes[number];
+                    unsharedMemo = memoTexts[number];
+                } else {
+                    throw new IOException("A history segment is corrupted: " + this.file);
+                }
+
+                // a given dictionary may be full, so a memo interned when it was sealed may not be interned now
+                store.add(amount, timestamp, memoCode, unsharedMemo);
+            }
+        } catch (RuntimeException ex) {
+            // a truncated record or a memo's number out of range
+            throw new IOException("A history segment is corrupted: " + this.file, ex);
+        }
+
+        if (in.hasRemaining() || timestamp != this.lastTimestamp) {
+            throw new IOException("A history segment is corrupted: " + this.file);
+        }
+
+        return store;
+    }
+
+
+    /**
+     * This method returns a segment's file.
+     *
+     * @return A segment's file.
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+
+    /**
+     * This method returns a number of segment's transactions.
+     *
+     * @return A number of segment's transactions.
+     */
+    public int getNumberOfTransactions() {
+        return this.numberOfTransactions;
+    }
+
+
+    /**
+     * This method returns a position of segment's first transaction in an account's history.
+     *
+     * @return A position of segment's first transaction (0 - the account's oldest transaction).
+     */
+    public int getFirstPosition() {
+        return this.firstPosition;
+    }
+
+
+    /**
+     * This method returns a timestamp of segment's first transaction.
+     *
+     * @return A timestamp of segment's first transaction (milliseconds since the epoch).
+     */
+    public long getFirstTimestamp() {
+        return this.firstTimestamp;
+    }
+
+
+    /**
+     * This method returns a timestamp of segment's last transaction.
+     *
+     * @return A timestamp of segment's last transaction (milliseconds since the epoch).
+     */
+    public long getLastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+
+    /**
+     * This method returns an account's balance before segment's first transaction.
+     *
+     * @return An opening balance (in cents).
+     */
+    public long getOpeningBalance() {
+        return this.openingBalance;
+    }
+
+
+    /**
+     * This method returns an account's balance after segment's last transaction.
+     *
+     * @return A closing balance (in cents).
+     */
+    public long getClosingBalance() {
+        return this.closingBalance;
+    }
+
+
+    /**
+     * This method reads and checks a segment file's footer.
+     *
+     * @param channel A segment file's channel.
+     * @param file    A segment's file (for errors' messages).
+     *
+     * @return A footer (big-endian, FOOTER_SIZE bytes).
+     *
+     * @throws IOException if the file cannot be read or is not a segment's file.
+     */
+    private static ByteBuffer readFooter(FileChannel channel, Path file) throws IOException {
+        long size = channel.size();
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+
+        if (size >= FOOTER_SIZE) {
+            long position = size - FOOTER_SIZE;
+            while (footer.hasRemaining() && channel.read(footer, position + footer.position()) >= 0) {
+                // a positional read may return fewer bytes than requested
+            }
+        }
+
+        if (footer.hasRemaining() || footer.getInt(0) != MAGIC || footer.getInt(4) != VERSION
+                || footer.getInt(16) < 0 || footer.getLong(52) != size - FOOTER_SIZE) {
+            throw new IOException("Not a history segment's file: " + file);
+        }
+
+        return footer;
+    }
+
+
+    /**
+     * This method returns a buffer with at least a given number of remaining bytes
+     * (a given one or its larger copy).
+     *
+     * @param buffer A buffer.
+     * @param bytes  A number of bytes.
+     *
+     * @return A buffer with at least a given number of remaining bytes.
+     */
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        larger.put(buffer.array(), 0, buffer.position());
+
+        return larger;
+    }
+
+
+    /**
+     * This method puts a non-negative number in a variable-length form (7 bits per byte, the lowest first).
+     *
+     * @param buffer A buffer.
+     * @param number A number (treated as unsigned).
+     */
+    private static void putVarLong(ByteBuffer buffer, long number) {
+        while ((number & ~0x7FL) != 0) {
+            buffer.put((byte) ((number & 0x7F) | 0x80));
+            number >>>= 7;
+        }
+        buffer.put((byte) number);
+    }
+
+
+    /**
+     * This method gets a number put by putVarLong.
+     *
+     * @param buffer A buffer.
+     *
+     * @return A number.
+     *
+     * @throws IOException if the number is too long.
+     */
+    private static long getVarLong(ByteBuffer buffer) throws IOException {
+        long number = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            number |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return number;
+            }
+        }
+
+        throw new IOException("A history segment's number is too long");
+    }
+}
@@ -0,0 +1,392 @@
+import java.util.Random;
+
+
+/**
+ * A class allocating unique fixed-width numeric IDs (e.g. users' IDs or accounts' UUIDs).
+ *
+ * IDs are a keyed pseudo-random permutation (a Feistel network with cycle walking) of a sequence
+ * 0, 1, 2, ... so every new ID is unique without searching already issued ones.
+ * When a space of IDs of a given width is filling up, a warning is printed; when it is full,
+ * the allocator widens IDs by one digit (IDs of different widths never collide).
+ */
+public class IdAllocator {
+
+    /**
+     * The maximal width of an ID (10^18 still fits a long).
+     */
+    public static final int MAX_DIGITS = 18;
+
+    /**
+     * A fill ratio of an IDs' space at which a warning is printed.
+     */
+    private static final double WARNING_FILL_RATIO = 0.9;
+
+    /**
+     * A number of Feistel network's rounds.
+     */
+    private static final int FEISTEL_ROUNDS = 4;
+
+    /**
+     * A name of allocated IDs (used in warnings).
+     */
+    private String idsName;
+
+    /**
+     * A secret key of the permutation.
+     */
+    private long key;
+
+    /**
+     * A current width (a number of digits) of IDs.
+     */
+    private int digits;
+
+    /**
+     * A number of distinct IDs of a current width (10^digits).
+     */
+    private long capacity;
+
+    /**
+     * A number of issued IDs per width (issuedPerWidth[d] - a number of issued d-digit IDs).
+     */
+    private long[] issuedPerWidth;
+
+    /**
+     * true if a warning about a current IDs' space filling up has already been printed.
+     */
+    private boolean isWarned;
+
+
+    /**
+     * A public constructor creating an IDs' allocator.
+     *
+     * @param idsName A name of allocated IDs (used in warnings).
+     * @param digits  An initial width (a number of digits) of IDs.
+     */
+    public IdAllocator(String idsName, int digits) {
+        this(idsName, digits, new Random().nextLong());
+    }
+
+
+    /**
+     * A public constructor creating an IDs' allocator with a given permutation's key.
+     *
+     * @param idsName A name of allocated IDs (used in warnings).
+     * @param digits  An initial width (a number of digits) of IDs.
+     * @param key     A secret key of the permutation.
+     */
+    public IdAllocator(String idsName, int digits, long key) {
+        if (digits < 1 || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("IDs' width must be 1-" + MAX_DIGITS + " digits");
+        }
+
+        this.idsName = idsName;
+        this.key = key;
+        this.digits = digits;
+        this.capacity = IdAllocator.powerOfTen(digits);
+        this.issuedPerWidth = new long[MAX_DIGITS + 1];
+        this.isWarned = false;
+    }
+
+
+    /**
+     * A public constructor restoring an IDs' allocator's state (e.g. from a bank's snapshot).
+     *
+     * @param idsName        A name of allocated IDs (used in warnings).
+     * @param digits         A current width (a number of digits) of IDs.
+     * @param key            A secret key of the permutation.
+     * @param issuedPerWidth A number of issued IDs per width (issuedPerWidth[d] - a number of issued d-digit IDs).
+     */
+    public IdAllocator(String idsName, int digits, long key, long[] issuedPerWidth) {
+        this(idsName, digits, key);
+
+        System.arraycopy(issuedPerWidth, 0, this.issuedPerWidth, 0,
+                Math.min(issuedPerWidth.length, this.issuedPerWidth.length));
+    }
+
+
+    /**
+     * This method returns a new unique ID.
+     *
+     * @return A new unique ID.
+     */
+    public synchronized String nextId() {
+
+        if (this.issuedPerWidth[this.digits] == this.capacity) {
+            this.widen();
+        }
+
+        long value = IdAllocator.permute(this.issuedPerWidth[this.digits]++, this.capacity, this.key);
+
+        if (!this.isWarned && this.issuedPerWidth[this.digits] >= WARNING_FILL_RATIO * this.capacity) {
+            this.isWarned = true;
+            System.err.printf("warning, %.0f%% of %d-digit %s are already issued\n",
+                    100 * WARNING_FILL_RATIO, this.digits, this.idsName);
+        }
+
+        char[] id = new char[this.digits];
+        for (int c = this.digits - 1; c >= 0; --c) {
+            id[c] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return new String(id);
+    }
+
+
+    /**
+     * This method checks (in a constant time) whether a given ID has already been issued.
+     *
+     * @param id An ID to be checked.
+     *
+     * @return true if a given ID has already been issued, false otherwise.
+     */
+    public synchronized boolean isIssued(String id) {
+
+        int width = id.length();
+        if (width < 1 || width > MAX_DIGITS || this.issuedPerWidth[width] == 0) {
+            return false;
+        }
+
+        long value = 0;
+        for (int c = 0; c < width; ++c) {
+            char digit = id.charAt(c);
+            if (digit < '0' || digit > '9') {
+                return false;
+            }
+            value = 10 * value + (digit - '0');
+        }
+
+        long widthsCapacity = IdAllocator.powerOfTen(width);
+
+        return IdAllocator.unpermute(value, widthsCapacity, this.key) < this.issuedPerWidth[width];
+    }
+
+
+    /**
+     * This method marks a given ID (e.g. replayed from a journal) and all IDs issued before it as issued,
+     * so that the allocator never issues it again.
+     *
+     * @param id An ID issued by this allocator (or by an allocator with the same key).
+     */
+    public synchronized void markIssued(String id) {
+
+        int width = id.length();
+        if (width < 1 || width > MAX_DIGITS) {
+            throw new IllegalArgumentException("Not an allocator's ID: " + id);
+        }
+
+        long value = Long.parseLong(id);
+        long sequence = IdAllocator.unpermute(value, IdAllocator.powerOfTen(width), this.key);
+
+        this.issuedPerWidth[width] = Math.max(this.issuedPerWidth[width], sequence + 1);
+
+        if (width > this.digits) {
+            this.digits = width;
+            this.capacity = IdAllocator.powerOfTen(width);
+            this.isWarned = false;
+        }
+    }
+
+
+    /**
+     * This method returns a secret key of the permutation.
+     *
+     * @return A permutation's key.
+     */
+    public long getKey() {
+        return this.key;
+    }
+
+
+    /**
+     * This method returns a number of issued IDs per width.
+     *
+     * @return A copy of numbers of issued IDs (result[d] - a number of issued d-digit IDs).
+     */
+    public synchronized long[] getIssuedPerWidth() {
+        return this.issuedPerWidth.clone();
+    }
+
+
+    /**
+     * This method returns a current width (a number of digits) of IDs.
+     *
+     * @return A current width of IDs.
+     */
+    public synchronized int getDigits() {
+        return this.digits;
+    }
+
+
+    /**
+     * This method returns a number of all issued IDs.
+     *
+     * @return A number of all issued IDs.
+     */
+    public synchronized long getNumberOfIssuedIds() {
+        long issued = 0;
+        for (long i : this.issuedPerWidth) {
+            issued += i;
+        }
+
+        return issued;
+    }
+
+
+    /**
+     * This method widens IDs by one digit after a current IDs' space has been used up.
+     */
+    private void widen() {
+        if (this.digits == MAX_DIGITS) {
+            throw new IllegalStateException(String.format("all %d-digit %s are already issued",
+                    this.digits, this.idsName));
+        }
+
+        System.err.printf("warning, all %d-digit %s are issued, widening them to %d digits\n",
+                this.digits, this.idsName, this.digits + 1);
+
+        this.digits++;
+        this.capacity = IdAllocator.powerOfTen(this.digits);
+        this.isWarned = false;
+    }
+
+
+    /**
+     * This method maps a sequence number to an ID's value (a permutation of 0..capacity-1).
+     *
+     * @param sequence A sequence number (0..capacity-1).
+     * @param capacity A size of an IDs' space.
+     * @param key      A secret key of the permutation.
+     *
+     * @return An ID's value (0..capacity-1).
+     */
+    private static long permute(long sequence, long capacity, long key) {
+        int halfBits = IdAllocator.halfBits(capacity);
+
+        long value = sequence;
+        do {
+            value = IdAllocator.feistel(value, halfBits, key);
+        } while (value >= capacity);
+
+        return value;
+    }
+
+
+    /**
+     * This method maps an ID's value back to its sequence number (the inverse of permute).
+     *
+     * @param value    An ID's value (0..capacity-1).
+     * @param capacity A size of an IDs' space.
+     * @param key      A secret key of the permutation.
+     *
+     * @return A sequence number of an ID.
+     */
+    private static long unpermute(long value, long capacity, long key) {
+        int halfBits = IdAllocator.halfBits(capacity);
+
+        long sequence = value;
+        do {
+            sequence = IdAllocator.inverseFeistel(sequence, halfBits, key);
+        } while (sequence >= capacity);
+
+        return sequence;
+    }
+
+
+    /**
+     * This method computes a balanced Feistel network over 2 * halfBits bits.
+     *
+     * @param value    A value to be permuted.
+     * @param halfBits A number of bits of a network's half.
+     * @param key      A secret key of the network.
+     *
+     * @return A permuted value.
+     */
+    private static long feistel(long value, int halfBits, long key) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+
+        for (int r = 0; r < FEISTEL_ROUNDS; ++r) {
+            long newRight = (left ^ IdAllocator.round(right, r, key)) & mask;
+            left = right;
+            right = newRight;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+
+    /**
+     * This method computes an inverse of the feistel method.
+     *
+     * @param value    A value to be restored.
+     * @param halfBits A number of bits of a network's half.
+     * @param key      A secret key of the network.
+     *
+     * @return A restored value.
+     */
+    private static long inverseFeistel(long value, int halfBits, long key) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+
+        for (int r = FEISTEL_ROUNDS - 1; r >= 0; --r) {
+            long oldLeft = (right ^ IdAllocator.round(left, r, key)) & mask;
+            right = left;
+            left = oldLeft;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+
+    /**
+     * This method computes a Feistel network's round function (a SplitMix64 mixer).
+     *
+     * @param half  A network's half.
+     * @param round A round's number.
+     * @param key   A secret key of the network.
+     *
+     * @return A mixed value.
+     */
+    private static long round(long half, int round, long key) {
+        long z = half ^ key ^ (0x9E3779B97F4A7C15L * (round + 1));
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+
+    /**
+     * This method returns a number of bits of a Feistel network's half covering a given IDs' space.
+     *
+     * @param capacity A size of an IDs' space.
+     *
+     * @return A number of bits of a network's half.
+     */
+    private static int halfBits(long capacity) {
+        int bits = 64 - Long.numberOfLeadingZeros(capacity - 1);
+
+        return Math.max(1, (bits + 1) / 2);
+    }
+
+
+    /**
+     * This method returns 10^exponent.
+     *
+     * @param exponent An exponent (0-18).
+     *
+     * @return 10^exponent.
+     */
+    private static long powerOfTen(int exponent) {
+        long power = 1;
+        for (int e = 0; e < exponent; ++e) {
+            power *= 10;
+        }
+
+        return power;
+    }
+}
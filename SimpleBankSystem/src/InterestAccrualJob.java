@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A class defining a job accruing a day's interest of all bank's accounts of a given type (e.g. "Savings")
+ * in one pass: an account's daily interest is its balance times an annual rate divided by a number of days
+ * of a year, rounded half up to a cent, and it is posted with a memo "Interest for YYYY-MM-DD".
+ *
+ * Accounts are taken at once (Bank.getAccounts) and accrued in parallel by fork-join tasks
+ * (see InterestAccrualTask). A job is idempotent per accrual's day: every account records each day
+ * it has accrued interest for (restored from a bank's snapshot and from the journal's accrual records,
+ * never from memos, which clients may write), so a job run again for the same day (e.g. after a failure
+ * in the middle) posts interest only to accounts it has skipped before, and a missed day may be run
+ * after later ones. Accounts whose interest is below a cent record the day without a posting.
+ */
+public class InterestAccrualJob {
+
+    /**
+     * A prefix of memos of interest's postings (followed by an accrual's day, e.g. "2026-10-18").
+     */
+    public static final String MEMO_PREFIX = "Interest for ";
+
+    /**
+     * A default number of days of a year.
+     */
+    public static final int DEFAULT_DAYS_PER_YEAR = 365;
+
+    /**
+     * The greatest annual interest's rate (in basis points, 10000%).
+     */
+    public static final int MAX_RATE_BASIS_POINTS = 1_000_000;
+
+    /**
+     * A number of basis points of 100%.
+     */
+    private static final long BASIS_POINTS = 10_000;
+
+    /**
+     * A bank whose accounts accrue interest.
+     */
+    private Bank bank;
+
+    /**
+     * A name of accounts accruing interest (e.g. "Savings").
+     */
+    private String accountsName;
+
+    /**
+     * An annual interest's rate (in basis points, e.g. 250 - 2.5%).
+     */
+    private int annualRateBasisPoints;
+
+    /**
+     * A number of days of a year (e.g. 365 or 360).
+     */
+    private int daysPerYear;
+
+    /**
+     * An accrual's day.
+     */
+    private LocalDate accrualDate;
+
+    /**
+     * A memo of all the job's postings.
+     */
+    private String memo;
+
+
+    /**
+     * A public constructor creating a job with DEFAULT_DAYS_PER_YEAR days of a year.
+     *
+     * @param bank                  A bank whose accounts accrue interest.
+     * @param accountsName          A name of accounts accruing interest (e.g. "Savings").
+     * @param annualRateBasisPoints An annual interest's rate (in basis points, e.g. 250 - 2.5%).
+     * @param accrualDate           An accrual's day.
+     */
+    public InterestAccrualJob(Bank bank, String accountsName, int annualRateBasisPoints, LocalDate accrualDate) {
+        this(bank, accountsName, annualRateBasisPoints, DEFAULT_DAYS_PER_YEAR, accrualDate);
+    }
+
+
+    /**
+     * A public constructor creating a job.
+     *
+     * @param bank                  A bank whose accounts accrue interest.
+     * @param accountsName          A name of accounts accruing interest (e.g. "Savings").
+     * @param annualRateBasisPoints An annual interest's rate (in basis points, e.g. 250 - 2.5%).
+     * @param daysPerYear           A number of days of a year (e.g. 365 or 360).
+     * @param accrualDate           An accrual's day.
+     */
+    public InterestAccrualJob(Bank bank, String accountsName, int annualRateBasisPoints, int daysPerYear,
+                              LocalDate accrualDate) {
+        // bounds keep computeInterest's intermediate products within a long
+        if (annualRateBasisPoints < 0 || annualRateBasisPoints > MAX_RATE_BASIS_POINTS) {
+            throw new IllegalArgumentException("Interest's rate must be between 0 and " + MAX_RATE_BASIS_POINTS
+                    + " basis points");
+        }
+        if (daysPerYear < 1 || daysPerYear > 366) {
+            throw new IllegalArgumentException("A number of days of a year must be between 1 and 366");
+        }
+
+        this.bank = bank;
+        this.accountsName = accountsName;
+        this.annualRateBasisPoints = annualRateBasisPoints;
+        this.daysPerYear = daysPerYear;
+        this.accrualDate = accrualDate;
+        this.memo = MEMO_PREFIX + accrualDate;
+    }
+
+
+    /**
+     * This method accrues interest of a bank restored from its data's directory.
+     *
+     * Usage: java InterestAccrualJob dataDirectory accountsName annualRateBasisPoints [day] [parallelism]
+     * e.g.   java InterestAccrualJob /var/bank Savings 250 2026-10-18 8
+     * (the bank is restored from bank.snapshot and bank.journal, like by AtmServer, and interest's postings
+     * are journaled; the day is today by default, the parallelism is a number of available processors by default)
+     *
+     * @param args Input arguments' list.
+     *
+     * @throws IOException if the bank cannot be restored or its journal cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        Path dataDirectory = Path.of(args[0]);
+        String accountsName = args[1];
+        int annualRateBasisPoints = Integer.parseInt(args[2]);
+        LocalDate day = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now();
+        int parallelism = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Bank bank = BankSnapshot.recover("Bank of Drousin", dataDirectory.resolve("bank.snapshot"),
+                dataDirectory.resolve("bank.journal"), JournalDurability.GROUP);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            InterestAccrualReport report = new InterestAccrualJob(bank, accountsName, annualRateBasisPoints, day)
+                    .run(pool);
+            System.out.printf("%s interest for %s of %s accounts on %d threads: %s\n", bank.getBankName(), day,
+                    accountsName, parallelism, report.getSummaryLine());
+        } finally {
+            pool.shutdown();
+            bank.closeJournal();
+        }
+    }
+
+
+    /**
+     * This method returns a bank whose accounts accrue interest.
+     *
+     * @return A bank.
+     */
+    public Bank getBank() {
+        return this.bank;
+    }
+
+
+    /**
+     * This method returns a name of accounts accruing interest.
+     *
+     * @return A name of accounts (e.g. "Savings").
+     */
+    public String getAccountsName() {
+        return this.accountsName;
+    }
+
+
+    /**
+     * This method returns an accrual's day.
+     *
+     * @return An accrual's day (days since the epoch).
+     */
+    public int getAccrualDay() {
+        return (int) this.accrualDate.toEpochDay();
+    }
+
+
+    /**
+     * This method returns a memo of the job's postings.
+     *
+     * @return A memo (e.g. "Interest for 2026-10-18").
+     */
+    public String getMemo() {
+        return this.memo;
+    }
+
+
+    /**
+     * This method computes a day's interest of a balance (rounded half up to a cent, without overflow
+     * of an intermediate product).
+     *
+     * @param balance A balance (in cents).
+     *
+     * @return A day's interest (in cents; 0 for a balance which is not positive).
+     */
+    public long computeInterest(long balance) {
+        if (balance <= 0) {
+            return 0;
+        }
+
+        long divisor = BASIS_POINTS * this.daysPerYear;
+        long quotient = balance / divisor;
+        long remainder = balance % divisor;
+
+        return quotient * this.annualRateBasisPoints + (remainder * this.annualRateBasisPoints + divisor / 2) / divisor;
+    }
+
+
+    /**
+     * This method accrues interest on the common fork-join pool.
+     *
+     * @return A report of the job.
+     */
+    public InterestAccrualReport run() {
+        return this.run(ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * This method accrues interest on a given fork-join pool.
+     *
+     * @param pool A fork-join pool accruing partitions of accounts.
+     *
+     * @return A report of the job (with its wall time).
+     */
+    public InterestAccrualReport run(ForkJoinPool pool) {
+        long begin = System.nanoTime();
+
+        Account[] accounts = this.bank.getAccounts();
+        InterestAccrualReport report = pool.invoke(new InterestAccrualTask(this, accounts, 0, accounts.length));
+
+        report.setElapsedTime(System.nanoTime() - begin);
+        return report;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * A class reporting an outcome of an interest accrual's job (see InterestAccrualJob): numbers of accounts
+ * interest was posted to, accounts which had already accrued interest for the day and accounts whose
+ * interest is below a cent, the sum of posted interest and the job's wall time.
+ */
+public class InterestAccrualReport {
+
+    /**
+     * A number of accounts interest was posted to.
+     */
+    private long numberOfAccrued;
+
+    /**
+     * A number of accounts which had already accrued interest for the day (skipped).
+     */
+    private long numberOfAlreadyAccrued;
+
+    /**
+     * A number of accounts whose interest is below a cent (nothing is posted).
+     */
+    private long numberOfBelowCent;
+
+    /**
+     * The sum of posted interest (in cents).
+     */
+    private long totalInterest;
+
+    /**
+     * The job's wall time (in nanoseconds).
+     */
+    private long elapsedTime;
+
+
+    /**
+     * A public constructor creating an empty report.
+     */
+    public InterestAccrualReport() {
+        this.numberOfAccrued = 0;
+        this.numberOfAlreadyAccrued = 0;
+        this.numberOfBelowCent = 0;
+        this.totalInterest = 0;
+        this.elapsedTime = 0;
+    }
+
+
+    /**
+     * This method counts an account interest was posted to.
+     *
+     * @param interest Posted interest (in cents).
+     */
+    public void addAccrued(long interest) {
+        this.numberOfAccrued++;
+        this.totalInterest += interest;
+    }
+
+
+    /**
+     * This method counts an account which had already accrued interest for the day.
+     */
+    public void addAlreadyAccrued() {
+        this.numberOfAlreadyAccrued++;
+    }
+
+
+    /**
+     * This method counts an account whose interest is below a cent.
+     */
+    public void addBelowCent() {
+        this.numberOfBelowCent++;
+    }
+
+
+    /**
+     * This method adds another (e.g. a partition's) report to this report.
+     *
+     * @param other Another report.
+     *
+     * @return This report.
+     */
+    public InterestAccrualReport merge(InterestAccrualReport other) {
+        this.numberOfAccrued += other.numberOfAccrued;
+        this.numberOfAlreadyAccrued += other.numberOfAlreadyAccrued;
+        this.numberOfBelowCent += other.numberOfBelowCent;
+        this.totalInterest += other.totalInterest;
+
+        return this;
+    }
+
+
+    /**
+     * This method returns a number of accounts interest was posted to.
+     *
+     * @return A number of accounts interest was posted to.
+     */
+    public long getNumberOfAccrued() {
+        return this.numberOfAccrued;
+    }
+
+
+    /**
+     * This method returns a number of accounts which had already accrued interest for the day.
+     *
+     * @return A number of skipped accounts.
+     */
+    public long getNumberOfAlreadyAccrued() {
+        return this.numberOfAlreadyAccrued;
+    }
+
+
+    /**
+     * This method returns a number of accounts whose interest is below a cent.
+     *
+     * @return A number of accounts nothing was posted to.
+     */
+    public long getNumberOfBelowCent() {
+        return this.numberOfBelowCent;
+    }
+
+
+    /**
+     * This method returns the sum of posted interest.
+     *
+     * @return The sum of posted interest (in cents).
+     */
+    public long getTotalInterest() {
+        return this.totalInterest;
+    }
+
+
+    /**
+     * This method returns the job's wall time.
+     *
+     * @return The job's wall time (in nanoseconds).
+     */
+    public long getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+
+    /**
+     * This method sets the job's wall time.
+     *
+     * @param elapsedTime The job's wall time (in nanoseconds).
+     */
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+
+    /**
+     * This method returns a report's summary line.
+     *
+     * @return A report's summary line.
+     */
+    public String getSummaryLine() {
+        long processed = this.numberOfAccrued + this.numberOfAlreadyAccrued + this.numberOfBelowCent;
+
+        return String.format("$%s posted to %d accounts (%d already accrued, %d below a cent) in %.0f ms: %.0f accounts/s",
+                Money.format(this.totalInterest), this.numberOfAccrued, this.numberOfAlreadyAccrued,
+                this.numberOfBelowCent, this.elapsedTime / 1e6,
+                this.elapsedTime == 0 ? 0 : processed * 1e9 / this.elapsedTime);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A fork-join task accruing interest of a range of accounts (see InterestAccrualJob).
+ *
+ * A range is split in halves between forked tasks down to PARTITION_SIZE accounts, which are accrued
+ * by one thread. An account's balance is read, its interest posted and its accrual's day recorded under
+ * the account's lock, so concurrent postings are not lost and interest is never posted twice for a day.
+ * Nothing is allocated per account (all postings of a job share one memo's code) and a partition waits
+ * for the journal once, after its last posting.
+ */
+public class InterestAccrualTask extends RecursiveTask<InterestAccrualReport> {
+
+    /**
+     * A serialization's version (a task is never serialized).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The greatest number of accounts accrued by one task without splitting.
+     */
+    public static final int PARTITION_SIZE = 4096;
+
+    /**
+     * A job the task belongs to.
+     */
+    private InterestAccrualJob job;
+
+    /**
+     * All accounts of the job (of all types).
+     */
+    private Account[] accounts;
+
+    /**
+     * The first account accrued by the task.
+     */
+    private int fromAccount;
+
+    /**
+     * An account after the last account accrued by the task.
+     */
+    private int toAccount;
+
+
+    /**
+     * A public constructor creating a task accruing a range of accounts.
+     *
+     * @param job         A job the task belongs to.
+     * @param accounts    All accounts of the job (of all types).
+     * @param fromAccount The first account accrued by the task.
+     * @param toAccount   An account after the last account accrued by the task.
+     */
+    public InterestAccrualTask(InterestAccrualJob job, Account[] accounts, int fromAccount, int toAccount) {
+        this.job = job;
+        this.accounts = accounts;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+    }
+
+
+    /**
+     * This method accrues the task's accounts (splitting them in halves between forked tasks).
+     *
+     * @return A report of the task's accounts.
+     */
+    @Override
+    protected InterestAccrualReport compute() {
+        if (this.toAccount - this.fromAccount <= PARTITION_SIZE) {
+            return this.accruePartition();
+        }
+
+        int middle = (this.fromAccount + this.toAccount) >>> 1;
+        InterestAccrualTask left = new InterestAccrualTask(this.job, this.accounts, this.fromAccount, middle);
+        InterestAccrualTask right = new InterestAccrualTask(this.job, this.accounts, middle, this.toAccount);
+
+        left.fork();
+        InterestAccrualReport report = right.compute();
+
+        return left.join().merge(report);
+    }
+
+
+    /**
+     * This method accrues interest of the task's accounts of the job's type.
+     *
+     * @return A report of a partition.
+     */
+    private InterestAccrualReport accruePartition() {
+        InterestAccrualReport report = new InterestAccrualReport();
+        String accountsName = this.job.getAccountsName();
+        int accrualDay = this.job.getAccrualDay();
+        String memo = this.job.getMemo();
+        long memoCode = this.job.getBank().getMemoDictionary().encode(memo);
+        PostingEngine engine = this.job.getBank().getPostingEngine();
+        long lastSequence = 0;
+
+        for (int a = this.fromAccount; a < this.toAccount; ++a) {
+            Account account = this.accounts[a];
+            if (!account.getAccountsName().equals(accountsName)) {
+                continue;
+            }
+
+            ReentrantLock lock = engine.getLock(account);
+            lock.lock();
+            try {
+                if (account.hasAccrued(accrualDay)) {
+                    report.addAlreadyAccrued();
+                    continue;
+                }
+
+                long interest = this.job.computeInterest(account.getBalance());
+                // the interest and its day are journaled in one record, so a restart never repeats or loses it
+                lastSequence = Math.max(lastSequence, account.accrueInterest(interest, memoCode, memo, accrualDay));
+                if (interest > 0) {
+                    report.addAccrued(interest);
+                } else {
+                    report.addBelowCent();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // journal's sequences are global, so the last one covers all the partition's postings
+        this.job.getBank().awaitDurable(lastSequence);
+
+        return report;
+    }
+}
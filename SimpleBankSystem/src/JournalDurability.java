@@ -0,0 +1,21 @@
+/**
+ * Durability modes of a posting journal (when a journaled posting is forced to disk).
+ */
+public enum JournalDurability {
+
+    /**
+     * Every posting is written and forced to disk (fsync) before it is acknowledged.
+     */
+    SYNC,
+
+    /**
+     * Postings are acknowledged after they are forced to disk, but concurrent postings share one fsync (group commit).
+     */
+    GROUP,
+
+    /**
+     * Postings are acknowledged at once and forced to disk periodically by a background thread
+     * (the latest postings may be lost after a crash).
+     */
+    ASYNC
+}
@@ -0,0 +1,72 @@
+/**
+ * An interface of a visitor of a posting journal's records (see PostingJournal.replay).
+ */
+public interface JournalVisitor {
+
+    /**
+     * This method is called before each record is passed to the visitor (by default it does nothing).
+     *
+     * @param position A record's position in the journal's file.
+     */
+    default void onRecord(long position) {
+    }
+
+
+    /**
+     * This method is called for a new user's record.
+     *
+     * @param usersUUID A user's ID.
+     * @param firstName A user's first name.
+     * @param lastName  A user's last name.
+     * @param pinHash   A user's pin's hash.
+     */
+    void onUser(String usersUUID, String firstName, String lastName, byte[] pinHash);
+
+
+    /**
+     * This method is called for a new account's record.
+     *
+     * @param accountsUUID An account's UUID.
+     * @param accountsName An account's name.
+     * @param holdersUUID  An account's holder's ID.
+     */
+    void onAccount(String accountsUUID, String accountsName, String holdersUUID);
+
+
+    /**
+     * This method is called for a posting's record.
+     *
+     * @param accountUUID An account's UUID.
+     * @param amount      A posting's amount (in cents).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     */
+    void onPosting(String accountUUID, long amount, long timestamp, String memo);
+
+
+    /**
+     * This method is called for an interest accrual's record.
+     *
+     * @param accountUUID An account's UUID.
+     * @param accrualDay  An accrual's day (days since the epoch).
+     * @param amount      Interest's amount (in cents; 0 - there is no posting).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     */
+    void onAccrual(String accountUUID, int accrualDay, long amount, long timestamp, String memo);
+
+
+    /**
+     * This method is called for a transfer's record (both legs of a transfer).
+     *
+     * @param sourceUUID      A source account's UUID.
+     * @param targetUUID      A target account's UUID.
+     * @param amount          A transferred amount (in cents; the source leg is its negation).
+     * @param sourceTimestamp A source leg's timestamp (milliseconds since the epoch).
+     * @param targetTimestamp A target leg's timestamp (milliseconds since the epoch).
+     * @param sourceMemo      A source leg's description.
+     * @param targetMemo      A target leg's description.
+     */
+    void onTransfer(String sourceUUID, String targetUUID, long amount, long sourceTimestamp, long targetTimestamp,
+                    String sourceMemo, String targetMemo);
+}
@@ -0,0 +1,200 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A class defining a lock-free histogram of latencies (in nanoseconds) with fixed buckets.
+ *
+ * Buckets are log-linear: every power of 2 is split into SUB_BUCKETS equal buckets, so a percentile
+ * is known with a relative error below 1/SUB_BUCKETS (6.25%) for any latency, while the histogram
+ * has a constant size (1024 counters) and recording a latency is a few atomic increments.
+ * Readers (percentiles, a mean) see a histogram without stopping writers, so a read may miss latencies
+ * recorded at the same time.
+ */
+public class LatencyHistogram {
+
+    /**
+     * A number of bits of a bucket's position within a power of 2.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * A number of buckets per a power of 2.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * A number of buckets.
+     */
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    /**
+     * Numbers of latencies per bucket.
+     */
+    private AtomicLongArray counts;
+
+    /**
+     * A number of recorded latencies.
+     */
+    private LongAdder count;
+
+    /**
+     * A sum of recorded latencies (in nanoseconds).
+     */
+    private LongAdder sum;
+
+    /**
+     * The greatest recorded latency (in nanoseconds).
+     */
+    private AtomicLong max;
+
+
+    /**
+     * A public constructor creating an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+
+    /**
+     * This method records a latency.
+     *
+     * @param nanos A latency (in nanoseconds; a negative one is recorded as 0).
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        this.counts.getAndIncrement(LatencyHistogram.bucketOf(nanos));
+        this.count.increment();
+        this.sum.add(nanos);
+
+        long currentMax = this.max.get();
+        while (nanos > currentMax && !this.max.compareAndSet(currentMax, nanos)) {
+            currentMax = this.max.get();
+        }
+    }
+
+
+    /**
+     * This method returns a number of recorded latencies.
+     *
+     * @return A number of recorded latencies.
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+
+    /**
+     * This method returns a mean latency.
+     *
+     * @return A mean latency (in nanoseconds; 0 if nothing is recorded).
+     */
+    public double getMean() {
+        long recorded = this.count.sum();
+        return recorded == 0 ? 0 : (double) this.sum.sum() / recorded;
+    }
+
+
+    /**
+     * This method returns the greatest recorded latency.
+     *
+     * @return The greatest latency (in nanoseconds).
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+
+    /**
+     * This method returns a latency's percentile (an upper bound of a bucket holding it, at most the greatest latency).
+     *
+     * @param percentile A percentile (e.g. 99.9).
+     *
+     * @return A latency (in nanoseconds; 0 if nothing is recorded).
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int b = 0; b < BUCKETS; ++b) {
+            snapshot[b] = this.counts.get(b);
+            total += snapshot[b];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        if (rank < 1) {
+            rank = 1;
+        }
+
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; ++b) {
+            seen += snapshot[b];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.upperBoundOf(b), this.max.get());
+            }
+        }
+
+        return this.max.get();
+    }
+
+
+    /**
+     * This method clears a histogram (latencies recorded at the same time may be lost or kept in part).
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; ++b) {
+            this.counts.set(b, 0);
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.set(0);
+    }
+
+
+    /**
+     * This method returns a bucket of a latency.
+     *
+     * @param nanos A latency (in nanoseconds, not negative).
+     *
+     * @return A bucket's position.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+
+    /**
+     * This method returns the greatest latency of a bucket.
+     *
+     * @param bucket A bucket's position.
+     *
+     * @return The greatest latency of a bucket (in nanoseconds).
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
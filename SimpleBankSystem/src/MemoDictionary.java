@@ -0,0 +1,384 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A class defining a bank-wide dictionary of transactions' memos: a memo is stored in a transaction's row
+ * as a long code instead of a reference to its own String, and decoded only when it is rendered.
+ *
+ * There are two kinds of codes:
+ * - a plain memo (e.g. "Salary", "Card payment") is interned once per bank and coded by its number,
+ * - a templated memo ("Transfer to account 1234567890") is coded by its template's number and its counterparty
+ *   account's UUID packed into the code (template &lt;&lt; 48 | UUID's digits &lt;&lt; 40 | UUID's number),
+ *   so transfers to any accounts neither build a string nor grow the dictionary.
+ * A memo which looks like a templated one (e.g. replayed from the journal) gets a templated code as well.
+ *
+ * Plain memos come from clients (e.g. an ATM's free text), so a dictionary is capped: a memo longer than
+ * maxMemoLength characters, or a new one after maxMemos memos are interned, is not interned. It gets
+ * the UNSHARED_MEMO code, and its text is kept with its transaction (see TransactionStore.add), so a client
+ * sending unique memos grows only its own history, not the bank-wide dictionary.
+ *
+ * Encoding and decoding are thread-safe; a plain memo's interning is the only synchronized step
+ * and it happens once per distinct memo.
+ */
+public class MemoDictionary {
+
+    /**
+     * A code of a missing (null) memo.
+     */
+    public static final long NO_MEMO = -1;
+
+    /**
+     * A code of a memo which is not interned (its text is kept with its transaction).
+     */
+    public static final long UNSHARED_MEMO = -2;
+
+    /**
+     * A default maximal number of interned plain memos.
+     */
+    public static final int DEFAULT_MAX_MEMOS = 1 << 16;
+
+    /**
+     * A default maximal length of an interned plain memo (in characters).
+     */
+    public static final int DEFAULT_MAX_MEMO_LENGTH = 64;
+
+    /**
+     * A template's number of "Transfer to account UUID".
+     */
+    public static final int TRANSFER_TO = 1;
+
+    /**
+     * A template's number of "Transfer from account UUID".
+     */
+    public static final int TRANSFER_FROM = 2;
+
+    /**
+     * Templates' texts preceding a counterparty account's UUID (indexed by templates' numbers; 0 - plain memos).
+     */
+    private static final String[] TEMPLATES = {null, "Transfer to account ", "Transfer from account "};
+
+    /**
+     * A position of a template's number in a code.
+     */
+    private static final int TEMPLATE_SHIFT = 48;
+
+    /**
+     * A position of a number of a UUID's digits in a code.
+     */
+    private static final int DIGITS_SHIFT = 40;
+
+    /**
+     * The greatest number of digits of a UUID packed into a code (longer UUIDs are interned as plain memos).
+     */
+    private static final int MAX_PACKED_DIGITS = 12;
+
+    /**
+     * Plain memos' texts (indexed by plain memos' numbers). The reference is written again after
+     * every interned memo, so readers of a code see its text.
+     */
+    private volatile String[] texts;
+
+    /**
+     * A number of interned plain memos.
+     */
+    private int size;
+
+    /**
+     * Numbers of interned plain memos.
+     */
+    private ConcurrentHashMap<String, Integer> numbers;
+
+    /**
+     * The maximal number of plain memos interned from clients' texts.
+     */
+    private int maxMemos;
+
+    /**
+     * The maximal length of an interned plain memo (in characters).
+     */
+    private int maxMemoLength;
+
+    /**
+     * A number of memos encoded as UNSHARED_MEMO.
+     */
+    private LongAdder unsharedMemos;
+
+
+    /**
+     * A public constructor creating an empty dictionary with default caps.
+     */
+    public MemoDictionary() {
+        this(DEFAULT_MAX_MEMOS, DEFAULT_MAX_MEMO_LENGTH);
+    }
+
+
+    /**
+     * A public constructor creating an empty dictionary.
+     *
+     * @param maxMemos      The maximal number of plain memos interned from clients' texts.
+     * @param maxMemoLength The maximal length of an interned plain memo (in characters).
+     */
+    public MemoDictionary(int maxMemos, int maxMemoLength) {
+        if (maxMemos < 0 || maxMemoLength < 0) {
+            throw new IllegalArgumentException("A memo dictionary's caps must not be negative");
+        }
+
+        this.texts = new String[64];
+        this.size = 0;
+        this.numbers = new ConcurrentHashMap<String, Integer>();
+        this.maxMemos = maxMemos;
+        this.maxMemoLength = maxMemoLength;
+        this.unsharedMemos = new LongAdder();
+    }
+
+
+    /**
+     * This method encodes a memo (interning it if it is a new plain memo and the dictionary is not full).
+     *
+     * @param memo A memo (it may be null).
+     *
+     * @return A memo's code (UNSHARED_MEMO - the memo is not interned, so its text has to be kept with it).
+     */
+    public long encode(String memo) {
+        if (memo == null) {
+            return NO_MEMO;
+        }
+
+        for (int t = 1; t < TEMPLATES.length; ++t) {
+            if (memo.startsWith(TEMPLATES[t])) {
+                long code = MemoDictionary.pack(t, memo, TEMPLATES[t].length());
+                if (code != NO_MEMO) {
+                    return code;
+                }
+            }
+        }
+
+        Integer number = this.numbers.get(memo);
+        if (number != null) {
+            return number;
+        }
+        if (memo.length() > this.maxMemoLength) {
+            this.unsharedMemos.increment();
+            return UNSHARED_MEMO;
+        }
+
+        return this.intern(memo, false);
+    }
+
+
+    /**
+     * This method encodes a templated memo without building its text.
+     *
+     * @param template     A template's number (e.g. TRANSFER_TO).
+     * @param accountsUUID A counterparty account's UUID (of an existing account).
+     *
+     * @return A memo's code (never UNSHARED_MEMO).
+     */
+    public long encode(int template, String accountsUUID) {
+        long code = MemoDictionary.pack(template, accountsUUID, 0);
+        if (code != NO_MEMO) {
+            return code;
+        }
+
+        // a UUID too long to be packed is interned beyond the caps: UUIDs are the bank's, not clients' texts
+        String memo = TEMPLATES[template] + accountsUUID;
+        Integer number = this.numbers.get(memo);
+
+        return number != null ? number : this.intern(memo, true);
+    }
+
+
+    /**
+     * This method decodes a memo.
+     *
+     * @param code A memo's code (not UNSHARED_MEMO).
+     *
+     * @return A memo (null for NO_MEMO).
+     */
+    public String decode(long code) {
+        if (code == NO_MEMO) {
+            return null;
+        }
+        if (code == UNSHARED_MEMO) {
+            throw new IllegalArgumentException("An unshared memo's text is kept with its transaction");
+        }
+        if (code < (1L << TEMPLATE_SHIFT)) {
+            return this.texts[(int) code];
+        }
+
+        return this.appendTo(new StringBuilder(40), code).toString();
+    }
+
+
+    /**
+     * This method decodes a memo kept as a code and, if it is not interned, its text.
+     *
+     * @param code         A memo's code.
+     * @param unsharedMemo A memo's text if a code is UNSHARED_MEMO (see TransactionStore.getUnsharedMemo).
+     *
+     * @return A memo (null for NO_MEMO).
+     */
+    public String decode(long code, String unsharedMemo) {
+        return code == UNSHARED_MEMO ? unsharedMemo : this.decode(code);
+    }
+
+
+    /**
+     * This method appends a decoded memo to a builder (a templated memo without temporary objects).
+     *
+     * @param to   A builder a memo is appended to.
+     * @param code A memo's code (not UNSHARED_MEMO).
+     *
+     * @return A given builder.
+     */
+    public StringBuilder appendTo(StringBuilder to, long code) {
+        if (code == NO_MEMO) {
+            // the same as appending a null memo's String
+            return to.append((String) null);
+        }
+        if (code == UNSHARED_MEMO) {
+            throw new IllegalArgumentException("An unshared memo's text is kept with its transaction");
+        }
+        if (code < (1L << TEMPLATE_SHIFT)) {
+            return to.append(this.texts[(int) code]);
+        }
+
+        int digits = (int) (code >>> DIGITS_SHIFT) & 0xFF;
+        long number = code & ((1L << DIGITS_SHIFT) - 1);
+
+        int numberDigits = 1;
+        for (long rest = number; rest >= 10; rest /= 10) {
+            ++numberDigits;
+        }
+
+        // a UUID's leading zeros are restored from its number of digits
+        to.append(TEMPLATES[(int) (code >>> TEMPLATE_SHIFT)]);
+        for (int d = numberDigits; d < digits; ++d) {
+            to.append('0');
+        }
+
+        return to.append(number);
+    }
+
+
+    /**
+     * This method appends a memo kept as a code and, if it is not interned, its text to a builder.
+     *
+     * @param to           A builder a memo is appended to.
+     * @param code         A memo's code.
+     * @param unsharedMemo A memo's text if a code is UNSHARED_MEMO.
+     *
+     * @return A given builder.
+     */
+    public StringBuilder appendTo(StringBuilder to, long code, String unsharedMemo) {
+        return code == UNSHARED_MEMO ? to.append(unsharedMemo) : this.appendTo(to, code);
+    }
+
+
+    /**
+     * This method checks whether a code is a plain memo's code (its text is interned in a dictionary).
+     *
+     * @param code A memo's code.
+     *
+     * @return true if a code is a plain memo's number, false if it is NO_MEMO or a templated memo's code.
+     */
+    public static boolean isPlain(long code) {
+        return code >= 0 && code < (1L << TEMPLATE_SHIFT);
+    }
+
+
+    /**
+     * This method returns a number of interned plain memos.
+     *
+     * @return A number of distinct plain memos.
+     */
+    public synchronized int getNumberOfMemos() {
+        return this.size;
+    }
+
+
+    /**
+     * This method returns a number of memos which have not been interned (because of the dictionary's caps).
+     *
+     * @return A number of encoded UNSHARED_MEMO codes.
+     */
+    public long getNumberOfUnsharedMemos() {
+        return this.unsharedMemos.sum();
+    }
+
+
+    /**
+     * This method returns a number of characters of interned plain memos.
+     *
+     * @return A number of characters of distinct plain memos.
+     */
+    public synchronized long getNumberOfCharacters() {
+        long characters = 0;
+        for (int m = 0; m < this.size; ++m) {
+            characters += this.texts[m].length();
+        }
+
+        return characters;
+    }
+
+
+    /**
+     * This method interns a new plain memo (unless the dictionary is full).
+     *
+     * @param memo       A memo.
+     * @param isBankText true if a memo is the bank's own text (it is interned beyond the caps).
+     *
+     * @return A memo's number or UNSHARED_MEMO if the dictionary is full.
+     */
+    private synchronized long intern(String memo, boolean isBankText) {
+        Integer number = this.numbers.get(memo);
+        if (number != null) {
+            return number;
+        }
+        if (!isBankText && this.size >= this.maxMemos) {
+            this.unsharedMemos.increment();
+            return UNSHARED_MEMO;
+        }
+
+        String[] currentTexts = this.texts;
+        if (this.size == currentTexts.length) {
+            currentTexts = Arrays.copyOf(currentTexts, currentTexts.length * 2);
+        }
+        currentTexts[this.size] = memo;
+        // publish the text (a volatile write) before the number is visible to other threads
+        this.texts = currentTexts;
+        this.numbers.put(memo, this.size);
+
+        return this.size++;
+    }
+
+
+    /**
+     * This method packs a templated memo's counterparty account's UUID into a code.
+     *
+     * @param template A template's number.
+     * @param text     A text holding a UUID.
+     * @param from     A position of a UUID in a text (it runs to a text's end).
+     *
+     * @return A memo's code or NO_MEMO if a UUID is not 1 to MAX_PACKED_DIGITS decimal digits.
+     */
+    private static long pack(int template, String text, int from) {
+        int digits = text.length() - from;
+        if (digits < 1 || digits > MAX_PACKED_DIGITS) {
+            return NO_MEMO;
+        }
+
+        long number = 0;
+        for (int i = from; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_MEMO;
+            }
+            number = number * 10 + (c - '0');
+        }
+
+        return ((long) template << TEMPLATE_SHIFT) | ((long) digits << DIGITS_SHIFT) | number;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * A class gathering operations on money amounts.
+ *
+ * An amount is a primitive long number of cents (minor units), e.g. $12.34 is 1234.
+ * Amounts are summed exactly (without a floating point rounding drift) and are never boxed.
+ */
+public final class Money {
+
+    /**
+     * A number of cents (minor units) in a dollar (a major unit).
+     */
+    public static final long CENTS_PER_DOLLAR = 100;
+
+    /**
+     * A number of fraction digits of an amount.
+     */
+    public static final int FRACTION_DIGITS = 2;
+
+    /**
+     * The maximal number of dollars of an amount (so that its number of cents fits a long).
+     */
+    private static final long MAX_DOLLARS = (Long.MAX_VALUE - (CENTS_PER_DOLLAR - 1)) / CENTS_PER_DOLLAR;
+
+
+    /**
+     * A private constructor (the class is a static helper only).
+     */
+    private Money() {
+    }
+
+
+    /**
+     * This method parses a text amount (e.g. "12", "12.5", "-12.34") to a number of cents.
+     *
+     * @param text A text amount with max. 2 fraction digits.
+     *
+     * @return A number of cents.
+     *
+     * @throws NumberFormatException if a text is not a correct amount.
+     */
+    public static long parse(CharSequence text) {
+
+        int length = text.length();
+        int c = 0;
+        boolean isNegative = false;
+
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            isNegative = text.charAt(0) == '-';
+            ++c;
+        }
+
+        long dollars = 0;
+        int dollarsDigits = 0;
+        while (c < length && text.charAt(c) != '.') {
+            int digit = Money.digit(text, c++);
+            if (dollars > (MAX_DOLLARS - digit) / 10) {
+                throw new NumberFormatException("Amount out of range: \"" + text + "\"");
+            }
+            dollars = 10 * dollars + digit;
+            ++dollarsDigits;
+        }
+
+        long cents = 0;
+        int centsDigits = 0;
+        if (c < length) {
+            ++c; // '.'
+            while (c < length) {
+                if (++centsDigits > FRACTION_DIGITS) {
+                    throw new NumberFormatException("Too many fraction digits: \"" + text + "\"");
+                }
+                cents = 10 * cents + Money.digit(text, c++);
+            }
+            for (int d = centsDigits; d < FRACTION_DIGITS; ++d) {
+                cents *= 10;
+            }
+        }
+
+        if (dollarsDigits == 0 && centsDigits == 0) {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+
+        long amount = dollars * CENTS_PER_DOLLAR + cents;
+
+        return isNegative ? -amount : amount;
+    }
+
+
+    /**
+     * This method formats an amount as a text with 2 fraction digits (e.g. 1234 -> "12.34", -5 -> "-0.05").
+     *
+     * @param amount An amount in cents.
+     *
+     * @return A text amount.
+     */
+    public static String format(long amount) {
+        return Money.appendTo(new StringBuilder(24), amount).toString();
+    }
+
+
+    /**
+     * This method appends an amount with 2 fraction digits to a given builder (without temporary objects).
+     *
+     * @param builder A builder an amount is appended to.
+     * @param amount  An amount in cents.
+     *
+     * @return A given builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long amount) {
+
+        if (amount < 0) {
+            builder.append('-');
+        }
+
+        long dollars = Math.abs(amount / CENTS_PER_DOLLAR);
+        long cents = Math.abs(amount % CENTS_PER_DOLLAR);
+
+        builder.append(dollars);
+        builder.append('.');
+        builder.append((char) ('0' + cents / 10));
+        builder.append((char) ('0' + cents % 10));
+
+        return builder;
+    }
+
+
+    /**
+     * This method returns a value of a digit on a given position of a text.
+     *
+     * @param text A text amount.
+     * @param idx  A position of a digit.
+     *
+     * @return A value of a digit (0-9).
+     *
+     * @throws NumberFormatException if a character is not a digit.
+     */
+    private static int digit(CharSequence text, int idx) {
+        char c = text.charAt(idx);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+
+        return c - '0';
+    }
+}
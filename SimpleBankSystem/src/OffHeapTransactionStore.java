@@ -0,0 +1,324 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+
+
+/**
+ * A class storing an account's transactions off the heap: fixed-width records in direct ByteBuffer chunks
+ * of CHUNK_RECORDS records each, so a history's size does not add to the heap scanned and copied by GC.
+ *
+ * A record takes RECORD_SIZE bytes: a long amount, a long timestamp and a long memo's code
+ * (memos' texts stay in the bank's MemoDictionary), so only an array of chunks' references grows on the heap.
+ * Texts of the rare memos which are not interned (MemoDictionary.UNSHARED_MEMO) are kept in a map on the heap.
+ * Chunks are never moved: a new one is allocated when the last one is full, and all of them are freed
+ * when the store becomes unreachable.
+ *
+ * Balances' sums, binary searches by time and history's pages read records straight from the chunks.
+ */
+public class OffHeapTransactionStore implements TransactionStore {
+
+    /**
+     * A size of a record (in bytes): an amount, a timestamp and a memo's code.
+     */
+    public static final int RECORD_SIZE = 8 + 8 + 8;
+
+    /**
+     * A binary logarithm of a number of records per chunk.
+     */
+    private static final int CHUNK_SHIFT = 12;
+
+    /**
+     * A number of records per chunk.
+     */
+    public static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+
+    /**
+     * An offset of an amount in a record.
+     */
+    private static final int AMOUNT_OFFSET = 0;
+
+    /**
+     * An offset of a timestamp in a record.
+     */
+    private static final int TIMESTAMP_OFFSET = 8;
+
+    /**
+     * An offset of a memo's code in a record.
+     */
+    private static final int MEMO_OFFSET = 16;
+
+    /**
+     * Chunks of records (only the first chunksUsed are allocated).
+     */
+    private ByteBuffer[] chunks;
+
+    /**
+     * A number of allocated chunks.
+     */
+    private int chunksUsed;
+
+    /**
+     * Descriptions of transactions whose memos are not interned, by positions (null until the first of them).
+     */
+    private HashMap<Integer, String> unsharedMemos;
+
+    /**
+     * A number of stored transactions.
+     */
+    private int size;
+
+
+    /**
+     * A public constructor creating an empty transactions' store (no chunk is allocated until the first transaction).
+     */
+    public OffHeapTransactionStore() {
+        this.chunks = new ByteBuffer[4];
+        this.chunksUsed = 0;
+        this.unsharedMemos = null;
+        this.size = 0;
+    }
+
+
+    /**
+     * This method creates an off-heap store with a copy of all transactions of another store.
+     *
+     * @param source A store whose transactions are copied.
+     *
+     * @return A new off-heap store.
+     */
+    public static OffHeapTransactionStore copyOf(TransactionStore source) {
+        OffHeapTransactionStore store = new OffHeapTransactionStore();
+
+        for (int t = 0; t < source.size(); ++t) {
+            store.add(source.getAmount(t), source.getTimestamp(t), source.getMemoCode(t), source.getUnsharedMemo(t));
+        }
+
+        return store;
+    }
+
+
+    /**
+     * This method appends a transaction to a store.
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode  A code of a transaction's description (see MemoDictionary; not UNSHARED_MEMO).
+     */
+    @Override
+    public void add(long amount, long timestamp, long memoCode) {
+        this.add(amount, timestamp, memoCode, null);
+    }
+
+
+    /**
+     * This method appends a transaction to a store (with its memo's text if the memo is not interned).
+     *
+     * @param amount       A transaction's amount (in cents).
+     * @param timestamp    A transaction's timestamp (milliseconds since the epoch).
+     * @param memoCode     A code of a transaction's description (see MemoDictionary).
+     * @param unsharedMemo A transaction's description if a code is UNSHARED_MEMO (ignored otherwise).
+     */
+    @Override
+    public void add(long amount, long timestamp, long memoCode, String unsharedMemo) {
+        if ((this.size >>> CHUNK_SHIFT) == this.chunksUsed) {
+            this.addChunk();
+        }
+
+        ByteBuffer chunk = this.chunks[this.size >>> CHUNK_SHIFT];
+        int offset = (this.size & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+        chunk.putLong(offset + AMOUNT_OFFSET, amount);
+        chunk.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        chunk.putLong(offset + MEMO_OFFSET, memoCode);
+        if (memoCode == MemoDictionary.UNSHARED_MEMO) {
+            if (this.unsharedMemos == null) {
+                this.unsharedMemos = new HashMap<Integer, String>();
+            }
+            this.unsharedMemos.put(this.size, unsharedMemo);
+        }
+        ++this.size;
+    }
+
+
+    /**
+     * This method returns a number of stored transactions.
+     *
+     * @return A number of stored transactions.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * This method returns an amount of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's amount (in cents).
+     */
+    @Override
+    public long getAmount(int idx) {
+        this.checkIndex(idx);
+        return this.chunks[idx >>> CHUNK_SHIFT].getLong((idx & (CHUNK_RECORDS - 1)) * RECORD_SIZE + AMOUNT_OFFSET);
+    }
+
+
+    /**
+     * This method returns a timestamp of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     */
+    @Override
+    public long getTimestamp(int idx) {
+        this.checkIndex(idx);
+        return this.timestampAt(idx);
+    }
+
+
+    /**
+     * This method returns a code of a description of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A code of a transaction's description (see MemoDictionary).
+     */
+    @Override
+    public long getMemoCode(int idx) {
+        this.checkIndex(idx);
+        return this.chunks[idx >>> CHUNK_SHIFT].getLong((idx & (CHUNK_RECORDS - 1)) * RECORD_SIZE + MEMO_OFFSET);
+    }
+
+
+    /**
+     * This method returns a description of a given transaction whose memo is not interned.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's description if its code is UNSHARED_MEMO, null otherwise.
+     */
+    @Override
+    public String getUnsharedMemo(int idx) {
+        this.checkIndex(idx);
+        return this.unsharedMemos != null ? this.unsharedMemos.get(idx) : null;
+    }
+
+
+    /**
+     * This method returns a timestamp of the latest transaction.
+     *
+     * @return The latest transaction's timestamp or Long.MIN_VALUE if a store is empty.
+     */
+    @Override
+    public long getLastTimestamp() {
+        return this.size > 0 ? this.timestampAt(this.size - 1) : Long.MIN_VALUE;
+    }
+
+
+    /**
+     * This method finds (by a binary search; transactions are stored in time order) a position of the first
+     * transaction not older than a given timestamp.
+     *
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     *
+     * @return A position of the first transaction with a timestamp &gt;= a given one (size() if there is none).
+     */
+    @Override
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = this.size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.timestampAt(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+
+    /**
+     * This method returns a sum of all stored transactions' amounts (read chunk by chunk).
+     *
+     * @return A sum of transactions' amounts (in cents).
+     */
+    @Override
+    public long sumOfAmounts() {
+        long sum = 0;
+
+        for (int c = 0; c < this.chunksUsed; ++c) {
+            ByteBuffer chunk = this.chunks[c];
+            int records = Math.min(CHUNK_RECORDS, this.size - (c << CHUNK_SHIFT));
+            for (int r = 0; r < records; ++r) {
+                sum += chunk.getLong(r * RECORD_SIZE + AMOUNT_OFFSET);
+            }
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * This method checks whether transactions are stored off the heap.
+     *
+     * @return true (records are in direct buffers).
+     */
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+
+    /**
+     * This method returns a size of the store's off-heap memory.
+     *
+     * @return A size of allocated chunks (in bytes).
+     */
+    public long getOffHeapBytes() {
+        return (long) this.chunksUsed * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+
+    /**
+     * This method returns a timestamp of a given transaction (without checking its position).
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     */
+    private long timestampAt(int idx) {
+        return this.chunks[idx >>> CHUNK_SHIFT].getLong((idx & (CHUNK_RECORDS - 1)) * RECORD_SIZE + TIMESTAMP_OFFSET);
+    }
+
+
+    /**
+     * This method allocates a new chunk of records.
+     */
+    private void addChunk() {
+        if (this.chunksUsed == this.chunks.length) {
+            this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+        }
+
+        this.chunks[this.chunksUsed++] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE)
+                .order(ByteOrder.nativeOrder());
+    }
+
+
+    /**
+     * This method checks whether a given position of a transaction is correct.
+     *
+     * @param idx A position of a transaction.
+     */
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= this.size) {
+            throw new IndexOutOfBoundsException("Transaction " + idx + " out of " + this.size);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * A class defining statistics of a bank's operation at some moment (an MXBean's composite value).
+ */
+public class OperationStats {
+
+    /**
+     * An operation's name.
+     */
+    private String operation;
+
+    /**
+     * A number of operations.
+     */
+    private long count;
+
+    /**
+     * A number of failed operations (e.g. rejected logins, withdrawals without funds).
+     */
+    private long failures;
+
+    /**
+     * A mean latency (in microseconds; latencies may be sampled, see BankMetrics).
+     */
+    private double meanMicros;
+
+    /**
+     * The 50th percentile of latencies (in microseconds).
+     */
+    private double p50Micros;
+
+    /**
+     * The 99th percentile of latencies (in microseconds).
+     */
+    private double p99Micros;
+
+    /**
+     * The 99.9th percentile of latencies (in microseconds).
+     */
+    private double p999Micros;
+
+    /**
+     * The greatest latency (in microseconds).
+     */
+    private double maxMicros;
+
+
+    /**
+     * A public constructor creating operation's statistics.
+     *
+     * @param operation  An operation's name.
+     * @param count      A number of operations.
+     * @param failures   A number of failed operations.
+     * @param meanMicros A mean latency (in microseconds).
+     * @param p50Micros  The 50th percentile of latencies (in microseconds).
+     * @param p99Micros  The 99th percentile of latencies (in microseconds).
+     * @param p999Micros The 99.9th percentile of latencies (in microseconds).
+     * @param maxMicros  The greatest latency (in microseconds).
+     */
+    public OperationStats(String operation, long count, long failures, double meanMicros, double p50Micros,
+                          double p99Micros, double p999Micros, double maxMicros) {
+        this.operation = operation;
+        this.count = count;
+        this.failures = failures;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+
+    /**
+     * This method returns an operation's name.
+     *
+     * @return An operation's name.
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+
+    /**
+     * This method returns a number of operations.
+     *
+     * @return A number of operations.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+
+    /**
+     * This method returns a number of failed operations.
+     *
+     * @return A number of failed operations.
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+
+    /**
+     * This method returns a mean latency.
+     *
+     * @return A mean latency (in microseconds).
+     */
+    public double getMeanMicros() {
+        return this.meanMicros;
+    }
+
+
+    /**
+     * This method returns the 50th percentile of latencies.
+     *
+     * @return The 50th percentile (in microseconds).
+     */
+    public double getP50Micros() {
+        return this.p50Micros;
+    }
+
+
+    /**
+     * This method returns the 99th percentile of latencies.
+     *
+     * @return The 99th percentile (in microseconds).
+     */
+    public double getP99Micros() {
+        return this.p99Micros;
+    }
+
+
+    /**
+     * This method returns the 99.9th percentile of latencies.
+     *
+     * @return The 99.9th percentile (in microseconds).
+     */
+    public double getP999Micros() {
+        return this.p999Micros;
+    }
+
+
+    /**
+     * This method returns the greatest latency.
+     *
+     * @return The greatest latency (in microseconds).
+     */
+    public double getMaxMicros() {
+        return this.maxMicros;
+    }
+
+
+    /**
+     * This method returns (in a text format) operation's statistics.
+     *
+     * @return Operation's statistics (in a text format).
+     */
+    public String getSummaryLine() {
+        return String.format("%-10s %12d %10d %12.2f %12.2f %12.2f %12.2f %12.2f", this.operation, this.count,
+                this.failures, this.meanMicros, this.p50Micros, this.p99Micros, this.p999Micros, this.maxMicros);
+    }
+}
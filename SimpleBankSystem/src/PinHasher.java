@@ -0,0 +1,26 @@
+/**
+ * An interface of a component hashing users' pins (see Bank.setPinHasher).
+ * Implementations are used by many threads at once, so they have to be thread-safe.
+ */
+public interface PinHasher {
+
+    /**
+     * This method hashes a pin.
+     *
+     * @param pin A pin.
+     *
+     * @return A pin's hash.
+     */
+    byte[] hash(String pin);
+
+
+    /**
+     * This method checks (in a time independent of where hashes differ) whether a pin matches a hash.
+     *
+     * @param pin  An entered pin.
+     * @param hash A stored pin's hash.
+     *
+     * @return true if a pin's hash equals a given hash, false otherwise.
+     */
+    boolean matches(String pin, byte[] hash);
+}
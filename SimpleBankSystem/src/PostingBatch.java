@@ -0,0 +1,327 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A class defining a batch of postings (e.g. a nightly settlement file) to be applied by Bank.postBatch.
+ *
+ * A posting is an account's UUID, a signed amount (a deposit if positive, a withdrawal if negative)
+ * and a memo. Postings are kept in primitive columns in a batch's order; records which cannot be parsed
+ * are kept as rejections (they are reported together with rejections of Bank.postBatch).
+ *
+ * A CSV file has one posting per line: accountUUID,amount[,memo] (e.g. 4721934581,-12.50,Card payment);
+ * a memo is the rest of a line (it may contain commas); blank lines and lines starting with # are skipped.
+ *
+ * A binary file starts with a header (int magic, int version) followed by records:
+ * byte UUID's length, UUID's ASCII digits, long amount (in cents), short memo's length, memo's UTF-8 bytes.
+ */
+public class PostingBatch {
+
+    /**
+     * A binary batch file's magic number ("SBSB").
+     */
+    public static final int MAGIC = 0x53425342;
+
+    /**
+     * A binary batch file's format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * A memo of postings without their own memo.
+     */
+    public static final String DEFAULT_MEMO = "Batch posting";
+
+    /**
+     * An initial number of postings.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Postings' accounts' UUIDs.
+     */
+    private String[] accountUUIDs;
+
+    /**
+     * Postings' amounts (in cents).
+     */
+    private long[] amounts;
+
+    /**
+     * Postings' descriptions.
+     */
+    private String[] memos;
+
+    /**
+     * Postings' record numbers (lines of a CSV file, records of a binary file; counted from 1).
+     */
+    private int[] recordNumbers;
+
+    /**
+     * A number of postings.
+     */
+    private int size;
+
+    /**
+     * Records rejected while a batch was read.
+     */
+    private List<BatchRejection> rejections;
+
+
+    /**
+     * A public constructor creating an empty batch.
+     */
+    public PostingBatch() {
+        this.accountUUIDs = new String[INITIAL_CAPACITY];
+        this.amounts = new long[INITIAL_CAPACITY];
+        this.memos = new String[INITIAL_CAPACITY];
+        this.recordNumbers = new int[INITIAL_CAPACITY];
+        this.size = 0;
+        this.rejections = new ArrayList<BatchRejection>();
+    }
+
+
+    /**
+     * This method appends a posting to a batch.
+     *
+     * @param recordNumber A posting's record number.
+     * @param accountUUID  An account's UUID.
+     * @param amount       A signed amount (in cents).
+     * @param memo         A posting's description.
+     */
+    public void add(int recordNumber, String accountUUID, long amount, String memo) {
+
+        if (this.size == this.amounts.length) {
+            int newCapacity = this.amounts.length + (this.amounts.length >> 1);
+            this.accountUUIDs = Arrays.copyOf(this.accountUUIDs, newCapacity);
+            this.amounts = Arrays.copyOf(this.amounts, newCapacity);
+            this.memos = Arrays.copyOf(this.memos, newCapacity);
+            this.recordNumbers = Arrays.copyOf(this.recordNumbers, newCapacity);
+        }
+
+        this.accountUUIDs[this.size] = accountUUID;
+        this.amounts[this.size] = amount;
+        this.memos[this.size] = memo;
+        this.recordNumbers[this.size] = recordNumber;
+        ++this.size;
+    }
+
+
+    /**
+     * This method appends a posting to a batch (its record number is its position in the batch).
+     *
+     * @param accountUUID An account's UUID.
+     * @param amount      A signed amount (in cents).
+     * @param memo        A posting's description.
+     */
+    public void add(String accountUUID, long amount, String memo) {
+        this.add(this.size + this.rejections.size() + 1, accountUUID, amount, memo);
+    }
+
+
+    /**
+     * This method returns a number of postings.
+     *
+     * @return A number of postings.
+     */
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * This method returns a posting's account's UUID.
+     *
+     * @param idx A posting's position.
+     *
+     * @return An account's UUID.
+     */
+    public String getAccountUUID(int idx) {
+        return this.accountUUIDs[idx];
+    }
+
+
+    /**
+     * This method returns a posting's amount.
+     *
+     * @param idx A posting's position.
+     *
+     * @return A signed amount (in cents).
+     */
+    public long getAmount(int idx) {
+        return this.amounts[idx];
+    }
+
+
+    /**
+     * This method returns a posting's description.
+     *
+     * @param idx A posting's position.
+     *
+     * @return A posting's description.
+     */
+    public String getMemo(int idx) {
+        return this.memos[idx];
+    }
+
+
+    /**
+     * This method returns a posting's record number.
+     *
+     * @param idx A posting's position.
+     *
+     * @return A record number (counted from 1).
+     */
+    public int getRecordNumber(int idx) {
+        return this.recordNumbers[idx];
+    }
+
+
+    /**
+     * This method returns records rejected while a batch was read.
+     *
+     * @return Rejected records.
+     */
+    public List<BatchRejection> getRejections() {
+        return this.rejections;
+    }
+
+
+    /**
+     * This method reads a batch from a CSV file.
+     *
+     * @param file A CSV file.
+     *
+     * @return A batch.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static PostingBatch readCsv(Path file) throws IOException {
+        PostingBatch batch = new PostingBatch();
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = in.readLine()) != null) {
+                ++lineNumber;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int firstComma = line.indexOf(',');
+                int secondComma = firstComma < 0 ? -1 : line.indexOf(',', firstComma + 1);
+                if (firstComma < 0) {
+                    batch.rejections.add(new BatchRejection(lineNumber, line.trim(), 0, "Malformed record"));
+                    continue;
+                }
+
+                String accountUUID = line.substring(0, firstComma).trim();
+                String amountText = secondComma < 0
+                        ? line.substring(firstComma + 1)
+                        : line.substring(firstComma + 1, secondComma);
+                String memo = secondComma < 0 ? DEFAULT_MEMO : line.substring(secondComma + 1).trim();
+
+                long amount;
+                try {
+                    amount = Money.parse(amountText.trim());
+                } catch (NumberFormatException ex) {
+                    batch.rejections.add(new BatchRejection(lineNumber, accountUUID, 0, "Invalid amount"));
+                    continue;
+                }
+
+                batch.add(lineNumber, accountUUID, amount, memo.isEmpty() ? DEFAULT_MEMO : memo);
+            }
+        }
+
+        return batch;
+    }
+
+
+    /**
+     * This method reads a batch from a binary file.
+     *
+     * @param file A binary batch file.
+     *
+     * @return A batch.
+     *
+     * @throws IOException if the file cannot be read or is not a batch file.
+     */
+    public static PostingBatch readBinary(Path file) throws IOException {
+        PostingBatch batch = new PostingBatch();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a posting batch's file: " + file);
+            }
+
+            byte[] bytes = new byte[256];
+            int recordNumber = 0;
+
+            while (true) {
+                int uuidLength;
+                try {
+                    uuidLength = in.readUnsignedByte();
+                } catch (EOFException ex) {
+                    break;
+                }
+                ++recordNumber;
+
+                in.readFully(bytes, 0, uuidLength);
+                String accountUUID = new String(bytes, 0, uuidLength, StandardCharsets.US_ASCII);
+                long amount = in.readLong();
+
+                int memoLength = in.readUnsignedShort();
+                if (bytes.length < memoLength) {
+                    bytes = new byte[memoLength];
+                }
+                in.readFully(bytes, 0, memoLength);
+                String memo = memoLength == 0 ? DEFAULT_MEMO : new String(bytes, 0, memoLength, StandardCharsets.UTF_8);
+
+                batch.add(recordNumber, accountUUID, amount, memo);
+            }
+        }
+
+        return batch;
+    }
+
+
+    /**
+     * This method writes a batch's postings to a binary file.
+     *
+     * @param file A binary batch file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeBinary(Path file) throws IOException {
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            for (int p = 0; p < this.size; ++p) {
+                out.writeByte(this.accountUUIDs[p].length());
+                out.writeBytes(this.accountUUIDs[p]);
+                out.writeLong(this.amounts[p]);
+
+                byte[] memo = this.memos[p].getBytes(StandardCharsets.UTF_8);
+                if (memo.length > 0xFFFF) {
+                    memo = Arrays.copyOf(memo, 0xFFFF);
+                }
+                out.writeShort(memo.length);
+                out.write(memo);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * A fork-join task applying partitions of a batch of postings (see Bank.postBatch).
+ *
+ * All postings of an account belong to the same partition and a partition is applied by one thread
+ * in a batch's order, so postings of an account keep their order while partitions run in parallel.
+ * A partition waits for the journal once, after its last posting.
+ */
+public class PostingBatchTask extends RecursiveTask<BatchReport> {
+
+    /**
+     * A serialization's version (a task is never serialized).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A bank the postings are applied to.
+     */
+    private Bank bank;
+
+    /**
+     * A batch of postings.
+     */
+    private PostingBatch batch;
+
+    /**
+     * Partitions: positions of a partition's postings in a batch (in a batch's order).
+     */
+    private int[][] partitions;
+
+    /**
+     * The first partition applied by the task.
+     */
+    private int fromPartition;
+
+    /**
+     * A partition after the last partition applied by the task.
+     */
+    private int toPartition;
+
+
+    /**
+     * A public constructor creating a task applying a range of partitions.
+     *
+     * @param bank          A bank the postings are applied to.
+     * @param batch         A batch of postings.
+     * @param partitions    Positions of partitions' postings in a batch.
+     * @param fromPartition The first partition applied by the task.
+     * @param toPartition   A partition after the last partition applied by the task.
+     */
+    public PostingBatchTask(Bank bank, PostingBatch batch, int[][] partitions, int fromPartition, int toPartition) {
+        this.bank = bank;
+        this.batch = batch;
+        this.partitions = partitions;
+        this.fromPartition = fromPartition;
+        this.toPartition = toPartition;
+    }
+
+
+    /**
+     * This method applies the task's partitions (splitting them in halves between forked tasks).
+     *
+     * @return A report of the task's partitions.
+     */
+    @Override
+    protected BatchReport compute() {
+        if (this.toPartition - this.fromPartition == 1) {
+            return this.applyPartition(this.partitions[this.fromPartition]);
+        }
+
+        int middle = (this.fromPartition + this.toPartition) >>> 1;
+        PostingBatchTask left = new PostingBatchTask(this.bank, this.batch, this.partitions, this.fromPartition, middle);
+        PostingBatchTask right = new PostingBatchTask(this.bank, this.batch, this.partitions, middle, this.toPartition);
+
+        left.fork();
+        BatchReport report = right.compute();
+
+        return left.join().merge(report);
+    }
+
+
+    /**
+     * This method applies a partition's postings in order.
+     *
+     * @param postings Positions of a partition's postings in a batch.
+     *
+     * @return A report of a partition.
+     */
+    private BatchReport applyPartition(int[] postings) {
+        BatchReport report = new BatchReport();
+        PostingEngine engine = this.bank.getPostingEngine();
+        long lastSequence = 0;
+
+        for (int p : postings) {
+            String accountUUID = this.batch.getAccountUUID(p);
+            long amount = this.batch.getAmount(p);
+
+            Account account = this.bank.getAccount(accountUUID);
+            if (account == null) {
+                report.addRejection(new BatchRejection(this.batch.getRecordNumber(p), accountUUID, amount,
+                        "Unknown account"));
+                continue;
+            }
+            if (amount == 0) {
+                report.addRejection(new BatchRejection(this.batch.getRecordNumber(p), accountUUID, amount,
+                        "Amount must not be zero"));
+                continue;
+            }
+
+            long sequence = engine.post(account, amount, this.batch.getMemo(p));
+            if (sequence == PostingEngine.REJECTED) {
+                report.addRejection(new BatchRejection(this.batch.getRecordNumber(p), accountUUID, amount,
+                        "Insufficient funds"));
+                continue;
+            }
+
+            report.addApplied();
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+
+        // journal's sequences are global, so the last one covers all the partition's postings
+        this.bank.awaitDurable(lastSequence);
+
+        return report;
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A class posting transactions to a bank's accounts safely from many threads.
+ *
+ * Accounts are guarded by a fixed pool of striped locks (an account always uses the same stripe),
+ * so postings to different accounts mostly run in parallel. A transfer locks stripes of both its
+ * accounts in ascending stripe's order, so concurrent transfers never deadlock.
+ */
+public class PostingEngine {
+
+    /**
+     * A default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPES = 1024;
+
+    /**
+     * A result of the post method for a withdrawal exceeding an account's balance.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * A bank whose accounts are posted to.
+     */
+    private Bank bank;
+
+    /**
+     * Lock stripes.
+     */
+    private ReentrantLock[] stripes;
+
+    /**
+     * A counter used to assign stripes to new accounts (round robin).
+     */
+    private AtomicInteger nextStripe;
+
+
+    /**
+     * A public constructor creating a posting engine with a default number of lock stripes.
+     *
+     * @param bank A bank whose accounts are posted to.
+     */
+    public PostingEngine(Bank bank) {
+        this(bank, DEFAULT_STRIPES);
+    }
+
+
+    /**
+     * A public constructor creating a posting engine.
+     *
+     * @param bank            A bank whose accounts are posted to.
+     * @param numberOfStripes A number of lock stripes (rounded up to a power of 2).
+     */
+    public PostingEngine(Bank bank, int numberOfStripes) {
+        if (numberOfStripes < 1) {
+            throw new IllegalArgumentException("A number of stripes must be positive");
+        }
+
+        int size = Integer.highestOneBit(numberOfStripes);
+        if (size < numberOfStripes) {
+            size <<= 1;
+        }
+
+        this.bank = bank;
+        this.stripes = new ReentrantLock[size];
+        for (int s = 0; s < size; ++s) {
+            this.stripes[s] = new ReentrantLock();
+        }
+        this.nextStripe = new AtomicInteger();
+    }
+
+
+    /**
+     * This method assigns a lock stripe to a new account.
+     *
+     * @return A lock stripe's number.
+     */
+    public int assignStripe() {
+        return this.nextStripe.getAndIncrement() & (this.stripes.length - 1);
+    }
+
+
+    /**
+     * This method returns a lock guarding a given account.
+     *
+     * @param account An account.
+     *
+     * @return A lock guarding an account.
+     */
+    public ReentrantLock getLock(Account account) {
+        return this.stripes[account.getLockStripe()];
+    }
+
+
+    /**
+     * This method deposits funds to an account.
+     *
+     * @param account An account.
+     * @param amount  A positive amount (in cents).
+     * @param memo    An optional transaction's description.
+     */
+    public void deposit(Account account, long amount, String memo) {
+        PostingEngine.checkAmount(amount);
+
+        BankMetrics metrics = this.bank.getMetrics();
+        long start = metrics.start();
+
+        account.addTransaction(amount, memo);
+
+        metrics.stop(BankOperation.DEPOSIT, start);
+    }
+
+
+    /**
+     * This method withdraws funds from an account if its balance covers them
+     * (the balance's check and the debit are atomic).
+     *
+     * @param account An account.
+     * @param amount  A positive amount (in cents).
+     * @param memo    An optional transaction's description.
+     *
+     * @return true if funds are withdrawn, false if an account's balance is insufficient.
+     */
+    public boolean withdraw(Account account, long amount, String memo) {
+        PostingEngine.checkAmount(amount);
+
+        BankMetrics metrics = this.bank.getMetrics();
+        long start = metrics.start();
+
+        boolean isWithdrawn = this.postWithdrawal(account, amount, memo);
+
+        metrics.stop(BankOperation.WITHDRAW, start, isWithdrawn);
+        return isWithdrawn;
+    }
+
+
+    /**
+     * This method withdraws funds from an account if its balance covers them (see withdraw).
+     *
+     * @param account An account.
+     * @param amount  A positive amount (in cents).
+     * @param memo    An optional transaction's description.
+     *
+     * @return true if funds are withdrawn, false if an account's balance is insufficient.
+     */
+    private boolean postWithdrawal(Account account, long amount, String memo) {
+        long sequence;
+
+        ReentrantLock lock = this.getLock(account);
+        lock.lock();
+        try {
+            if (account.getBalance() < amount) {
+                return false;
+            }
+
+            sequence = account.appendTransaction(-amount, memo);
+        } finally {
+            lock.unlock();
+        }
+
+        // acknowledge after the journal is durable, but without holding the account's lock
+        this.bank.awaitDurable(sequence);
+        return true;
+    }
+
+
+    /**
+     * This method transfers funds between two accounts if a source account's balance covers them
+     * (the balance's check and both legs of a transfer are atomic).
+     *
+     * @param source     A source account.
+     * @param target     A target account.
+     * @param amount     A positive amount (in cents).
+     * @param sourceMemo A description of a source account's transaction.
+     * @param targetMemo A description of a target account's transaction.
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     */
+    public boolean transfer(Account source, Account target, long amount, String sourceMemo, String targetMemo) {
+        MemoDictionary dictionary = this.bank.getMemoDictionary();
+
+        return this.transfer(source, target, amount, dictionary.encode(sourceMemo), sourceMemo,
+                dictionary.encode(targetMemo), targetMemo);
+    }
+
+
+    /**
+     * This method transfers funds between two accounts with encoded descriptions (see MemoDictionary)
+     * if a source account's balance covers them (the balance's check and both legs of a transfer are atomic).
+     *
+     * @param source         A source account.
+     * @param target         A target account.
+     * @param amount         A positive amount (in cents).
+     * @param sourceMemoCode A code of a description of a source account's transaction.
+     * @param targetMemoCode A code of a description of a target account's transaction.
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     */
+    public boolean transfer(Account source, Account target, long amount, long sourceMemoCode, long targetMemoCode) {
+        if (sourceMemoCode == MemoDictionary.UNSHARED_MEMO || targetMemoCode == MemoDictionary.UNSHARED_MEMO) {
+            throw new IllegalArgumentException("An unshared memo's code needs the memo's text");
+        }
+
+        return this.transfer(source, target, amount, sourceMemoCode, null, targetMemoCode, null);
+    }
+
+
+    /**
+     * This method transfers funds between two accounts with encoded descriptions and their texts
+     * if a source account's balance covers them (see transfer).
+     *
+     * @param source         A source account.
+     * @param target         A target account.
+     * @param amount         A positive amount (in cents).
+     * @param sourceMemoCode A code of a description of a source account's transaction.
+     * @param sourceMemo     A description of a source account's transaction (null - it is decoded when needed).
+     * @param targetMemoCode A code of a description of a target account's transaction.
+     * @param targetMemo     A description of a target account's transaction (null - it is decoded when needed).
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     */
+    private boolean transfer(Account source, Account target, long amount, long sourceMemoCode, String sourceMemo,
+                             long targetMemoCode, String targetMemo) {
+        PostingEngine.checkAmount(amount);
+        if (source == target) {
+            throw new IllegalArgumentException("Source account and target account have to be different");
+        }
+
+        BankMetrics metrics = this.bank.getMetrics();
+        long start = metrics.start();
+
+        boolean isTransferred = this.postTransfer(source, target, amount, sourceMemoCode, sourceMemo,
+                targetMemoCode, targetMemo);
+
+        metrics.stop(BankOperation.TRANSFER, start, isTransferred);
+        return isTransferred;
+    }
+
+
+    /**
+     * This method transfers funds between two accounts if a source account's balance covers them (see transfer).
+     *
+     * @param source         A source account.
+     * @param target         A target account.
+     * @param amount         A positive amount (in cents).
+     * @param sourceMemoCode A code of a description of a source account's transaction.
+     * @param sourceMemo     A description of a source account's transaction (it may be null).
+     * @param targetMemoCode A code of a description of a target account's transaction.
+     * @param targetMemo     A description of a target account's transaction (it may be null).
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     */
+    private boolean postTransfer(Account source, Account target, long amount, long sourceMemoCode, String sourceMemo,
+                                 long targetMemoCode, String targetMemo) {
+
+        int sourceStripe = source.getLockStripe();
+        int targetStripe = target.getLockStripe();
+
+        // lock stripes in ascending order (a stripe shared by both accounts is locked once)
+        ReentrantLock first = this.stripes[Math.min(sourceStripe, targetStripe)];
+        ReentrantLock second = this.stripes[Math.max(sourceStripe, targetStripe)];
+
+        long sequence;
+
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                if (source.getBalance() < amount) {
+                    return false;
+                }
+
+                // both legs are journaled as one record before either is applied
+                sequence = source.appendTransfer(target, amount, sourceMemoCode, sourceMemo, targetMemoCode,
+                        targetMemo);
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+
+        this.bank.awaitDurable(sequence);
+        return true;
+    }
+
+
+    /**
+     * This method posts a signed amount to an account (a deposit if positive, a withdrawal if negative,
+     * made only if the account's balance covers it) without waiting for the journal, so a batch of postings
+     * can be acknowledged at once with Bank.awaitDurable.
+     *
+     * @param account An account.
+     * @param amount  A non-zero signed amount (in cents).
+     * @param memo    A transaction's description.
+     *
+     * @return A journal record's sequence number (0 - no journal) or REJECTED if the account's balance is insufficient.
+     */
+    public long post(Account account, long amount, String memo) {
+        if (amount == 0) {
+            throw new IllegalArgumentException("Amount must not be zero");
+        }
+
+        ReentrantLock lock = this.getLock(account);
+        lock.lock();
+        try {
+            if (amount < 0 && account.getBalance() < -amount) {
+                return REJECTED;
+            }
+
+            return account.appendTransaction(amount, memo);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method checks whether an amount of a posting is positive.
+     *
+     * @param amount An amount (in cents).
+     */
+    private static void checkAmount(long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * A class defining a slot of a posting events' ring (see PostingEventRing): one posting applied to an account.
+ *
+ * Slots are allocated once with the ring and overwritten by later postings, so an event is valid only
+ * while a consumer's handler processes it (see PostingEventHandler); a consumer copies what it keeps.
+ */
+public class PostingEvent {
+
+    /**
+     * A dictionary of postings' memos.
+     */
+    private final MemoDictionary dictionary;
+
+    /**
+     * An event's sequence number (0 - the ring's first event).
+     */
+    private long sequence;
+
+    /**
+     * A UUID of a posting's account.
+     */
+    private String accountsUUID;
+
+    /**
+     * A posting's amount (in cents).
+     */
+    private long amount;
+
+    /**
+     * A posting's timestamp (milliseconds since the epoch).
+     */
+    private long timestamp;
+
+    /**
+     * A code of a posting's description (see MemoDictionary).
+     */
+    private long memoCode;
+
+    /**
+     * A posting's description if its memo is not interned (null otherwise).
+     */
+    private String unsharedMemo;
+
+    /**
+     * An account's balance after the posting (in cents).
+     */
+    private long balance;
+
+
+    /**
+     * A public constructor creating an empty slot.
+     *
+     * @param dictionary A dictionary of postings' memos.
+     */
+    public PostingEvent(MemoDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.sequence = -1;
+    }
+
+
+    /**
+     * This method fills a slot with a new posting (the publisher owns the slot until it is published).
+     *
+     * @param sequence     An event's sequence number.
+     * @param accountsUUID A UUID of a posting's account.
+     * @param amount       A posting's amount (in cents).
+     * @param timestamp    A posting's timestamp (milliseconds since the epoch).
+     * @param memoCode     A code of a posting's description.
+     * @param unsharedMemo A posting's description if a code is MemoDictionary.UNSHARED_MEMO (null otherwise).
+     * @param balance      An account's balance after the posting (in cents).
+     */
+    void set(long sequence, String accountsUUID, long amount, long timestamp, long memoCode, String unsharedMemo,
+             long balance) {
+        this.sequence = sequence;
+        this.accountsUUID = accountsUUID;
+        this.amount = amount;
+        this.timestamp = timestamp;
+        this.memoCode = memoCode;
+        this.unsharedMemo = unsharedMemo;
+        this.balance = balance;
+    }
+
+
+    /**
+     * This method returns an event's sequence number.
+     *
+     * @return An event's sequence number (0 - the ring's first event).
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+
+    /**
+     * This method returns a UUID of a posting's account.
+     *
+     * @return A UUID of a posting's account.
+     */
+    public String getAccountsUUID() {
+        return this.accountsUUID;
+    }
+
+
+    /**
+     * This method returns a posting's amount.
+     *
+     * @return A posting's amount (in cents; negative - a withdrawal or an outgoing transfer).
+     */
+    public long getAmount() {
+        return this.amount;
+    }
+
+
+    /**
+     * This method returns a posting's timestamp.
+     *
+     * @return A posting's timestamp (milliseconds since the epoch).
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+
+    /**
+     * This method returns a code of a posting's description.
+     *
+     * @return A code of a posting's description (see MemoDictionary; UNSHARED_MEMO - see getMemo).
+     */
+    public long getMemoCode() {
+        return this.memoCode;
+    }
+
+
+    /**
+     * This method returns a posting's description (decoded from its code).
+     *
+     * @return A posting's description (null if it has none).
+     */
+    public String getMemo() {
+        return this.dictionary.decode(this.memoCode, this.unsharedMemo);
+    }
+
+
+    /**
+     * This method appends a posting's description to a builder (without temporary objects for templated memos).
+     *
+     * @param to A builder a description is appended to.
+     *
+     * @return A given builder.
+     */
+    public StringBuilder appendMemo(StringBuilder to) {
+        return this.dictionary.appendTo(to, this.memoCode, this.unsharedMemo);
+    }
+
+
+    /**
+     * This method returns an account's balance after the posting.
+     *
+     * @return An account's balance after the posting (in cents).
+     */
+    public long getBalance() {
+        return this.balance;
+    }
+}
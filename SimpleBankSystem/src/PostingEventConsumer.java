@@ -0,0 +1,268 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A class defining a consumer of a posting events' ring (see PostingEventRing.addConsumer).
+ *
+ * A consumer reads events in sequence order, in batches of all events published since its previous poll
+ * (up to a given number), and records its progress once per batch, which frees the batch's slots
+ * for publishers. A consumer is polled by one thread at a time; consumers are independent of each other,
+ * and only the slowest one holds publishers back. A consumer which holds a publisher back longer than
+ * the ring's maximal wait is detached: its slots are reused, and its polls throw IllegalStateException.
+ */
+public class PostingEventConsumer {
+
+    /**
+     * A number of a waiting consumer's spins before it parks.
+     */
+    private static final int CONSUMER_SPINS = 128;
+
+    /**
+     * The longest time a waiting consumer parks for between polls (in nanoseconds).
+     */
+    private static final long CONSUMER_PARK_NANOS = 50_000;
+
+    /**
+     * A ring the consumer reads.
+     */
+    private final PostingEventRing ring;
+
+    /**
+     * A consumer's name.
+     */
+    private final String name;
+
+    /**
+     * The last consumed sequence number (-1 - none). It is written by the consumer's thread
+     * and read by publishers.
+     */
+    private volatile long sequence;
+
+    /**
+     * A number of consumed events (written by the consumer's thread).
+     */
+    private long numberOfEvents;
+
+    /**
+     * A number of consumed batches (written by the consumer's thread).
+     */
+    private long numberOfBatches;
+
+    /**
+     * A thread polling the consumer (null - it is not being polled).
+     */
+    private volatile Thread pollingThread;
+
+    /**
+     * true if the ring has detached the consumer (its events are dropped).
+     */
+    private volatile boolean isDetached;
+
+
+    /**
+     * A constructor creating a consumer (see PostingEventRing.addConsumer).
+     *
+     * @param ring A ring the consumer reads.
+     * @param name A consumer's name.
+     */
+    PostingEventConsumer(PostingEventRing ring, String name) {
+        this.ring = ring;
+        this.name = name;
+        this.sequence = -1;
+        this.numberOfEvents = 0;
+        this.numberOfBatches = 0;
+        this.pollingThread = null;
+        this.isDetached = false;
+    }
+
+
+    /**
+     * This method handles a batch of published events (without waiting).
+     *
+     * @param handler   A handler of events.
+     * @param maxEvents The maximal number of batch's events.
+     *
+     * @return A number of handled events (0 - no new event is published).
+     *
+     * @throws IllegalStateException if the ring has detached the consumer.
+     */
+    public int poll(PostingEventHandler handler, int maxEvents) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("A batch must have at least one event");
+        }
+        this.checkAttached();
+
+        long first = this.sequence + 1;
+        long last = first - 1;
+        while (last - first + 1 < maxEvents && this.ring.isPublished(last + 1)) {
+            ++last;
+        }
+        if (last < first) {
+            return 0;
+        }
+
+        long handled = first - 1;
+        this.pollingThread = Thread.currentThread();
+        try {
+            for (long s = first; s <= last; ++s) {
+                // a detached consumer's slots may be reused at any time
+                this.checkAttached();
+                handler.onEvent(this.ring.getEvent(s), s == last);
+                handled = s;
+            }
+        } finally {
+            this.pollingThread = null;
+            // a single write per batch frees the batch's slots for publishers
+            this.sequence = handled;
+            if (handled >= first) {
+                this.numberOfEvents += handled - first + 1;
+                ++this.numberOfBatches;
+            }
+        }
+
+        return (int) (last - first + 1);
+    }
+
+
+    /**
+     * This method handles a batch of published events, waiting (spinning briefly, then parking)
+     * up to a given time for the first one.
+     *
+     * @param handler   A handler of events.
+     * @param maxEvents The maximal number of batch's events.
+     * @param timeout   The longest time to wait.
+     * @param unit      A unit of the time.
+     *
+     * @return A number of handled events (0 - no event is published in time).
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws IllegalStateException if the ring has detached the consumer.
+     */
+    public int poll(PostingEventHandler handler, int maxEvents, long timeout, TimeUnit unit)
+            throws InterruptedException {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (int spins = 0; ; ++spins) {
+            int handled = this.poll(handler, maxEvents);
+            if (handled > 0) {
+                return handled;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return 0;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (spins < CONSUMER_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(Math.min(remaining, CONSUMER_PARK_NANOS));
+            }
+        }
+    }
+
+
+    /**
+     * This method closes the consumer: publishers no longer wait for it, and it must not be polled again.
+     */
+    public void close() {
+        this.ring.removeConsumer(this);
+    }
+
+
+    /**
+     * This method checks whether the ring has detached the consumer.
+     *
+     * @return true if the consumer is detached (its events are dropped), false otherwise.
+     */
+    public boolean isDetached() {
+        return this.isDetached;
+    }
+
+
+    /**
+     * This method detaches the consumer (see PostingEventRing), so its polls throw.
+     */
+    void detach() {
+        this.isDetached = true;
+    }
+
+
+    /**
+     * This method checks whether a given thread is polling the consumer (see PostingEventRing.checkPublisher).
+     *
+     * @param thread A thread.
+     *
+     * @return true if the thread is polling the consumer, false otherwise.
+     */
+    boolean isPolledBy(Thread thread) {
+        return this.pollingThread == thread;
+    }
+
+
+    /**
+     * This method checks that the ring has not detached the consumer.
+     *
+     * @throws IllegalStateException if the consumer is detached.
+     */
+    private void checkAttached() {
+        if (this.isDetached) {
+            throw new IllegalStateException("Consumer " + this.name + " fell a whole ring behind and was detached");
+        }
+    }
+
+
+    /**
+     * This method returns a consumer's name.
+     *
+     * @return A consumer's name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+
+    /**
+     * This method returns the last consumed sequence number.
+     *
+     * @return The last consumed sequence number (-1 - none).
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+
+    /**
+     * This method returns a number of events published but not consumed yet.
+     *
+     * @return A consumer's lag (in events).
+     */
+    public long getLag() {
+        return Math.max(0, this.ring.getLastSequence() - this.sequence);
+    }
+
+
+    /**
+     * This method returns a number of consumed events (read by the consumer's thread).
+     *
+     * @return A number of consumed events.
+     */
+    public long getNumberOfEvents() {
+        return this.numberOfEvents;
+    }
+
+
+    /**
+     * This method returns a number of consumed batches (read by the consumer's thread).
+     *
+     * @return A number of consumed batches.
+     */
+    public long getNumberOfBatches() {
+        return this.numberOfBatches;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * An interface of a handler of posting events read by a consumer of a posting events' ring
+ * (see PostingEventConsumer.poll).
+ */
+public interface PostingEventHandler {
+
+    /**
+     * This method is called for every event of a consumer's batch, in sequence order. An event is valid
+     * only until the method returns (its slot is reused by later postings). If the method throws,
+     * the consumer stops before the event and delivers it again by its next poll.
+     *
+     * @param event      A posting event.
+     * @param endOfBatch true if it is the batch's last event (e.g. a moment to flush a buffered output).
+     */
+    void onEvent(PostingEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,371 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A class defining a ring buffer of posting events: every posting applied to a bank's account
+ * (see Account.addTransaction) is published to the ring with a sequence number, and independent consumers
+ * (e.g. an audit, notifications or an export of the journal; see PostingEventConsumer) read it
+ * in batches at their own pace.
+ *
+ * Events' slots are allocated once, so publishing does not allocate: a publisher claims a sequence number,
+ * fills the sequence's slot and marks the slot published with the sequence's round. Postings of an account
+ * are published under the account's lock, so they are in posting order. A publisher waits (back-pressure)
+ * while a slot is still needed by the slowest consumer, i.e. while it is a whole ring behind.
+ *
+ * A waiting publisher holds accounts' locks (and so holds up other postings and a bank's snapshot), so it waits
+ * up to a ring's maximal wait only: consumers still a whole ring behind then are detached (their events
+ * are dropped, and their next poll throws), and they are counted by getNumberOfDetachedConsumers.
+ * Consumers must be added before the first event is published, and they must not post to the bank
+ * (a posting from a thread polling a consumer is rejected before it is applied, see checkPublisher).
+ */
+public class PostingEventRing {
+
+    /**
+     * A default number of ring's slots.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    /**
+     * A default longest time a publisher waits for consumers (in milliseconds).
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 1_000;
+
+    /**
+     * A number of a waiting publisher's spins before it parks.
+     */
+    private static final int PUBLISHER_SPINS = 128;
+
+    /**
+     * A time a waiting publisher parks for between checks of consumers (in nanoseconds).
+     */
+    private static final long PUBLISHER_PARK_NANOS = 10_000;
+
+    /**
+     * A handle of publishedRounds' elements.
+     */
+    private static final VarHandle PUBLISHED_ROUNDS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Consumers of a ring without consumers.
+     */
+    private static final PostingEventConsumer[] NO_CONSUMERS = new PostingEventConsumer[0];
+
+    /**
+     * Events' slots (a sequence's slot is events[sequence &amp; mask]).
+     */
+    private final PostingEvent[] events;
+
+    /**
+     * Rounds (sequence &gt;&gt;&gt; shift) of events published in slots (-1 - none yet).
+     */
+    private final int[] publishedRounds;
+
+    /**
+     * A mask of a sequence's slot's position.
+     */
+    private final int mask;
+
+    /**
+     * A binary logarithm of a number of slots.
+     */
+    private final int shift;
+
+    /**
+     * The last claimed sequence number (-1 - none).
+     */
+    private final AtomicLong claimedSequence;
+
+    /**
+     * Ring's consumers (the array is replaced, never modified, when a consumer is added or closed).
+     */
+    private volatile PostingEventConsumer[] consumers;
+
+    /**
+     * The last known sequence consumed by all consumers (publishers check consumers only beyond it).
+     */
+    private volatile long consumedByAll;
+
+    /**
+     * A number of publications which waited for consumers.
+     */
+    private final AtomicLong stalls;
+
+    /**
+     * The longest time a publisher waits for consumers (in nanoseconds).
+     */
+    private final long maxWaitNanos;
+
+    /**
+     * A number of consumers detached because a publisher waited for them too long.
+     */
+    private final AtomicLong detachedConsumers;
+
+
+    /**
+     * A public constructor creating a ring with a default number of slots.
+     *
+     * @param dictionary A dictionary of postings' memos (the bank's one).
+     */
+    public PostingEventRing(MemoDictionary dictionary) {
+        this(dictionary, DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * A public constructor creating a ring with a default publisher's maximal wait.
+     *
+     * @param dictionary A dictionary of postings' memos (the bank's one).
+     * @param capacity   A number of ring's slots (a power of two, at least 2).
+     */
+    public PostingEventRing(MemoDictionary dictionary, int capacity) {
+        this(dictionary, capacity, DEFAULT_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * A public constructor creating a ring.
+     *
+     * @param dictionary A dictionary of postings' memos (the bank's one).
+     * @param capacity   A number of ring's slots (a power of two, at least 2).
+     * @param maxWait    The longest time a publisher waits for consumers before it detaches the ones behind.
+     * @param unit       A unit of the time.
+     */
+    public PostingEventRing(MemoDictionary dictionary, int capacity, long maxWait, TimeUnit unit) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("A ring's capacity must be a power of two (at least 2)");
+        }
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("A publisher's maximal wait must not be negative");
+        }
+
+        this.events = new PostingEvent[capacity];
+        for (int e = 0; e < capacity; ++e) {
+            this.events[e] = new PostingEvent(dictionary);
+        }
+        this.publishedRounds = new int[capacity];
+        Arrays.fill(this.publishedRounds, -1);
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.claimedSequence = new AtomicLong(-1);
+        this.consumers = NO_CONSUMERS;
+        this.consumedByAll = -1;
+        this.stalls = new AtomicLong();
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.detachedConsumers = new AtomicLong();
+    }
+
+
+    /**
+     * This method adds a new consumer, which reads events from the ring's first one.
+     *
+     * @param name A consumer's name.
+     *
+     * @return A new consumer.
+     *
+     * @throws IllegalStateException if an event has been published already.
+     */
+    public synchronized PostingEventConsumer addConsumer(String name) {
+        if (this.claimedSequence.get() >= 0) {
+            throw new IllegalStateException("Consumers must be added before the first event is published");
+        }
+
+        PostingEventConsumer consumer = new PostingEventConsumer(this, name);
+        PostingEventConsumer[] newConsumers = Arrays.copyOf(this.consumers, this.consumers.length + 1);
+        newConsumers[this.consumers.length] = consumer;
+        this.consumers = newConsumers;
+
+        return consumer;
+    }
+
+
+    /**
+     * This method removes a closed consumer (publishers no longer wait for it).
+     *
+     * @param consumer A consumer.
+     */
+    synchronized void removeConsumer(PostingEventConsumer consumer) {
+        PostingEventConsumer[] newConsumers = new PostingEventConsumer[this.consumers.length];
+        int size = 0;
+        for (PostingEventConsumer other : this.consumers) {
+            if (other != consumer) {
+                newConsumers[size++] = other;
+            }
+        }
+
+        this.consumers = Arrays.copyOf(newConsumers, size);
+    }
+
+
+    /**
+     * This method checks that the current thread may publish, i.e. that it is not polling a ring's consumer
+     * (such a publisher could wait for itself). It is called before a posting is applied.
+     *
+     * @throws IllegalStateException if the current thread is polling a ring's consumer.
+     */
+    public void checkPublisher() {
+        Thread thread = Thread.currentThread();
+        for (PostingEventConsumer consumer : this.consumers) {
+            if (consumer.isPolledBy(thread)) {
+                throw new IllegalStateException("A consumer of posting events (" + consumer.getName()
+                        + ") must not post to the bank");
+            }
+        }
+    }
+
+
+    /**
+     * This method publishes a posting (without allocating); it waits while the posting's slot is still needed
+     * by a consumer (up to the ring's maximal wait, see awaitConsumers).
+     *
+     * @param accountsUUID A UUID of a posting's account.
+     * @param amount       A posting's amount (in cents).
+     * @param timestamp    A posting's timestamp (milliseconds since the epoch).
+     * @param memoCode     A code of a posting's description.
+     * @param unsharedMemo A posting's description if a code is MemoDictionary.UNSHARED_MEMO (null otherwise).
+     * @param balance      An account's balance after the posting (in cents).
+     *
+     * @return An event's sequence number.
+     */
+    public long publish(String accountsUUID, long amount, long timestamp, long memoCode, String unsharedMemo,
+                        long balance) {
+        long sequence = this.claimedSequence.incrementAndGet();
+
+        // the slot was used by the event a whole ring before, which all consumers must have read
+        long wrapSequence = sequence - this.events.length;
+        if (wrapSequence > this.consumedByAll) {
+            this.awaitConsumers(wrapSequence);
+        }
+
+        int slot = (int) sequence & this.mask;
+        this.events[slot].set(sequence, accountsUUID, amount, timestamp, memoCode, unsharedMemo, balance);
+        PUBLISHED_ROUNDS.setRelease(this.publishedRounds, slot, (int) (sequence >>> this.shift));
+
+        return sequence;
+    }
+
+
+    /**
+     * This method checks whether an event is published.
+     *
+     * @param sequence An event's sequence number.
+     *
+     * @return true if the event is published (and its slot holds it), false otherwise.
+     */
+    boolean isPublished(long sequence) {
+        return (int) PUBLISHED_ROUNDS.getAcquire(this.publishedRounds, (int) sequence & this.mask)
+                == (int) (sequence >>> this.shift);
+    }
+
+
+    /**
+     * This method returns a slot of an event (the caller checked that it is published).
+     *
+     * @param sequence An event's sequence number.
+     *
+     * @return An event's slot.
+     */
+    PostingEvent getEvent(long sequence) {
+        return this.events[(int) sequence & this.mask];
+    }
+
+
+    /**
+     * This method returns a number of ring's slots.
+     *
+     * @return A number of ring's slots.
+     */
+    public int getCapacity() {
+        return this.events.length;
+    }
+
+
+    /**
+     * This method returns the last claimed sequence number (its event may be still being published).
+     *
+     * @return The last claimed sequence number (-1 - no event has been published).
+     */
+    public long getLastSequence() {
+        return this.claimedSequence.get();
+    }
+
+
+    /**
+     * This method returns a number of publications which waited for consumers (back-pressure's stalls).
+     *
+     * @return A number of stalled publications.
+     */
+    public long getNumberOfStalls() {
+        return this.stalls.get();
+    }
+
+
+    /**
+     * This method returns a number of consumers detached because a publisher waited for them too long.
+     *
+     * @return A number of detached consumers.
+     */
+    public long getNumberOfDetachedConsumers() {
+        return this.detachedConsumers.get();
+    }
+
+
+    /**
+     * This method waits until all consumers have read a given event (spinning briefly, then parking),
+     * up to the ring's maximal wait; consumers which have not read it by then are detached.
+     *
+     * @param wrapSequence An event's sequence number.
+     */
+    private void awaitConsumers(long wrapSequence) {
+        boolean isStalled = false;
+        long deadline = 0;
+
+        for (int spins = 0; ; ++spins) {
+            long minimum = Long.MAX_VALUE;
+            for (PostingEventConsumer consumer : this.consumers) {
+                minimum = Math.min(minimum, consumer.getSequence());
+            }
+
+            if (minimum >= wrapSequence) {
+                this.consumedByAll = minimum;
+                return;
+            }
+
+            if (!isStalled) {
+                isStalled = true;
+                this.stalls.incrementAndGet();
+                deadline = System.nanoTime() + this.maxWaitNanos;
+            } else if (System.nanoTime() - deadline >= 0) {
+                this.detachConsumersBehind(wrapSequence);
+                continue;
+            }
+            if (spins < PUBLISHER_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PUBLISHER_PARK_NANOS);
+            }
+        }
+    }
+
+
+    /**
+     * This method detaches consumers which have not read a given event yet (publishers no longer wait for them).
+     *
+     * @param wrapSequence An event's sequence number.
+     */
+    private synchronized void detachConsumersBehind(long wrapSequence) {
+        for (PostingEventConsumer consumer : this.consumers) {
+            if (consumer.getSequence() < wrapSequence) {
+                consumer.detach();
+                this.removeConsumer(consumer);
+                this.detachedConsumers.incrementAndGet();
+                System.err.println("error, posting events' consumer " + consumer.getName()
+                        + " fell a whole ring behind and was detached");
+            }
+        }
+    }
+}
@@ -0,0 +1,947 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+
+/**
+ * A class defining an append-only write-ahead journal of postings, written through a FileChannel.
+ *
+ * A posting is appended to the journal before it is applied to its account and acknowledged after
+ * the journal is durable according to the journal's JournalDurability mode.
+ *
+ * A file starts with a header (int magic, int version) followed by records:
+ * <pre>
+ * int   length of a record's type and body
+ * byte  record's type (RECORD_POSTING, RECORD_USER, RECORD_ACCOUNT, RECORD_ACCRUAL or RECORD_TRANSFER)
+ *       body, e.g. of a posting:
+ *       byte  account's UUID length, UUID's ASCII digits
+ *       long  amount (in cents)
+ *       long  timestamp (milliseconds since the epoch)
+ *       short memo's length, memo's UTF-8 bytes
+ * int   CRC32 of the record's type and body
+ * </pre>
+ * Users' and accounts' records let a bank be rebuilt from the journal (see BankSnapshot).
+ * An interest accrual's record is a posting's record with an accrual's day (int, days since the epoch)
+ * before its amount, so an account's interest and its accrual's mark are journaled (and replayed) at once.
+ * A transfer's record holds both legs (source's and target's UUIDs, an amount, each leg's timestamp
+ * and each leg's memo), so a replayed journal has either both legs of a transfer or neither.
+ */
+public class PostingJournal implements Closeable {
+
+    /**
+     * A journal file's magic number ("SBSJ").
+     */
+    public static final int MAGIC = 0x5342534A;
+
+    /**
+     * A journal file's format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * A size of a journal file's header.
+     */
+    public static final int HEADER_SIZE = 8;
+
+    /**
+     * A type of a posting's record.
+     */
+    public static final byte RECORD_POSTING = 1;
+
+    /**
+     * A type of a new user's record.
+     */
+    public static final byte RECORD_USER = 2;
+
+    /**
+     * A type of a new account's record.
+     */
+    public static final byte RECORD_ACCOUNT = 3;
+
+    /**
+     * A type of an interest accrual's record (an accrual's day with its posting, if any).
+     */
+    public static final byte RECORD_ACCRUAL = 4;
+
+    /**
+     * A type of a transfer's record (both legs of a transfer).
+     */
+    public static final byte RECORD_TRANSFER = 5;
+
+    /**
+     * The maximal size of a record's type and body.
+     */
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    /**
+     * An initial size of a journal's in-memory buffer.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * A period of background flushes in the ASYNC mode (in milliseconds).
+     */
+    private static final long ASYNC_FLUSH_PERIOD_MILLIS = 10;
+
+    /**
+     * A journal's file.
+     */
+    private FileChannel channel;
+
+    /**
+     * A journal's durability mode.
+     */
+    private JournalDurability durability;
+
+    /**
+     * A lock guarding the journal's buffers and sequence numbers.
+     */
+    private ReentrantLock lock;
+
+    /**
+     * A condition signalled after a batch of records is flushed.
+     */
+    private Condition flushed;
+
+    /**
+     * Records appended but not yet written to the file.
+     */
+    private ByteBuffer pending;
+
+    /**
+     * A spare buffer swapped with the pending one during a flush (null while it is being written).
+     */
+    private ByteBuffer spare;
+
+    /**
+     * A sequence number of the last appended record.
+     */
+    private long appendedSequence;
+
+    /**
+     * A sequence number of the last record forced to disk.
+     */
+    private long durableSequence;
+
+    /**
+     * true while some thread writes and forces a batch of records.
+     */
+    private boolean isFlushing;
+
+    /**
+     * A position of the type of a record being appended (used under the lock).
+     */
+    private int recordStart;
+
+    /**
+     * A checksum's calculator (used under the lock).
+     */
+    private CRC32 crc;
+
+    /**
+     * A background flushing thread (the ASYNC mode only).
+     */
+    private Thread flusher;
+
+    /**
+     * true after the journal is closed.
+     */
+    private volatile boolean isClosed;
+
+    /**
+     * A failure of a write or a force of the journal (null - none). After a failure the journal is failed:
+     * records are neither appended nor acknowledged any more, so no posting is acknowledged without its record.
+     */
+    private volatile IOException failure;
+
+    /**
+     * A position right after the last batch of records forced to disk (a failed batch is cut off at it).
+     */
+    private long durablePosition;
+
+    /**
+     * A position right after the last appended record (in the file once the record is flushed).
+     */
+    private long appendedPosition;
+
+
+    /**
+     * A public constructor opening (or creating) a journal file for appending.
+     *
+     * @param file       A journal's file.
+     * @param durability A journal's durability mode.
+     *
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public PostingJournal(Path file, JournalDurability durability) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                durability);
+    }
+
+
+    /**
+     * A constructor opening a journal on an open file (e.g. a file whose failures are simulated by a check).
+     *
+     * @param channel    A journal's file opened for reading and writing.
+     * @param durability A journal's durability mode.
+     *
+     * @throws IOException if the file cannot be written or is not a journal.
+     */
+    PostingJournal(FileChannel channel, JournalDurability durability) throws IOException {
+        this.channel = channel;
+        this.durability = durability;
+        this.lock = new ReentrantLock();
+        this.flushed = this.lock.newCondition();
+        this.pending = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+        this.spare = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+        this.appendedSequence = 0;
+        this.durableSequence = 0;
+        this.isFlushing = false;
+        this.crc = new CRC32();
+        this.isClosed = false;
+        this.failure = null;
+
+        if (this.channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header);
+            }
+            this.channel.force(true);
+        } else {
+            PostingJournal.checkHeader(this.channel);
+        }
+        this.durablePosition = this.channel.size();
+        this.appendedPosition = this.durablePosition;
+        this.channel.position(this.durablePosition);
+
+        if (durability == JournalDurability.ASYNC) {
+            this.flusher = new Thread(this::flushPeriodically, "posting-journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+
+    /**
+     * This method returns a journal's durability mode.
+     *
+     * @return A journal's durability mode.
+     */
+    public JournalDurability getDurability() {
+        return this.durability;
+    }
+
+
+    /**
+     * This method checks whether the journal has failed (a batch of records could not be written or forced).
+     * A failed journal rejects all further records, so the bank must be restarted (and restored from it).
+     *
+     * @return true if the journal has failed, false otherwise.
+     */
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+
+    /**
+     * This method appends a posting's record. In the SYNC mode the record is forced to disk at once;
+     * otherwise the caller acknowledges the posting after awaitDurable(sequence).
+     *
+     * @param accountUUID An account's UUID.
+     * @param amount      A posting's amount (in cents).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written (the posting must not be applied).
+     */
+    public long append(String accountUUID, long amount, long timestamp, String memo) {
+        byte[] memoBytes = PostingJournal.encode(memo);
+        int bodyLength = 1 + (1 + accountUUID.length()) + 8 + 8 + (2 + memoBytes.length);
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = this.beginRecord(RECORD_POSTING, bodyLength);
+            PostingJournal.putAscii(buffer, accountUUID);
+            buffer.putLong(amount);
+            buffer.putLong(timestamp);
+            PostingJournal.putBytes(buffer, memoBytes);
+
+            return this.endRecord(bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method appends an interest accrual's record: a day an account has accrued interest for and
+     * the interest's posting (none if interest is below a cent). It is durable like a posting's record.
+     *
+     * @param accountUUID An account's UUID.
+     * @param accrualDay  An accrual's day (days since the epoch).
+     * @param amount      Interest's amount (in cents; 0 - no posting).
+     * @param timestamp   A posting's timestamp (milliseconds since the epoch).
+     * @param memo        A posting's description.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written (the accrual must not be applied).
+     */
+    public long appendAccrual(String accountUUID, int accrualDay, long amount, long timestamp, String memo) {
+        byte[] memoBytes = PostingJournal.encode(memo);
+        int bodyLength = 1 + (1 + accountUUID.length()) + 4 + 8 + 8 + (2 + memoBytes.length);
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = this.beginRecord(RECORD_ACCRUAL, bodyLength);
+            PostingJournal.putAscii(buffer, accountUUID);
+            buffer.putInt(accrualDay);
+            buffer.putLong(amount);
+            buffer.putLong(timestamp);
+            PostingJournal.putBytes(buffer, memoBytes);
+
+            return this.endRecord(bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method appends a transfer's record with both legs of a transfer, which is durable like a posting's
+     * record (the source leg is the amount's negation).
+     *
+     * @param sourceUUID      A source account's UUID.
+     * @param targetUUID      A target account's UUID.
+     * @param amount          A transferred amount (in cents).
+     * @param sourceTimestamp A source leg's timestamp (milliseconds since the epoch).
+     * @param targetTimestamp A target leg's timestamp (milliseconds since the epoch).
+     * @param sourceMemo      A source leg's description.
+     * @param targetMemo      A target leg's description.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written (neither leg must be applied).
+     */
+    public long appendTransfer(String sourceUUID, String targetUUID, long amount, long sourceTimestamp,
+                               long targetTimestamp, String sourceMemo, String targetMemo) {
+        byte[] sourceMemoBytes = PostingJournal.encode(sourceMemo);
+        byte[] targetMemoBytes = PostingJournal.encode(targetMemo);
+        int bodyLength = 1 + (1 + sourceUUID.length()) + (1 + targetUUID.length()) + 8 + 8 + 8
+                + (2 + sourceMemoBytes.length) + (2 + targetMemoBytes.length);
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = this.beginRecord(RECORD_TRANSFER, bodyLength);
+            PostingJournal.putAscii(buffer, sourceUUID);
+            PostingJournal.putAscii(buffer, targetUUID);
+            buffer.putLong(amount);
+            buffer.putLong(sourceTimestamp);
+            buffer.putLong(targetTimestamp);
+            PostingJournal.putBytes(buffer, sourceMemoBytes);
+            PostingJournal.putBytes(buffer, targetMemoBytes);
+
+            return this.endRecord(bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method appends a record of a new user.
+     *
+     * @param usersUUID A user's ID.
+     * @param firstName A user's first name.
+     * @param lastName  A user's last name.
+     * @param pinHash   A user's pin's hash.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written.
+     */
+    public long appendUser(String usersUUID, String firstName, String lastName, byte[] pinHash) {
+        byte[] firstNameBytes = PostingJournal.encode(firstName);
+        byte[] lastNameBytes = PostingJournal.encode(lastName);
+        int bodyLength = 1 + (1 + usersUUID.length()) + (2 + firstNameBytes.length)
+                + (2 + lastNameBytes.length) + (2 + pinHash.length);
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = this.beginRecord(RECORD_USER, bodyLength);
+            PostingJournal.putAscii(buffer, usersUUID);
+            PostingJournal.putBytes(buffer, firstNameBytes);
+            PostingJournal.putBytes(buffer, lastNameBytes);
+            PostingJournal.putBytes(buffer, pinHash);
+
+            return this.endRecord(bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method appends a record of a new account.
+     *
+     * @param accountsUUID An account's UUID.
+     * @param accountsName An account's name.
+     * @param holdersUUID  An account's holder's ID.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written.
+     */
+    public long appendAccount(String accountsUUID, String accountsName, String holdersUUID) {
+        byte[] nameBytes = PostingJournal.encode(accountsName);
+        int bodyLength = 1 + (1 + accountsUUID.length()) + (2 + nameBytes.length) + (1 + holdersUUID.length());
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = this.beginRecord(RECORD_ACCOUNT, bodyLength);
+            PostingJournal.putAscii(buffer, accountsUUID);
+            PostingJournal.putBytes(buffer, nameBytes);
+            PostingJournal.putAscii(buffer, holdersUUID);
+
+            return this.endRecord(bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method returns a position right after the last record appended so far (e.g. by a posting
+     * the caller keeps from going on), which is in the file after the next flush.
+     *
+     * @return A position after the last appended record.
+     */
+    public long appendedPosition() {
+        this.lock.lock();
+        try {
+            return this.appendedPosition;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method replays a journal's records (starting at a given position) to a visitor.
+     * Replaying stops at the end of the file or at the first incomplete or corrupted record
+     * (e.g. a torn write of a crash).
+     *
+     * @param file         A journal's file.
+     * @param fromPosition A position of the first record to be replayed (HEADER_SIZE - the whole journal).
+     * @param visitor      A visitor of records.
+     *
+     * @return A position right after the last correct record.
+     *
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public static long replay(Path file, long fromPosition, JournalVisitor visitor) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            PostingJournal.checkHeader(channel);
+
+            long position = Math.max(fromPosition, HEADER_SIZE);
+            channel.position(position);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            CRC32 crc = new CRC32();
+            byte[] body = new byte[256];
+
+            while (true) {
+                int bodyLength;
+                int checksum;
+                try {
+                    bodyLength = in.readInt();
+                    if (bodyLength < 1 || bodyLength > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    if (body.length < bodyLength) {
+                        body = new byte[Math.max(bodyLength, 2 * body.length)];
+                    }
+                    in.readFully(body, 0, bodyLength);
+                    checksum = in.readInt();
+                } catch (EOFException ex) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(body, 0, bodyLength);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                visitor.onRecord(position);
+                PostingJournal.visit(ByteBuffer.wrap(body, 0, bodyLength), visitor);
+                position += 4 + bodyLength + 4;
+            }
+
+            return position;
+        }
+    }
+
+
+    /**
+     * This method waits until a record with a given sequence number is durable. One of waiting threads
+     * writes and forces all records appended so far, the others wait for it (group commit).
+     * In the ASYNC mode it returns at once.
+     *
+     * @param sequence A record's sequence number.
+     *
+     * @throws UncheckedIOException if the journal cannot be written or has failed before the record was durable.
+     */
+    public void awaitDurable(long sequence) {
+        if (this.durability == JournalDurability.ASYNC) {
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            while (this.durableSequence < sequence) {
+                this.checkFailure();
+                if (this.isFlushing) {
+                    this.flushed.awaitUninterruptibly();
+                } else {
+                    this.flushBatch();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method writes and forces all appended records to disk.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public void flush() throws IOException {
+        this.lock.lock();
+        try {
+            while (this.isFlushing) {
+                this.flushed.awaitUninterruptibly();
+            }
+            if (this.durableSequence < this.appendedSequence) {
+                this.checkFailure();
+                this.flushBatch();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method flushes and closes the journal. No record is appended after the journal is marked closed
+     * (under the lock), so the last flush writes all of them.
+     *
+     * @throws IOException if the journal cannot be written or has failed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            if (this.isClosed) {
+                return;
+            }
+            this.isClosed = true;
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            this.flush();
+        } finally {
+            if (this.flusher != null) {
+                this.flusher.interrupt();
+            }
+            this.channel.close();
+        }
+    }
+
+
+    /**
+     * This method writes and forces the pending batch of records (called with the lock held).
+     * The lock is released during the I/O, so other threads keep appending to the other buffer.
+     * If the batch cannot be written, the journal fails (see fail) and the batch is never acknowledged.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    private void flushBatch() throws IOException {
+        this.isFlushing = true;
+
+        ByteBuffer batch = this.pending;
+        this.pending = this.spare;
+        this.spare = null;
+        long batchSequence = this.appendedSequence;
+
+        IOException failure = null;
+        this.lock.unlock();
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                this.channel.write(batch);
+            }
+            this.channel.force(false);
+        } catch (IOException ex) {
+            failure = ex;
+        } finally {
+            this.lock.lock();
+        }
+
+        this.isFlushing = false;
+        if (failure == null) {
+            this.durablePosition += batch.limit();
+            batch.clear();
+            this.spare = batch;
+            this.durableSequence = batchSequence;
+        } else {
+            this.fail(failure);
+        }
+        this.flushed.signalAll();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+
+    /**
+     * This method writes and forces the pending records without releasing the lock (the SYNC mode).
+     * If they cannot be written, the journal fails (see fail).
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    private void flushLocked() throws IOException {
+        ByteBuffer batch = this.pending;
+        batch.flip();
+        try {
+            while (batch.hasRemaining()) {
+                this.channel.write(batch);
+            }
+            this.channel.force(false);
+        } catch (IOException ex) {
+            this.fail(ex);
+            throw ex;
+        }
+
+        this.durablePosition += batch.limit();
+        batch.clear();
+
+        this.durableSequence = this.appendedSequence;
+    }
+
+
+    /**
+     * This method marks the journal failed after a batch of records could not be written or forced
+     * (called with the lock held). A partially written batch is cut off at the last durable batch's end
+     * (if the file can still be truncated), so the file does not end with a torn record whose postings
+     * were never acknowledged.
+     *
+     * @param ex A failure of a write or a force.
+     */
+    private void fail(IOException ex) {
+        this.failure = ex;
+
+        try {
+            this.channel.truncate(this.durablePosition);
+        } catch (IOException truncateEx) {
+            ex.addSuppressed(truncateEx);
+        }
+    }
+
+
+    /**
+     * This method throws if the journal has failed (called with the lock held).
+     *
+     * @throws IOException if the journal has failed.
+     */
+    private void checkFailure() throws IOException {
+        if (this.failure != null) {
+            throw new IOException("The posting journal has failed: " + this.failure.getMessage(), this.failure);
+        }
+    }
+
+
+    /**
+     * This method makes room for a record in the pending buffer (called with the lock held).
+     *
+     * @param recordSize A record's size.
+     */
+    private void ensureCapacity(int recordSize) {
+        if (this.pending.remaining() >= recordSize) {
+            return;
+        }
+
+        int newCapacity = Math.max(2 * this.pending.capacity(), this.pending.position() + recordSize);
+        ByteBuffer bigger = ByteBuffer.allocateDirect(newCapacity);
+        this.pending.flip();
+        bigger.put(this.pending);
+        this.pending = bigger;
+    }
+
+
+    /**
+     * This method flushes the journal periodically (the ASYNC mode's background thread).
+     */
+    private void flushPeriodically() {
+        while (!this.isClosed) {
+            try {
+                Thread.sleep(ASYNC_FLUSH_PERIOD_MILLIS);
+                this.flush();
+            } catch (InterruptedException ex) {
+                return;
+            } catch (IOException ex) {
+                // a failed journal stays failed, so flushing it again would only repeat the error
+                System.err.printf("error, caught IOException while flushing the posting journal: %s\n",
+                        ex.getMessage());
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * This method starts a new record in the pending buffer (called with the lock held).
+     *
+     * @param type       A record's type.
+     * @param bodyLength A length of a record's type and body.
+     *
+     * @return The pending buffer positioned at a record's body.
+     *
+     * @throws IOException if the journal has failed.
+     */
+    private ByteBuffer beginRecord(byte type, int bodyLength) throws IOException {
+        if (this.isClosed) {
+            throw new IllegalStateException("The posting journal is closed");
+        }
+        this.checkFailure();
+
+        this.ensureCapacity(4 + bodyLength + 4);
+
+        this.pending.putInt(bodyLength);
+        this.recordStart = this.pending.position();
+        this.pending.put(type);
+
+        return this.pending;
+    }
+
+
+    /**
+     * This method completes a record started by beginRecord (called with the lock held).
+     *
+     * @param bodyLength A length of a record's type and body.
+     *
+     * @return A record's sequence number.
+     *
+     * @throws IOException if the record cannot be forced to disk (the SYNC mode).
+     */
+    private long endRecord(int bodyLength) throws IOException {
+        ByteBuffer body = this.pending.duplicate();
+        body.position(this.recordStart).limit(this.recordStart + bodyLength);
+        this.crc.reset();
+        this.crc.update(body);
+        this.pending.putInt((int) this.crc.getValue());
+
+        long sequence = ++this.appendedSequence;
+        this.appendedPosition += 4 + bodyLength + 4;
+
+        if (this.durability == JournalDurability.SYNC) {
+            this.flushLocked();
+        }
+
+        return sequence;
+    }
+
+
+    /**
+     * This method passes a single record to a visitor.
+     *
+     * @param record  A record's type and body.
+     * @param visitor A visitor of records.
+     */
+    private static void visit(ByteBuffer record, JournalVisitor visitor) {
+        byte type = record.get();
+
+        switch (type) {
+
+            case RECORD_POSTING:
+                String accountUUID = PostingJournal.getAscii(record);
+                long amount = record.getLong();
+                long timestamp = record.getLong();
+                visitor.onPosting(accountUUID, amount, timestamp, PostingJournal.getString(record));
+                break;
+
+            case RECORD_USER:
+                String usersUUID = PostingJournal.getAscii(record);
+                String firstName = PostingJournal.getString(record);
+                String lastName = PostingJournal.getString(record);
+                visitor.onUser(usersUUID, firstName, lastName, PostingJournal.getBytes(record));
+                break;
+
+            case RECORD_ACCOUNT:
+                String accountsUUID = PostingJournal.getAscii(record);
+                String accountsName = PostingJournal.getString(record);
+                visitor.onAccount(accountsUUID, accountsName, PostingJournal.getAscii(record));
+                break;
+
+            case RECORD_ACCRUAL:
+                String accruingUUID = PostingJournal.getAscii(record);
+                int accrualDay = record.getInt();
+                long interest = record.getLong();
+                long accrualTimestamp = record.getLong();
+                String accrualMemo = PostingJournal.getString(record);
+                visitor.onAccrual(accruingUUID, accrualDay, interest, accrualTimestamp, accrualMemo);
+                break;
+
+            case RECORD_TRANSFER:
+                String sourceUUID = PostingJournal.getAscii(record);
+                String targetUUID = PostingJournal.getAscii(record);
+                long transferred = record.getLong();
+                long sourceTimestamp = record.getLong();
+                long targetTimestamp = record.getLong();
+                String sourceMemo = PostingJournal.getString(record);
+                String targetMemo = PostingJournal.getString(record);
+                visitor.onTransfer(sourceUUID, targetUUID, transferred, sourceTimestamp, targetTimestamp, sourceMemo,
+                        targetMemo);
+                break;
+
+            default:
+                System.err.printf("error, unknown journal's record's type %d skipped\n", type);
+                break;
+        }
+    }
+
+
+    /**
+     * This method encodes a text as UTF-8 bytes (truncated to the maximal length of a record's text;
+     * a bank's snapshot truncates texts the same way).
+     *
+     * @param text A text.
+     *
+     * @return Text's bytes.
+     */
+    static byte[] encode(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        return bytes.length <= Short.MAX_VALUE ? bytes : Arrays.copyOf(bytes, Short.MAX_VALUE);
+    }
+
+
+    /**
+     * This method puts an ASCII text (e.g. a UUID) with its one-byte length.
+     *
+     * @param buffer A buffer.
+     * @param text   An ASCII text (max. 127 characters).
+     */
+    private static void putAscii(ByteBuffer buffer, String text) {
+        buffer.put((byte) text.length());
+        for (int c = 0; c < text.length(); ++c) {
+            buffer.put((byte) text.charAt(c));
+        }
+    }
+
+
+    /**
+     * This method puts bytes with their two-byte length.
+     *
+     * @param buffer A buffer.
+     * @param bytes  Bytes (max. Short.MAX_VALUE).
+     */
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+
+    /**
+     * This method gets an ASCII text written by putAscii.
+     *
+     * @param buffer A buffer.
+     *
+     * @return A text.
+     */
+    private static String getAscii(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.get()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+
+    /**
+     * This method gets bytes written by putBytes.
+     *
+     * @param buffer A buffer.
+     *
+     * @return Bytes.
+     */
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+
+    /**
+     * This method gets a UTF-8 text written by putBytes.
+     *
+     * @param buffer A buffer.
+     *
+     * @return A text.
+     */
+    private static String getString(ByteBuffer buffer) {
+        return new String(PostingJournal.getBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * This method checks a journal file's header.
+     *
+     * @param channel A journal's file.
+     *
+     * @throws IOException if the file is not a journal.
+     */
+    private static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a posting journal's file");
+        }
+    }
+}
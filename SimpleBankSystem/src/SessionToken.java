@@ -0,0 +1,70 @@
+/**
+ * A class defining a session token's entry of a SessionTokenCache: a user authenticated by a token
+ * and a moment the token expires at.
+ */
+public class SessionToken {
+
+    /**
+     * A user authenticated by a token.
+     */
+    private User user;
+
+    /**
+     * A moment a token expires at (System.nanoTime's value; it is moved on every use).
+     */
+    private volatile long expiresAt;
+
+
+    /**
+     * A public constructor creating a token's entry.
+     *
+     * @param user      A user authenticated by a token.
+     * @param expiresAt A moment a token expires at (System.nanoTime's value).
+     */
+    public SessionToken(User user, long expiresAt) {
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+
+    /**
+     * This method returns a user authenticated by a token.
+     *
+     * @return A user.
+     */
+    public User getUser() {
+        return this.user;
+    }
+
+
+    /**
+     * This method returns a moment a token expires at.
+     *
+     * @return A System.nanoTime's value.
+     */
+    public long getExpiresAt() {
+        return this.expiresAt;
+    }
+
+
+    /**
+     * This method sets a moment a token expires at.
+     *
+     * @param expiresAt A System.nanoTime's value.
+     */
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+
+    /**
+     * This method checks whether a token has expired.
+     *
+     * @param now A current System.nanoTime's value.
+     *
+     * @return true if a token has expired, false otherwise.
+     */
+    public boolean isExpired(long now) {
+        return now - this.expiresAt >= 0;
+    }
+}
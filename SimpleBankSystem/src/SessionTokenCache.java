@@ -0,0 +1,179 @@
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A class issuing random session tokens to users who logged in (with a pin), so further operations
+ * of a session are authenticated by a constant-time lookup instead of hashing a pin again.
+ *
+ * A token expires after a time-to-live without use (every use extends it). Expired tokens are removed
+ * when they are used and by a sweep done after every EVICTION_PERIOD issued tokens.
+ */
+public class SessionTokenCache {
+
+    /**
+     * A default time-to-live of a token (in milliseconds).
+     */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * A number of issued tokens between two sweeps of expired tokens.
+     */
+    private static final int EVICTION_PERIOD = 1024;
+
+    /**
+     * A number of a token's random bytes.
+     */
+    private static final int TOKEN_BYTES = 16;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Valid tokens (a token -> its entry).
+     */
+    private ConcurrentHashMap<String, SessionToken> tokens;
+
+    /**
+     * A time-to-live of a token (in nanoseconds).
+     */
+    private long ttlNanos;
+
+    /**
+     * A generator of tokens.
+     */
+    private SecureRandom random;
+
+    /**
+     * A number of tokens issued since the last sweep.
+     */
+    private AtomicInteger issuedSinceEviction;
+
+
+    /**
+     * A public constructor creating a tokens' cache with the default time-to-live.
+     */
+    public SessionTokenCache() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+
+    /**
+     * A public constructor creating a tokens' cache.
+     *
+     * @param ttlMillis A time-to-live of a token without use (in milliseconds).
+     */
+    public SessionTokenCache(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("A token's time-to-live must be positive");
+        }
+
+        this.tokens = new ConcurrentHashMap<String, SessionToken>();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.random = new SecureRandom();
+        this.issuedSinceEviction = new AtomicInteger();
+    }
+
+
+    /**
+     * This method issues a new token for an authenticated user.
+     *
+     * @param user An authenticated user.
+     *
+     * @return A new token (32 hexadecimal digits).
+     */
+    public String issue(User user) {
+        if (this.issuedSinceEviction.incrementAndGet() >= EVICTION_PERIOD) {
+            this.issuedSinceEviction.set(0);
+            this.evictExpired();
+        }
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        this.random.nextBytes(bytes);
+
+        char[] token = new char[2 * TOKEN_BYTES];
+        for (int b = 0; b < TOKEN_BYTES; ++b) {
+            token[2 * b] = HEX_DIGITS[(bytes[b] >> 4) & 0xF];
+            token[2 * b + 1] = HEX_DIGITS[bytes[b] & 0xF];
+        }
+
+        String newToken = new String(token);
+        this.tokens.put(newToken, new SessionToken(user, System.nanoTime() + this.ttlNanos));
+
+        return newToken;
+    }
+
+
+    /**
+     * This method returns a user authenticated by a token and extends the token's time-to-live.
+     *
+     * @param token A token.
+     *
+     * @return A user or null if a token is unknown or has expired.
+     */
+    public User authenticate(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        SessionToken entry = this.tokens.get(token);
+        if (entry == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (entry.isExpired(now)) {
+            this.tokens.remove(token, entry);
+            return null;
+        }
+
+        entry.setExpiresAt(now + this.ttlNanos);
+        return entry.getUser();
+    }
+
+
+    /**
+     * This method revokes a token (e.g. when a user logs out).
+     *
+     * @param token A token.
+     */
+    public void revoke(String token) {
+        if (token != null) {
+            this.tokens.remove(token);
+        }
+    }
+
+
+    /**
+     * This method removes all expired tokens.
+     *
+     * @return A number of removed tokens.
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+
+        for (Map.Entry<String, SessionToken> entry : this.tokens.entrySet()) {
+            if (entry.getValue().isExpired(now) && this.tokens.remove(entry.getKey(), entry.getValue())) {
+                ++evicted;
+            }
+        }
+
+        return evicted;
+    }
+
+
+    /**
+     * This method returns a number of cached tokens (some of them may have expired).
+     *
+     * @return A number of cached tokens.
+     */
+    public int size() {
+        return this.tokens.size();
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A class defining an end-of-day job rendering a statement of a day for every bank's account
+ * (see StatementRenderer.renderStatement) into shards' files "statements-YYYY-MM-DD-NNNN.txt".
+ *
+ * Accounts are taken at once (Bank.getAccounts) and split into SHARDS_PER_THREAD shards per a pool's thread,
+ * which are rendered in parallel by fork-join tasks (see StatementTask): more shards than threads let idle
+ * threads steal work from threads rendering accounts with long histories, so the job scales with a pool's
+ * parallelism. Reading an account's history locks only the account's stripe for a page, so the job may run
+ * while a bank serves postings (balances of accounts posted to meanwhile may be off, see renderStatement).
+ */
+public class StatementJob {
+
+    /**
+     * A number of shards per a pool's thread.
+     */
+    public static final int SHARDS_PER_THREAD = 4;
+
+    /**
+     * A bank whose accounts' statements are rendered.
+     */
+    private Bank bank;
+
+    /**
+     * A directory of shards' files.
+     */
+    private Path directory;
+
+    /**
+     * A day of statements.
+     */
+    private LocalDate day;
+
+    /**
+     * A time zone of the day.
+     */
+    private ZoneId zone;
+
+
+    /**
+     * A public constructor creating a job.
+     *
+     * @param bank      A bank whose accounts' statements are rendered.
+     * @param directory A directory of shards' files.
+     * @param day       A day of statements.
+     * @param zone      A time zone of the day.
+     */
+    public StatementJob(Bank bank, Path directory, LocalDate day, ZoneId zone) {
+        this.bank = bank;
+        this.directory = directory;
+        this.day = day;
+        this.zone = zone;
+    }
+
+
+    /**
+     * This method renders statements of a day of a bank restored from its data's directory.
+     *
+     * Usage: java StatementJob dataDirectory outputDirectory [day] [parallelism]
+     * e.g.   java StatementJob /var/bank /var/bank/statements 2026-10-18 8
+     * (the bank is restored from bank.snapshot and bank.journal, like by AtmServer; the day is today by default,
+     * the parallelism is a number of available processors by default)
+     *
+     * @param args Input arguments' list.
+     *
+     * @throws IOException if the bank cannot be restored or statements cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        Path dataDirectory = Path.of(args[0]);
+        Path outputDirectory = Path.of(args[1]);
+        LocalDate day = args.length > 2 ? LocalDate.parse(args[2]) : LocalDate.now();
+        int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Bank bank = BankSnapshot.recover("Bank of Drousin", dataDirectory.resolve("bank.snapshot"),
+                dataDirectory.resolve("bank.journal"), JournalDurability.GROUP);
+        bank.closeJournal();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            StatementReport report = new StatementJob(bank, outputDirectory, day, ZoneId.systemDefault()).run(pool);
+            System.out.printf("%s statements for %s on %d threads: %s\n", bank.getBankName(), day, parallelism,
+                    report.getSummaryLine());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    /**
+     * This method renders statements on the common fork-join pool.
+     *
+     * @return A report of the job.
+     *
+     * @throws IOException if shards' files cannot be written.
+     */
+    public StatementReport run() throws IOException {
+        return this.run(ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * This method renders statements on a given fork-join pool (shards' files of the day
+     * written before are replaced).
+     *
+     * @param pool A fork-join pool rendering shards.
+     *
+     * @return A report of the job (with its wall time).
+     *
+     * @throws IOException if shards' files cannot be written.
+     */
+    public StatementReport run(ForkJoinPool pool) throws IOException {
+        long begin = System.nanoTime();
+
+        Files.createDirectories(this.directory);
+        Path filePrefix = this.directory.resolve("statements-" + this.day + "-");
+        this.deleteShards(filePrefix);
+
+        Account[] accounts = this.bank.getAccounts();
+        int numberOfShards = Math.max(1, Math.min(accounts.length, pool.getParallelism() * SHARDS_PER_THREAD));
+        long fromTimestamp = this.day.atStartOfDay(this.zone).toInstant().toEpochMilli();
+        long toTimestamp = this.day.plusDays(1).atStartOfDay(this.zone).toInstant().toEpochMilli();
+        String header = String.format("%s statements for %s (%d accounts)", this.bank.getBankName(), this.day,
+                accounts.length);
+
+        StatementReport report;
+        try {
+            report = pool.invoke(new StatementTask(accounts, numberOfShards, 0, numberOfShards,
+                    fromTimestamp, toTimestamp, header, filePrefix));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        report.setElapsedTime(System.nanoTime() - begin);
+        return report;
+    }
+
+
+    /**
+     * This method deletes shards' files of the job's day written before.
+     *
+     * @param filePrefix A shards' files' names' prefix.
+     *
+     * @throws IOException if the directory cannot be listed or a file cannot be deleted.
+     */
+    private void deleteShards(Path filePrefix) throws IOException {
+        String glob = filePrefix.getFileName() + "[0-9][0-9][0-9][0-9].txt";
+
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(this.directory, glob)) {
+            for (Path shard : shards) {
+                Files.delete(shard);
+            }
+        }
+    }
+}
@@ -0,0 +1,447 @@
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.TimeZone;
+
+
+/**
+ * A class rendering summary lines and statements (accounts' summaries, transactions' histories)
+ * into a reusable buffer, which is written to an output in bulk.
+ *
+ * Lines have the same layout as before (e.g. "Sun Oct 18 14:03:27 UTC 2026 : $(-12.50) : Card payment"),
+ * but they are built without String.format: amounts are appended digit by digit (Money.appendTo)
+ * and a timestamp's date and time zone's part is formatted with Date.toString once per day
+ * (or per a part of a day between time zone's transitions); only the time of a day is computed per line.
+ *
+ * A renderer is not thread-safe (see forThread for a thread's own renderer of single lines).
+ */
+public class StatementRenderer {
+
+    /**
+     * A number of buffered characters after which the buffer is written to an output.
+     */
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    /**
+     * A number of transactions read (under an account's lock) at once by renderHistory.
+     */
+    private static final int HISTORY_PAGE_SIZE = 256;
+
+    /**
+     * A number of milliseconds of a day.
+     */
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Renderers of single lines of threads.
+     */
+    private static final ThreadLocal<StatementRenderer> THREADS_RENDERERS =
+            ThreadLocal.withInitial(() -> new StatementRenderer(null));
+
+    /**
+     * An output (null - lines are only rendered to strings).
+     */
+    private PrintStream out;
+
+    /**
+     * A buffer of rendered text.
+     */
+    private StringBuilder buffer;
+
+    /**
+     * A time zone timestamps are rendered in.
+     */
+    private ZoneRules zoneRules;
+
+    /**
+     * The beginning of a cached time window (milliseconds since the epoch, inclusive).
+     */
+    private long windowStart;
+
+    /**
+     * The end of a cached time window (milliseconds since the epoch, exclusive).
+     */
+    private long windowEnd;
+
+    /**
+     * A time zone's offset in a cached window (in seconds).
+     */
+    private int windowOffsetSeconds;
+
+    /**
+     * A date's text before a time of a day in a cached window (e.g. "Sun Oct 18 ").
+     */
+    private String datePrefix;
+
+    /**
+     * A date's text after a time of a day in a cached window (e.g. " UTC 2026").
+     */
+    private String dateSuffix;
+
+
+    /**
+     * A public constructor creating a renderer writing to an output.
+     *
+     * @param out An output (e.g. System.out; null - lines are only rendered to strings).
+     */
+    public StatementRenderer(PrintStream out) {
+        this.out = out;
+        this.buffer = new StringBuilder(FLUSH_THRESHOLD + 256);
+        this.zoneRules = TimeZone.getDefault().toZoneId().getRules();
+        this.windowStart = 0;
+        this.windowEnd = 0;
+    }
+
+
+    /**
+     * This method returns a current thread's renderer of single lines (it has no output).
+     *
+     * @return A thread's renderer.
+     */
+    public static StatementRenderer forThread() {
+        return THREADS_RENDERERS.get();
+    }
+
+
+    /**
+     * This method renders a transaction's summary line (see Transaction.getSummaryLine).
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memo      A transaction's description.
+     *
+     * @return A transaction's summary line.
+     */
+    public String renderTransactionLine(long amount, long timestamp, String memo) {
+        int start = this.buffer.length();
+        this.appendTransaction(this.buffer, amount, timestamp, memo);
+
+        String line = this.buffer.substring(start);
+        this.buffer.setLength(start);
+        return line;
+    }
+
+
+    /**
+     * This method renders an account's summary line (see Account.getSummaryLine).
+     *
+     * @param accountsUUID An account's UUID.
+     * @param balance      An account's balance (in cents).
+     * @param accountsName An account's name.
+     *
+     * @return An account's summary line.
+     */
+    public String renderAccountLine(String accountsUUID, long balance, String accountsName) {
+        int start = this.buffer.length();
+        StatementRenderer.appendAccount(this.buffer, accountsUUID, balance, accountsName);
+
+        String line = this.buffer.substring(start);
+        this.buffer.setLength(start);
+        return line;
+    }
+
+
+    /**
+     * This method renders a user's accounts' summary.
+     *
+     * @param user A user.
+     */
+    public void renderAccountsSummary(User user) {
+        this.buffer.append("\n\n").append(user.getFirstName()).append("'s usersAccounts summary\n");
+
+        for (int a = 0; a < user.getNumberOfAccounts(); ++a) {
+            Account account = user.getAccount(a);
+
+            this.buffer.append("  ").append(a + 1).append(") ");
+            StatementRenderer.appendAccount(this.buffer, account.getAccountsUUID(), account.getBalance(),
+                    account.getAccountsName());
+            this.endLine();
+        }
+
+        this.buffer.append('\n');
+        this.flush();
+    }
+
+
+    /**
+     * This method renders an account's whole transactions' history (the newest transactions first).
+     *
+     * @param account An account.
+     */
+    public void renderHistory(Account account) {
+        this.buffer.append("\nTransaction history for account ").append(account.getAccountsUUID()).append('\n');
+
+        int cursor = TransactionPage.FROM_NEWEST;
+        while (cursor != TransactionPage.END) {
+            TransactionPage page = account.getHistoryPage(cursor, HISTORY_PAGE_SIZE);
+            this.renderHistoryPage(page);
+            cursor = page.getNextCursor();
+        }
+
+        this.buffer.append('\n');
+        this.flush();
+    }
+
+
+    /**
+     * This method renders an account's statement of a time range (e.g. a day): a header, the closing balance,
+     * the range's transactions (the newest first) and the opening balance. Balances are derived from a consistent
+     * snapshot of the account's balance and number of transactions (see Account.getState) and the transactions
+     * before it, so they are exact also while postings are made to the account.
+     * Statements are not counted as history's reads in bank's metrics.
+     *
+     * @param account       An account.
+     * @param fromTimestamp The range's start (inclusive; milliseconds since the epoch).
+     * @param toTimestamp   The range's end (exclusive; milliseconds since the epoch).
+     *
+     * @return A number of rendered transactions.
+     */
+    public int renderStatement(Account account, long fromTimestamp, long toTimestamp) {
+        // later postings are after the snapshot's last transaction, so they are not on any page
+        AccountState state = account.getState();
+        long closingBalance = state.getBalance();
+
+        int cursor = state.getNumberOfTransactions();
+        while (cursor != TransactionPage.END) {
+            TransactionPage page = account.getHistoryPage(toTimestamp, Long.MAX_VALUE, cursor, HISTORY_PAGE_SIZE);
+            for (int t = 0; t < page.size(); ++t) {
+                closingBalance -= page.getAmount(t);
+            }
+            cursor = page.getNextCursor();
+        }
+
+        User holder = account.getHolder();
+        this.buffer.append("Statement of account ").append(account.getAccountsUUID())
+                .append(" : ").append(account.getAccountsName())
+                .append(" : ").append(holder.getFirstName()).append(' ').append(holder.getLastName());
+        this.endLine();
+
+        this.buffer.append("  Closing balance");
+        StatementRenderer.appendAmount(this.buffer, closingBalance);
+        this.endLine();
+
+        long openingBalance = closingBalance;
+        int numberOfTransactions = 0;
+        cursor = state.getNumberOfTransactions();
+        while (cursor != TransactionPage.END) {
+            TransactionPage page = account.getHistoryPage(fromTimestamp, toTimestamp, cursor, HISTORY_PAGE_SIZE);
+            for (int t = 0; t < page.size(); ++t) {
+                this.buffer.append("  ");
+                this.appendTransaction(this.buffer, page, t);
+                this.endLine();
+                openingBalance -= page.getAmount(t);
+            }
+            numberOfTransactions += page.size();
+            cursor = page.getNextCursor();
+        }
+
+        this.buffer.append("  Opening balance");
+        StatementRenderer.appendAmount(this.buffer, openingBalance);
+        this.endLine();
+        this.endLine();
+
+        return numberOfTransactions;
+    }
+
+
+    /**
+     * This method renders a page of an account's history (one line per transaction).
+     *
+     * @param page A page of an account's history.
+     */
+    public void renderHistoryPage(TransactionPage page) {
+        BankMetrics metrics = page.getAccount().getBank().getMetrics();
+        long start = metrics.start();
+
+        for (int t = 0; t < page.size(); ++t) {
+            this.appendTransaction(this.buffer, page, t);
+            this.endLine();
+        }
+
+        metrics.stop(BankOperation.HISTORY, start);
+    }
+
+
+    /**
+     * This method appends a page of an account's history to a given builder (e.g. a protocol's response).
+     *
+     * @param page A page of an account's history.
+     * @param to   A builder the lines are appended to.
+     */
+    public void appendHistoryPage(TransactionPage page, StringBuilder to) {
+        BankMetrics metrics = page.getAccount().getBank().getMetrics();
+        long start = metrics.start();
+
+        for (int t = 0; t < page.size(); ++t) {
+            this.appendTransaction(to, page, t);
+            to.append('\n');
+        }
+
+        metrics.stop(BankOperation.HISTORY, start);
+    }
+
+
+    /**
+     * This method renders a line of text.
+     *
+     * @param text A text.
+     */
+    public void renderLine(String text) {
+        this.buffer.append(text);
+        this.endLine();
+    }
+
+
+    /**
+     * This method writes all rendered text to the output (the output itself is not flushed).
+     */
+    public void flush() {
+        if (this.out != null && this.buffer.length() > 0) {
+            this.out.append(this.buffer);
+            this.buffer.setLength(0);
+        }
+    }
+
+
+    /**
+     * This method ends a rendered line (and writes the buffer out if it is full).
+     */
+    private void endLine() {
+        this.buffer.append('\n');
+
+        if (this.out != null && this.buffer.length() >= FLUSH_THRESHOLD) {
+            this.out.append(this.buffer);
+            this.buffer.setLength(0);
+        }
+    }
+
+
+    /**
+     * This method appends a transaction's summary (without a line's end).
+     *
+     * @param to        A builder the summary is appended to.
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param memo      A transaction's description.
+     */
+    private void appendTransaction(StringBuilder to, long amount, long timestamp, String memo) {
+        this.appendTimestamp(to, timestamp);
+        StatementRenderer.appendAmount(to, amount);
+        to.append(" : ").append(memo);
+    }
+
+
+    /**
+     * This method appends a summary of a page's transaction (without a line's end); its memo is decoded
+     * straight into the builder.
+     *
+     * @param to   A builder the summary is appended to.
+     * @param page A page of an account's history.
+     * @param idx  A position on a page.
+     */
+    private void appendTransaction(StringBuilder to, TransactionPage page, int idx) {
+        this.appendTimestamp(to, page.getTimestamp(idx));
+        StatementRenderer.appendAmount(to, page.getAmount(idx));
+        page.appendMemo(idx, to.append(" : "));
+    }
+
+
+    /**
+     * This method appends an account's summary (without a line's end).
+     *
+     * @param to           A builder the summary is appended to.
+     * @param accountsUUID An account's UUID.
+     * @param balance      An account's balance (in cents).
+     * @param accountsName An account's name.
+     */
+    private static void appendAccount(StringBuilder to, String accountsUUID, long balance, String accountsName) {
+        to.append(accountsUUID);
+        StatementRenderer.appendAmount(to, balance);
+        to.append(" : ").append(accountsName);
+    }
+
+
+    /**
+     * This method appends " : $amount" (a negative amount in parentheses).
+     *
+     * @param to     A builder the amount is appended to.
+     * @param amount An amount (in cents).
+     */
+    private static void appendAmount(StringBuilder to, long amount) {
+        if (amount >= 0) {
+            Money.appendTo(to.append(" : $"), amount);
+        } else {
+            Money.appendTo(to.append(" : $("), amount).append(')');
+        }
+    }
+
+
+    /**
+     * This method appends a timestamp like Date.toString does ("EEE MMM dd HH:mm:ss zzz yyyy").
+     *
+     * @param to        A builder the timestamp is appended to.
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     */
+    private void appendTimestamp(StringBuilder to, long timestamp) {
+        if (timestamp < this.windowStart || timestamp >= this.windowEnd) {
+            this.openWindow(timestamp);
+        }
+
+        long localSeconds = Math.floorDiv(timestamp, 1000) + this.windowOffsetSeconds;
+        int secondOfDay = (int) Math.floorMod(localSeconds, 24L * 60 * 60);
+
+        to.append(this.datePrefix);
+        StatementRenderer.appendTwoDigits(to, secondOfDay / 3600);
+        to.append(':');
+        StatementRenderer.appendTwoDigits(to, secondOfDay / 60 % 60);
+        to.append(':');
+        StatementRenderer.appendTwoDigits(to, secondOfDay % 60);
+        to.append(this.dateSuffix);
+    }
+
+
+    /**
+     * This method caches a date's text of a time window containing a timestamp: a local day,
+     * cut by time zone's transitions (a time zone's offset and name are constant in a window).
+     *
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     */
+    private void openWindow(long timestamp) {
+        String text = new Date(timestamp).toString();
+        this.datePrefix = text.substring(0, 11);
+        this.dateSuffix = text.substring(19);
+
+        Instant instant = Instant.ofEpochMilli(timestamp);
+        this.windowOffsetSeconds = this.zoneRules.getOffset(instant).getTotalSeconds();
+
+        long localMillis = timestamp + this.windowOffsetSeconds * 1000L;
+        long dayStart = Math.floorDiv(localMillis, MILLIS_PER_DAY) * MILLIS_PER_DAY - this.windowOffsetSeconds * 1000L;
+
+        this.windowStart = dayStart;
+        this.windowEnd = dayStart + MILLIS_PER_DAY;
+
+        ZoneOffsetTransition previous = this.zoneRules.previousTransition(instant.plusNanos(1));
+        if (previous != null) {
+            this.windowStart = Math.max(this.windowStart, previous.getInstant().toEpochMilli());
+        }
+
+        ZoneOffsetTransition next = this.zoneRules.nextTransition(instant);
+        if (next != null) {
+            this.windowEnd = Math.min(this.windowEnd, next.getInstant().toEpochMilli());
+        }
+    }
+
+
+    /**
+     * This method appends a number 0-99 as two digits.
+     *
+     * @param to     A builder the number is appended to.
+     * @param number A number (0-99).
+     */
+    private static void appendTwoDigits(StringBuilder to, int number) {
+        to.append((char) ('0' + number / 10));
+        to.append((char) ('0' + number % 10));
+    }
+}
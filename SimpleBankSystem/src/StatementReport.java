@@ -0,0 +1,164 @@
+/**
+ * A class reporting an outcome of an end-of-day statements' job (see StatementJob):
+ * numbers of rendered statements, transactions, shards' files and bytes and the job's wall time.
+ */
+public class StatementReport {
+
+    /**
+     * A number of rendered statements (one per account).
+     */
+    private long numberOfAccounts;
+
+    /**
+     * A number of rendered transactions.
+     */
+    private long numberOfTransactions;
+
+    /**
+     * A number of written shards' files.
+     */
+    private int numberOfShards;
+
+    /**
+     * A number of written bytes.
+     */
+    private long numberOfBytes;
+
+    /**
+     * The job's wall time (in nanoseconds).
+     */
+    private long elapsedTime;
+
+
+    /**
+     * A public constructor creating an empty report.
+     */
+    public StatementReport() {
+        this.numberOfAccounts = 0;
+        this.numberOfTransactions = 0;
+        this.numberOfShards = 0;
+        this.numberOfBytes = 0;
+        this.elapsedTime = 0;
+    }
+
+
+    /**
+     * This method counts a rendered statement.
+     *
+     * @param numberOfTransactions A number of statement's transactions.
+     */
+    public void addStatement(int numberOfTransactions) {
+        this.numberOfAccounts++;
+        this.numberOfTransactions += numberOfTransactions;
+    }
+
+
+    /**
+     * This method counts a written shard's file.
+     *
+     * @param numberOfBytes A size of a shard's file (in bytes).
+     */
+    public void addShard(long numberOfBytes) {
+        this.numberOfShards++;
+        this.numberOfBytes += numberOfBytes;
+    }
+
+
+    /**
+     * This method adds another (e.g. a shard's) report to this report.
+     *
+     * @param other Another report.
+     *
+     * @return This report.
+     */
+    public StatementReport merge(StatementReport other) {
+        this.numberOfAccounts += other.numberOfAccounts;
+        this.numberOfTransactions += other.numberOfTransactions;
+        this.numberOfShards += other.numberOfShards;
+        this.numberOfBytes += other.numberOfBytes;
+
+        return this;
+    }
+
+
+    /**
+     * This method returns a number of rendered statements.
+     *
+     * @return A number of rendered statements (one per account).
+     */
+    public long getNumberOfAccounts() {
+        return this.numberOfAccounts;
+    }
+
+
+    /**
+     * This method returns a number of rendered transactions.
+     *
+     * @return A number of rendered transactions.
+     */
+    public long getNumberOfTransactions() {
+        return this.numberOfTransactions;
+    }
+
+
+    /**
+     * This method returns a number of written shards' files.
+     *
+     * @return A number of shards' files.
+     */
+    public int getNumberOfShards() {
+        return this.numberOfShards;
+    }
+
+
+    /**
+     * This method returns a number of written bytes.
+     *
+     * @return A number of bytes of all shards' files.
+     */
+    public long getNumberOfBytes() {
+        return this.numberOfBytes;
+    }
+
+
+    /**
+     * This method returns the job's wall time.
+     *
+     * @return The job's wall time (in nanoseconds).
+     */
+    public long getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+
+    /**
+     * This method sets the job's wall time.
+     *
+     * @param elapsedTime The job's wall time (in nanoseconds).
+     */
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+
+    /**
+     * This method returns a number of statements rendered per second.
+     *
+     * @return A number of accounts per second (0 if no time is set).
+     */
+    public double getAccountsPerSecond() {
+        return this.elapsedTime == 0 ? 0 : this.numberOfAccounts * 1e9 / this.elapsedTime;
+    }
+
+
+    /**
+     * This method returns a report's summary line.
+     *
+     * @return A report's summary line.
+     */
+    public String getSummaryLine() {
+        return String.format("%d statements (%d transactions) in %d shards, %.1f MiB in %.0f ms: %.0f accounts/s",
+                this.numberOfAccounts, this.numberOfTransactions, this.numberOfShards, this.numberOfBytes / 1048576.0,
+                this.elapsedTime / 1e6, this.getAccountsPerSecond());
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * A fork-join task rendering shards of an end-of-day statements' job (see StatementJob).
+ *
+ * Accounts are split into contiguous shards and every shard is rendered by one thread into its own file
+ * with its own StatementRenderer, so threads share neither a buffer nor a stream. Ranges of shards are split
+ * in halves between forked tasks, so idle threads steal the remaining shards.
+ */
+public class StatementTask extends RecursiveTask<StatementReport> {
+
+    /**
+     * A serialization's version (a task is never serialized).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A size of a shard's file's output buffer (in bytes).
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * All accounts of the job.
+     */
+    private Account[] accounts;
+
+    /**
+     * A number of the job's shards.
+     */
+    private int numberOfShards;
+
+    /**
+     * The first shard rendered by the task.
+     */
+    private int fromShard;
+
+    /**
+     * A shard after the last shard rendered by the task.
+     */
+    private int toShard;
+
+    /**
+     * Statements' time range's start (inclusive; milliseconds since the epoch).
+     */
+    private long fromTimestamp;
+
+    /**
+     * Statements' time range's end (exclusive; milliseconds since the epoch).
+     */
+    private long toTimestamp;
+
+    /**
+     * A job's description written at the beginning of every shard's file.
+     */
+    private String header;
+
+    /**
+     * A job's directory and shards' files' names' prefix (a shard's number and ".txt" are appended).
+     */
+    private Path filePrefix;
+
+
+    /**
+     * A public constructor creating a task rendering a range of shards.
+     *
+     * @param accounts       All accounts of the job.
+     * @param numberOfShards A number of the job's shards.
+     * @param fromShard      The first shard rendered by the task.
+     * @param toShard        A shard after the last shard rendered by the task.
+     * @param fromTimestamp  Statements' time range's start (inclusive; milliseconds since the epoch).
+     * @param toTimestamp    Statements' time range's end (exclusive; milliseconds since the epoch).
+     * @param header         A job's description written at the beginning of every shard's file.
+     * @param filePrefix     A job's directory and shards' files' names' prefix.
+     */
+    public StatementTask(Account[] accounts, int numberOfShards, int fromShard, int toShard,
+                         long fromTimestamp, long toTimestamp, String header, Path filePrefix) {
+        this.accounts = accounts;
+        this.numberOfShards = numberOfShards;
+        this.fromShard = fromShard;
+        this.toShard = toShard;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.header = header;
+        this.filePrefix = filePrefix;
+    }
+
+
+    /**
+     * This method returns a shard's file.
+     *
+     * @param filePrefix A job's directory and shards' files' names' prefix.
+     * @param shard      A shard's number.
+     *
+     * @return A shard's file.
+     */
+    public static Path getShardFile(Path filePrefix, int shard) {
+        return filePrefix.resolveSibling(filePrefix.getFileName() + String.format("%04d.txt", shard));
+    }
+
+
+    /**
+     * This method renders the task's shards (splitting them in halves between forked tasks).
+     *
+     * @return A report of the task's shards.
+     *
+     * @throws UncheckedIOException if a shard's file cannot be written.
+     */
+    @Override
+    protected StatementReport compute() {
+        if (this.toShard - this.fromShard == 1) {
+            return this.renderShard(this.fromShard);
+        }
+
+        int middle = (this.fromShard + this.toShard) >>> 1;
+        StatementTask left = new StatementTask(this.accounts, this.numberOfShards, this.fromShard, middle,
+                this.fromTimestamp, this.toTimestamp, this.header, this.filePrefix);
+        StatementTask right = new StatementTask(this.accounts, this.numberOfShards, middle, this.toShard,
+                this.fromTimestamp, this.toTimestamp, this.header, this.filePrefix);
+
+        left.fork();
+        StatementReport report = right.compute();
+
+        return left.join().merge(report);
+    }
+
+
+    /**
+     * This method renders statements of a shard's accounts into a shard's file.
+     *
+     * @param shard A shard's number.
+     *
+     * @return A report of a shard.
+     *
+     * @throws UncheckedIOException if a shard's file cannot be written.
+     */
+    private StatementReport renderShard(int shard) {
+        StatementReport report = new StatementReport();
+        int fromAccount = (int) ((long) shard * this.accounts.length / this.numberOfShards);
+        int toAccount = (int) ((long) (shard + 1) * this.accounts.length / this.numberOfShards);
+        Path file = StatementTask.getShardFile(this.filePrefix, shard);
+
+        try {
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(file),
+                    OUTPUT_BUFFER_SIZE), false, StandardCharsets.UTF_8)) {
+                StatementRenderer renderer = new StatementRenderer(out);
+
+                renderer.renderLine(this.header);
+                renderer.renderLine("");
+                for (int a = fromAccount; a < toAccount; ++a) {
+                    report.addStatement(renderer.renderStatement(this.accounts[a], this.fromTimestamp, this.toTimestamp));
+                }
+                renderer.flush();
+
+                // a print stream hides its output's exceptions
+                if (out.checkError()) {
+                    throw new IOException("A shard's file cannot be written: " + file);
+                }
+            }
+
+            report.addShard(Files.size(file));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return report;
+    }
+}
@@ -3,8 +3,8 @@ import java.util.Date;
 /** A class defining a transaction and functionalities connected with it. */
 public class Transaction {
 
-    /** A transaction's amount. */
-    private double transactionsAmount;
+    /** A transaction's amount (in cents). */
+    private long transactionsAmount;
 
     /** A transaction's date.
      * A format's example: Fri Sep 03 11:39:14 CEST 2021
@@ -20,10 +20,10 @@ public class Transaction {
 
     /**
      * A public constructor creating a new transaction (without a transactionsMemo - a transaction's description).
-     * @param transactionsAmount A transaction's amount.
+     * @param transactionsAmount A transaction's amount (in cents).
      * @param transactionsInAccount A target account of transaction.
      * */
-    public Transaction(double transactionsAmount, Account transactionsInAccount) {
+    public Transaction(long transactionsAmount, Account transactionsInAccount) {
         this.transactionsAmount = transactionsAmount;
         this.transactionsInAccount = transactionsInAccount;
 
@@ -34,43 +34,65 @@ public class Transaction {
 
     /**
      * A public constructor creating a new transaction (with a transactionsMemo - a transaction's description).
-     * @param transactionsAmount A transaction's amount.
+     * @param transactionsAmount A transaction's amount (in cents).
      * @param transactionsInAccount A target account of transaction.
      * @param transactionsMemo A transaction's description.
      * */
-    public Transaction(double transactionsAmount, String transactionsMemo, Account transactionsInAccount) {
+    public Transaction(long transactionsAmount, String transactionsMemo, Account transactionsInAccount) {
         this(transactionsAmount, transactionsInAccount);
         this.transactionsMemo = transactionsMemo;
     }
 
 
+    /**
+     * A public constructor creating a transaction with a given timestamp (e.g. a view of a stored transaction).
+     * @param transactionsAmount A transaction's amount (in cents).
+     * @param transactionsTimestamp A transaction's timestamp (milliseconds since the epoch).
+     * @param transactionsMemo A transaction's description.
+     * @param transactionsInAccount A target account of transaction.
+     * */
+    public Transaction(long transactionsAmount, long transactionsTimestamp, String transactionsMemo,
+                       Account transactionsInAccount) {
+        this.transactionsAmount = transactionsAmount;
+        this.TansactionsTimestamp = new Date(transactionsTimestamp);
+        this.transactionsMemo = transactionsMemo;
+        this.transactionsInAccount = transactionsInAccount;
+    }
+
+
     /**
      * This method returns a transaction's amount.
-     * @return A transaction's amount.
+     * @return A transaction's amount (in cents).
      * */
-    public double getTransactionsAmount() {
+    public long getTransactionsAmount() {
         return this.transactionsAmount;
     }
 
 
+    /**
+     * This method returns a transaction's timestamp.
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     * */
+    public long getTransactionsTimestamp() {
+        return this.TansactionsTimestamp.getTime();
+    }
+
+
+    /**
+     * This method returns a transaction's description.
+     * @return A transaction's description.
+     * */
+    public String getTransactionsMemo() {
+        return this.transactionsMemo;
+    }
+
+
     /**
      * This method returns (in a text format) a transaction's summary.
      * @return A transaction's summary (in a text format).
      * */
     public String getSummaryLine() {
-
-        if(this.transactionsAmount >= 0.0){
-            return String.format("%s : $%.02f : %s",
-                    this.TansactionsTimestamp.toString(),
-                    this.transactionsAmount,
-                    this.transactionsMemo);
-        }
-        else{
-            return String.format("%s : $(-%.02f) : %s",
-                    this.TansactionsTimestamp.toString(),
-                    -this.transactionsAmount,
-                    this.transactionsMemo);
-        }
-
+        return StatementRenderer.forThread().renderTransactionLine(
+                this.transactionsAmount, this.TansactionsTimestamp.getTime(), this.transactionsMemo);
     }
 }
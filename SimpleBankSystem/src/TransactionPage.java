@@ -0,0 +1,198 @@
+/**
+ * A class defining a page of an account's transactions' history (the newest transactions first)
+ * returned by Account.getHistoryPage, with a cursor of the next (older) page.
+ *
+ * Like TransactionStore, a page keeps its transactions in primitive columns (memos as codes
+ * of the bank's MemoDictionary, decoded when they are rendered); Transaction objects are created
+ * only on demand (as views of rows).
+ */
+public class TransactionPage {
+
+    /**
+     * A cursor of the first page (it starts at an account's newest transaction).
+     */
+    public static final int FROM_NEWEST = Integer.MAX_VALUE;
+
+    /**
+     * A cursor returned when there are no more pages.
+     */
+    public static final int END = -1;
+
+    /**
+     * An account the transactions belong to.
+     */
+    private Account account;
+
+    /**
+     * Transactions' amounts (in cents; the newest first).
+     */
+    private long[] amounts;
+
+    /**
+     * Transactions' timestamps (milliseconds since the epoch; the newest first).
+     */
+    private long[] timestamps;
+
+    /**
+     * Codes of transactions' descriptions (see MemoDictionary; the newest first).
+     */
+    private long[] memoCodes;
+
+    /**
+     * Descriptions of transactions whose memos are not interned (null if there are none on a page).
+     */
+    private String[] unsharedMemos;
+
+    /**
+     * A cursor of the next page or END.
+     */
+    private int nextCursor;
+
+
+    /**
+     * A public constructor creating a page.
+     *
+     * @param account    An account the transactions belong to.
+     * @param amounts    Transactions' amounts (in cents; the newest first).
+     * @param timestamps Transactions' timestamps (the newest first).
+     * @param memoCodes  Codes of transactions' descriptions (the newest first).
+     * @param nextCursor A cursor of the next page or END.
+     */
+    public TransactionPage(Account account, long[] amounts, long[] timestamps, long[] memoCodes, int nextCursor) {
+        this(account, amounts, timestamps, memoCodes, null, nextCursor);
+    }
+
+
+    /**
+     * A public constructor creating a page with transactions whose memos are not interned.
+     *
+     * @param account       An account the transactions belong to.
+     * @param amounts       Transactions' amounts (in cents; the newest first).
+     * @param timestamps    Transactions' timestamps (the newest first).
+     * @param memoCodes     Codes of transactions' descriptions (the newest first).
+     * @param unsharedMemos Descriptions of transactions coded UNSHARED_MEMO (the newest first; null - none).
+     * @param nextCursor    A cursor of the next page or END.
+     */
+    public TransactionPage(Account account, long[] amounts, long[] timestamps, long[] memoCodes,
+                           String[] unsharedMemos, int nextCursor) {
+        this.account = account;
+        this.amounts = amounts;
+        this.timestamps = timestamps;
+        this.memoCodes = memoCodes;
+        this.unsharedMemos = unsharedMemos;
+        this.nextCursor = nextCursor;
+    }
+
+
+    /**
+     * This method returns a page's account.
+     *
+     * @return An account whose transactions are on a page.
+     */
+    public Account getAccount() {
+        return this.account;
+    }
+
+
+    /**
+     * This method returns a number of page's transactions.
+     *
+     * @return A number of page's transactions.
+     */
+    public int size() {
+        return this.amounts.length;
+    }
+
+
+    /**
+     * This method returns a page's transaction (a new view of a page's row).
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     *
+     * @return A transaction.
+     */
+    public Transaction getTransaction(int idx) {
+        return new Transaction(this.amounts[idx], this.timestamps[idx], this.getMemo(idx), this.account);
+    }
+
+
+    /**
+     * This method returns an amount of a page's transaction.
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     *
+     * @return A transaction's amount (in cents).
+     */
+    public long getAmount(int idx) {
+        return this.amounts[idx];
+    }
+
+
+    /**
+     * This method returns a timestamp of a page's transaction.
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     *
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     */
+    public long getTimestamp(int idx) {
+        return this.timestamps[idx];
+    }
+
+
+    /**
+     * This method returns a description of a page's transaction.
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     *
+     * @return A transaction's description (decoded by the bank's memo dictionary).
+     */
+    public String getMemo(int idx) {
+        return this.account.getBank().getMemoDictionary().decode(this.memoCodes[idx], this.getUnsharedMemo(idx));
+    }
+
+
+    /**
+     * This method appends a description of a page's transaction to a builder (without decoding it into a String).
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     * @param to  A builder the description is appended to.
+     *
+     * @return A given builder.
+     */
+    public StringBuilder appendMemo(int idx, StringBuilder to) {
+        return this.account.getBank().getMemoDictionary().appendTo(to, this.memoCodes[idx], this.getUnsharedMemo(idx));
+    }
+
+
+    /**
+     * This method returns a description of a page's transaction whose memo is not interned.
+     *
+     * @param idx A position on a page (0 - the newest transaction).
+     *
+     * @return A transaction's description if its code is UNSHARED_MEMO, null otherwise.
+     */
+    private String getUnsharedMemo(int idx) {
+        return this.unsharedMemos != null ? this.unsharedMemos[idx] : null;
+    }
+
+
+    /**
+     * This method returns a cursor of the next (older) page.
+     *
+     * @return A cursor of the next page or END if there are no more transactions.
+     */
+    public int getNextCursor() {
+        return this.nextCursor;
+    }
+
+
+    /**
+     * This method checks whether there are more (older) transactions.
+     *
+     * @return true if there is a next page, false otherwise.
+     */
+    public boolean hasNextPage() {
+        return this.nextCursor != END;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * An interface of a storage of an account's transactions: rows of an amount, a timestamp and a memo's code
+ * (see MemoDictionary) kept in time order (see HeapTransactionStore and OffHeapTransactionStore).
+ * A memo which is not interned (MemoDictionary.UNSHARED_MEMO) keeps its text in the store, next to its row.
+ * A store is not thread-safe; an account uses it under its lock.
+ */
+public interface TransactionStore {
+
+    /**
+     * This method appends a transaction to a store.
+     *
+     * @param amount    A transaction's amount (in cents).
+     * @param timestamp A transaction's timestamp (milliseconds since the epoch, not older than the last one).
+     * @param memoCode  A code of a transaction's description (see MemoDictionary; not UNSHARED_MEMO).
+     */
+    void add(long amount, long timestamp, long memoCode);
+
+
+    /**
+     * This method appends a transaction to a store (with its memo's text if the memo is not interned).
+     *
+     * @param amount       A transaction's amount (in cents).
+     * @param timestamp    A transaction's timestamp (milliseconds since the epoch, not older than the last one).
+     * @param memoCode     A code of a transaction's description (see MemoDictionary).
+     * @param unsharedMemo A transaction's description if a code is UNSHARED_MEMO (ignored otherwise).
+     */
+    void add(long amount, long timestamp, long memoCode, String unsharedMemo);
+
+
+    /**
+     * This method returns a number of stored transactions.
+     *
+     * @return A number of stored transactions.
+     */
+    int size();
+
+
+    /**
+     * This method returns an amount of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's amount (in cents).
+     */
+    long getAmount(int idx);
+
+
+    /**
+     * This method returns a timestamp of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's timestamp (milliseconds since the epoch).
+     */
+    long getTimestamp(int idx);
+
+
+    /**
+     * This method returns a code of a description of a given transaction.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A code of a transaction's description (see MemoDictionary).
+     */
+    long getMemoCode(int idx);
+
+
+    /**
+     * This method returns a description of a given transaction whose memo is not interned.
+     *
+     * @param idx A position of a transaction.
+     *
+     * @return A transaction's description if its code is UNSHARED_MEMO, null otherwise.
+     */
+    String getUnsharedMemo(int idx);
+
+
+    /**
+     * This method returns a timestamp of the latest transaction.
+     *
+     * @return The latest transaction's timestamp or Long.MIN_VALUE if a store is empty.
+     */
+    long getLastTimestamp();
+
+
+    /**
+     * This method finds (by a binary search) a position of the first transaction not older than a given timestamp.
+     *
+     * @param timestamp A timestamp (milliseconds since the epoch).
+     *
+     * @return A position of the first transaction with a timestamp &gt;= a given one (size() if there is none).
+     */
+    int lowerBound(long timestamp);
+
+
+    /**
+     * This method returns a sum of all stored transactions' amounts.
+     *
+     * @return A sum of transactions' amounts (in cents).
+     */
+    long sumOfAmounts();
+
+
+    /**
+     * This method checks whether transactions are stored off the heap.
+     *
+     * @return true if transactions are stored off the heap, false otherwise.
+     */
+    boolean isOffHeap();
+}
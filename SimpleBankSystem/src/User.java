@@ -1,6 +1,4 @@
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A class defining a bank system user and functionalities connected with him.
@@ -23,14 +21,19 @@ public class User {
     private String usersUUID;
 
     /**
-     * User's pin number's hash (MD5).
+     * User's pin number's hash (see Bank's PinHasher).
      */
     private byte usersPinHash[];
 
     /**
-     * List of user's bank accounts.
+     * List of user's bank accounts (rarely changed, so it is copied on write and read without locking).
      */
-    private ArrayList<Account> usersAccounts;
+    private CopyOnWriteArrayList<Account> usersAccounts;
+
+    /**
+     * A bank the user is associated with.
+     */
+    private Bank bank;
 
 
     /**
@@ -47,20 +50,16 @@ public class User {
         this.firstName = firstName;
         this.lastName = lastName;
 
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            this.usersPinHash = md.digest(usersPin.getBytes());
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("error, caught NoSuchAlgorithmException during user's pin's encryption");
-            e.printStackTrace();
-            System.exit(1);
-        }
+        // store only user's pin's hash
+        this.usersPinHash = theBank.getPinHasher().hash(usersPin);
 
         // new unique unique user ID
         this.usersUUID = theBank.createNewUserUUID();
 
         // empty list of usersAccounts
-        this.usersAccounts = new ArrayList<Account>();
+        this.usersAccounts = new CopyOnWriteArrayList<Account>();
+
+        this.bank = theBank;
 
         // (! - printf, not println, because of %s operators) log message
         System.out.printf("New user %s, %s, with %s ID created.\n", lastName, firstName, this.usersUUID);
@@ -68,6 +67,25 @@ public class User {
     }
 
 
+    /**
+     * A public constructor restoring a bank system user (e.g. from a bank's snapshot or journal).
+     *
+     * @param usersUUID    A user's unique ID.
+     * @param firstName    A name of a user.
+     * @param lastName     A surname of a user.
+     * @param usersPinHash A user's pin's hash.
+     * @param theBank      A bank the user is associated with.
+     */
+    public User(String usersUUID, String firstName, String lastName, byte[] usersPinHash, Bank theBank) {
+        this.usersUUID = usersUUID;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.usersPinHash = usersPinHash.clone();
+        this.usersAccounts = new CopyOnWriteArrayList<Account>();
+        this.bank = theBank;
+    }
+
+
     /**
      * This method returns a user's first name.
      *
@@ -78,6 +96,26 @@ public class User {
     }
 
 
+    /**
+     * This method returns a user's last name.
+     *
+     * @return A user's last name.
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+
+    /**
+     * This method returns a user's pin's hash (e.g. to be persisted).
+     *
+     * @return A copy of a user's pin's hash.
+     */
+    public byte[] getUsersPinHash() {
+        return this.usersPinHash.clone();
+    }
+
+
     /**
      * This method returns a user's unique identifier (usersUUID) in a given bank.
      *
@@ -106,16 +144,7 @@ public class User {
      * @return true if an entered pin is correct, false otherwise.
      */
     public boolean validatePIN(String pin) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            return MessageDigest.isEqual(md.digest(pin.getBytes()), this.usersPinHash);
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("error, caught NoSuchAlgorithmException");
-            e.printStackTrace();
-            System.exit(1);
-        }
-
-        return false;
+        return this.bank.getPinHasher().matches(pin, this.usersPinHash);
     }
 
 
@@ -123,16 +152,7 @@ public class User {
      * This method prints accounts' states' summary for a given bank system user.
      */
     public void printAccountsSummary() {
-
-        System.out.printf("\n\n%s's usersAccounts summary\n", this.firstName);
-
-        for (int a = 0; a < this.usersAccounts.size(); ++a) {
-            System.out.printf("  %d) %s\n", a + 1,
-                    this.usersAccounts.get(a).getSummaryLine());
-
-        }
-
-        System.out.println();
+        new StatementRenderer(System.out).renderAccountsSummary(this);
     }
 
 
@@ -162,13 +182,35 @@ public class User {
      * This method returns a current balance of a given user's account (in a given bank).
      *
      * @param accountIdx A position on a user's accounts list connected with an account to be considered.
-     * @return A current balance of a given user's account (in a given bank).
+     * @return A current balance (in cents) of a given user's account (in a given bank).
      */
-    public double getAccountBalance(int accountIdx) {
+    public long getAccountBalance(int accountIdx) {
         return this.usersAccounts.get(accountIdx).getBalance();
     }
 
 
+    /**
+     * This method returns a given user's account (in a given bank).
+     *
+     * @param accountIdx A position on a user's accounts list connected with an account to be considered.
+     * @return A given user's account.
+     */
+    public Account getAccount(int accountIdx) {
+        return this.usersAccounts.get(accountIdx);
+    }
+
+
+    /**
+     * This method returns a state's summary of a given user's account (in a given bank).
+     *
+     * @param accountIdx A position on a user's accounts list connected with an account to be considered.
+     * @return A state's summary of a given user's account.
+     */
+    public String getAccountSummaryLine(int accountIdx) {
+        return this.usersAccounts.get(accountIdx).getSummaryLine();
+    }
+
+
     /**
      * This method returns a given user's account's UUID (Universal and Unique Identifier) (in a given bank).
      *
@@ -184,16 +226,76 @@ public class User {
      * This method adds a transaction to a corresponding account's transaction list.
      *
      * @param accountIdx A position on a user's accounts list connected with an account to be considered.
-     * @param amount  An amount of transaction.
+     * @param amount  An amount of transaction (in cents).
      * @param memo    An optional transaction description.
      */
-    public void addAccountTransaction(int accountIdx, double amount, String memo) {
+    public void addAccountTransaction(int accountIdx, long amount, String memo) {
 
-        this.usersAccounts.get(accountIdx).addTransaction(
-                new Transaction(
-                        amount, memo, this.usersAccounts.get(accountIdx)
-                )
-        );
+        this.usersAccounts.get(accountIdx).addTransaction(amount, memo);
 
     }
+
+
+    /**
+     * This method deposits funds to a given user's account.
+     *
+     * @param accountIdx A position on a user's accounts list connected with an account to be considered.
+     * @param amount     A positive amount (in cents).
+     * @param memo       An optional transaction description.
+     */
+    public void depositToAccount(int accountIdx, long amount, String memo) {
+        this.bank.getPostingEngine().deposit(this.usersAccounts.get(accountIdx), amount, memo);
+    }
+
+
+    /**
+     * This method withdraws funds from a given user's account if its balance covers them.
+     *
+     * @param accountIdx A position on a user's accounts list connected with an account to be considered.
+     * @param amount     A positive amount (in cents).
+     * @param memo       An optional transaction description.
+     *
+     * @return true if funds are withdrawn, false if an account's balance is insufficient.
+     */
+    public boolean withdrawFromAccount(int accountIdx, long amount, String memo) {
+        return this.bank.getPostingEngine().withdraw(this.usersAccounts.get(accountIdx), amount, memo);
+    }
+
+
+    /**
+     * This method transfers funds between two user's accounts if a source account's balance covers them.
+     *
+     * @param sourceIdx A position on a user's accounts list of a source account.
+     * @param targetIdx A position on a user's accounts list of a target account.
+     * @param amount    A positive amount (in cents).
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     */
+    public boolean transferBetweenAccounts(int sourceIdx, int targetIdx, long amount) {
+        Account source = this.usersAccounts.get(sourceIdx);
+        Account target = this.usersAccounts.get(targetIdx);
+
+        MemoDictionary dictionary = this.bank.getMemoDictionary();
+
+        return this.bank.getPostingEngine().transfer(source, target, amount,
+                dictionary.encode(MemoDictionary.TRANSFER_TO, target.getAccountsUUID()),
+                dictionary.encode(MemoDictionary.TRANSFER_FROM, source.getAccountsUUID()));
+    }
+
+
+    /**
+     * This method transfers funds from a given user's account to any bank's account (e.g. another customer's one)
+     * if a source account's balance covers them.
+     *
+     * @param sourceIdx  A position on a user's accounts list of a source account.
+     * @param targetUUID A target account's UUID.
+     * @param amount     A positive amount (in cents).
+     *
+     * @return true if funds are transferred, false if a source account's balance is insufficient.
+     *
+     * @throws IllegalArgumentException if a target account does not exist or it is a source account.
+     */
+    public boolean transferToAccount(int sourceIdx, String targetUUID, long amount) {
+        return this.bank.transfer(this.usersAccounts.get(sourceIdx).getAccountsUUID(), targetUUID, amount);
+    }
 }